@@ -0,0 +1,81 @@
+package lite.sqlite.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import lite.sqlite.server.datastructure.BplusTree.BplusTree;
+
+/**
+ * In-memory {@link BplusTree} insert and unique lookup at several node degrees.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BplusTreeBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final int INSERTS = 10_000;
+
+    @Param({"4", "16", "64", "256"})
+    public int degree;
+
+    private BplusTree<Integer, Integer> tree;
+    private Integer[] lookupKeys;
+    private Integer[] insertKeys;
+    private int nextLookup;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Integer[] keys = shuffledKeys(KEYS, random);
+        tree = new BplusTree<>(degree);
+        for (Integer key : keys) {
+            tree.insert(key, key);
+        }
+        lookupKeys = shuffledKeys(KEYS, random);
+        insertKeys = shuffledKeys(INSERTS, random);
+    }
+
+    /** Unique lookup of a key present in a tree of 100,000 keys. */
+    @Benchmark
+    public Integer lookup() {
+        Integer key = lookupKeys[nextLookup];
+        nextLookup = nextLookup + 1 == lookupKeys.length ? 0 : nextLookup + 1;
+        return tree.searchUniqueIndex(key);
+    }
+
+    /** Builds a tree from 10,000 keys in random order; the score is per insert. */
+    @Benchmark
+    @OperationsPerInvocation(INSERTS)
+    public BplusTree<Integer, Integer> insert() {
+        BplusTree<Integer, Integer> built = new BplusTree<>(degree);
+        for (Integer key : insertKeys) {
+            built.insert(key, key);
+        }
+        return built;
+    }
+
+    private static Integer[] shuffledKeys(int count, Random random) {
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,94 @@
+package lite.sqlite.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.buffer.ReplacementPolicyType;
+
+/**
+ * Pin and unpin of random blocks through one shared {@link BufferPool} of 256 frames, by
+ * 1, 4 and 16 threads. With 128 blocks every pin is a hit; with 4096 most pins evict a
+ * frame and read its replacement from disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BufferPoolBenchmark {
+
+    private static final String FILE_NAME = "bench_buffer.tbl";
+    private static final int POOL_SIZE = 256;
+
+    @Param({"lru-k", "clock-pro"})
+    public String policy;
+
+    @Param({"128", "4096"})
+    public int blocks;
+
+    private File directory;
+    private BasicFileManager fileManager;
+    private BufferPool bufferPool;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = BenchmarkFiles.createDirectory("lite-sqlite-bufferpool");
+        fileManager = new BasicFileManager(directory);
+        Files.createFile(directory.toPath().resolve(FILE_NAME));
+        for (int i = 0; i < blocks; i++) {
+            fileManager.append(FILE_NAME);
+        }
+        bufferPool = new BufferPool(POOL_SIZE, fileManager, ReplacementPolicyType.parse(policy));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        bufferPool.close();
+        fileManager.close();
+        BenchmarkFiles.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int pinUnpin1Thread() throws IOException {
+        return pinUnpin();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int pinUnpin4Threads() throws IOException {
+        return pinUnpin();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int pinUnpin16Threads() throws IOException {
+        return pinUnpin();
+    }
+
+    private int pinUnpin() throws IOException {
+        Block block = new Block(FILE_NAME, ThreadLocalRandom.current().nextInt(blocks));
+        Page page = bufferPool.pinBlock(block);
+        try {
+            return page.getInt(0);
+        } finally {
+            bufferPool.unpinBlock(block);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package lite.sqlite.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.storage.filemanager.FileManagerType;
+
+/**
+ * Random block reads and writes on a 16 MB file through one shared file manager, for each
+ * backend ({@code basic}: channel I/O, {@code mmap}: mapped chunks). Writes are not forced
+ * to disk, so both mostly measure the call path and the page cache. {@code append} grows a
+ * new file one block at a time, as inserts do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FileManagerBenchmark {
+
+    private static final String FILE_NAME = "bench_file.tbl";
+    private static final int BLOCKS = 4096;
+    private static final int APPENDS = 1024;
+
+    @Param({"basic", "mmap"})
+    public String backend;
+
+    private File directory;
+    private FileManager fileManager;
+
+    @State(Scope.Thread)
+    public static class Frame {
+        final Page page = new Page();
+    }
+
+    @State(Scope.Thread)
+    public static class AppendTarget {
+        File directory;
+        FileManager fileManager;
+
+        @Setup(Level.Invocation)
+        public void setup(FileManagerBenchmark benchmark) throws IOException {
+            directory = BenchmarkFiles.createDirectory("lite-sqlite-append");
+            fileManager = FileManagerType.parse(benchmark.backend).create(directory);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            fileManager.close();
+            BenchmarkFiles.deleteDirectory(directory);
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        directory = BenchmarkFiles.createDirectory("lite-sqlite-filemanager");
+        fileManager = FileManagerType.parse(backend).create(directory);
+        Files.createFile(directory.toPath().resolve(FILE_NAME));
+        fileManager.appendExtent(FILE_NAME, BLOCKS);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fileManager.close();
+        BenchmarkFiles.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Page read(Frame frame) throws IOException {
+        fileManager.read(randomBlock(), frame.page);
+        return frame.page;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Page read4Threads(Frame frame) throws IOException {
+        fileManager.read(randomBlock(), frame.page);
+        return frame.page;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Page write(Frame frame) throws IOException {
+        Block block = randomBlock();
+        frame.page.setInt(0, block.getBlockNum());
+        fileManager.write(block, frame.page);
+        return frame.page;
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(APPENDS)
+    public Block append(AppendTarget target) throws IOException {
+        Block block = null;
+        for (int i = 0; i < APPENDS; i++) {
+            block = target.fileManager.append(FILE_NAME);
+        }
+        return block;
+    }
+
+    private static Block randomBlock() {
+        return new Block(FILE_NAME, ThreadLocalRandom.current().nextInt(BLOCKS));
+    }
+}
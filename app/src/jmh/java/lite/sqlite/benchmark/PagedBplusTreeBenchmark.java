@@ -0,0 +1,159 @@
+package lite.sqlite.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.filemanager.DatabaseHeader;
+import lite.sqlite.server.storage.index.IndexEntry;
+import lite.sqlite.server.storage.index.IndexKeyCodec;
+import lite.sqlite.server.storage.index.PagedBplusTree;
+import lite.sqlite.server.storage.table.RecordId;
+
+/**
+ * {@link PagedBplusTree} over a {@link BufferPool} that holds the whole tree: unique
+ * lookups, scans of 1,000 consecutive keys and inserts, on a tree bulk loaded with 100,000
+ * keys, for each database page size and bulk-load fill factor. Larger pages make the tree
+ * shallower; a tree loaded full splits a node on the first insert that reaches it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PagedBplusTreeBenchmark {
+
+    private static final String INDEX_FILE = "bench_tree_id.idx";
+    private static final String TABLE_FILE = "bench_tree.tbl";
+    private static final int KEYS = 100_000;
+    private static final int RANGE = 1_000;
+    private static final int POOL_SIZE = 2048;
+    private static final int ROWS_PER_BLOCK = 64;
+
+    @Param({"4096", "8192", "16384", "32768"})
+    public int pageSize;
+
+    @Param({"0.7", "1.0"})
+    public double fillFactor;
+
+    private File directory;
+    private BasicFileManager fileManager;
+    private BufferPool bufferPool;
+    private PagedBplusTree<Integer> tree;
+    private int[] lookupKeys;
+    private int[] insertKeys;
+    private int nextLookup;
+    private int nextInsert;
+    private int insertRound;
+
+    @Setup
+    public void setup() {
+        directory = BenchmarkFiles.createDirectory("lite-sqlite-btree");
+        System.setProperty(DatabaseHeader.PAGE_SIZE_KEY, String.valueOf(pageSize));
+        try {
+            fileManager = new BasicFileManager(directory);
+        } finally {
+            System.clearProperty(DatabaseHeader.PAGE_SIZE_KEY);
+        }
+        bufferPool = new BufferPool(POOL_SIZE, fileManager);
+        Random random = new Random(42);
+        lookupKeys = shuffledKeys(KEYS, random);
+        insertKeys = shuffledKeys(KEYS, random);
+    }
+
+    /**
+     * Loads the even keys below 200,000 again, so that every iteration inserts into the
+     * same tree.
+     */
+    @Setup(Level.Iteration)
+    public void loadTree() throws IOException {
+        tree = PagedBplusTree.create(bufferPool, fileManager, INDEX_FILE, TABLE_FILE, IndexKeyCodec.integer());
+        tree.bulkLoad(new Iterator<IndexEntry<Integer>>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < KEYS;
+            }
+
+            @Override
+            public IndexEntry<Integer> next() {
+                int i = next++;
+                return new IndexEntry<>(2 * i, new RecordId(new Block(TABLE_FILE, i / ROWS_PER_BLOCK), i % ROWS_PER_BLOCK));
+            }
+        }, fillFactor);
+        nextInsert = 0;
+        insertRound = 0;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        bufferPool.close();
+        fileManager.close();
+        BenchmarkFiles.deleteDirectory(directory);
+    }
+
+    /** Unique lookup of a key present in the tree. */
+    @Benchmark
+    public RecordId search() {
+        int key = 2 * lookupKeys[nextLookup];
+        nextLookup = nextLookup + 1 == lookupKeys.length ? 0 : nextLookup + 1;
+        return tree.search(key);
+    }
+
+    /** Reads the 1,000 entries from a random key on; the score is per scan. */
+    @Benchmark
+    public int rangeScan() {
+        int low = 2 * lookupKeys[nextLookup];
+        nextLookup = nextLookup + 1 == lookupKeys.length ? 0 : nextLookup + 1;
+        Iterator<RecordId> rids = tree.rangeScan(low, true, low + 2 * RANGE, false);
+        int count = 0;
+        while (rids.hasNext()) {
+            rids.next();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Inserts an odd key, which falls between two loaded ones. Once every odd key is in,
+     * they are inserted again with other record ids.
+     */
+    @Benchmark
+    public void insert() {
+        int key = 2 * insertKeys[nextInsert] + 1;
+        tree.insert(key, new RecordId(new Block(TABLE_FILE, KEYS + insertRound), key % ROWS_PER_BLOCK));
+        if (++nextInsert == insertKeys.length) {
+            nextInsert = 0;
+            insertRound++;
+        }
+    }
+
+    private static int[] shuffledKeys(int count, Random random) {
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,69 @@
+package lite.sqlite.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import lite.sqlite.server.parser.FastSqlParser;
+import lite.sqlite.server.parser.ParserImpl;
+
+/**
+ * Statements parsed per second by the recursive-descent fast path and by the ANTLR grammar,
+ * for each kind of statement the engine runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParserBenchmark {
+
+    @Param({"point-select", "range-select", "insert", "update", "delete", "create-table"})
+    public String statement;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        switch (statement) {
+            case "point-select":
+                sql = "SELECT name, age FROM users WHERE id = 4711";
+                break;
+            case "range-select":
+                sql = "SELECT * FROM users WHERE age BETWEEN 20 AND 30 AND name > 'm'";
+                break;
+            case "insert":
+                sql = "INSERT INTO users (id, name, age) VALUES (4711, 'user_4711', 42)";
+                break;
+            case "update":
+                sql = "UPDATE users SET name = 'renamed', age = 43 WHERE id = 4711";
+                break;
+            case "delete":
+                sql = "DELETE FROM users WHERE id = 4711";
+                break;
+            case "create-table":
+                sql = "CREATE TABLE users (id INTEGER, name VARCHAR(40), age INTEGER)";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown statement: " + statement);
+        }
+        if (FastSqlParser.parse(sql) == null) {
+            throw new IllegalStateException("Not in the fast-path subset: " + sql);
+        }
+    }
+
+    @Benchmark
+    public Object fastPath() {
+        return FastSqlParser.parse(sql);
+    }
+
+    @Benchmark
+    public Object grammar() {
+        return ParserImpl.parseWithGrammar(sql);
+    }
+}
@@ -0,0 +1,111 @@
+package lite.sqlite.benchmark;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import lite.sqlite.cli.TableDto;
+import lite.sqlite.server.queryengine.PreparedStatement;
+import lite.sqlite.server.queryengine.QueryCursor;
+import lite.sqlite.server.queryengine.QueryEngineImpl;
+import lite.sqlite.server.storage.filemanager.DatabaseHeader;
+import lite.sqlite.server.storage.record.Record;
+
+/**
+ * End-to-end statements through {@link QueryEngineImpl} on a table with a unique index
+ * on {@code id}: point lookups as SQL text and as a prepared statement, and a full scan
+ * filtering on the unindexed {@code age} column, for each database page size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBenchmark {
+
+    private static final String TABLE_NAME = "bench_users";
+
+    @Param({"20000"})
+    public int rows;
+
+    @Param({"4096", "8192", "16384", "32768"})
+    public int pageSize;
+
+    private File directory;
+    private QueryEngineImpl engine;
+    private PreparedStatement pointLookup;
+
+    @Setup
+    public void setup() {
+        directory = BenchmarkFiles.createDirectory("lite-sqlite-query");
+        System.setProperty(DatabaseHeader.PAGE_SIZE_KEY, String.valueOf(pageSize));
+        try {
+            engine = new QueryEngineImpl(directory);
+        } finally {
+            System.clearProperty(DatabaseHeader.PAGE_SIZE_KEY);
+        }
+        check(engine.doUpdate("CREATE TABLE " + TABLE_NAME + " (id INTEGER, name VARCHAR(40), age INTEGER)"));
+        check(engine.bulkLoad(TABLE_NAME, new Iterator<Record>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public Record next() {
+                int i = next++;
+                return new Record(new Object[] {i, "user_" + i, 18 + i % 60});
+            }
+        }));
+        check(engine.doCreateIndex("CREATE UNIQUE INDEX idx_bench_users_id ON " + TABLE_NAME + " (id)"));
+        check(engine.doUpdate("ANALYZE TABLE " + TABLE_NAME));
+        pointLookup = engine.prepare("SELECT name, age FROM " + TABLE_NAME + " WHERE id = ?");
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        BenchmarkFiles.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public TableDto pointLookup() {
+        return engine.doQuery("SELECT name, age FROM " + TABLE_NAME + " WHERE id = " + randomId());
+    }
+
+    @Benchmark
+    public TableDto preparedPointLookup() {
+        return engine.execute(pointLookup, randomId());
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        try (QueryCursor cursor = engine.openQuery("SELECT id, name FROM " + TABLE_NAME + " WHERE age = 30")) {
+            while (cursor.hasNext()) {
+                blackhole.consume(cursor.next());
+            }
+        }
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+
+    private static void check(TableDto result) {
+        if (result != null && result.getErrorMessage() != null) {
+            throw new IllegalStateException("Benchmark setup failed: " + result.getErrorMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package lite.sqlite.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.record.SlottedRecordPage;
+
+/**
+ * Record (de)serialization and insertion on a single {@link SlottedRecordPage}, without a
+ * buffer pool or write-ahead log behind it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecordPageBenchmark {
+
+    private final Object[] record = {4711, "user_4711", 42};
+
+    private Schema schema;
+    private SlottedRecordPage fullPage;
+    private int recordCount;
+    private int nextSlot;
+    private SlottedRecordPage insertPage;
+
+    @Setup
+    public void setup() {
+        schema = new Schema();
+        schema.addColumn("id", DataType.INTEGER);
+        schema.addColumn("name", DataType.VARCHAR, 40);
+        schema.addColumn("age", DataType.INTEGER);
+
+        fullPage = new SlottedRecordPage(new Page(), schema, null, null);
+        for (int i = 0; fullPage.insert(new Object[] {i, "user_" + i, 18 + i % 60}); i++) {
+            recordCount++;
+        }
+        insertPage = new SlottedRecordPage(new Page(), schema, null, null);
+    }
+
+    /** Serializes a record to find its length, as every insert and update does first. */
+    @Benchmark
+    public boolean serialize() {
+        return fullPage.checkSufficientRecordSpace(record);
+    }
+
+    /** Reads one slot and turns its bytes back into values. */
+    @Benchmark
+    public Object[] deserialize() {
+        int slot = nextSlot;
+        nextSlot = slot + 1 == recordCount ? 0 : slot + 1;
+        return fullPage.getRecord(slot);
+    }
+
+    /** Reads every record of a full page. */
+    @Benchmark
+    public List<SlottedRecordPage.RecordWithSlot> deserializePage() {
+        return fullPage.getAllRecords();
+    }
+
+    /** Appends a record, starting over on an empty page once the page is full. */
+    @Benchmark
+    public boolean insert() {
+        if (insertPage.insert(record)) {
+            return true;
+        }
+        insertPage = new SlottedRecordPage(new Page(), schema, null, null);
+        return insertPage.insert(record);
+    }
+}
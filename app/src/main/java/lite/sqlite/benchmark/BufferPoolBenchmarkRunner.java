@@ -0,0 +1,131 @@
+package lite.sqlite.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.buffer.BufferPool;
+
+public class BufferPoolBenchmarkRunner {
+    private static final String FILE_NAME = "bench_buffer.tbl";
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+    public static void main(String[] args) throws Exception {
+        int poolSize = parseArg(args, 0, 256);
+        int blockCount = parseArg(args, 1, 1024);
+        int opsPerThread = parseArg(args, 2, 200000);
+
+        File dbDirectory = new File("app/benchmark-db");
+
+        System.out.println("=== Lite SQLite Buffer Pool Benchmark ===");
+        System.out.println("Pool size: " + poolSize);
+        System.out.println("Blocks on disk: " + blockCount);
+        System.out.println("Operations per thread: " + opsPerThread);
+
+        deleteDirectory(dbDirectory.toPath());
+        dbDirectory.mkdirs();
+
+        BasicFileManager fileManager = new BasicFileManager(dbDirectory);
+        try {
+            Files.createFile(dbDirectory.toPath().resolve(FILE_NAME));
+            for (int i = 0; i < blockCount; i++) {
+                fileManager.append(FILE_NAME);
+            }
+
+            // Hit-heavy: working set fits in the pool. Miss-heavy: every block, forcing eviction.
+            int hotBlocks = Math.max(1, Math.min(blockCount, poolSize / 2));
+            System.out.println("\nWorkload: hit-heavy (" + hotBlocks + " hot blocks)");
+            runWorkload(fileManager, poolSize, hotBlocks, opsPerThread);
+
+            System.out.println("\nWorkload: miss-heavy (" + blockCount + " blocks)");
+            runWorkload(fileManager, poolSize, blockCount, Math.max(1, opsPerThread / 20));
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private static void runWorkload(BasicFileManager fileManager, int poolSize, int workingSet, int opsPerThread)
+            throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            BufferPool bufferPool = new BufferPool(poolSize, fileManager);
+            double opsPerSecond = measure(bufferPool, threads, workingSet, opsPerThread);
+            System.out.printf("threads=%-3d throughput: %,.0f pins/s, hit ratio: %.2f%%%n",
+                threads, opsPerSecond, bufferPool.getHitRatio());
+            bufferPool.close();
+        }
+    }
+
+    private static double measure(BufferPool bufferPool, int threads, int workingSet, int opsPerThread)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        Block block = new Block(FILE_NAME, random.nextInt(workingSet));
+                        Page page = bufferPool.pinBlock(block);
+                        page.getInt(0);
+                        bufferPool.unpinBlock(block);
+                    }
+                    return null;
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+            return (double) threads * opsPerThread / (elapsed / 1_000_000_000.0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int parseArg(String[] args, int index, int defaultValue) {
+        if (args.length <= index) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(args[index]);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static void deleteDirectory(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try {
+            Files.walk(path)
+                .sorted((a, b) -> b.compareTo(a))
+                .forEach(p -> {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed deleting benchmark path: " + p, e);
+                    }
+                });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed cleaning benchmark directory: " + path, e);
+        }
+    }
+}
@@ -6,10 +6,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import lite.sqlite.cli.TableDto;
 import lite.sqlite.server.queryengine.QueryEngineImpl;
+import lite.sqlite.server.storage.record.Record;
 
 public class IndexBenchmarkRunner {
     private static final String TABLE_NAME = "bench_orders";
@@ -44,12 +46,17 @@ public class IndexBenchmarkRunner {
             System.out.println("\nRunning full-scan baseline...");
             BenchmarkStats withoutIndex = measure(engine, query, warmup, iterations);
 
+            System.out.println("Building index...");
+            long buildStart = System.nanoTime();
             TableDto createIndexResult = engine.doCreateIndex(
                 "CREATE INDEX " + INDEX_NAME + " ON " + TABLE_NAME + "(status)"
             );
+            long buildNanos = System.nanoTime() - buildStart;
             if (isError(createIndexResult)) {
                 throw new RuntimeException("Failed to create benchmark index: " + createIndexResult.getErrorMessage());
             }
+            System.out.printf("Index build: %.3f ms (%.0f rows/s)%n",
+                nanosToMillis(buildNanos), rowCount / (buildNanos / 1_000_000_000.0));
 
             System.out.println("Running indexed lookup...");
             BenchmarkStats withIndex = measure(engine, query, warmup, iterations);
@@ -68,25 +75,29 @@ public class IndexBenchmarkRunner {
             throw new RuntimeException("Failed to create benchmark table: " + createResult.getErrorMessage());
         }
 
-        for (int i = 1; i <= rowCount; i++) {
-            int status = i % STATUS_BUCKETS;
-            String sql = String.format(
-                "INSERT INTO %s (id, status, payload) VALUES (%d, %d, 'payload_%d')",
-                TABLE_NAME,
-                i,
-                status,
-                i
-            );
+        Iterator<Record> rows = new Iterator<Record>() {
+            private int next = 1;
 
-            TableDto insertResult = engine.doUpdate(sql);
-            if (isError(insertResult)) {
-                throw new RuntimeException("Failed to insert benchmark row " + i + ": " + insertResult.getErrorMessage());
+            @Override
+            public boolean hasNext() {
+                return next <= rowCount;
             }
 
-            if (i % 5000 == 0) {
-                System.out.println("Inserted rows: " + i);
+            @Override
+            public Record next() {
+                int i = next++;
+                return new Record(new Object[] {i, i % STATUS_BUCKETS, "payload_" + i});
             }
+        };
+
+        long loadStart = System.nanoTime();
+        TableDto loadResult = engine.bulkLoad(TABLE_NAME, rows);
+        long loadNanos = System.nanoTime() - loadStart;
+        if (isError(loadResult)) {
+            throw new RuntimeException("Failed to load benchmark rows: " + loadResult.getErrorMessage());
         }
+        System.out.printf("Bulk load: %.3f ms (%.0f rows/s)%n",
+            nanosToMillis(loadNanos), rowCount / (loadNanos / 1_000_000_000.0));
     }
 
     private static BenchmarkStats measure(QueryEngineImpl engine, String query, int warmup, int iterations) {
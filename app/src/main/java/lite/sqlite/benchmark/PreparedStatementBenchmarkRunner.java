@@ -0,0 +1,191 @@
+package lite.sqlite.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import lite.sqlite.cli.TableDto;
+import lite.sqlite.server.parser.StatementCache;
+import lite.sqlite.server.queryengine.PreparedStatement;
+import lite.sqlite.server.queryengine.QueryEngineImpl;
+import lite.sqlite.server.storage.record.Record;
+
+/**
+ * Compares point lookups run as SQL text, parsed on every call with the statement cache
+ * turned off, against the same lookup prepared once and executed with a bound id.
+ */
+public class PreparedStatementBenchmarkRunner {
+    private static final String TABLE_NAME = "bench_users";
+    private static final String INDEX_NAME = "idx_bench_users_id";
+
+    public static void main(String[] args) {
+        int rowCount = parseArg(args, 0, 20000);
+        int warmup = parseArg(args, 1, 2000);
+        int iterations = parseArg(args, 2, 20000);
+
+        File dbDirectory = new File("app/benchmark-db");
+
+        System.out.println("=== Lite SQLite Prepared Statement Benchmark ===");
+        System.out.println("Rows: " + rowCount);
+        System.out.println("Warmup lookups: " + warmup);
+        System.out.println("Measured lookups: " + iterations);
+
+        deleteDirectory(dbDirectory.toPath());
+        dbDirectory.mkdirs();
+
+        System.setProperty(StatementCache.SIZE_KEY, "0");
+        QueryEngineImpl engine = new QueryEngineImpl(dbDirectory);
+        try {
+            setupData(engine, rowCount);
+
+            String sqlPrefix = "SELECT name, age FROM " + TABLE_NAME + " WHERE id = ";
+            PreparedStatement prepared = engine.prepare(sqlPrefix + "?");
+            System.out.println("Prepared: " + prepared);
+
+            Random random = new Random(42);
+            int[] keys = new int[warmup + iterations];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextInt(rowCount);
+            }
+
+            System.out.println("\nRunning parse-per-call lookups...");
+            long[] parsed = measure(keys, warmup, id -> engine.doQuery(sqlPrefix + id));
+            System.out.println("Running prepared lookups...");
+            long[] executed = measure(keys, warmup, id -> engine.execute(prepared, id));
+
+            printSummary(parsed, executed);
+        } finally {
+            engine.close();
+            System.clearProperty(StatementCache.SIZE_KEY);
+        }
+    }
+
+    private interface Lookup {
+        TableDto run(int id);
+    }
+
+    private static void setupData(QueryEngineImpl engine, int rowCount) {
+        TableDto createResult = engine.doUpdate(
+            "CREATE TABLE " + TABLE_NAME + " (id INTEGER, name VARCHAR(40), age INTEGER)"
+        );
+        if (isError(createResult)) {
+            throw new RuntimeException("Failed to create benchmark table: " + createResult.getErrorMessage());
+        }
+
+        Iterator<Record> rows = new Iterator<Record>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rowCount;
+            }
+
+            @Override
+            public Record next() {
+                int i = next++;
+                return new Record(new Object[] {i, "user_" + i, 18 + i % 60});
+            }
+        };
+        TableDto loadResult = engine.bulkLoad(TABLE_NAME, rows);
+        if (isError(loadResult)) {
+            throw new RuntimeException("Failed to load benchmark rows: " + loadResult.getErrorMessage());
+        }
+
+        TableDto indexResult = engine.doCreateIndex(
+            "CREATE UNIQUE INDEX " + INDEX_NAME + " ON " + TABLE_NAME + "(id)"
+        );
+        if (isError(indexResult)) {
+            throw new RuntimeException("Failed to create benchmark index: " + indexResult.getErrorMessage());
+        }
+    }
+
+    /**
+     * Runs one lookup per key and returns the sorted latencies of the calls after warmup.
+     */
+    private static long[] measure(int[] keys, int warmup, Lookup lookup) {
+        long[] samples = new long[keys.length - warmup];
+        for (int i = 0; i < keys.length; i++) {
+            long start = System.nanoTime();
+            TableDto result = lookup.run(keys[i]);
+            long elapsed = System.nanoTime() - start;
+            if (isError(result) || result.getRows().size() != 1) {
+                throw new RuntimeException("Lookup of id " + keys[i] + " failed: " + result.getErrorMessage());
+            }
+            if (i >= warmup) {
+                samples[i - warmup] = elapsed;
+            }
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static void printSummary(long[] parsed, long[] executed) {
+        System.out.println("\n=== Benchmark Results ===");
+        printLine("Parse per call", parsed);
+        printLine("Prepared      ", executed);
+        System.out.printf("Speedup        - mean: %.2fx, median: %.2fx%n",
+            mean(parsed) / mean(executed), (double) percentile(parsed, 0.5) / percentile(executed, 0.5));
+    }
+
+    private static void printLine(String label, long[] samples) {
+        double meanMicros = mean(samples) / 1_000.0;
+        System.out.printf("%s - mean: %.1f us, median: %.1f us, p95: %.1f us, %.0f lookups/s%n",
+            label, meanMicros, percentile(samples, 0.5) / 1_000.0, percentile(samples, 0.95) / 1_000.0,
+            1_000_000.0 / meanMicros);
+    }
+
+    private static double mean(long[] samples) {
+        double total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        return samples.length == 0 ? 0 : total / samples.length;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int idx = (int) Math.ceil(sorted.length * fraction) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+
+    private static boolean isError(TableDto dto) {
+        return dto != null && dto.getErrorMessage() != null;
+    }
+
+    private static int parseArg(String[] args, int index, int defaultValue) {
+        if (args.length <= index) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(args[index]);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static void deleteDirectory(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try {
+            Files.walk(path)
+                .sorted((a, b) -> b.compareTo(a))
+                .forEach(p -> {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed deleting benchmark path: " + p, e);
+                    }
+                });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed cleaning benchmark directory: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package lite.sqlite.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.buffer.AccessType;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.buffer.BufferRing;
+import lite.sqlite.server.storage.buffer.ReplacementPolicyType;
+
+/**
+ * Replays the same block traces against each replacement policy and compares hit
+ * ratios and pin latency. Point lookups are skewed (80% of accesses go to 20% of the
+ * blocks); the scan-heavy trace interleaves those lookups with repeated sequential scans
+ * over a table much larger than the pool, once through the main pool and once through a
+ * scan {@link BufferRing}.
+ */
+public class ReplacementPolicyBenchmarkRunner {
+    private static final String FILE_NAME = "bench_replacement.tbl";
+    private static final long SEED = 42L;
+
+    public static void main(String[] args) throws Exception {
+        int poolSize = parseArg(args, 0, 128);
+        int blockCount = parseArg(args, 1, 2048);
+        int operations = parseArg(args, 2, 200000);
+
+        File dbDirectory = new File("app/benchmark-db");
+
+        System.out.println("=== Lite SQLite Replacement Policy Benchmark ===");
+        System.out.println("Pool size: " + poolSize);
+        System.out.println("Blocks on disk: " + blockCount);
+        System.out.println("Operations per trace: " + operations);
+
+        deleteDirectory(dbDirectory.toPath());
+        dbDirectory.mkdirs();
+
+        BasicFileManager fileManager = new BasicFileManager(dbDirectory);
+        try {
+            Files.createFile(dbDirectory.toPath().resolve(FILE_NAME));
+            for (int i = 0; i < blockCount; i++) {
+                fileManager.append(FILE_NAME);
+            }
+
+            int hotBlocks = Math.max(1, poolSize / 2);
+            for (ReplacementPolicyType type : ReplacementPolicyType.values()) {
+                System.out.println("\nPolicy: " + type.getConfigName());
+                runTrace("point-lookup     ", fileManager, type, poolSize, blockCount, hotBlocks, operations, 0.0, false);
+                runTrace("scan-heavy       ", fileManager, type, poolSize, blockCount, hotBlocks, operations, 0.5, false);
+                runTrace("scan-heavy (ring)", fileManager, type, poolSize, blockCount, hotBlocks, operations, 0.5, true);
+            }
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private static void runTrace(String label, BasicFileManager fileManager, ReplacementPolicyType type,
+            int poolSize, int blockCount, int hotBlocks, int operations, double scanFraction, boolean useRing)
+            throws IOException {
+        BufferPool bufferPool = new BufferPool(poolSize, fileManager, type);
+        BufferRing ring = useRing ? bufferPool.newBufferRing() : null;
+        Random random = new Random(SEED);
+        int scanCursor = 0;
+        long pointHits = 0;
+        long pointLookups = 0;
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            boolean scan = random.nextDouble() < scanFraction;
+            int blockNum;
+            if (scan) {
+                blockNum = scanCursor;
+                scanCursor = (scanCursor + 1) % blockCount;
+            } else if (random.nextDouble() < 0.8) {
+                blockNum = random.nextInt(Math.min(hotBlocks, blockCount));
+            } else {
+                blockNum = random.nextInt(blockCount);
+            }
+
+            int hitsBefore = bufferPool.getHits();
+            Block block = new Block(FILE_NAME, blockNum);
+            bufferPool.pinBlock(block, scan ? ring : null);
+            bufferPool.unpinBlock(block);
+            if (!scan) {
+                pointLookups++;
+                pointHits += bufferPool.getHits() - hitsBefore;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        double pointHitRatio = pointLookups == 0 ? 0 : (double) pointHits / pointLookups * 100.0;
+        System.out.printf("%s overall hit ratio: %6.2f%%, point-lookup hit ratio: %6.2f%%, avg pin: %.3f us%n",
+            label, bufferPool.getHitRatio(), pointHitRatio, elapsed / 1000.0 / operations);
+        if (useRing) {
+            System.out.printf("%s by access type - normal: %6.2f%%, scan: %6.2f%%%n", label,
+                bufferPool.getHitRatio(AccessType.NORMAL), bufferPool.getHitRatio(AccessType.SCAN));
+        }
+        bufferPool.close();
+    }
+
+    private static int parseArg(String[] args, int index, int defaultValue) {
+        if (args.length <= index) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(args[index]);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static void deleteDirectory(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try {
+            Files.walk(path)
+                .sorted((a, b) -> b.compareTo(a))
+                .forEach(p -> {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed deleting benchmark path: " + p, e);
+                    }
+                });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed cleaning benchmark directory: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package lite.sqlite.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.buffer.BufferRing;
+import lite.sqlite.server.storage.buffer.ReadAheadPrefetcher;
+
+/**
+ * Measures sequential scan throughput over a file much larger than the buffer pool,
+ * with and without background read-ahead. Each block is processed {@code work} times
+ * to stand in for per-row CPU cost that read-ahead I/O can overlap with.
+ */
+public class ScanBenchmarkRunner {
+    private static final String FILE_NAME = "bench_scan.tbl";
+
+    public static void main(String[] args) throws Exception {
+        int poolSize = parseArg(args, 0, 256);
+        int blockCount = parseArg(args, 1, 8192);
+        int passes = parseArg(args, 2, 5);
+        int work = parseArg(args, 3, 8);
+
+        File dbDirectory = new File("app/benchmark-db");
+
+        System.out.println("=== Lite SQLite Sequential Scan Benchmark ===");
+        deleteDirectory(dbDirectory.toPath());
+        dbDirectory.mkdirs();
+
+        BasicFileManager fileManager = new BasicFileManager(dbDirectory);
+        int pageSize = fileManager.getPageSize();
+        System.out.println("Pool size: " + poolSize);
+        System.out.printf("Table size: %d blocks of %d bytes (%.1f MB)%n", blockCount, pageSize,
+            blockCount * (double) pageSize / (1024 * 1024));
+        System.out.println("Passes: " + passes);
+        System.out.println("Work per block: " + work);
+        try {
+            Files.createFile(dbDirectory.toPath().resolve(FILE_NAME));
+            for (int i = 0; i < blockCount; i++) {
+                Block block = fileManager.append(FILE_NAME);
+                Page page = new Page(pageSize);
+                for (int offset = 0; offset + Integer.BYTES <= pageSize; offset += Integer.BYTES) {
+                    page.setInt(offset, i + offset);
+                }
+                fileManager.write(block, page);
+            }
+
+            System.out.println("\nWithout read-ahead:");
+            runScans(fileManager, poolSize, blockCount, passes, work, false);
+
+            System.out.println("\nWith read-ahead:");
+            runScans(fileManager, poolSize, blockCount, passes, work, true);
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private static void runScans(BasicFileManager fileManager, int poolSize, int blockCount, int passes,
+            int work, boolean readAhead) throws IOException {
+        BufferPool bufferPool = new BufferPool(poolSize, fileManager);
+        int pageSize = fileManager.getPageSize();
+        if (readAhead) {
+            bufferPool.enableReadAhead(64, 2);
+        }
+        try {
+            for (int pass = 1; pass <= passes; pass++) {
+                BufferRing ring = bufferPool.newBufferRing();
+                long checksum = 0;
+                long begin = System.nanoTime();
+                for (int i = 0; i < blockCount; i++) {
+                    Block block = new Block(FILE_NAME, i);
+                    Page page = bufferPool.pinBlock(block, ring);
+                    try {
+                        for (int round = 0; round < work; round++) {
+                            for (int offset = 0; offset + Integer.BYTES <= pageSize; offset += Integer.BYTES) {
+                                checksum += page.getInt(offset) ^ round;
+                            }
+                        }
+                    } finally {
+                        bufferPool.unpinBlock(block);
+                    }
+                }
+                long elapsed = System.nanoTime() - begin;
+                double seconds = elapsed / 1_000_000_000.0;
+                double megabytes = blockCount * (double) pageSize / (1024 * 1024);
+                System.out.printf("pass %d: %.3f s, %.1f MB/s, %.0f blocks/s (checksum %d)%n",
+                    pass, seconds, megabytes / seconds, blockCount / seconds, checksum);
+            }
+
+            ReadAheadPrefetcher prefetcher = bufferPool.getPrefetcher();
+            if (prefetcher != null) {
+                System.out.printf("read-ahead: loaded=%d, consumed=%d, late=%d, wasted=%d, final window=%d/%d%n",
+                    prefetcher.getLoaded(), prefetcher.getConsumed(), prefetcher.getLate(),
+                    prefetcher.getWasted(), prefetcher.getWindow(FILE_NAME), prefetcher.getMaxWindow());
+            }
+        } finally {
+            bufferPool.close();
+        }
+    }
+
+    private static int parseArg(String[] args, int index, int defaultValue) {
+        if (args.length <= index) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(args[index]);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static void deleteDirectory(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try {
+            Files.walk(path)
+                .sorted((a, b) -> b.compareTo(a))
+                .forEach(p -> {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed deleting benchmark path: " + p, e);
+                    }
+                });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed cleaning benchmark directory: " + path, e);
+        }
+    }
+}
@@ -67,7 +67,7 @@ public class ConsoleCLI implements CLI {
             TableDto result;
             try {
                 String normalizedSql = sql.trim().toLowerCase();
-                if (normalizedSql.startsWith("select")) {
+                if (normalizedSql.startsWith("select") || normalizedSql.startsWith("explain")) {
                     result = queryEngine.doQuery(sql);
                 } else if (normalizedSql.startsWith("create index")) {
                     result = queryEngine.doCreateIndex(sql);
@@ -1,8 +1,10 @@
 package lite.sqlite.cli;
+import java.util.ArrayList;
 import java.util.List;
 
 import lombok.Getter;
 import lombok.Setter;
+import lite.sqlite.server.queryengine.QueryCursor;
 
 @Getter
 @Setter
@@ -37,6 +39,22 @@ public class TableDto {
         return new TableDto(List.of("result"), List.of(List.of(affectedRows + " row(s) affected")));
     } 
 
+    /**
+     * Reads a query cursor to the end and renders every value as text; NULL for nulls.
+     */
+    public static TableDto fromCursor(QueryCursor cursor) {
+        List<List<String>> rows = new ArrayList<>();
+        while (cursor.hasNext()) {
+            Object[] values = cursor.next();
+            List<String> row = new ArrayList<>(values.length);
+            for (Object value : values) {
+                row.add(value != null ? value.toString() : "NULL");
+            }
+            rows.add(row);
+        }
+        return new TableDto(cursor.getColumnNames(), rows);
+    }
+
     public static TableDto forIndexResult(String columnName) {
         return new TableDto(columnName, "indexed");
     }
@@ -6,4 +6,6 @@ public interface Parser {
     public QueryData queryCmd();
     public Object updateCmd();
     public Object indexCmd();
+    /** Parsed command of whatever kind the statement was, e.g. a QueryData or an ExplainData. */
+    public Object command();
 }
\ No newline at end of file
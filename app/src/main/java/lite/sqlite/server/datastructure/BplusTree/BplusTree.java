@@ -1,7 +1,9 @@
 package lite.sqlite.server.datastructure.BplusTree;
-import java.util.Collections;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 public class BplusTree<K extends Comparable<K>,V> {
     
@@ -135,13 +137,18 @@ public class BplusTree<K extends Comparable<K>,V> {
      * @param key lookup key
      * @return one matching value or null when absent
      */
-    public V searchUniqueIndex(K key) {
-        BplusTreeNode<K,V> node = findLeafForSearch(key, false);
-        int keyIndex = Collections.binarySearch(node.getKeys(), key);
-        if (keyIndex >= 0) {
+    public V searchUniqueIndex(K key) {
+        // Left-most path: after deletes a key equal to a separator may sit on either side of it.
+        BplusTreeNode<K,V> node = findLeafForSearch(key, true);
+        int keyIndex = lowerBound(node.getKeys(), key);
+        if (keyIndex == node.getKeys().size()) {
+            node = node.getNextLeaf();
+            keyIndex = 0;
+        }
+        if (node != null && keyIndex < node.getKeys().size() && node.getKeys().get(keyIndex).compareTo(key) == 0) {
             return node.getValues().get(keyIndex);
         }
-        return null;
+        return null;
     }
 
     /**
@@ -181,6 +188,71 @@ public class BplusTree<K extends Comparable<K>,V> {
         return matches;
     }
 
+    /**
+     * Returns a lazy cursor over the values whose keys lie between the bounds, in key order.
+     * Leaves are walked through their {@code nextLeaf} links as the cursor advances, so no
+     * result list is built. The tree must not be modified while the cursor is in use.
+     *
+     * @param lowKey lower bound, or null for no lower bound
+     * @param lowInclusive whether keys equal to {@code lowKey} are included
+     * @param highKey upper bound, or null for no upper bound
+     * @param highInclusive whether keys equal to {@code highKey} are included
+     * @return iterator over matching values
+     */
+    public Iterator<V> rangeScan(K lowKey, boolean lowInclusive, K highKey, boolean highInclusive) {
+        BplusTreeNode<K,V> first = root;
+        int firstIndex = 0;
+        if (lowKey == null) {
+            while (!first.isLeaf()) {
+                first = first.getChildren().get(0);
+            }
+        } else {
+            first = findLeafForSearch(lowKey, true);
+            firstIndex = lowerBound(first.getKeys(), lowKey);
+        }
+        final BplusTreeNode<K,V> start = first;
+        final int startIndex = firstIndex;
+
+        return new Iterator<V>() {
+            private BplusTreeNode<K,V> leaf = start;
+            private int index = startIndex;
+
+            @Override
+            public boolean hasNext() {
+                while (leaf != null) {
+                    if (index >= leaf.getKeys().size()) {
+                        leaf = leaf.getNextLeaf();
+                        index = 0;
+                    } else if (!lowInclusive && lowKey != null && leaf.getKeys().get(index).compareTo(lowKey) == 0) {
+                        // Duplicates of an exclusive lower bound may continue into later leaves.
+                        index++;
+                    } else {
+                        break;
+                    }
+                }
+                if (leaf == null) {
+                    return false;
+                }
+                if (highKey != null) {
+                    int cmp = leaf.getKeys().get(index).compareTo(highKey);
+                    if (cmp > 0 || (cmp == 0 && !highInclusive)) {
+                        leaf = null;
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return leaf.getValues().get(index++);
+            }
+        };
+    }
+
     /**
      * Convenience alias for non-unique lookups.
      *
@@ -192,10 +264,124 @@ public class BplusTree<K extends Comparable<K>,V> {
     }
 
     // public BplusTreeNode search(K key) {};
-    // public BplusTreeNode delete() {};
     // public Byte[] serialization() {};
     // public BplusTree deserialization() {}; 
 
+    /**
+     * Removes one {@code (key, value)} mapping. Nodes left with fewer than
+     * {@link #getMinKeys()} keys borrow from a sibling when it can spare one and are merged
+     * with it otherwise; an empty internal root is replaced by its only child.
+     *
+     * @param key key of the mapping
+     * @param value value of the mapping, compared with {@code equals}
+     * @return true when the mapping was found and removed
+     */
+    public boolean delete(K key, V value) {
+        if (root == null) {
+            return false;
+        }
+        boolean removed = deleteRecursively(root, key, value);
+        if (removed && !root.isLeaf() && root.getKeys().isEmpty()) {
+            root = root.getChildren().get(0);
+        }
+        return removed;
+    }
+
+    private boolean deleteRecursively(BplusTreeNode<K,V> node, K key, V value) {
+        if (node.isLeaf()) {
+            List<K> keys = node.getKeys();
+            for (int i = lowerBound(keys, key); i < keys.size() && keys.get(i).compareTo(key) == 0; i++) {
+                if (Objects.equals(node.getValues().get(i), value)) {
+                    keys.remove(i);
+                    node.getValues().remove(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Duplicates may span every child between the first and last separator equal to the key.
+        int first = findFirstChildForKey(key, node);
+        int last = upperBound(node.getKeys(), key);
+        for (int childIndex = first; childIndex <= last; childIndex++) {
+            if (deleteRecursively(node.getChildren().get(childIndex), key, value)) {
+                rebalanceChild(node, childIndex);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Restores the minimum fill of {@code parent}'s child at {@code childIndex} after a delete.
+     */
+    private void rebalanceChild(BplusTreeNode<K,V> parent, int childIndex) {
+        List<BplusTreeNode<K,V>> children = parent.getChildren();
+        BplusTreeNode<K,V> child = children.get(childIndex);
+        if (child.getKeys().size() >= getMinKeys()) {
+            return;
+        }
+
+        BplusTreeNode<K,V> left = childIndex > 0 ? children.get(childIndex - 1) : null;
+        BplusTreeNode<K,V> right = childIndex + 1 < children.size() ? children.get(childIndex + 1) : null;
+
+        if (left != null && left.getKeys().size() > getMinKeys()) {
+            borrowFromLeft(parent, childIndex, left, child);
+        } else if (right != null && right.getKeys().size() > getMinKeys()) {
+            borrowFromRight(parent, childIndex, child, right);
+        } else if (left != null) {
+            mergeNodes(parent, childIndex - 1, left, child);
+        } else if (right != null) {
+            mergeNodes(parent, childIndex, child, right);
+        }
+    }
+
+    private void borrowFromLeft(BplusTreeNode<K,V> parent, int childIndex,
+                                BplusTreeNode<K,V> left, BplusTreeNode<K,V> child) {
+        List<K> leftKeys = left.getKeys();
+        if (child.isLeaf()) {
+            child.getKeys().add(0, leftKeys.remove(leftKeys.size() - 1));
+            child.getValues().add(0, left.getValues().remove(left.getValues().size() - 1));
+            parent.getKeys().set(childIndex - 1, child.getKeys().get(0));
+        } else {
+            child.getKeys().add(0, parent.getKeys().get(childIndex - 1));
+            child.getChildren().add(0, left.getChildren().remove(left.getChildren().size() - 1));
+            parent.getKeys().set(childIndex - 1, leftKeys.remove(leftKeys.size() - 1));
+        }
+    }
+
+    private void borrowFromRight(BplusTreeNode<K,V> parent, int childIndex,
+                                 BplusTreeNode<K,V> child, BplusTreeNode<K,V> right) {
+        List<K> rightKeys = right.getKeys();
+        if (child.isLeaf()) {
+            child.getKeys().add(rightKeys.remove(0));
+            child.getValues().add(right.getValues().remove(0));
+            parent.getKeys().set(childIndex, rightKeys.get(0));
+        } else {
+            child.getKeys().add(parent.getKeys().get(childIndex));
+            child.getChildren().add(right.getChildren().remove(0));
+            parent.getKeys().set(childIndex, rightKeys.remove(0));
+        }
+    }
+
+    /**
+     * Appends {@code right} to {@code left} and drops the separator between them.
+     */
+    private void mergeNodes(BplusTreeNode<K,V> parent, int separatorIndex,
+                            BplusTreeNode<K,V> left, BplusTreeNode<K,V> right) {
+        if (left.isLeaf()) {
+            left.getKeys().addAll(right.getKeys());
+            left.getValues().addAll(right.getValues());
+            left.setNextLeaf(right.getNextLeaf());
+        } else {
+            left.getKeys().add(parent.getKeys().get(separatorIndex));
+            left.getKeys().addAll(right.getKeys());
+            left.getChildren().addAll(right.getChildren());
+        }
+        parent.getKeys().remove(separatorIndex);
+        parent.getChildren().remove(separatorIndex + 1);
+    }
+
     public int getMinKeys() {
         return (int) Math.ceil(maxDegree / 2.0) - 1;
     }
@@ -261,6 +447,28 @@ public class BplusTree<K extends Comparable<K>,V> {
         return left;
     }
 
+    /**
+     * Computes the first index i where keys[i] > key.
+     *
+     * @param keys sorted key list
+     * @param key lookup key
+     * @return upper-bound index in [0, keys.size()]
+     */
+    private int upperBound(List<K> keys, K key) {
+        int left = 0;
+        int right = keys.size();
+
+        while (left < right) {
+            int mid = left + (right - left) / 2;
+            if (keys.get(mid).compareTo(key) <= 0) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
     public void printTree() {
         System.out.println("B+ Tree Structure:");
         if (root == null) {
@@ -0,0 +1,60 @@
+package lite.sqlite.server.execution;
+
+/**
+ * One way of reading the rows a predicate may match, with the optimizer's estimates.
+ * Costs are in units of one sequential block read.
+ */
+public class AccessPath {
+
+    public enum Kind {
+        /** Every block of the table, in file order. */
+        FULL_SCAN,
+        /** One descent of a unique index for an equality. */
+        UNIQUE_PROBE,
+        /** All entries of a non-unique index equal to a constant. */
+        INDEX_SCAN,
+        /** Entries of an index between two bounds. */
+        RANGE_SCAN,
+        /** Record ids of several index ranges intersected before any row is read. */
+        INDEX_INTERSECTION
+    }
+
+    private final Kind kind;
+    private final Operator operator;
+    private final double rows;
+    private final double cost;
+
+    /**
+     * @param kind access method
+     * @param operator operator implementing it, not yet opened
+     * @param rows estimated rows it returns
+     * @param cost estimated cost of returning all of them
+     */
+    public AccessPath(Kind kind, Operator operator, double rows, double cost) {
+        this.kind = kind;
+        this.operator = operator;
+        this.rows = rows;
+        this.cost = cost;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public double getRows() {
+        return rows;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + operator + String.format(" (rows=%.0f cost=%.2f)", rows, cost);
+    }
+}
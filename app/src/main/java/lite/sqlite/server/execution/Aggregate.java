@@ -0,0 +1,190 @@
+package lite.sqlite.server.execution;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lite.sqlite.server.storage.record.Column;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Schema;
+
+/**
+ * Groups the rows of its child by a list of columns and computes aggregate functions per
+ * group, by hashing the group key. Groups come out in the order they were first seen; with
+ * no group columns there is exactly one output row, even for empty input. Like
+ * {@link Sort}, the child is drained on {@link #open()}.
+ */
+public class Aggregate implements Operator {
+
+    /**
+     * Supported aggregate functions. Nulls are ignored, except by {@code COUNT(*)}.
+     */
+    public enum Function {
+        COUNT, SUM, MIN, MAX
+    }
+
+    /**
+     * One aggregate column of the output: a function over an input column, or over every
+     * row when the column is null ({@code COUNT(*)}).
+     */
+    public static final class Call {
+        private final Function function;
+        private final String columnName;
+        private final String alias;
+
+        public Call(Function function, String columnName, String alias) {
+            if (columnName == null && function != Function.COUNT) {
+                throw new IllegalArgumentException(function + " needs a column");
+            }
+            this.function = function;
+            this.columnName = columnName;
+            this.alias = alias;
+        }
+
+        @Override
+        public String toString() {
+            return function + "(" + (columnName == null ? "*" : columnName) + ")";
+        }
+    }
+
+    private final Operator child;
+    private final List<String> groupBy;
+    private final List<Call> calls;
+    private final int[] groupIndexes;
+    private final int[] callIndexes;
+    private final Schema schema = new Schema();
+    private Iterator<Row> cursor;
+
+    /**
+     * @throws IllegalArgumentException when a column is not produced by the child, or an
+     *                                  INTEGER function is applied to a VARCHAR column
+     */
+    public Aggregate(Operator child, List<String> groupBy, List<Call> calls) {
+        this.child = child;
+        this.groupBy = groupBy;
+        this.calls = calls;
+        Schema childSchema = child.getSchema();
+        groupIndexes = new int[groupBy.size()];
+        for (int i = 0; i < groupIndexes.length; i++) {
+            groupIndexes[i] = columnIndex(childSchema, groupBy.get(i));
+            Column column = childSchema.getColumn(groupIndexes[i]);
+            schema.addColumn(column.getName(), column.getType(), column.getMaxLength());
+        }
+        callIndexes = new int[calls.size()];
+        for (int i = 0; i < callIndexes.length; i++) {
+            Call call = calls.get(i);
+            callIndexes[i] = call.columnName == null ? -1 : columnIndex(childSchema, call.columnName);
+            Column column = callIndexes[i] == -1 ? null : childSchema.getColumn(callIndexes[i]);
+            boolean keepsType = call.function == Function.MIN || call.function == Function.MAX;
+            if (call.function == Function.SUM && column.getType() != DataType.INTEGER) {
+                throw new IllegalArgumentException("SUM needs an INTEGER column: " + call.columnName);
+            }
+            if (keepsType) {
+                schema.addColumn(call.alias, column.getType(), column.getMaxLength());
+            } else {
+                schema.addColumn(call.alias, DataType.INTEGER);
+            }
+        }
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+        Map<List<Object>, Object[]> groups = new LinkedHashMap<>();
+        child.push(DEFAULT_BATCH_SIZE, batch -> {
+            for (Row row : batch) {
+                List<Object> key = new ArrayList<>(groupIndexes.length);
+                for (int index : groupIndexes) {
+                    key.add(row.getValue(index));
+                }
+                accumulate(groups.computeIfAbsent(key, k -> new Object[calls.size()]), row);
+            }
+            return true;
+        });
+        if (groups.isEmpty() && groupIndexes.length == 0) {
+            groups.put(List.of(), new Object[calls.size()]);
+        }
+
+        List<Row> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<List<Object>, Object[]> group : groups.entrySet()) {
+            Object[] values = new Object[groupIndexes.length + calls.size()];
+            for (int i = 0; i < groupIndexes.length; i++) {
+                values[i] = group.getKey().get(i);
+            }
+            Object[] results = group.getValue();
+            for (int i = 0; i < calls.size(); i++) {
+                Object result = results[i];
+                if (calls.get(i).function == Function.COUNT) {
+                    result = result == null ? 0 : result;
+                } else if (calls.get(i).function == Function.SUM && result != null) {
+                    result = Math.toIntExact((Long) result);
+                }
+                values[groupIndexes.length + i] = result;
+            }
+            rows.add(new Row(values, schema, null));
+        }
+        cursor = rows.iterator();
+    }
+
+    @Override
+    public Row next() {
+        return cursor != null && cursor.hasNext() ? cursor.next() : null;
+    }
+
+    @Override
+    public void close() {
+        cursor = null;
+        child.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Aggregate(" + calls + (groupBy.isEmpty() ? "" : " by " + String.join(", ", groupBy)) + ")";
+    }
+
+    @SuppressWarnings("unchecked")
+    private void accumulate(Object[] state, Row row) {
+        for (int i = 0; i < callIndexes.length; i++) {
+            Function function = calls.get(i).function;
+            Object value = callIndexes[i] == -1 ? null : row.getValue(callIndexes[i]);
+            if (value == null && callIndexes[i] != -1) {
+                continue;
+            }
+            switch (function) {
+                case COUNT:
+                    state[i] = state[i] == null ? 1 : (Integer) state[i] + 1;
+                    break;
+                case SUM:
+                    state[i] = (state[i] == null ? 0L : (Long) state[i]) + ((Number) value).longValue();
+                    break;
+                case MIN:
+                    if (state[i] == null || ((Comparable) value).compareTo(state[i]) < 0) {
+                        state[i] = value;
+                    }
+                    break;
+                case MAX:
+                    if (state[i] == null || ((Comparable) value).compareTo(state[i]) > 0) {
+                        state[i] = value;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown aggregate " + function);
+            }
+        }
+    }
+
+    private static int columnIndex(Schema schema, String columnName) {
+        int index = schema.getColumnIndex(columnName);
+        if (index == -1) {
+            throw new IllegalArgumentException("Column '" + columnName + "' does not exist");
+        }
+        return index;
+    }
+}
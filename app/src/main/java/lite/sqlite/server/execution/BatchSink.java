@@ -0,0 +1,18 @@
+package lite.sqlite.server.execution;
+
+import java.util.List;
+
+/**
+ * Receiver of the batches an operator pushes from {@link Operator#push}.
+ */
+@FunctionalInterface
+public interface BatchSink {
+
+    /**
+     * Consumes one batch. The list belongs to the sink once passed in.
+     *
+     * @param batch rows, never empty
+     * @return false to stop the producer early
+     */
+    boolean accept(List<Row> batch);
+}
@@ -0,0 +1,192 @@
+package lite.sqlite.server.execution;
+
+import java.io.IOException;
+import java.util.List;
+
+import lite.sqlite.server.statistics.ColumnStatistics;
+import lite.sqlite.server.statistics.TableStatistics;
+import lite.sqlite.server.storage.index.TableIndex;
+import lite.sqlite.server.storage.record.Column;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.table.Table;
+
+/**
+ * Row and cost estimates for one table, in units of one sequential block read.
+ *
+ * <p>With statistics from ANALYZE, row counts come from {@link TableStatistics} and
+ * selectivities from the column histograms, assuming columns are independent. Without them
+ * the row count is guessed from the file size and the schema, and fixed default
+ * selectivities are used.
+ *
+ * <p>Fetching {@code n} rows through an index costs between {@code min(n, blocks)} random
+ * block reads, when the rows are scattered, and one random read followed by sequential
+ * reads of the blocks the rows fill, when the table is stored in index order; the squared
+ * physical-order correlation of the column interpolates between the two. Rows fetched in
+ * block order, as an index intersection does, are charged per distinct block touched, at a
+ * price that falls from random towards sequential as more of the table is touched.
+ */
+final class CostModel {
+
+    static final double SEQ_PAGE_COST = 1.0;
+    static final double RANDOM_PAGE_COST = 4.0;
+    static final double CPU_TUPLE_COST = 0.01;
+    static final double CPU_INDEX_TUPLE_COST = 0.005;
+    static final double CPU_OPERATOR_COST = 0.0025;
+
+    /** Selectivities used for a column that has no statistics. */
+    static final double DEFAULT_EQUALITY_SELECTIVITY = 0.005;
+    static final double DEFAULT_RANGE_SELECTIVITY = 0.005;
+    static final double DEFAULT_INEQUALITY_SELECTIVITY = 1.0 / 3;
+    /** Selectivity of a term that cannot be estimated, e.g. a comparison of two columns. */
+    static final double DEFAULT_OTHER_SELECTIVITY = 1.0 / 3;
+
+    /** Keys per index node assumed when guessing the height of an index. */
+    private static final int INDEX_FANOUT = 100;
+    /** Per-record slot and page header overhead used when guessing rows per block. */
+    private static final int SLOT_BYTES = 8;
+    private static final int PAGE_HEADER_BYTES = 32;
+
+    private final Table table;
+    private final TableStatistics statistics;
+    private final int blocks;
+    private final double rows;
+
+    CostModel(Table table) {
+        this.table = table;
+        this.statistics = table.getStatistics();
+        try {
+            this.blocks = table.getBlockCount();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read size of table " + table.getTableName(), e);
+        }
+        this.rows = statistics != null ? statistics.estimateRowCount(blocks) : blocks * guessRowsPerBlock();
+    }
+
+    double getRows() {
+        return rows;
+    }
+
+    /**
+     * Fraction of the rows whose column lies in {@code range}.
+     *
+     * @param index index on the column, or null; a unique index caps an equality at one row
+     */
+    double selectivity(KeyRange range, TableIndex<?> index) {
+        if (range.isEmpty()) {
+            return 0.0;
+        }
+        ColumnStatistics column = statistics == null ? null : statistics.getColumn(range.column);
+        if (column != null) {
+            double selectivity = column.rangeSelectivity(range.low, range.lowInclusive, range.high, range.highInclusive);
+            if (range.isEquality() && index != null && index.isUnique()) {
+                selectivity = Math.min(selectivity, 1.0 / Math.max(1.0, rows));
+            }
+            return selectivity;
+        }
+        if (range.isEquality()) {
+            return index != null && index.isUnique() ? 1.0 / Math.max(1.0, rows) : DEFAULT_EQUALITY_SELECTIVITY;
+        }
+        return range.isBounded() ? DEFAULT_RANGE_SELECTIVITY : DEFAULT_INEQUALITY_SELECTIVITY;
+    }
+
+    /**
+     * Fraction of the rows a range on {@code column} is expected to hold when its bounds
+     * are not known yet, as for a prepared statement: an equality matches an average value,
+     * {@code (1 - nullFraction) / distinct} with statistics, and other ranges get the
+     * defaults.
+     *
+     * @param equality whether the column is compared with {@code =}
+     * @param bounded whether the column has both a lower and an upper bound
+     * @param index index on the column, or null; a unique index caps an equality at one row
+     */
+    double genericSelectivity(String column, boolean equality, boolean bounded, TableIndex<?> index) {
+        if (equality) {
+            if (index != null && index.isUnique()) {
+                return 1.0 / Math.max(1.0, rows);
+            }
+            ColumnStatistics columnStatistics = statistics == null ? null : statistics.getColumn(column);
+            if (columnStatistics != null && columnStatistics.getDistinctCount() > 0) {
+                return (1.0 - columnStatistics.getNullFraction()) / columnStatistics.getDistinctCount();
+            }
+            return DEFAULT_EQUALITY_SELECTIVITY;
+        }
+        return bounded ? DEFAULT_RANGE_SELECTIVITY : DEFAULT_INEQUALITY_SELECTIVITY;
+    }
+
+    /**
+     * Row estimate floored at one, so that a bad guess does not make every plan look free.
+     */
+    static double clampRows(double rows) {
+        return Math.max(1.0, rows);
+    }
+
+    double fullScanCost() {
+        return blocks * SEQ_PAGE_COST + rows * CPU_TUPLE_COST;
+    }
+
+    /**
+     * Correlation between the order of a column and the physical row order, or 0 when
+     * unknown.
+     */
+    double correlation(String column) {
+        ColumnStatistics columnStatistics = statistics == null ? null : statistics.getColumn(column);
+        return columnStatistics == null ? 0.0 : columnStatistics.getCorrelation();
+    }
+
+    /**
+     * Cost of one index range returning {@code matched} entries and fetching their rows.
+     *
+     * @param correlation physical-order correlation of the indexed column
+     */
+    double indexScanCost(double matched, double correlation) {
+        return indexLookupCost(matched) + fetchCost(matched, correlation);
+    }
+
+    /**
+     * Cost of intersecting index ranges that return {@code matched} entries each and
+     * fetching the {@code combined} rows left.
+     */
+    double intersectionCost(List<Double> matched, double combined) {
+        double cost = 0.0;
+        for (double entries : matched) {
+            cost += indexLookupCost(entries) + entries * CPU_OPERATOR_COST;
+        }
+        return cost + sortedFetchCost(combined);
+    }
+
+    /**
+     * Cost of evaluating {@code terms} comparisons on each of {@code inputRows} rows.
+     */
+    static double filterCost(double inputRows, int terms) {
+        return inputRows * terms * CPU_OPERATOR_COST;
+    }
+
+    private double indexLookupCost(double matched) {
+        double height = Math.max(1.0, Math.ceil(Math.log(Math.max(2.0, rows)) / Math.log(INDEX_FANOUT)));
+        return height * RANDOM_PAGE_COST + matched * CPU_INDEX_TUPLE_COST;
+    }
+
+    private double fetchCost(double fetched, double correlation) {
+        int tableBlocks = Math.max(1, blocks);
+        double scatteredIo = Math.min(fetched, tableBlocks) * RANDOM_PAGE_COST;
+        double filledBlocks = Math.min(tableBlocks, Math.ceil(tableBlocks * fetched / Math.max(1.0, rows)));
+        double clusteredIo = RANDOM_PAGE_COST + Math.max(0.0, filledBlocks - 1) * SEQ_PAGE_COST;
+        double io = scatteredIo + correlation * correlation * (clusteredIo - scatteredIo);
+        return io + fetched * CPU_TUPLE_COST;
+    }
+
+    private double sortedFetchCost(double fetched) {
+        int tableBlocks = Math.max(1, blocks);
+        double touched = tableBlocks * (1.0 - Math.pow(1.0 - 1.0 / tableBlocks, fetched));
+        double pageCost = RANDOM_PAGE_COST - (RANDOM_PAGE_COST - SEQ_PAGE_COST) * Math.sqrt(touched / tableBlocks);
+        return touched * pageCost + fetched * CPU_TUPLE_COST;
+    }
+
+    private double guessRowsPerBlock() {
+        int width = 0;
+        for (Column column : table.getSchema().getColumns()) {
+            width += column.getType() == DataType.INTEGER ? 4 : 1 + column.getMaxLength() / 2;
+        }
+        return Math.max(1.0, (table.getPageSize() - PAGE_HEADER_BYTES) / (double) (width + SLOT_BYTES));
+    }
+}
@@ -0,0 +1,82 @@
+package lite.sqlite.server.execution;
+
+import lite.sqlite.server.model.domain.clause.DBPredicate;
+import lite.sqlite.server.storage.record.Schema;
+
+/**
+ * Passes on the rows of its child that satisfy a predicate. Rows are evaluated through
+ * their {@link lite.sqlite.server.scan.RORecordScan} view, except over a {@link TableScan}
+ * that can evaluate the predicate on page bytes itself, to which it is pushed down.
+ */
+public class Filter implements Operator {
+
+    private final Operator child;
+    private final DBPredicate predicate;
+    private final boolean pushedDown;
+
+    public Filter(Operator child, DBPredicate predicate) {
+        this.child = child;
+        this.predicate = predicate;
+        this.pushedDown = child instanceof TableScan && ((TableScan) child).pushDownPredicate(predicate);
+    }
+
+    @Override
+    public Schema getSchema() {
+        return child.getSchema();
+    }
+
+    @Override
+    public void open() {
+        child.open();
+    }
+
+    @Override
+    public Row next() {
+        if (pushedDown) {
+            return child.next();
+        }
+        Row row;
+        while ((row = child.next()) != null) {
+            if (predicate.isSatisfied(row)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Filters each batch of the child in place; batches that end up empty are dropped.
+     */
+    @Override
+    public void push(int batchSize, BatchSink sink) {
+        if (pushedDown) {
+            child.push(batchSize, sink);
+            return;
+        }
+        child.push(batchSize, batch -> {
+            batch.removeIf(row -> !predicate.isSatisfied(row));
+            return batch.isEmpty() || sink.accept(batch);
+        });
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Filter(" + predicate + ")";
+    }
+
+    public Operator getChild() {
+        return child;
+    }
+
+    /**
+     * True when the child scan evaluates the predicate and every row it returns qualifies.
+     */
+    public boolean isPushedDown() {
+        return pushedDown;
+    }
+}
@@ -0,0 +1,52 @@
+package lite.sqlite.server.execution;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Access path chosen for a statement whose constants are {@code ?} parameters, before
+ * their values are known. It names the indexed columns to read through, and the planner
+ * turns it into an operator over the bound values without costing the alternatives again.
+ */
+public class GenericAccessPath {
+
+    private final AccessPath.Kind kind;
+    private final List<String> columns;
+    private final double rows;
+    private final double cost;
+
+    /**
+     * @param kind access method
+     * @param columns indexed columns read, most selective first; empty for a full scan
+     * @param rows estimated rows returned for typical parameter values
+     * @param cost estimated cost of returning all of them
+     */
+    public GenericAccessPath(AccessPath.Kind kind, List<String> columns, double rows, double cost) {
+        this.kind = kind;
+        this.columns = Collections.unmodifiableList(columns);
+        this.rows = rows;
+        this.cost = cost;
+    }
+
+    public AccessPath.Kind getKind() {
+        return kind;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public double getRows() {
+        return rows;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        String on = columns.isEmpty() ? "" : " on " + String.join(", ", columns);
+        return kind + on + String.format(" (rows=%.0f cost=%.2f)", rows, cost);
+    }
+}
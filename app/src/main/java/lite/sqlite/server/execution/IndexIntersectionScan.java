@@ -0,0 +1,132 @@
+package lite.sqlite.server.execution;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.record.SlottedRecordPage;
+import lite.sqlite.server.storage.table.RecordId;
+import lite.sqlite.server.storage.table.Table;
+
+/**
+ * Reads the rows that lie in the ranges of several indexes at once. The record ids of the
+ * first range are collected into a set and narrowed by each further range; only the ids
+ * left at the end are fetched in block order, and the current block stays pinned while the
+ * ids that follow are on it, so each block is pinned once per run of ids.
+ * Inputs are best given most selective first, which keeps the sets small.
+ */
+public class IndexIntersectionScan implements Operator {
+
+    private static final Comparator<RecordId> PHYSICAL_ORDER = Comparator
+        .comparingInt((RecordId rid) -> rid.getBlockId().getBlockNum())
+        .thenComparingInt(RecordId::getSlotNumber);
+
+    private final Table table;
+    private final BufferPool bufferPool;
+    private final List<IndexScan> inputs;
+    private Iterator<RecordId> rids;
+    private Block block;
+    private SlottedRecordPage recordPage;
+
+    /**
+     * @param table indexed table
+     * @param bufferPool pool the table's blocks are pinned in
+     * @param inputs index ranges to intersect; at least one
+     */
+    public IndexIntersectionScan(Table table, BufferPool bufferPool, List<IndexScan> inputs) {
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("Index intersection needs at least one index");
+        }
+        this.table = table;
+        this.bufferPool = bufferPool;
+        this.inputs = new ArrayList<>(inputs);
+    }
+
+    public List<IndexScan> getInputs() {
+        return inputs;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return table.getSchema();
+    }
+
+    @Override
+    public void open() {
+        Set<RecordId> matching = null;
+        for (IndexScan input : inputs) {
+            Set<RecordId> narrowed = new HashSet<>();
+            Iterator<RecordId> scan = input.recordIds();
+            while (scan.hasNext()) {
+                RecordId rid = scan.next();
+                if (matching == null || matching.contains(rid)) {
+                    narrowed.add(rid);
+                }
+            }
+            matching = narrowed;
+            if (matching.isEmpty()) {
+                break;
+            }
+        }
+        List<RecordId> ordered = new ArrayList<>(matching);
+        ordered.sort(PHYSICAL_ORDER);
+        rids = ordered.iterator();
+    }
+
+    @Override
+    public Row next() {
+        while (rids != null && rids.hasNext()) {
+            RecordId rid = rids.next();
+            Object[] values = pageOf(rid.getBlockId()).getRecord(rid.getSlotNumber());
+            if (values != null) {
+                return new Row(values, table.getSchema(), rid);
+            }
+        }
+        releasePage();
+        return null;
+    }
+
+    @Override
+    public void close() {
+        releasePage();
+        rids = null;
+    }
+
+    /**
+     * Returns the page of {@code next}, keeping the current one when the id is on it.
+     */
+    private SlottedRecordPage pageOf(Block next) {
+        if (next.equals(block)) {
+            return recordPage;
+        }
+        releasePage();
+        try {
+            recordPage = new SlottedRecordPage(bufferPool.pinBlock(next), table.getSchema(), next, bufferPool);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read block " + next, e);
+        }
+        block = next;
+        return recordPage;
+    }
+
+    private void releasePage() {
+        if (block != null) {
+            bufferPool.unpinBlock(block);
+            block = null;
+        }
+        recordPage = null;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexIntersection(" + inputs.stream().map(IndexScan::toString).collect(Collectors.joining(", ")) + ")";
+    }
+}
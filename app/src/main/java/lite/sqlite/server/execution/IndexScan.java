@@ -0,0 +1,105 @@
+package lite.sqlite.server.execution;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import lite.sqlite.server.storage.index.TableIndex;
+import lite.sqlite.server.storage.record.Record;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.table.RecordId;
+import lite.sqlite.server.storage.table.Table;
+
+/**
+ * Reads the rows whose indexed column lies between two bounds, in key order. The index
+ * range cursor is lazy, so records are fetched only as rows are asked for; ids whose slot
+ * has been emptied are skipped.
+ */
+public class IndexScan implements Operator {
+
+    private final Table table;
+    private final TableIndex<?> index;
+    private final Comparable<?> low;
+    private final boolean lowInclusive;
+    private final Comparable<?> high;
+    private final boolean highInclusive;
+    private Iterator<RecordId> rids;
+
+    /**
+     * @param table indexed table
+     * @param index index to scan
+     * @param low lower bound, or null for none
+     * @param lowInclusive whether the lower bound matches
+     * @param high upper bound, or null for none
+     * @param highInclusive whether the upper bound matches
+     */
+    public IndexScan(Table table, TableIndex<?> index, Comparable<?> low, boolean lowInclusive,
+            Comparable<?> high, boolean highInclusive) {
+        this.table = table;
+        this.index = index;
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.high = high;
+        this.highInclusive = highInclusive;
+    }
+
+    /**
+     * Scan of the rows whose indexed column equals {@code key}.
+     */
+    public static IndexScan equality(Table table, TableIndex<?> index, Comparable<?> key) {
+        return new IndexScan(table, index, key, true, key, true);
+    }
+
+    public TableIndex<?> getIndex() {
+        return index;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return table.getSchema();
+    }
+
+    @Override
+    public void open() {
+        rids = recordIds();
+    }
+
+    /**
+     * Record ids in the range, without reading the records.
+     */
+    Iterator<RecordId> recordIds() {
+        return rangeScanTyped(index);
+    }
+
+    @Override
+    public Row next() {
+        try {
+            while (rids != null && rids.hasNext()) {
+                RecordId rid = rids.next();
+                Record record = table.getRecord(rid);
+                if (record != null) {
+                    return new Row(record.getValues(), table.getSchema(), rid);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read record of " + table.getTableName(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        rids = null;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexScan(" + table.getTableName() + "." + index.getColumnName() + " "
+            + (low == null ? "(-inf" : (lowInclusive ? "[" : "(") + low) + ", "
+            + (high == null ? "+inf)" : high + (highInclusive ? "]" : ")")) + ")";
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K extends Comparable<K>> Iterator<RecordId> rangeScanTyped(TableIndex<?> index) {
+        return ((TableIndex<K>) index).rangeScan((K) low, lowInclusive, (K) high, highInclusive);
+    }
+}
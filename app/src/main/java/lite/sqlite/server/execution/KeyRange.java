@@ -0,0 +1,41 @@
+package lite.sqlite.server.execution;
+
+import lite.sqlite.server.storage.record.ColumnValues;
+
+/**
+ * Low/high bounds on one column folded from the comparisons of a predicate.
+ */
+final class KeyRange {
+
+    final String column;
+    Comparable<?> low;
+    boolean lowInclusive = true;
+    Comparable<?> high;
+    boolean highInclusive = true;
+
+    KeyRange(String column) {
+        this.column = column;
+    }
+
+    /**
+     * True when the range admits exactly one value ({@code column = value}).
+     */
+    boolean isEquality() {
+        return low != null && high != null && lowInclusive && highInclusive && ColumnValues.compare(low, high) == 0;
+    }
+
+    /**
+     * True when no value can lie in the range, e.g. {@code x > 5 AND x < 3}.
+     */
+    boolean isEmpty() {
+        if (low == null || high == null) {
+            return false;
+        }
+        int cmp = ColumnValues.compare(low, high);
+        return cmp > 0 || (cmp == 0 && !(lowInclusive && highInclusive));
+    }
+
+    boolean isBounded() {
+        return low != null && high != null;
+    }
+}
@@ -0,0 +1,95 @@
+package lite.sqlite.server.execution;
+
+import java.util.List;
+
+import lite.sqlite.server.storage.record.Schema;
+
+/**
+ * Skips the first {@code offset} rows of its child and passes on at most {@code limit} of
+ * the rest, then stops pulling.
+ */
+public class Limit implements Operator {
+
+    private final Operator child;
+    private final long limit;
+    private final long offset;
+    private long skipped;
+    private long returned;
+
+    public Limit(Operator child, long limit) {
+        this(child, limit, 0);
+    }
+
+    public Limit(Operator child, long limit, long offset) {
+        if (limit < 0 || offset < 0) {
+            throw new IllegalArgumentException("Limit and offset must not be negative");
+        }
+        this.child = child;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return child.getSchema();
+    }
+
+    @Override
+    public void open() {
+        skipped = 0;
+        returned = 0;
+        child.open();
+    }
+
+    @Override
+    public Row next() {
+        while (skipped < offset) {
+            if (child.next() == null) {
+                return null;
+            }
+            skipped++;
+        }
+        if (returned >= limit) {
+            return null;
+        }
+        Row row = child.next();
+        if (row != null) {
+            returned++;
+        }
+        return row;
+    }
+
+    @Override
+    public void push(int batchSize, BatchSink sink) {
+        if (returned >= limit) {
+            return;
+        }
+        child.push(batchSize, batch -> {
+            List<Row> rows = batch;
+            if (skipped < offset) {
+                int skip = (int) Math.min(offset - skipped, rows.size());
+                skipped += skip;
+                rows = rows.subList(skip, rows.size());
+            }
+            if (rows.size() > limit - returned) {
+                rows = rows.subList(0, (int) (limit - returned));
+            }
+            returned += rows.size();
+            boolean more = returned < limit;
+            if (!rows.isEmpty()) {
+                more = sink.accept(rows) && more;
+            }
+            return more;
+        });
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Limit(" + limit + (offset > 0 ? " offset " + offset : "") + ")";
+    }
+}
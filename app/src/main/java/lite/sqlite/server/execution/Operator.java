@@ -0,0 +1,67 @@
+package lite.sqlite.server.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lite.sqlite.server.storage.record.Schema;
+
+/**
+ * Physical operator of a query plan, in the iterator (Volcano) style: a plan is a tree of
+ * operators, and the root pulls rows from its children one {@link #next()} at a time.
+ *
+ * <p>Operators do no work until {@link #open()}, and must be {@link #close() closed} to release
+ * the pages and index cursors they hold; both calls propagate to the children. Besides the
+ * row-at-a-time pull there is a push-based batch variant, {@link #push}, which operators
+ * override when they can hand on whole batches more cheaply.
+ */
+public interface Operator extends AutoCloseable {
+
+    /** Rows per batch used by callers that have no better size in mind. */
+    int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * Layout of the rows this operator produces.
+     */
+    Schema getSchema();
+
+    /**
+     * Prepares the operator and its children for reading.
+     */
+    void open();
+
+    /**
+     * Returns the next row, or null when the operator is exhausted.
+     */
+    Row next();
+
+    /**
+     * Releases everything the operator and its children hold. Safe to call more than once.
+     */
+    @Override
+    void close();
+
+    /**
+     * Pushes the remaining rows to {@code sink} in batches of at most {@code batchSize} rows,
+     * until the operator is exhausted or the sink asks to stop. Must be called after
+     * {@link #open()}, instead of further {@link #next()} calls.
+     *
+     * @param batchSize largest batch to pass on
+     * @param sink receiver of the batches
+     */
+    default void push(int batchSize, BatchSink sink) {
+        List<Row> batch = new ArrayList<>(batchSize);
+        Row row;
+        while ((row = next()) != null) {
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                if (!sink.accept(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+}
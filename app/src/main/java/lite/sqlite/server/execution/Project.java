@@ -0,0 +1,92 @@
+package lite.sqlite.server.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lite.sqlite.server.storage.record.Column;
+import lite.sqlite.server.storage.record.Schema;
+
+/**
+ * Narrows the rows of its child to a list of columns, in the listed order. The record id
+ * of each row is kept. Over a {@link TableScan}, directly or through a {@link Filter} it
+ * pushed its predicate into, the scan is told to decode only the listed columns.
+ */
+public class Project implements Operator {
+
+    private final Operator child;
+    private final List<String> columnNames;
+    private final int[] columnIndexes;
+    private final Schema schema = new Schema();
+
+    /**
+     * @throws IllegalArgumentException when a column is not produced by the child
+     */
+    public Project(Operator child, List<String> columnNames) {
+        this.child = child;
+        this.columnNames = columnNames;
+        this.columnIndexes = new int[columnNames.size()];
+        Schema childSchema = child.getSchema();
+        for (int i = 0; i < columnIndexes.length; i++) {
+            columnIndexes[i] = childSchema.getColumnIndex(columnNames.get(i));
+            if (columnIndexes[i] == -1) {
+                throw new IllegalArgumentException("Column '" + columnNames.get(i) + "' does not exist");
+            }
+            Column column = childSchema.getColumn(columnIndexes[i]);
+            schema.addColumn(column.getName(), column.getType(), column.getMaxLength());
+        }
+        if (child instanceof TableScan) {
+            ((TableScan) child).pushDownProjection(columnIndexes);
+        } else if (child instanceof Filter && ((Filter) child).isPushedDown()) {
+            ((TableScan) ((Filter) child).getChild()).pushDownProjection(columnIndexes);
+        }
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+    }
+
+    @Override
+    public Row next() {
+        Row row = child.next();
+        return row == null ? null : project(row);
+    }
+
+    @Override
+    public void push(int batchSize, BatchSink sink) {
+        child.push(batchSize, batch -> {
+            List<Row> projected = new ArrayList<>(batch.size());
+            for (Row row : batch) {
+                projected.add(project(row));
+            }
+            return sink.accept(projected);
+        });
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Project(" + String.join(", ", columnNames) + ")";
+    }
+
+    public Operator getChild() {
+        return child;
+    }
+
+    private Row project(Row row) {
+        Object[] values = new Object[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            values[i] = row.getValue(columnIndexes[i]);
+        }
+        return new Row(values, schema, row.getRecordId());
+    }
+}
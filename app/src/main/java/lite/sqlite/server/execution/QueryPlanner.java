@@ -0,0 +1,376 @@
+package lite.sqlite.server.execution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lite.sqlite.server.model.domain.clause.ComparisonOperator;
+import lite.sqlite.server.model.domain.clause.DBPredicate;
+import lite.sqlite.server.model.domain.clause.DBTerm;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.storage.index.TableIndex;
+import lite.sqlite.server.storage.record.ColumnValues;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.table.Table;
+
+/**
+ * Compiles statements into operator trees, choosing the access path by estimated cost.
+ *
+ * <p>Comparisons of a column with a constant ({@code =}, {@code <}, {@code <=}, {@code >},
+ * {@code >=}, BETWEEN) are folded into one range per column. Every indexed range becomes a
+ * candidate: a unique index probe, a non-unique index scan or a range scan; two or more
+ * indexed ranges also make an intersection of their record id sets. A full table scan is
+ * always a candidate, and the cheapest path under {@link CostModel} wins. The whole
+ * predicate is always applied on top, so the access path only has to narrow the rows down.
+ * A prepared statement is costed once, before its parameter values are known, and keeps
+ * the resulting {@link GenericAccessPath} for every execution.
+ */
+public class QueryPlanner {
+
+    private final BufferPool bufferPool;
+    private final FileManager fileManager;
+
+    public QueryPlanner(BufferPool bufferPool, FileManager fileManager) {
+        this.bufferPool = bufferPool;
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * Plan of a SELECT: the rows of {@link #planAccess} narrowed to the selected columns.
+     *
+     * @throws IllegalArgumentException when a selected column does not exist
+     */
+    public Operator planSelect(Table table, List<String> columnNames, DBPredicate predicate) {
+        return new Project(planAccess(table, predicate), columnNames);
+    }
+
+    /**
+     * Plan producing the stored rows that satisfy {@code predicate}, each with its record
+     * id; UPDATE and DELETE run on this plan directly.
+     *
+     * @param table source table
+     * @param predicate WHERE predicate, or null
+     */
+    public Operator planAccess(Table table, DBPredicate predicate) {
+        return filter(chooseAccessPath(table, predicate).getOperator(), predicate);
+    }
+
+    /**
+     * Plan of a SELECT that reads its table through a path chosen earlier by
+     * {@link #chooseGenericAccessPath}.
+     *
+     * @throws IllegalArgumentException when a selected column does not exist
+     */
+    public Operator planSelect(Table table, List<String> columnNames, DBPredicate predicate, GenericAccessPath path) {
+        return new Project(planAccess(table, predicate, path), columnNames);
+    }
+
+    /**
+     * Like {@link #planAccess(Table, DBPredicate)}, but reads through the indexes of a path
+     * chosen earlier by {@link #chooseGenericAccessPath} instead of costing the candidates
+     * again. An index whose column has no usable bound in {@code predicate} is left out,
+     * down to a full scan.
+     *
+     * @param table source table
+     * @param predicate WHERE predicate with every parameter bound, or null
+     * @param path generic path chosen for the statement
+     */
+    public Operator planAccess(Table table, DBPredicate predicate, GenericAccessPath path) {
+        Map<String, KeyRange> ranges = foldRanges(table, predicate);
+        List<IndexScan> scans = new ArrayList<>();
+        for (String column : path.getColumns()) {
+            KeyRange range = ranges.get(column);
+            TableIndex<?> index = table.findIndexForColumn(column);
+            if (range != null && index != null) {
+                scans.add(indexScan(table, index, range));
+            }
+        }
+        Operator access;
+        if (scans.isEmpty()) {
+            access = new TableScan(table, bufferPool, fileManager);
+        } else {
+            access = scans.size() == 1 ? scans.get(0) : new IndexIntersectionScan(table, bufferPool, scans);
+        }
+        return filter(access, predicate);
+    }
+
+    /**
+     * Returns the cheapest way of reading the rows {@code predicate} may match.
+     *
+     * @param table source table
+     * @param predicate WHERE predicate, or null
+     */
+    public AccessPath chooseAccessPath(Table table, DBPredicate predicate) {
+        return accessPaths(table, predicate, new CostModel(table)).get(0);
+    }
+
+    /**
+     * Chooses the access path of a statement whose comparisons have {@code ?} parameters
+     * on the right, once for every execution. The candidates are those of
+     * {@link #chooseAccessPath}, costed for values not known yet: an equality is assumed to
+     * match an average value and a range gets the default selectivity. Comparisons with
+     * constants are costed the same way.
+     *
+     * @param table source table
+     * @param predicate WHERE predicate holding parameters, or null
+     */
+    public GenericAccessPath chooseGenericAccessPath(Table table, DBPredicate predicate) {
+        CostModel model = new CostModel(table);
+        GenericAccessPath best = new GenericAccessPath(AccessPath.Kind.FULL_SCAN, List.of(),
+            model.getRows(), model.fullScanCost());
+
+        List<String> indexedColumns = new ArrayList<>();
+        Map<String, Double> entries = new HashMap<>();
+        double combinedSelectivity = 1.0;
+        for (Map.Entry<String, List<ComparisonOperator>> compared : comparedColumns(table, predicate).entrySet()) {
+            String column = compared.getKey();
+            TableIndex<?> index = table.findIndexForColumn(column);
+            if (index == null) {
+                continue;
+            }
+            List<ComparisonOperator> operators = compared.getValue();
+            boolean equality = operators.contains(ComparisonOperator.EQUALS);
+            boolean bounded = equality || (operators.stream().anyMatch(QueryPlanner::isLowerBound)
+                && operators.stream().anyMatch(QueryPlanner::isUpperBound));
+            double selectivity = model.genericSelectivity(column, equality, bounded, index);
+            boolean unique = equality && index.isUnique();
+            double matched = unique ? 1.0 : CostModel.clampRows(model.getRows() * selectivity);
+            double cost = model.indexScanCost(matched, model.correlation(column));
+            if (cost < best.getCost()) {
+                AccessPath.Kind kind = equality
+                    ? (unique ? AccessPath.Kind.UNIQUE_PROBE : AccessPath.Kind.INDEX_SCAN)
+                    : AccessPath.Kind.RANGE_SCAN;
+                best = new GenericAccessPath(kind, List.of(column), matched, cost);
+            }
+            indexedColumns.add(column);
+            entries.put(column, matched);
+            combinedSelectivity *= selectivity;
+        }
+
+        if (indexedColumns.size() >= 2) {
+            indexedColumns.sort(Comparator.comparingDouble(entries::get));
+            List<Double> matched = new ArrayList<>();
+            for (String column : indexedColumns) {
+                matched.add(entries.get(column));
+            }
+            double combined = CostModel.clampRows(model.getRows() * combinedSelectivity);
+            double cost = model.intersectionCost(matched, combined);
+            if (cost < best.getCost()) {
+                best = new GenericAccessPath(AccessPath.Kind.INDEX_INTERSECTION, indexedColumns, combined, cost);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Describes the plan {@link #planSelect} would build, one row per operator with its
+     * estimated rows and cumulative cost, followed by the access paths that lost.
+     *
+     * @return rows of {@code plan, rows, cost}
+     * @throws IllegalArgumentException when a selected column does not exist
+     */
+    public List<List<String>> explainSelect(Table table, List<String> columnNames, DBPredicate predicate) {
+        CostModel model = new CostModel(table);
+        List<AccessPath> paths = accessPaths(table, predicate, model);
+        AccessPath chosen = paths.get(0);
+        Project project = new Project(chosen.getOperator(), columnNames);
+
+        List<List<String>> lines = new ArrayList<>();
+        double rows = chosen.getRows();
+        double cost = chosen.getCost();
+        List<String> accessLine = planLine("", chosen.getOperator() + " [" + chosen.getKind() + "]", rows, cost);
+        if (predicate != null && !predicate.isEmpty()) {
+            cost += CostModel.filterCost(rows, predicate.getTerms().size());
+            rows = Math.min(rows, estimateMatches(table, predicate, model));
+            lines.add(planLine("  ", new Filter(chosen.getOperator(), predicate).toString(), rows, cost));
+            accessLine.set(0, "    " + accessLine.get(0));
+        } else {
+            accessLine.set(0, "  " + accessLine.get(0));
+        }
+        cost += rows * CostModel.CPU_OPERATOR_COST;
+        lines.add(0, planLine("", project.toString(), rows, cost));
+        lines.add(accessLine);
+        for (AccessPath rejected : paths.subList(1, paths.size())) {
+            lines.add(planLine("rejected: ", rejected.getOperator() + " [" + rejected.getKind() + "]",
+                rejected.getRows(), rejected.getCost()));
+        }
+        return lines;
+    }
+
+    /**
+     * Every candidate access path, cheapest first; the full scan comes first on a tie.
+     */
+    private List<AccessPath> accessPaths(Table table, DBPredicate predicate, CostModel model) {
+        List<AccessPath> paths = new ArrayList<>();
+        paths.add(new AccessPath(AccessPath.Kind.FULL_SCAN, new TableScan(table, bufferPool, fileManager),
+            model.getRows(), model.fullScanCost()));
+
+        List<KeyRange> indexedRanges = new ArrayList<>();
+        Map<KeyRange, Double> entries = new HashMap<>();
+        double combinedSelectivity = 1.0;
+        for (KeyRange range : foldRanges(table, predicate).values()) {
+            TableIndex<?> index = table.findIndexForColumn(range.column);
+            if (index == null) {
+                continue;
+            }
+            double selectivity = model.selectivity(range, index);
+            boolean unique = range.isEquality() && index.isUnique();
+            double matched = unique ? 1.0 : CostModel.clampRows(model.getRows() * selectivity);
+            AccessPath.Kind kind = range.isEquality()
+                ? (unique ? AccessPath.Kind.UNIQUE_PROBE : AccessPath.Kind.INDEX_SCAN)
+                : AccessPath.Kind.RANGE_SCAN;
+            paths.add(new AccessPath(kind, indexScan(table, index, range), matched,
+                model.indexScanCost(matched, model.correlation(range.column))));
+            indexedRanges.add(range);
+            entries.put(range, matched);
+            combinedSelectivity *= selectivity;
+        }
+
+        if (indexedRanges.size() >= 2) {
+            indexedRanges.sort(Comparator.comparingDouble(entries::get));
+            List<IndexScan> inputs = new ArrayList<>();
+            List<Double> matched = new ArrayList<>();
+            for (KeyRange range : indexedRanges) {
+                inputs.add(indexScan(table, table.findIndexForColumn(range.column), range));
+                matched.add(entries.get(range));
+            }
+            double combined = CostModel.clampRows(model.getRows() * combinedSelectivity);
+            paths.add(new AccessPath(AccessPath.Kind.INDEX_INTERSECTION, new IndexIntersectionScan(table, bufferPool, inputs),
+                combined, model.intersectionCost(matched, combined)));
+        }
+        paths.sort(Comparator.comparingDouble(AccessPath::getCost));
+        return paths;
+    }
+
+    /**
+     * Estimated rows satisfying the whole predicate, treating columns as independent.
+     */
+    private double estimateMatches(Table table, DBPredicate predicate, CostModel model) {
+        double selectivity = 1.0;
+        int rangeTerms = 0;
+        for (KeyRange range : foldRanges(table, predicate).values()) {
+            selectivity *= model.selectivity(range, table.findIndexForColumn(range.column));
+        }
+        for (DBTerm term : predicate.getTerms()) {
+            if (isIndexable(table, term)) {
+                rangeTerms++;
+            }
+        }
+        int otherTerms = predicate.getTerms().size() - rangeTerms;
+        selectivity *= Math.pow(CostModel.DEFAULT_OTHER_SELECTIVITY, otherTerms);
+        return CostModel.clampRows(model.getRows() * selectivity);
+    }
+
+    /**
+     * Folds the terms comparing a column with a constant into the tightest low/high bounds
+     * per column, in order of first appearance; on a tie the exclusive bound wins.
+     */
+    private static Map<String, KeyRange> foldRanges(Table table, DBPredicate predicate) {
+        Map<String, KeyRange> ranges = new LinkedHashMap<>();
+        if (predicate == null || predicate.getTerms() == null) {
+            return ranges;
+        }
+        for (DBTerm bound : predicate.getTerms()) {
+            if (!isIndexable(table, bound)) {
+                continue;
+            }
+            KeyRange range = ranges.computeIfAbsent(bound.getLhsField(), KeyRange::new);
+            Comparable<?> value = (Comparable<?>) bound.getRhsConstant().getVal();
+            ComparisonOperator operator = bound.getOperator();
+            if (operator == ComparisonOperator.GREATER_THAN || operator == ComparisonOperator.GREATER_THAN_OR_EQUALS
+                    || operator == ComparisonOperator.EQUALS) {
+                boolean inclusive = operator != ComparisonOperator.GREATER_THAN;
+                int cmp = range.low == null ? 1 : ColumnValues.compare(value, range.low);
+                if (cmp > 0 || (cmp == 0 && !inclusive)) {
+                    range.low = value;
+                    range.lowInclusive = inclusive;
+                }
+            }
+            if (operator == ComparisonOperator.LESS_THAN || operator == ComparisonOperator.LESS_THAN_OR_EQUALS
+                    || operator == ComparisonOperator.EQUALS) {
+                boolean inclusive = operator != ComparisonOperator.LESS_THAN;
+                int cmp = range.high == null ? -1 : ColumnValues.compare(value, range.high);
+                if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                    range.high = value;
+                    range.highInclusive = inclusive;
+                }
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Operators comparing each column with a constant or a parameter, in order of first
+     * appearance.
+     */
+    private static Map<String, List<ComparisonOperator>> comparedColumns(Table table, DBPredicate predicate) {
+        Map<String, List<ComparisonOperator>> columns = new LinkedHashMap<>();
+        if (predicate == null || predicate.getTerms() == null) {
+            return columns;
+        }
+        for (DBTerm term : predicate.getTerms()) {
+            if (comparedColumnType(table, term) != null
+                    && (term.getRhsConstant().asParameter() != null || isIndexable(table, term))) {
+                columns.computeIfAbsent(term.getLhsField(), column -> new ArrayList<>()).add(term.getOperator());
+            }
+        }
+        return columns;
+    }
+
+    private static boolean isLowerBound(ComparisonOperator operator) {
+        return operator == ComparisonOperator.GREATER_THAN || operator == ComparisonOperator.GREATER_THAN_OR_EQUALS;
+    }
+
+    private static boolean isUpperBound(ComparisonOperator operator) {
+        return operator == ComparisonOperator.LESS_THAN || operator == ComparisonOperator.LESS_THAN_OR_EQUALS;
+    }
+
+    private static Operator filter(Operator access, DBPredicate predicate) {
+        if (predicate == null || predicate.isEmpty()) {
+            return access;
+        }
+        return new Filter(access, predicate);
+    }
+
+    private static IndexScan indexScan(Table table, TableIndex<?> index, KeyRange range) {
+        return new IndexScan(table, index, range.low, range.lowInclusive, range.high, range.highInclusive);
+    }
+
+    private static List<String> planLine(String prefix, String plan, double rows, double cost) {
+        return new ArrayList<>(List.of(prefix + plan, String.format("%.0f", rows), String.format("%.2f", cost)));
+    }
+
+    /**
+     * True for a comparison of a column with a constant of the column's own type, which
+     * is what index keys can be compared with.
+     */
+    private static boolean isIndexable(Table table, DBTerm term) {
+        DataType type = comparedColumnType(table, term);
+        if (type == null) {
+            return false;
+        }
+        Object value = term.getRhsConstant().getVal();
+        return type == DataType.INTEGER ? value instanceof Integer : value instanceof String;
+    }
+
+    /**
+     * Type of the column a term compares with a constant through {@code =, <, <=, >, >=},
+     * or null for any other term.
+     */
+    private static DataType comparedColumnType(Table table, DBTerm term) {
+        ComparisonOperator operator = term.getOperator();
+        boolean comparison = operator == ComparisonOperator.EQUALS || isLowerBound(operator) || isUpperBound(operator);
+        if (!comparison || term.getLhsField() == null || term.getRhsConstant() == null) {
+            return null;
+        }
+        int columnIndex = table.getSchema().getColumnIndex(term.getLhsField());
+        if (columnIndex == -1) {
+            return null;
+        }
+        return table.getSchema().getColumn(columnIndex).getType();
+    }
+}
@@ -0,0 +1,114 @@
+package lite.sqlite.server.execution;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import lite.sqlite.server.model.domain.clause.ComparisonOperator;
+import lite.sqlite.server.model.domain.clause.DBPredicate;
+import lite.sqlite.server.model.domain.clause.DBTerm;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.RecordView;
+import lite.sqlite.server.storage.record.Schema;
+
+/**
+ * A {@link DBPredicate} compiled against a table schema so that it can be evaluated on a
+ * {@link RecordView} without decoding the record: INTEGER columns are compared with int
+ * constants and VARCHAR columns with the bytes of ASCII string constants.
+ */
+final class RecordPredicate {
+
+    private final int[] columns;
+    private final ComparisonOperator[] operators;
+    private final int[] intValues;
+    /** Encoded constant per term, or null where the term compares an int. */
+    private final byte[][] byteValues;
+
+    private RecordPredicate(int terms) {
+        this.columns = new int[terms];
+        this.operators = new ComparisonOperator[terms];
+        this.intValues = new int[terms];
+        this.byteValues = new byte[terms][];
+    }
+
+    /**
+     * Compiles a predicate whose every term compares an existing column with a constant of
+     * the column's type: an Integer for INTEGER, an ASCII String for VARCHAR.
+     *
+     * @return the compiled predicate, or null when a term falls outside those forms and
+     *         must be evaluated on decoded rows
+     */
+    static RecordPredicate compile(DBPredicate predicate, Schema schema) {
+        List<DBTerm> terms = predicate.getTerms();
+        RecordPredicate compiled = new RecordPredicate(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            DBTerm term = terms.get(i);
+            if (term.getRhsField() != null || term.getRhsConstant() == null || term.getLhsField() == null
+                    || !isOrdering(term.getOperator())) {
+                return null;
+            }
+            int column = schema.getColumnIndex(term.getLhsField());
+            if (column == -1) {
+                return null;
+            }
+            Object value = term.getRhsConstant().asJavaVal();
+            DataType type = schema.getColumn(column).getType();
+            if (type == DataType.INTEGER && value instanceof Integer) {
+                compiled.intValues[i] = (Integer) value;
+            } else if (type == DataType.VARCHAR && value instanceof String && isAscii((String) value)) {
+                compiled.byteValues[i] = ((String) value).getBytes(StandardCharsets.US_ASCII);
+            } else {
+                return null;
+            }
+            compiled.columns[i] = column;
+            compiled.operators[i] = term.getOperator();
+        }
+        return compiled;
+    }
+
+    /**
+     * True when the record the view is on satisfies every term.
+     */
+    boolean matches(RecordView view) {
+        for (int i = 0; i < columns.length; i++) {
+            int comparison = byteValues[i] == null
+                ? view.compareInt(columns[i], intValues[i])
+                : view.compareBytes(columns[i], byteValues[i]);
+            if (!satisfies(operators[i], comparison)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean satisfies(ComparisonOperator operator, int comparison) {
+        switch (operator) {
+            case EQUALS:
+                return comparison == 0;
+            case GREATER_THAN:
+                return comparison > 0;
+            case GREATER_THAN_OR_EQUALS:
+                return comparison >= 0;
+            case LESS_THAN:
+                return comparison < 0;
+            case LESS_THAN_OR_EQUALS:
+                return comparison <= 0;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isOrdering(ComparisonOperator operator) {
+        return operator == ComparisonOperator.EQUALS
+            || operator == ComparisonOperator.GREATER_THAN || operator == ComparisonOperator.GREATER_THAN_OR_EQUALS
+            || operator == ComparisonOperator.LESS_THAN || operator == ComparisonOperator.LESS_THAN_OR_EQUALS;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package lite.sqlite.server.execution;
+
+import lite.sqlite.server.scan.RORecordScan;
+import lite.sqlite.server.storage.record.Record;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.table.RecordId;
+
+/**
+ * One tuple flowing between operators: values laid out by the producing operator's schema,
+ * plus the id of the stored record it came from when there is one. Fields are readable by
+ * name through {@link RORecordScan}, which is what predicates evaluate against.
+ */
+public final class Row implements RORecordScan {
+
+    private final Object[] values;
+    private final Schema schema;
+    private final RecordId recordId;
+
+    /**
+     * @param values column values in schema order
+     * @param schema layout of {@code values}
+     * @param recordId stored record the row was read from, or null for derived rows
+     */
+    public Row(Object[] values, Schema schema, RecordId recordId) {
+        this.values = values;
+        this.schema = schema;
+        this.recordId = recordId;
+    }
+
+    public Object[] getValues() {
+        return values;
+    }
+
+    public Object getValue(int index) {
+        return index < values.length ? values[index] : null;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Stored record behind this row, or null when the row was computed (sorted rows keep
+     * theirs, aggregated rows do not).
+     */
+    public RecordId getRecordId() {
+        return recordId;
+    }
+
+    public Record toRecord() {
+        return new Record(values);
+    }
+
+    @Override
+    public Integer getInt(String fieldName) {
+        Object value = getFieldValue(fieldName);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        try {
+            return Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String getString(String fieldName) {
+        Object value = getFieldValue(fieldName);
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public boolean hasField(String fieldName) {
+        return schema.getColumnIndex(fieldName) != -1;
+    }
+
+    private Object getFieldValue(String fieldName) {
+        int index = schema.getColumnIndex(fieldName);
+        return index == -1 ? null : getValue(index);
+    }
+}
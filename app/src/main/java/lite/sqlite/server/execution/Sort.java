@@ -0,0 +1,96 @@
+package lite.sqlite.server.execution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import lite.sqlite.server.storage.record.Schema;
+
+/**
+ * Orders the rows of its child by one or more columns. The child is drained into memory
+ * on {@link #open()}, so this is a blocking operator; nulls sort first.
+ */
+public class Sort implements Operator {
+
+    private final Operator child;
+    private final List<String> columnNames;
+    private final Comparator<Row> comparator;
+    private List<Row> rows;
+    private Iterator<Row> cursor;
+
+    /**
+     * @param child input
+     * @param columnNames sort columns, most significant first
+     * @param ascending direction of each sort column
+     * @throws IllegalArgumentException when a column is not produced by the child
+     */
+    public Sort(Operator child, List<String> columnNames, List<Boolean> ascending) {
+        if (columnNames.size() != ascending.size()) {
+            throw new IllegalArgumentException("Every sort column needs a direction");
+        }
+        this.child = child;
+        this.columnNames = columnNames;
+        Comparator<Row> order = null;
+        for (int i = 0; i < columnNames.size(); i++) {
+            int index = child.getSchema().getColumnIndex(columnNames.get(i));
+            if (index == -1) {
+                throw new IllegalArgumentException("Column '" + columnNames.get(i) + "' does not exist");
+            }
+            Comparator<Row> byColumn = (left, right) -> compareValues(left.getValue(index), right.getValue(index));
+            if (!ascending.get(i)) {
+                byColumn = byColumn.reversed();
+            }
+            order = order == null ? byColumn : order.thenComparing(byColumn);
+        }
+        this.comparator = order;
+    }
+
+    /**
+     * Compares two values of one column, nulls first. Values of a column share a type, so
+     * they are comparable with each other.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    @Override
+    public Schema getSchema() {
+        return child.getSchema();
+    }
+
+    @Override
+    public void open() {
+        child.open();
+        rows = new ArrayList<>();
+        child.push(DEFAULT_BATCH_SIZE, batch -> {
+            rows.addAll(batch);
+            return true;
+        });
+        if (comparator != null) {
+            rows.sort(comparator);
+        }
+        cursor = rows.iterator();
+    }
+
+    @Override
+    public Row next() {
+        return cursor != null && cursor.hasNext() ? cursor.next() : null;
+    }
+
+    @Override
+    public void close() {
+        rows = null;
+        cursor = null;
+        child.close();
+    }
+
+    @Override
+    public String toString() {
+        return "Sort(" + String.join(", ", columnNames) + ")";
+    }
+}
@@ -0,0 +1,185 @@
+package lite.sqlite.server.execution;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import lite.sqlite.server.model.domain.clause.DBPredicate;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.buffer.BufferRing;
+import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.storage.record.RecordView;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.record.SlottedRecordPage;
+import lite.sqlite.server.storage.table.RecordId;
+import lite.sqlite.server.storage.table.Table;
+
+/**
+ * Full scan over a table file that decodes one slot at a time. The current page stays
+ * pinned until its last slot has been read or the scan is closed; pages are pinned through
+ * a {@link BufferRing} so a large scan does not flush the rest of the pool. The block count
+ * is taken on {@link #open()}, so blocks appended during the scan are not visited.
+ *
+ * <p>Each slot is first looked at through a {@link RecordView}. A predicate pushed down by
+ * {@link Filter} is evaluated on the page bytes, and only the rows it accepts are decoded;
+ * when {@link Project} has narrowed the columns, only those are.
+ */
+public class TableScan implements Operator {
+
+    private final Table table;
+    private final BufferPool bufferPool;
+    private final FileManager fileManager;
+
+    private BufferRing ring;
+    private int blockCount;
+    private int blockNum;
+    private Block block;
+    private SlottedRecordPage recordPage;
+    private int slot;
+    private int slotCount;
+
+    private RecordView view;
+    private RecordPredicate predicate;
+    /** Columns rows are decoded with, or null for all. */
+    private int[] columns;
+
+    public TableScan(Table table, BufferPool bufferPool, FileManager fileManager) {
+        this.table = table;
+        this.bufferPool = bufferPool;
+        this.fileManager = fileManager;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return table.getSchema();
+    }
+
+    /**
+     * Makes the scan return only records satisfying {@code predicate}, evaluated on the page
+     * bytes. Must be called before {@link #open()}.
+     *
+     * @return false, changing nothing, when the predicate cannot be evaluated that way
+     */
+    boolean pushDownPredicate(DBPredicate predicate) {
+        RecordPredicate compiled = RecordPredicate.compile(predicate, table.getSchema());
+        if (compiled == null) {
+            return false;
+        }
+        this.predicate = compiled;
+        return true;
+    }
+
+    /**
+     * Decodes only the given columns of each row; the others are null. Must be called
+     * before {@link #open()}, and only when nothing above the scan reads other columns.
+     */
+    void pushDownProjection(int[] columns) {
+        this.columns = columns.clone();
+    }
+
+    @Override
+    public void open() {
+        try {
+            blockCount = fileManager.getBlockCount(table.getFileName());
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot open scan of " + table.getFileName(), e);
+        }
+        ring = bufferPool.newBufferRing();
+        view = new RecordView(table.getSchema());
+        blockNum = -1;
+    }
+
+    @Override
+    public Row next() {
+        while (true) {
+            if (recordPage != null && slot < slotCount) {
+                int current = slot++;
+                Object[] values = read(current);
+                if (values != null) {
+                    return new Row(values, table.getSchema(), new RecordId(block, current));
+                }
+                continue;
+            }
+            if (!nextPage()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Pushes the rows of each page as they are decoded, so a batch never spans more than
+     * the page that is pinned.
+     */
+    @Override
+    public void push(int batchSize, BatchSink sink) {
+        List<Row> batch = new ArrayList<>(batchSize);
+        while (recordPage != null || nextPage()) {
+            while (slot < slotCount) {
+                int current = slot++;
+                Object[] values = read(current);
+                if (values == null) {
+                    continue;
+                }
+                batch.add(new Row(values, table.getSchema(), new RecordId(block, current)));
+                if (batch.size() >= batchSize) {
+                    if (!sink.accept(batch)) {
+                        return;
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            releasePage();
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+
+    @Override
+    public void close() {
+        releasePage();
+        blockNum = blockCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TableScan(" + table.getTableName() + ")";
+    }
+
+    /**
+     * Decodes a slot, or returns null when it is empty or rejected by the predicate.
+     */
+    private Object[] read(int current) {
+        if (!recordPage.view(current, view) || (predicate != null && !predicate.matches(view))) {
+            return null;
+        }
+        return view.materialize(columns);
+    }
+
+    private boolean nextPage() {
+        releasePage();
+        if (blockNum + 1 >= blockCount) {
+            return false;
+        }
+        blockNum++;
+        Block next = new Block(table.getFileName(), blockNum);
+        try {
+            recordPage = new SlottedRecordPage(bufferPool.pinBlock(next, ring), table.getSchema(), next, bufferPool);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read block " + next, e);
+        }
+        block = next;
+        slot = 0;
+        slotCount = recordPage.getRecordCount();
+        return true;
+    }
+
+    private void releasePage() {
+        if (block != null) {
+            bufferPool.unpinBlock(block);
+            block = null;
+        }
+        recordPage = null;
+    }
+}
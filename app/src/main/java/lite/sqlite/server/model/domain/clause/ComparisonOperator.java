@@ -3,7 +3,9 @@ package lite.sqlite.server.model.domain.clause;
 public enum ComparisonOperator {
     EQUALS,
     GREATER_THAN,
+    GREATER_THAN_OR_EQUALS,
     LESS_THAN,
+    LESS_THAN_OR_EQUALS,
     LIKE,
     CONTAINS_NULL
 }
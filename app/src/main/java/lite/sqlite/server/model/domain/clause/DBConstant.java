@@ -23,6 +23,13 @@ public class DBConstant implements Comparable<DBConstant>, Serializable {
         return (val instanceof String) ? (String) val : null;
     }
 
+    /**
+     * Returns the placeholder this constant stands for, or null when it holds a value.
+     */
+    public DBParameter asParameter() {
+        return (val instanceof DBParameter) ? (DBParameter) val : null;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -0,0 +1,38 @@
+package lite.sqlite.server.model.domain.clause;
+
+import java.io.Serializable;
+
+/**
+ * A {@code ?} placeholder of a prepared statement, held as the value of a
+ * {@link DBConstant} until a value is bound in its place.
+ */
+public final class DBParameter implements Serializable {
+
+    private final int index;
+
+    /**
+     * @param index zero-based position of the placeholder in the statement text
+     */
+    public DBParameter(int index) {
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DBParameter && ((DBParameter) obj).index == index;
+    }
+
+    @Override
+    public int hashCode() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "?";
+    }
+}
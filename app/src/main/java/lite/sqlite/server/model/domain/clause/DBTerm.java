@@ -87,8 +87,12 @@ public class DBTerm {
                 return left.compareTo(right) == 0;
             case GREATER_THAN:
                 return left.compareTo(right) > 0;
+            case GREATER_THAN_OR_EQUALS:
+                return left.compareTo(right) >= 0;
             case LESS_THAN:
                 return left.compareTo(right) < 0;
+            case LESS_THAN_OR_EQUALS:
+                return left.compareTo(right) <= 0;
             default:
                 return false;
         }
@@ -132,9 +136,15 @@ public class DBTerm {
             case GREATER_THAN:
                 opStr = ">";
                 break;
+            case GREATER_THAN_OR_EQUALS:
+                opStr = ">=";
+                break;
             case LESS_THAN:
                 opStr = "<";
                 break;
+            case LESS_THAN_OR_EQUALS:
+                opStr = "<=";
+                break;
             case LIKE:
                 opStr = "LIKE";
                 break;
@@ -0,0 +1,17 @@
+package lite.sqlite.server.model.domain.commands;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * {@code ANALYZE TABLE ...}: tables whose optimizer statistics are recollected.
+ */
+@ToString
+@AllArgsConstructor
+@Data
+public class AnalyzeData {
+    private List<String> tables;
+}
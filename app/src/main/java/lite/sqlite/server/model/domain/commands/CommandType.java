@@ -1,5 +1,5 @@
 package lite.sqlite.server.model.domain.commands;
 
 public enum CommandType {
-    QUERY, MODIFY, INSERT, DELETE, CREATE_TABLE, CREATE_INDEX
+    QUERY, MODIFY, INSERT, DELETE, CREATE_TABLE, CREATE_INDEX, EXPLAIN, ANALYZE
 }
\ No newline at end of file
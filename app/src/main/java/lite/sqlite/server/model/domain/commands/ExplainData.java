@@ -0,0 +1,15 @@
+package lite.sqlite.server.model.domain.commands;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * {@code EXPLAIN SELECT ...}: the query whose plan is shown instead of run.
+ */
+@ToString
+@AllArgsConstructor
+@Data
+public class ExplainData {
+    private QueryData query;
+}
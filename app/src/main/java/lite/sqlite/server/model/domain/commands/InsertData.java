@@ -9,15 +9,25 @@ import lombok.ToString;
 @AllArgsConstructor
 public class InsertData {
     private List<String> fields;
-    private List<DBConstant> val;
+    private List<List<DBConstant>> rows;
     private String tblName;
     
     public List<String> getFields() {
         return fields;
     }
     
+    /**
+     * Values of the first row; most statements insert exactly one.
+     */
     public List<DBConstant> getValues() {
-        return val;
+        return rows.isEmpty() ? List.of() : rows.get(0);
+    }
+
+    /**
+     * Values of every row, in statement order.
+     */
+    public List<List<DBConstant>> getRows() {
+        return rows;
     }
     
     public String getTableName() {
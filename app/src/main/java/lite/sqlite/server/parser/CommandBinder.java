@@ -0,0 +1,119 @@
+package lite.sqlite.server.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import lite.sqlite.server.model.domain.clause.DBConstant;
+import lite.sqlite.server.model.domain.clause.DBParameter;
+import lite.sqlite.server.model.domain.clause.DBPredicate;
+import lite.sqlite.server.model.domain.clause.DBTerm;
+import lite.sqlite.server.model.domain.commands.DeleteData;
+import lite.sqlite.server.model.domain.commands.InsertData;
+import lite.sqlite.server.model.domain.commands.QueryData;
+import lite.sqlite.server.model.domain.commands.UpdateData;
+
+/**
+ * Copies parsed SELECT, INSERT, UPDATE and DELETE commands with their constants replaced,
+ * which is how cached templates and prepared statements are turned into commands to run.
+ * Constants are visited in a fixed order: predicate terms left to right, INSERT rows and
+ * UPDATE values in statement order.
+ */
+public final class CommandBinder {
+
+    private CommandBinder() {
+    }
+
+    /**
+     * True for the commands {@link #copy} accepts.
+     */
+    public static boolean isBindable(Object command) {
+        return command instanceof QueryData || command instanceof InsertData
+            || command instanceof UpdateData || command instanceof DeleteData;
+    }
+
+    /**
+     * True when a command still holds {@code ?} placeholders.
+     */
+    public static boolean hasParameters(Object command) {
+        if (!isBindable(command)) {
+            return false;
+        }
+        boolean[] found = new boolean[1];
+        copy(command, constant -> {
+            found[0] |= constant.asParameter() != null;
+            return constant;
+        });
+        return found[0];
+    }
+
+    /**
+     * Returns a copy of a command with each placeholder {@code i} replaced by
+     * {@code values.get(i)}; constants that hold values are shared with the original.
+     */
+    public static Object bindParameters(Object command, List<?> values) {
+        return copy(command, constant -> {
+            DBParameter parameter = constant.asParameter();
+            return parameter == null ? constant : new DBConstant(values.get(parameter.getIndex()));
+        });
+    }
+
+    /**
+     * Copies a command, passing each constant through {@code bind}.
+     *
+     * @param command a command for which {@link #isBindable} holds
+     * @param bind returns the constant to put in place of the one given
+     */
+    public static Object copy(Object command, UnaryOperator<DBConstant> bind) {
+        if (command instanceof QueryData) {
+            QueryData query = (QueryData) command;
+            return new QueryData(new ArrayList<>(query.getFields()), query.getTable(),
+                copy(query.getPredicate(), bind), query.getSelectAll());
+        }
+        if (command instanceof InsertData) {
+            InsertData insert = (InsertData) command;
+            List<List<DBConstant>> rows = new ArrayList<>(insert.getRows().size());
+            for (List<DBConstant> row : insert.getRows()) {
+                rows.add(copy(row, bind));
+            }
+            return new InsertData(new ArrayList<>(insert.getFields()), rows, insert.getTableName());
+        }
+        if (command instanceof UpdateData) {
+            UpdateData update = (UpdateData) command;
+            return new UpdateData(new ArrayList<>(update.getFields()), copy(update.getValues(), bind),
+                copy(update.getPredicate(), bind), update.getTableName());
+        }
+        if (command instanceof DeleteData) {
+            DeleteData delete = (DeleteData) command;
+            List<DBPredicate> predicates = new ArrayList<>(delete.getPredicate().size());
+            for (DBPredicate predicate : delete.getPredicate()) {
+                predicates.add(copy(predicate, bind));
+            }
+            return new DeleteData(new ArrayList<>(delete.getFields()), predicates, delete.getTableName());
+        }
+        throw new IllegalArgumentException("Cannot bind constants of " + command);
+    }
+
+    private static List<DBConstant> copy(List<DBConstant> constants, UnaryOperator<DBConstant> bind) {
+        List<DBConstant> copy = new ArrayList<>(constants.size());
+        for (DBConstant constant : constants) {
+            copy.add(constant == null ? null : bind.apply(constant));
+        }
+        return copy;
+    }
+
+    private static DBPredicate copy(DBPredicate predicate, UnaryOperator<DBConstant> bind) {
+        if (predicate == null) {
+            return null;
+        }
+        DBPredicate copy = new DBPredicate();
+        for (DBTerm term : predicate.getTerms()) {
+            if (term.getRhsConstant() != null) {
+                copy.add(new DBTerm(term.getLhsField(), term.getOperator(), bind.apply(term.getRhsConstant())));
+            } else {
+                copy.add(new DBTerm(term.getLhsField(), term.getOperator(), term.getRhsField()));
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,528 @@
+package lite.sqlite.server.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import lite.sqlite.server.model.SchemaPresentation;
+import lite.sqlite.server.model.domain.clause.ComparisonOperator;
+import lite.sqlite.server.model.domain.clause.DBConstant;
+import lite.sqlite.server.model.domain.clause.DBParameter;
+import lite.sqlite.server.model.domain.clause.DBPredicate;
+import lite.sqlite.server.model.domain.clause.DBTerm;
+import lite.sqlite.server.model.domain.commands.AnalyzeData;
+import lite.sqlite.server.model.domain.commands.CreateIndexData;
+import lite.sqlite.server.model.domain.commands.CreateTableData;
+import lite.sqlite.server.model.domain.commands.DeleteData;
+import lite.sqlite.server.model.domain.commands.ExplainData;
+import lite.sqlite.server.model.domain.commands.InsertData;
+import lite.sqlite.server.model.domain.commands.QueryData;
+import lite.sqlite.server.model.domain.commands.UpdateData;
+
+/**
+ * Hand-written recursive-descent parser for the SQL the engine executes, producing the
+ * same command objects as {@link MySqlStatementVisitor} without running the MySQL grammar.
+ *
+ * <p>Accepted statements, keywords in any case and an optional trailing {@code ;}:
+ * <pre>
+ * SELECT (* | column {, column}) FROM table [WHERE condition]
+ * EXPLAIN SELECT ...
+ * INSERT INTO table (column {, column}) VALUES (value {, value}) {, (...)}
+ * UPDATE table SET column = value {, column = value} [WHERE condition]
+ * DELETE FROM table [WHERE condition]
+ * CREATE TABLE table (column (INT | INTEGER | VARCHAR(n)) {, ...})
+ * CREATE [UNIQUE] INDEX name ON table (column [ASC | DESC] {, ...})
+ * ANALYZE TABLE table {, table}
+ *
+ * condition := term {AND term}
+ * term      := column (= | &lt; | &lt;= | &gt; | &gt;=) value | column BETWEEN value AND value
+ * value     := integer | 'string' | ?
+ * </pre>
+ * Names are plain identifiers; a column may be qualified ({@code t.a}). Anything else,
+ * including statements that do not parse, makes {@link #parse} return null so that the
+ * caller can fall back to the full grammar, which keeps its behaviour for every statement
+ * outside this subset.
+ *
+ * <p>The statement is scanned in place: no token list is built and only names and literals
+ * are copied out of the text.
+ */
+public final class FastSqlParser {
+
+    /** Words that end a name list or clause; never read as a name. */
+    private static final Set<String> RESERVED = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        for (String word : new String[] {
+            "ALL", "ANALYZE", "AND", "AS", "ASC", "BETWEEN", "BY", "CREATE", "DELETE", "DESC", "DISTINCT",
+            "EXPLAIN", "FALSE", "FROM", "GROUP", "HAVING", "IN", "INDEX", "INSERT", "INTO", "IS", "JOIN",
+            "LIKE", "LIMIT", "NOT", "NULL", "ON", "OR", "ORDER", "SELECT", "SET", "TABLE", "TRUE", "UNION",
+            "UNIQUE", "UPDATE", "VALUES", "WHERE"
+        }) {
+            RESERVED.add(word);
+        }
+    }
+
+    private final String sql;
+    private final int length;
+    private int pos;
+    private int parameterCount;
+
+    private FastSqlParser(String sql) {
+        this.sql = sql;
+        this.length = sql.length();
+    }
+
+    /**
+     * Parses one statement.
+     *
+     * @param sql statement text
+     * @return command object, or null when the statement is outside the supported subset
+     */
+    public static Object parse(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        FastSqlParser parser = new FastSqlParser(sql);
+        Object command = parser.statement();
+        return command != null && parser.atEnd() ? command : null;
+    }
+
+    private Object statement() {
+        if (keyword("SELECT")) {
+            return select();
+        }
+        if (keyword("INSERT")) {
+            return insert();
+        }
+        if (keyword("UPDATE")) {
+            return update();
+        }
+        if (keyword("DELETE")) {
+            return delete();
+        }
+        if (keyword("CREATE")) {
+            boolean unique = keyword("UNIQUE");
+            if (keyword("INDEX")) {
+                return createIndex(unique);
+            }
+            return !unique && keyword("TABLE") ? createTable() : null;
+        }
+        if (keyword("EXPLAIN")) {
+            QueryData query = keyword("SELECT") ? select() : null;
+            return query == null ? null : new ExplainData(query);
+        }
+        if (keyword("ANALYZE")) {
+            return keyword("TABLE") ? analyze() : null;
+        }
+        return null;
+    }
+
+    private QueryData select() {
+        List<String> fields = new ArrayList<>();
+        boolean selectAll = symbol('*');
+        if (!selectAll) {
+            do {
+                String field = qualifiedName();
+                if (field == null) {
+                    return null;
+                }
+                fields.add(field);
+            } while (symbol(','));
+        }
+        if (!keyword("FROM")) {
+            return null;
+        }
+        String table = name();
+        DBPredicate predicate = whereClause();
+        if (table == null || predicate == null) {
+            return null;
+        }
+        return new QueryData(fields, table, predicate, selectAll);
+    }
+
+    private InsertData insert() {
+        if (!keyword("INTO")) {
+            return null;
+        }
+        String table = name();
+        if (table == null || !symbol('(')) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        do {
+            String field = name();
+            if (field == null) {
+                return null;
+            }
+            fields.add(field);
+        } while (symbol(','));
+        if (!symbol(')') || !keyword("VALUES")) {
+            return null;
+        }
+
+        List<List<DBConstant>> rows = new ArrayList<>();
+        do {
+            if (!symbol('(')) {
+                return null;
+            }
+            List<DBConstant> row = new ArrayList<>(fields.size());
+            do {
+                DBConstant value = insertValue();
+                if (value == null) {
+                    return null;
+                }
+                row.add(value);
+            } while (symbol(','));
+            if (!symbol(')')) {
+                return null;
+            }
+            rows.add(row);
+        } while (symbol(','));
+        return new InsertData(fields, rows, table);
+    }
+
+    private UpdateData update() {
+        String table = name();
+        if (table == null || !keyword("SET")) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        List<DBConstant> values = new ArrayList<>();
+        do {
+            String field = name();
+            if (field == null || !symbol('=')) {
+                return null;
+            }
+            DBConstant value = updateValue();
+            if (value == null) {
+                return null;
+            }
+            fields.add(field);
+            values.add(value);
+        } while (symbol(','));
+        DBPredicate predicate = whereClause();
+        return predicate == null ? null : new UpdateData(fields, values, predicate, table);
+    }
+
+    private DeleteData delete() {
+        if (!keyword("FROM")) {
+            return null;
+        }
+        String table = name();
+        DBPredicate predicate = whereClause();
+        if (table == null || predicate == null) {
+            return null;
+        }
+        return new DeleteData(new ArrayList<>(), List.of(predicate), table);
+    }
+
+    private CreateTableData createTable() {
+        String table = name();
+        if (table == null || !symbol('(')) {
+            return null;
+        }
+        SchemaPresentation schema = new SchemaPresentation();
+        do {
+            String column = name();
+            String type = columnType();
+            if (column == null || type == null) {
+                return null;
+            }
+            schema.addField(column, type);
+        } while (symbol(','));
+        return symbol(')') ? new CreateTableData(table, schema) : null;
+    }
+
+    private CreateIndexData createIndex(boolean unique) {
+        String index = name();
+        if (index == null || !keyword("ON")) {
+            return null;
+        }
+        String table = name();
+        if (table == null || !symbol('(')) {
+            return null;
+        }
+        String firstColumn = null;
+        do {
+            String column = name();
+            if (column == null) {
+                return null;
+            }
+            if (!keyword("ASC")) {
+                keyword("DESC");
+            }
+            if (firstColumn == null) {
+                firstColumn = column;
+            }
+        } while (symbol(','));
+        return symbol(')') ? new CreateIndexData(index, table, firstColumn, unique) : null;
+    }
+
+    private AnalyzeData analyze() {
+        List<String> tables = new ArrayList<>();
+        do {
+            String table = name();
+            if (table == null) {
+                return null;
+            }
+            tables.add(table);
+        } while (symbol(','));
+        return new AnalyzeData(tables);
+    }
+
+    /**
+     * Reads an optional WHERE clause.
+     *
+     * @return its terms, an empty predicate when there is none, or null when it does not parse
+     */
+    private DBPredicate whereClause() {
+        DBPredicate predicate = new DBPredicate();
+        if (!keyword("WHERE")) {
+            return predicate;
+        }
+        do {
+            String column = qualifiedName();
+            if (column == null) {
+                return null;
+            }
+            if (keyword("BETWEEN")) {
+                DBConstant low = whereValue();
+                DBConstant high = low != null && keyword("AND") ? whereValue() : null;
+                if (high == null) {
+                    return null;
+                }
+                predicate.add(new DBTerm(column, ComparisonOperator.GREATER_THAN_OR_EQUALS, low));
+                predicate.add(new DBTerm(column, ComparisonOperator.LESS_THAN_OR_EQUALS, high));
+                continue;
+            }
+            ComparisonOperator operator = comparisonOperator();
+            DBConstant value = operator == null ? null : whereValue();
+            if (value == null) {
+                return null;
+            }
+            predicate.add(new DBTerm(column, operator, value));
+        } while (keyword("AND"));
+        return predicate;
+    }
+
+    private ComparisonOperator comparisonOperator() {
+        skipWhitespace();
+        if (pos >= length) {
+            return null;
+        }
+        char ch = sql.charAt(pos);
+        char next = pos + 1 < length ? sql.charAt(pos + 1) : 0;
+        if (ch == '=') {
+            pos++;
+            return ComparisonOperator.EQUALS;
+        }
+        if (ch == '<' && next != '>') {
+            pos += next == '=' ? 2 : 1;
+            return next == '=' ? ComparisonOperator.LESS_THAN_OR_EQUALS : ComparisonOperator.LESS_THAN;
+        }
+        if (ch == '>') {
+            pos += next == '=' ? 2 : 1;
+            return next == '=' ? ComparisonOperator.GREATER_THAN_OR_EQUALS : ComparisonOperator.GREATER_THAN;
+        }
+        return null;
+    }
+
+    /** Comparison value: an Integer, a string with its quotes removed, or a parameter. */
+    private DBConstant whereValue() {
+        if (symbol('?')) {
+            return nextParameter();
+        }
+        String text = stringLiteral();
+        if (text != null) {
+            return new DBConstant(text);
+        }
+        Integer number = integerLiteral();
+        return number == null ? null : new DBConstant(number);
+    }
+
+    /** INSERT value: the literal's text, strings without their quotes, or a parameter. */
+    private DBConstant insertValue() {
+        if (symbol('?')) {
+            return nextParameter();
+        }
+        String text = stringLiteral();
+        if (text != null) {
+            return new DBConstant(text);
+        }
+        int start = pos;
+        return integerLiteral() == null ? null : new DBConstant(sql.substring(start, pos).trim());
+    }
+
+    /** UPDATE value: an Integer, a string with {@code ''} unescaped, or a parameter. */
+    private DBConstant updateValue() {
+        if (symbol('?')) {
+            return nextParameter();
+        }
+        String text = stringLiteral();
+        if (text != null) {
+            return new DBConstant(text.indexOf('\'') >= 0 ? text.replace("''", "'") : text);
+        }
+        Integer number = integerLiteral();
+        return number == null ? null : new DBConstant(number);
+    }
+
+    private DBConstant nextParameter() {
+        return new DBConstant(new DBParameter(parameterCount++));
+    }
+
+    /**
+     * Reads {@code 'text'}, where {@code ''} stands for a quote, and returns the text between
+     * the outer quotes as written; null when there is no string or it holds a backslash.
+     */
+    private String stringLiteral() {
+        skipWhitespace();
+        if (pos >= length || sql.charAt(pos) != '\'') {
+            return null;
+        }
+        int end = pos + 1;
+        while (true) {
+            end = sql.indexOf('\'', end);
+            if (end < 0) {
+                return null;
+            }
+            if (end + 1 < length && sql.charAt(end + 1) == '\'') {
+                end += 2;
+                continue;
+            }
+            break;
+        }
+        String text = sql.substring(pos + 1, end);
+        if (text.indexOf('\\') >= 0) {
+            return null;
+        }
+        pos = end + 1;
+        return text;
+    }
+
+    /**
+     * Reads an optionally negative integer that fits an int and is not followed by a name
+     * character or a decimal point.
+     */
+    private Integer integerLiteral() {
+        skipWhitespace();
+        int start = pos;
+        boolean negative = pos < length && sql.charAt(pos) == '-';
+        int digit = negative ? pos + 1 : pos;
+        long value = 0;
+        int end = digit;
+        while (end < length && Character.isDigit(sql.charAt(end))) {
+            value = value * 10 + (sql.charAt(end) - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return null;
+            }
+            end++;
+        }
+        if (end == digit || (end < length && (isNameChar(sql.charAt(end)) || sql.charAt(end) == '.'))) {
+            return null;
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            return null;
+        }
+        pos = end;
+        return start == end ? null : (int) value;
+    }
+
+    /** Column type as written, without whitespace: INT, INTEGER or VARCHAR(n). */
+    private String columnType() {
+        skipWhitespace();
+        int start = pos;
+        if (keyword("INTEGER") || keyword("INT")) {
+            return sql.substring(start, pos);
+        }
+        if (!keyword("VARCHAR")) {
+            return null;
+        }
+        String type = sql.substring(start, pos);
+        if (!symbol('(')) {
+            return null;
+        }
+        skipWhitespace();
+        int digits = pos;
+        while (pos < length && Character.isDigit(sql.charAt(pos))) {
+            pos++;
+        }
+        if (pos == digits) {
+            return null;
+        }
+        String size = sql.substring(digits, pos);
+        return symbol(')') ? type + "(" + size + ")" : null;
+    }
+
+    /** A name, or {@code name.name}, as written. */
+    private String qualifiedName() {
+        String name = name();
+        if (name == null || pos >= length || sql.charAt(pos) != '.') {
+            return name;
+        }
+        pos++;
+        String member = name();
+        return member == null ? null : name + "." + member;
+    }
+
+    /** An unquoted identifier that is not a reserved word. */
+    private String name() {
+        skipWhitespace();
+        if (pos >= length || !(Character.isLetter(sql.charAt(pos)) || sql.charAt(pos) == '_')) {
+            return null;
+        }
+        int end = pos + 1;
+        while (end < length && isNameChar(sql.charAt(end))) {
+            end++;
+        }
+        if (end < length && (sql.charAt(end) == '$' || sql.charAt(end) == '`')) {
+            return null;
+        }
+        String name = sql.substring(pos, end);
+        if (RESERVED.contains(name)) {
+            return null;
+        }
+        pos = end;
+        return name;
+    }
+
+    /**
+     * Consumes {@code word} when it comes next as a whole word, in any case.
+     */
+    private boolean keyword(String word) {
+        skipWhitespace();
+        int end = pos + word.length();
+        if (end > length || !sql.regionMatches(true, pos, word, 0, word.length())
+                || (end < length && isNameChar(sql.charAt(end)))) {
+            return false;
+        }
+        pos = end;
+        return true;
+    }
+
+    private boolean symbol(char symbol) {
+        skipWhitespace();
+        if (pos < length && sql.charAt(pos) == symbol) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean atEnd() {
+        symbol(';');
+        skipWhitespace();
+        return pos == length;
+    }
+
+    private void skipWhitespace() {
+        while (pos < length && Character.isWhitespace(sql.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean isNameChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_';
+    }
+}
@@ -10,18 +10,23 @@ import lite.sqlite.server.model.SchemaPresentation;
 import lite.sqlite.server.model.domain.clause.ComparisonOperator;
 import lite.sqlite.server.model.domain.clause.DBConstant;
 import lite.sqlite.server.model.domain.clause.DBExpression;
+import lite.sqlite.server.model.domain.clause.DBParameter;
 import lite.sqlite.server.model.domain.clause.DBPredicate;
 import lite.sqlite.server.model.domain.clause.DBTerm;
+import lite.sqlite.server.model.domain.commands.AnalyzeData;
 import lite.sqlite.server.model.domain.commands.CommandType;
 import lite.sqlite.server.model.domain.commands.CreateIndexData;
 import lite.sqlite.server.model.domain.commands.CreateTableData;
 import lite.sqlite.server.model.domain.commands.DeleteData;
+import lite.sqlite.server.model.domain.commands.ExplainData;
 import lite.sqlite.server.model.domain.commands.InsertData;
 import lite.sqlite.server.model.domain.commands.QueryData;
 import lite.sqlite.server.model.domain.commands.UpdateData;
 
 public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
 
+    private static final String PARAMETER_MARKER = "?";
+
     private CommandType commandType;
     
     //Common
@@ -33,7 +38,7 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
     private boolean selectAll;
 
     //Insert
-    private List<DBConstant> insertedVals;
+    private List<List<DBConstant>> insertedRows;
     private List<String> insertFields;
 
     //Update
@@ -47,6 +52,12 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
     private String indexFieldName;
     private boolean isUnique;
 
+    // Analyze
+    private List<String> analyzedTables;
+
+    // Placeholders numbered in order of appearance
+    private int parameterCount;
+
     private SchemaPresentation tableDTO;
 
     /**
@@ -63,10 +74,11 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
         this.indexFieldName = "";
         this.isUnique = false;
         this.insertFields = new ArrayList<>();
-        this.insertedVals = new ArrayList<>();
+        this.insertedRows = new ArrayList<>();
         this.updatedFieldName = "";
         this.updatedFieldNames = new ArrayList<>();
         this.updatedFieldValues = new ArrayList<>();
+        this.analyzedTables = new ArrayList<>();
         this.tableDTO = new SchemaPresentation();
     }
 
@@ -142,7 +154,7 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
         commandType = CommandType.INSERT;
         
         insertFields.clear();
-        insertedVals.clear();
+        insertedRows.clear();
         
         String insertText = ctx.getText();
         int firstParen = insertText.indexOf('(');
@@ -189,6 +201,41 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
         return super.visitSelect(ctx);
     }
 
+    /**
+     * Handles {@code EXPLAIN SELECT ...}; the SELECT is parsed as usual and wrapped.
+     *
+     * @param ctx parser context
+     * @return delegated visitor result
+     * @throws IllegalArgumentException when the explained statement is not a SELECT
+     */
+    @Override
+    public Object visitExplain(MySQLStatementParser.ExplainContext ctx) {
+        Object result = super.visitExplain(ctx);
+        if (commandType != CommandType.QUERY) {
+            throw new IllegalArgumentException("EXPLAIN supports SELECT statements only");
+        }
+        commandType = CommandType.EXPLAIN;
+        return result;
+    }
+
+    /**
+     * Handles {@code ANALYZE TABLE t1, t2} and captures the table names.
+     *
+     * @param ctx parser context
+     * @return delegated visitor result
+     */
+    @Override
+    public Object visitAnalyzeTable(MySQLStatementParser.AnalyzeTableContext ctx) {
+        commandType = CommandType.ANALYZE;
+        analyzedTables.clear();
+        if (ctx.tableList() != null) {
+            for (MySQLStatementParser.TableNameContext table : ctx.tableList().tableName()) {
+                analyzedTables.add(sanitizeIdentifier(table.name().getText()));
+            }
+        }
+        return super.visitAnalyzeTable(ctx);
+    }
+
     /**
      * Captures shorthand projection list usage (SELECT *) while still traversing
      * child projection nodes for mixed projection lists.
@@ -251,40 +298,153 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
     }
 
     /**
-     * Captures literal assignment values for INSERT statements.
+     * Captures literal assignment values for INSERT statements, one row per
+     * parenthesized value list ({@code VALUES (...), (...)}).
      *
      * @param ctx parser context
      * @return delegated visitor result
      */
     @Override
     public Object visitAssignmentValues(MySQLStatementParser.AssignmentValuesContext ctx) {
+        List<DBConstant> row = new ArrayList<>();
         if (ctx.assignmentValue() != null) {
             for (var assignmentValue : ctx.assignmentValue()) {
                 String value = assignmentValue.expr().getText();
+                if (PARAMETER_MARKER.equals(value)) {
+                    row.add(nextParameter());
+                    continue;
+                }
                 if (value.startsWith("'") && value.endsWith("'") && value.length() >= 2) {
                     value = value.substring(1, value.length() - 1);
                 }
-                this.insertedVals.add(new DBConstant(value));
+                row.add(new DBConstant(value));
             }
         }
+        this.insertedRows.add(row);
         return super.visitAssignmentValues(ctx);
     }
 
     /**
-     * Parses a simple WHERE clause into a single predicate term.
+     * Parses a WHERE clause into a conjunction of predicate terms. Comparisons
+     * ({@code =, >, >=, <, <=}) and {@code BETWEEN} joined by AND are read from the parse
+     * tree; anything else falls back to single-comparison text matching.
      *
      * @param ctx parser context
      * @return delegated visitor result
      */
     @Override
     public Object visitWhereClause(MySQLStatementParser.WhereClauseContext ctx) {
-        String clause = ctx.getText();
-        
-        String expression = clause;
-        if (expression.toUpperCase().startsWith("WHERE")) {
-            expression = expression.substring(5).trim();
+        List<DBTerm> terms = parseConjunction(ctx.expr());
+        if (terms != null) {
+            this.pred = new DBPredicate();
+            for (DBTerm term : terms) {
+                this.pred.add(term);
+            }
+        } else {
+            String expression = ctx.getText();
+            if (expression.toUpperCase().startsWith("WHERE")) {
+                expression = expression.substring(5).trim();
+            }
+            this.pred = parseSimpleComparison(expression);
         }
-        
+
+        return super.visitWhereClause(ctx);
+    }
+
+    /**
+     * Collects the terms of an AND-only expression.
+     *
+     * @param expr expression node
+     * @return terms, or null when the expression uses unsupported constructs
+     */
+    private List<DBTerm> parseConjunction(MySQLStatementParser.ExprContext expr) {
+        if (expr == null) {
+            return null;
+        }
+        if (expr.andOperator() != null && expr.expr().size() == 2) {
+            List<DBTerm> left = parseConjunction(expr.expr(0));
+            List<DBTerm> right = parseConjunction(expr.expr(1));
+            if (left == null || right == null) {
+                return null;
+            }
+            left.addAll(right);
+            return left;
+        }
+        if (expr.booleanPrimary() != null && expr.notOperator() == null) {
+            return parseBooleanPrimary(expr.booleanPrimary());
+        }
+        return null;
+    }
+
+    private List<DBTerm> parseBooleanPrimary(MySQLStatementParser.BooleanPrimaryContext primary) {
+        List<DBTerm> terms = new ArrayList<>();
+        if (primary.comparisonOperator() != null && primary.booleanPrimary() != null && primary.predicate() != null) {
+            ComparisonOperator operator = toComparisonOperator(primary.comparisonOperator());
+            if (operator == null) {
+                return null;
+            }
+            terms.add(new DBTerm(primary.booleanPrimary().getText(), operator,
+                new DBConstant(parseConstantValue(primary.predicate().getText()))));
+            return terms;
+        }
+
+        MySQLStatementParser.PredicateContext predicate = primary.predicate();
+        if (primary.IS() == null && primary.booleanPrimary() == null && predicate != null
+                && predicate.BETWEEN() != null && predicate.NOT() == null && predicate.bitExpr().size() == 2) {
+            String field = predicate.bitExpr(0).getText();
+            terms.add(new DBTerm(field, ComparisonOperator.GREATER_THAN_OR_EQUALS,
+                new DBConstant(parseConstantValue(predicate.bitExpr(1).getText()))));
+            terms.add(new DBTerm(field, ComparisonOperator.LESS_THAN_OR_EQUALS,
+                new DBConstant(parseConstantValue(predicate.predicate().getText()))));
+            return terms;
+        }
+        return null;
+    }
+
+    private ComparisonOperator toComparisonOperator(MySQLStatementParser.ComparisonOperatorContext ctx) {
+        if (ctx.EQ_() != null) {
+            return ComparisonOperator.EQUALS;
+        }
+        if (ctx.GTE_() != null) {
+            return ComparisonOperator.GREATER_THAN_OR_EQUALS;
+        }
+        if (ctx.GT_() != null) {
+            return ComparisonOperator.GREATER_THAN;
+        }
+        if (ctx.LTE_() != null) {
+            return ComparisonOperator.LESS_THAN_OR_EQUALS;
+        }
+        if (ctx.LT_() != null) {
+            return ComparisonOperator.LESS_THAN;
+        }
+        return null;
+    }
+
+    /**
+     * Converts literal text to a quoted-string-stripped String, an Integer or, for
+     * {@code ?}, the next {@link DBParameter}.
+     */
+    private Object parseConstantValue(String valueStr) {
+        if (PARAMETER_MARKER.equals(valueStr)) {
+            return nextParameter().getVal();
+        }
+        if (valueStr.startsWith("'") && valueStr.endsWith("'") && valueStr.length() >= 2) {
+            return valueStr.substring(1, valueStr.length() - 1);
+        }
+        try {
+            return Integer.parseInt(valueStr);
+        } catch (NumberFormatException e) {
+            return valueStr;
+        }
+    }
+
+    /**
+     * Parses a single {@code field op value} comparison from clause text.
+     *
+     * @param expression clause text without the WHERE keyword
+     * @return predicate with one term, or an empty predicate
+     */
+    private DBPredicate parseSimpleComparison(String expression) {
         String lhsField = null;
         ComparisonOperator operator = null;
         Object rhsValue = null;
@@ -329,12 +489,9 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
         }
         
         if (lhsField != null && operator != null && rhsValue != null) {
-            this.pred = new DBPredicate(new DBTerm(lhsField, operator, new DBConstant(rhsValue)));
-        } else {
-            this.pred = new DBPredicate(); 
+            return new DBPredicate(new DBTerm(lhsField, operator, new DBConstant(rhsValue)));
         }
-        
-        return super.visitWhereClause(ctx);
+        return new DBPredicate();
     }
 
     /**
@@ -475,6 +632,9 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
         }
 
         String trimmed = literal.trim();
+        if (PARAMETER_MARKER.equals(trimmed)) {
+            return nextParameter();
+        }
         if (trimmed.length() >= 2 && trimmed.startsWith("'") && trimmed.endsWith("'")) {
             String inner = trimmed.substring(1, trimmed.length() - 1).replace("''", "'");
             return new DBConstant(inner);
@@ -487,6 +647,10 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
         }
     }
 
+    private DBConstant nextParameter() {
+        return new DBConstant(new DBParameter(parameterCount++));
+    }
+
     private boolean parseUniqueFromCreateIndex(String createIndexText) {
         if (createIndexText == null) {
             return false;
@@ -594,12 +758,12 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
     }
 
     /**
-     * Returns parsed INSERT values.
+     * Returns parsed INSERT rows.
      *
-     * @return constant values
+     * @return constant values, one list per row
      */
-    public List<DBConstant> getInsertedValues() {
-        return insertedVals;
+    public List<List<DBConstant>> getInsertedRows() {
+        return insertedRows;
     }
 
     /**
@@ -655,6 +819,15 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
     public DBExpression getUpdatedFieldValue() {
         return updatedFieldValue;
     }
+
+    /**
+     * Returns the number of {@code ?} placeholders seen.
+     *
+     * @return parameter count
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
     
     /**
      * Materializes parsed state into a command DTO based on command type.
@@ -665,8 +838,12 @@ public class MySqlStatementVisitor extends MySQLStatementBaseVisitor<Object> {
         switch (commandType) {
             case QUERY:
                 return new QueryData(selectedFields, tableName, pred, selectAll);
+            case EXPLAIN:
+                return new ExplainData(new QueryData(selectedFields, tableName, pred, selectAll));
+            case ANALYZE:
+                return new AnalyzeData(analyzedTables);
             case INSERT:
-                return new InsertData(insertFields, insertedVals, tableName);
+                return new InsertData(insertFields, insertedRows, tableName);
             case MODIFY:
                 return new UpdateData(updatedFieldNames, updatedFieldValues, pred, tableName);
             case DELETE:
@@ -4,33 +4,58 @@ import org.antlr.v4.runtime.CommonTokenStream;
 import org.apache.shardingsphere.sql.parser.autogen.MySQLStatementParser;
 import org.apache.shardingsphere.sql.parser.mysql.parser.MySQLLexer;
 
+import lite.sqlite.config.AppConfig;
 import lite.sqlite.server.Parser;
 import lite.sqlite.server.model.domain.commands.QueryData;
 
+/**
+ * Parses a statement with {@link FastSqlParser} when it is in the subset that parser
+ * accepts, and with the full MySQL grammar otherwise. Setting {@code parser.fast.enabled}
+ * to false sends every statement through the grammar.
+ */
 public class ParserImpl implements Parser {
-    
-    MySqlStatementVisitor sqlStatementVisitor;
+
+    public static final String FAST_PATH_KEY = "parser.fast.enabled";
+
+    private final Object command;
 
     public ParserImpl(String sql) {
+        Object parsed = null;
+        if (Boolean.parseBoolean(AppConfig.getOrDefault(FAST_PATH_KEY, "true"))) {
+            parsed = FastSqlParser.parse(sql);
+        }
+        this.command = parsed != null ? parsed : parseWithGrammar(sql);
+    }
+
+    /**
+     * Parses a statement with the ANTLR MySQL grammar and {@link MySqlStatementVisitor}.
+     */
+    public static Object parseWithGrammar(String sql) {
         MySQLLexer lexer = new MySQLLexer(CharStreams.fromString(sql));
         MySQLStatementParser parser = new MySQLStatementParser(new CommonTokenStream(lexer));
 
-        sqlStatementVisitor = new MySqlStatementVisitor(parser);
+        MySqlStatementVisitor sqlStatementVisitor = new MySqlStatementVisitor(parser);
         sqlStatementVisitor.visit(parser.execute());
+        return sqlStatementVisitor.getValue();
     }
 
     @Override
     public QueryData queryCmd() {
-        return (QueryData) sqlStatementVisitor.getValue();
+        return (QueryData) command;
     }
-    
+
     @Override
     public Object updateCmd() {
-        return sqlStatementVisitor.getValue();
+        return command;
     }
 
     @Override
     public Object indexCmd() {
-        return sqlStatementVisitor.getValue();
+        return command;
+    }
+
+    @Override
+    public Object command() {
+        return command;
     }
 }
@@ -0,0 +1,170 @@
+package lite.sqlite.server.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits SQL text into a literal-free shape and its literals, without a full parse.
+ *
+ * <p>Integer literals become {@code ?} and quoted strings {@code '?'} in the shape, and
+ * whitespace runs outside quotes collapse to one space, so {@code SELECT a FROM t WHERE
+ * id = 5} and {@code SELECT a FROM t  WHERE id = 7} share the shape {@code SELECT a FROM t
+ * WHERE id = ?}. Keywords and identifiers are kept as written. Decimals, numbers too large
+ * for an int, and digits glued to a name are left in the shape as they are.
+ */
+final class SqlNormalizer {
+
+    private SqlNormalizer() {
+    }
+
+    /**
+     * Result of {@link #normalize}: the shape, the literal texts (strings without their
+     * quotes) and a copy of the statement with literal {@code i} replaced by
+     * {@link #marker(int)}.
+     */
+    static final class NormalizedSql {
+        private final String shape;
+        private final String probeSql;
+        private final List<String> literals;
+
+        private NormalizedSql(String shape, String probeSql, List<String> literals) {
+            this.shape = shape;
+            this.probeSql = probeSql;
+            this.literals = Collections.unmodifiableList(literals);
+        }
+
+        String getShape() {
+            return shape;
+        }
+
+        String getProbeSql() {
+            return probeSql;
+        }
+
+        List<String> getLiterals() {
+            return literals;
+        }
+    }
+
+    /**
+     * String literal standing for literal {@code index} in a probe statement.
+     */
+    static String marker(int index) {
+        return "__param_" + index + "__";
+    }
+
+    /**
+     * Returns the literal index {@code value} is the marker of, or -1.
+     */
+    static int markerIndex(Object value) {
+        if (!(value instanceof String)) {
+            return -1;
+        }
+        String text = (String) value;
+        if (!text.startsWith("__param_") || !text.endsWith("__") || text.length() <= 10) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(text.substring(8, text.length() - 2));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Normalizes one statement.
+     *
+     * @return the normalized statement, or null when it should not be cached: it contains
+     *         {@code ?} placeholders, comments, escaped quotes or an unterminated quote
+     */
+    static NormalizedSql normalize(String sql) {
+        StringBuilder shape = new StringBuilder(sql.length());
+        StringBuilder probe = new StringBuilder(sql.length() + 16);
+        List<String> literals = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char ch = sql.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (shape.length() > 0 && i < length) {
+                    shape.append(' ');
+                    probe.append(' ');
+                }
+                continue;
+            }
+            if (ch == '\'') {
+                int end = sql.indexOf('\'', i + 1);
+                if (end < 0 || (end + 1 < length && sql.charAt(end + 1) == '\'') || sql.lastIndexOf('\\', end) > i) {
+                    return null;
+                }
+                shape.append("'?'");
+                probe.append('\'').append(marker(literals.size())).append('\'');
+                literals.add(sql.substring(i + 1, end));
+                i = end + 1;
+                continue;
+            }
+            if (ch == '`' || ch == '"') {
+                int end = sql.indexOf(ch, i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                shape.append(sql, i, end + 1);
+                probe.append(sql, i, end + 1);
+                i = end + 1;
+                continue;
+            }
+            if (ch == '?' || (ch == '-' && i + 1 < length && sql.charAt(i + 1) == '-')
+                    || (ch == '/' && i + 1 < length && sql.charAt(i + 1) == '*') || ch == '#') {
+                return null;
+            }
+            if (isNameChar(ch)) {
+                int end = i;
+                while (end < length && isNameChar(sql.charAt(end))) {
+                    end++;
+                }
+                boolean number = Character.isDigit(ch) && allDigits(sql, i, end) && fitsInt(sql, i, end);
+                if (number) {
+                    shape.append('?');
+                    probe.append('\'').append(marker(literals.size())).append('\'');
+                    literals.add(sql.substring(i, end));
+                } else {
+                    shape.append(sql, i, end);
+                    probe.append(sql, i, end);
+                }
+                i = end;
+                continue;
+            }
+            shape.append(ch);
+            probe.append(ch);
+            i++;
+        }
+        return new NormalizedSql(shape.toString(), probe.toString(), literals);
+    }
+
+    /** Names, numbers and qualified names ({@code t.id}, {@code 1.5}) are read as one token. */
+    private static boolean isNameChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '.';
+    }
+
+    private static boolean allDigits(String sql, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(sql.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean fitsInt(String sql, int start, int end) {
+        try {
+            Integer.parseInt(sql.substring(start, end));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
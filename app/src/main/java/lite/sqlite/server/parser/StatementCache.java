@@ -0,0 +1,140 @@
+package lite.sqlite.server.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import lite.sqlite.config.AppConfig;
+
+/**
+ * LRU cache of parsed statements keyed by their literal-free shape (see
+ * {@link SqlNormalizer}), so that statements differing only in constants are parsed by
+ * ANTLR once.
+ *
+ * <p>On a miss the statement is parsed as usual. For SELECT, INSERT, UPDATE and DELETE the
+ * shape is also parsed once more with every literal replaced by a marker, giving a
+ * {@link StatementTemplate}; a hit binds the new literals into a copy of it without running
+ * the lexer or parser. Shapes whose template does not reproduce the parsed command (e.g. a
+ * literal the visitor reads as something other than a constant) are remembered and always
+ * parsed. Holds {@code statement.cache.size} shapes; 0 turns caching off.
+ */
+public class StatementCache {
+
+    public static final String SIZE_KEY = "statement.cache.size";
+    public static final int DEFAULT_SIZE = 256;
+
+    private final int capacity;
+    private final Function<String, Object> parser;
+    private final Map<String, StatementTemplate> templates;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param capacity shapes kept before the least recently used one is dropped; 0 disables the cache
+     * @param parser full parser, returning the command DTO of a statement
+     */
+    public StatementCache(int capacity, Function<String, Object> parser) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.parser = parser;
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StatementTemplate> eldest) {
+                return size() > StatementCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Cache over {@link ParserImpl}, sized by {@code statement.cache.size}.
+     */
+    public static StatementCache fromConfig() {
+        return new StatementCache(
+            Integer.parseInt(AppConfig.getOrDefault(SIZE_KEY, String.valueOf(DEFAULT_SIZE))),
+            sql -> new ParserImpl(sql).command()
+        );
+    }
+
+    /**
+     * Returns the command of a statement; each call returns a new command object.
+     *
+     * @param sql statement text
+     * @throws RuntimeException whatever the parser throws for invalid SQL
+     */
+    public Object parse(String sql) {
+        SqlNormalizer.NormalizedSql normalized = capacity == 0 || !isCacheableKind(sql) ? null : SqlNormalizer.normalize(sql);
+        if (normalized == null) {
+            misses.incrementAndGet();
+            return parser.apply(sql);
+        }
+
+        StatementTemplate template;
+        synchronized (templates) {
+            template = templates.get(normalized.getShape());
+        }
+        if (template != null && template.isCacheable()) {
+            hits.incrementAndGet();
+            return template.bind(normalized.getLiterals());
+        }
+
+        misses.incrementAndGet();
+        Object command = parser.apply(sql);
+        if (template == null && command != null) {
+            StatementTemplate created = StatementTemplate.create(normalized, command, parser);
+            synchronized (templates) {
+                templates.put(normalized.getShape(), created);
+            }
+        }
+        return command;
+    }
+
+    /**
+     * Statements answered from a template without parsing.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Statements that went through the full parser.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Number of shapes currently cached, including those remembered as uncacheable.
+     */
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    private static boolean isCacheableKind(String sql) {
+        String head = sql.stripLeading();
+        int end = 0;
+        while (end < head.length() && Character.isLetter(head.charAt(end))) {
+            end++;
+        }
+        switch (head.substring(0, end).toLowerCase(Locale.ROOT)) {
+            case "select":
+            case "insert":
+            case "update":
+            case "delete":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
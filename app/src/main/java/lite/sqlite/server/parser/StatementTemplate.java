@@ -0,0 +1,108 @@
+package lite.sqlite.server.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import lite.sqlite.server.model.domain.clause.DBConstant;
+
+/**
+ * A parsed SELECT, INSERT, UPDATE or DELETE whose literals are markers, from which a
+ * command for any statement of the same shape is built by copying it with the markers
+ * replaced. The template itself is never handed out, so it can be shared between threads.
+ */
+final class StatementTemplate {
+
+    /** Stands for a shape whose commands cannot be rebuilt from a template. */
+    static final StatementTemplate UNCACHEABLE = new StatementTemplate(null, new boolean[0]);
+
+    private final Object command;
+    /** Per literal: bound as an Integer (true) or as its text (false). */
+    private final boolean[] integerLiterals;
+
+    private StatementTemplate(Object command, boolean[] integerLiterals) {
+        this.command = command;
+        this.integerLiterals = integerLiterals;
+    }
+
+    /**
+     * Builds the template of a statement from the command parsed from its probe, where
+     * every literal is a marker string. The template is only kept when binding the
+     * statement's own literals reproduces {@code parsed} exactly.
+     *
+     * @param sql normalized statement
+     * @param parsed command parsed from the statement itself
+     * @param parser parser for the probe statement
+     * @return template, or {@link #UNCACHEABLE}
+     */
+    static StatementTemplate create(SqlNormalizer.NormalizedSql sql, Object parsed, Function<String, Object> parser) {
+        if (!CommandBinder.isBindable(parsed)) {
+            return UNCACHEABLE;
+        }
+        Object probe;
+        try {
+            probe = parser.apply(sql.getProbeSql());
+        } catch (RuntimeException e) {
+            return UNCACHEABLE;
+        }
+        if (probe == null || probe.getClass() != parsed.getClass()) {
+            return UNCACHEABLE;
+        }
+
+        List<DBConstant> probeConstants = new ArrayList<>();
+        List<DBConstant> parsedConstants = new ArrayList<>();
+        CommandBinder.copy(probe, constant -> collect(probeConstants, constant));
+        CommandBinder.copy(parsed, constant -> collect(parsedConstants, constant));
+        if (probeConstants.size() != parsedConstants.size()) {
+            return UNCACHEABLE;
+        }
+        int literalCount = sql.getLiterals().size();
+        boolean[] integerLiterals = new boolean[literalCount];
+        boolean[] bound = new boolean[literalCount];
+        for (int i = 0; i < probeConstants.size(); i++) {
+            int literal = SqlNormalizer.markerIndex(probeConstants.get(i).getVal());
+            if (literal >= 0 && literal < literalCount) {
+                integerLiterals[literal] = parsedConstants.get(i).getVal() instanceof Integer;
+                bound[literal] = true;
+            }
+        }
+        for (boolean found : bound) {
+            if (!found) {
+                return UNCACHEABLE;
+            }
+        }
+
+        StatementTemplate template = new StatementTemplate(probe, integerLiterals);
+        // The command DTOs have no equals(); their string forms include every field and
+        // tell an Integer constant from a String one.
+        if (!String.valueOf(template.bind(sql.getLiterals())).equals(String.valueOf(parsed))) {
+            return UNCACHEABLE;
+        }
+        return template;
+    }
+
+    boolean isCacheable() {
+        return command != null;
+    }
+
+    /**
+     * Returns a fresh command with literal {@code i} of the statement in place of marker {@code i}.
+     *
+     * @param literals literal texts of a statement of this template's shape
+     */
+    Object bind(List<String> literals) {
+        return CommandBinder.copy(command, constant -> {
+            int literal = SqlNormalizer.markerIndex(constant.getVal());
+            if (literal < 0) {
+                return constant;
+            }
+            String text = literals.get(literal);
+            return new DBConstant(integerLiterals[literal] ? (Object) Integer.valueOf(text) : text);
+        });
+    }
+
+    private static DBConstant collect(List<DBConstant> constants, DBConstant constant) {
+        constants.add(constant);
+        return constant;
+    }
+}
@@ -0,0 +1,60 @@
+package lite.sqlite.server.queryengine;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import lite.sqlite.server.execution.Operator;
+import lite.sqlite.server.execution.Row;
+
+/**
+ * {@link QueryCursor} over the root of an open operator tree; closing the cursor closes
+ * the tree.
+ */
+final class OperatorCursor implements QueryCursor {
+
+    private final Operator root;
+    private final List<String> columnNames;
+    private Row nextRow;
+    private boolean closed;
+
+    /**
+     * @param root opened operator tree
+     * @param columnNames names of the columns the root produces
+     */
+    OperatorCursor(Operator root, List<String> columnNames) {
+        this.root = root;
+        this.columnNames = columnNames;
+    }
+
+    @Override
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow == null && !closed) {
+            nextRow = root.next();
+        }
+        return nextRow != null;
+    }
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Row row = nextRow;
+        nextRow = null;
+        return row.getValues();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            nextRow = null;
+            root.close();
+        }
+    }
+}
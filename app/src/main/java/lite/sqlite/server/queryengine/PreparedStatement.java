@@ -0,0 +1,164 @@
+package lite.sqlite.server.queryengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import lite.sqlite.server.execution.GenericAccessPath;
+import lite.sqlite.server.model.domain.clause.DBConstant;
+import lite.sqlite.server.model.domain.clause.DBParameter;
+import lite.sqlite.server.model.domain.clause.DBPredicate;
+import lite.sqlite.server.model.domain.clause.DBTerm;
+import lite.sqlite.server.model.domain.commands.DeleteData;
+import lite.sqlite.server.model.domain.commands.InsertData;
+import lite.sqlite.server.model.domain.commands.QueryData;
+import lite.sqlite.server.model.domain.commands.UpdateData;
+import lite.sqlite.server.parser.CommandBinder;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Schema;
+
+/**
+ * A SELECT, INSERT, UPDATE or DELETE parsed once by {@link QueryEngine#prepare}, with
+ * {@code ?} placeholders to be given values by {@link QueryEngine#execute}.
+ *
+ * <p>Besides the parsed command, the statement keeps the type each placeholder must have,
+ * taken from the column it is compared with or assigned to, and, except for INSERT, the
+ * access path chosen for it. Values are bound straight into the command's constants, so an
+ * execution neither parses nor costs access paths. A prepared statement is immutable and
+ * may be executed from several threads.
+ */
+public final class PreparedStatement {
+
+    private final String sql;
+    private final String tableName;
+    private final Object command;
+    /** Per placeholder: the column type its value must have, or null when unknown. */
+    private final List<DataType> parameterTypes;
+    private final GenericAccessPath accessPath;
+
+    private PreparedStatement(String sql, String tableName, Object command, List<DataType> parameterTypes,
+                              GenericAccessPath accessPath) {
+        this.sql = sql;
+        this.tableName = tableName;
+        this.command = command;
+        this.parameterTypes = Collections.unmodifiableList(parameterTypes);
+        this.accessPath = accessPath;
+    }
+
+    /**
+     * @param sql statement text
+     * @param command command parsed from it, with {@link DBParameter} constants
+     * @param tableName table the command reads or changes
+     * @param schema schema of that table
+     * @param accessPath access path chosen for it, or null for INSERT
+     */
+    static PreparedStatement create(String sql, Object command, String tableName, Schema schema,
+                                    GenericAccessPath accessPath) {
+        List<DataType> types = new ArrayList<>();
+        if (command instanceof QueryData) {
+            collectTypes(types, schema, ((QueryData) command).getPredicate());
+        } else if (command instanceof InsertData) {
+            InsertData insert = (InsertData) command;
+            for (List<DBConstant> row : insert.getRows()) {
+                for (int i = 0; i < row.size(); i++) {
+                    String field = i < insert.getFields().size() ? insert.getFields().get(i) : null;
+                    collectType(types, schema, field, row.get(i));
+                }
+            }
+        } else if (command instanceof UpdateData) {
+            UpdateData update = (UpdateData) command;
+            for (int i = 0; i < update.getValues().size(); i++) {
+                String field = i < update.getFields().size() ? update.getFields().get(i) : null;
+                collectType(types, schema, field, update.getValues().get(i));
+            }
+            collectTypes(types, schema, update.getPredicate());
+        } else {
+            for (DBPredicate predicate : ((DeleteData) command).getPredicate()) {
+                collectTypes(types, schema, predicate);
+            }
+        }
+        return new PreparedStatement(sql, tableName, command, types, accessPath);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getParameterCount() {
+        return parameterTypes.size();
+    }
+
+    /**
+     * Access path every execution reads the table through, or null for an INSERT.
+     */
+    public GenericAccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    /**
+     * Returns a new command with placeholder {@code i} replaced by {@code values[i]}.
+     *
+     * @throws IllegalArgumentException when the number of values is wrong, or a value is
+     *         null or not of its column's type (Integer for INTEGER, String for VARCHAR)
+     */
+    Object bind(Object... values) {
+        Object[] bound = values == null ? new Object[0] : values;
+        if (bound.length != parameterTypes.size()) {
+            throw new IllegalArgumentException("Statement has " + parameterTypes.size()
+                + " parameters but " + bound.length + " values were given");
+        }
+        for (int i = 0; i < bound.length; i++) {
+            checkType(i + 1, bound[i], parameterTypes.get(i));
+        }
+        return CommandBinder.bindParameters(command, Arrays.asList(bound));
+    }
+
+    private static void checkType(int position, Object value, DataType type) {
+        if (value == null) {
+            throw new IllegalArgumentException("Parameter " + position + " is null; NULL values are not supported");
+        }
+        boolean matches;
+        if (type == DataType.INTEGER) {
+            matches = value instanceof Integer;
+        } else if (type == DataType.VARCHAR) {
+            matches = value instanceof String;
+        } else {
+            matches = value instanceof Integer || value instanceof String;
+        }
+        if (!matches) {
+            throw new IllegalArgumentException("Parameter " + position + " must be "
+                + (type == null ? "INTEGER or VARCHAR" : type.name()) + " but is a " + value.getClass().getSimpleName());
+        }
+    }
+
+    private static void collectTypes(List<DataType> types, Schema schema, DBPredicate predicate) {
+        if (predicate == null) {
+            return;
+        }
+        for (DBTerm term : predicate.getTerms()) {
+            collectType(types, schema, term.getLhsField(), term.getRhsConstant());
+        }
+    }
+
+    private static void collectType(List<DataType> types, Schema schema, String column, DBConstant constant) {
+        DBParameter parameter = constant == null ? null : constant.asParameter();
+        if (parameter == null) {
+            return;
+        }
+        while (types.size() <= parameter.getIndex()) {
+            types.add(null);
+        }
+        int columnIndex = column == null ? -1 : schema.getColumnIndex(column);
+        types.set(parameter.getIndex(), columnIndex == -1 ? null : schema.getColumn(columnIndex).getType());
+    }
+
+    @Override
+    public String toString() {
+        return sql + (accessPath == null ? "" : " [" + accessPath + "]");
+    }
+}
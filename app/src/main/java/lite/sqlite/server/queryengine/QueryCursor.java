@@ -0,0 +1,26 @@
+package lite.sqlite.server.queryengine;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Pull-based result of a query. Each {@link #next()} produces one projected row, read and
+ * filtered only when it is asked for, so a cursor holds at most one page and one row no
+ * matter how large the result is.
+ *
+ * <p>A cursor may keep a page pinned between calls and must be closed, normally with
+ * try-with-resources.
+ */
+public interface QueryCursor extends Iterator<Object[]>, AutoCloseable {
+
+    /**
+     * Names of the columns in each row, in the order of the row's values.
+     */
+    List<String> getColumnNames();
+
+    /**
+     * Releases the pages and index cursors still held. Safe to call more than once.
+     */
+    @Override
+    void close();
+}
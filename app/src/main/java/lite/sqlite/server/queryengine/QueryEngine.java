@@ -1,6 +1,9 @@
 package lite.sqlite.server.queryengine;
+import java.util.Iterator;
+
 import lite.sqlite.cli.TableDto;
 import lite.sqlite.events.model.MutationEvent;
+import lite.sqlite.server.storage.record.Record;
 
 /**
  * Interface for query execution engine.
@@ -9,8 +12,12 @@ import lite.sqlite.events.model.MutationEvent;
 public interface QueryEngine {
     
     TableDto doQuery(String sql);
+    QueryCursor openQuery(String sql);
     TableDto doUpdate(String sql);
     TableDto doCreateIndex(String sql);
+    PreparedStatement prepare(String sql);
+    TableDto execute(PreparedStatement statement, Object... params);
+    TableDto bulkLoad(String tableName, Iterator<Record> records);
     void emitUpdateEvents(MutationEvent mutationEvent);
     default void close() {}
 }
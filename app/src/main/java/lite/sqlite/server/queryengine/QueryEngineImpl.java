@@ -4,51 +4,77 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 import lite.sqlite.cli.TableDto;
+import lite.sqlite.config.AppConfig;
 import lite.sqlite.events.NoOpEventEmitter;
 import lite.sqlite.events.api.EventEmitter;
 import lite.sqlite.events.model.MutationEvent;
 import lite.sqlite.events.model.MutationOperation;
 import lite.sqlite.server.Parser;
-import lite.sqlite.server.model.domain.clause.ComparisonOperator;
 import lite.sqlite.server.model.domain.clause.DBConstant;
 import lite.sqlite.server.model.domain.clause.DBPredicate;
-import lite.sqlite.server.model.domain.clause.DBTerm;
+import lite.sqlite.server.model.domain.commands.AnalyzeData;
 import lite.sqlite.server.model.domain.commands.CreateIndexData;
 import lite.sqlite.server.model.domain.commands.CreateTableData;
 import lite.sqlite.server.model.domain.commands.DeleteData;
+import lite.sqlite.server.model.domain.commands.ExplainData;
 import lite.sqlite.server.model.domain.commands.InsertData;
 import lite.sqlite.server.model.domain.commands.QueryData;
 import lite.sqlite.server.model.domain.commands.UpdateData;
+import lite.sqlite.server.execution.GenericAccessPath;
+import lite.sqlite.server.execution.Operator;
+import lite.sqlite.server.execution.QueryPlanner;
+import lite.sqlite.server.execution.Row;
+import lite.sqlite.server.parser.CommandBinder;
 import lite.sqlite.server.parser.ParserImpl;
-import lite.sqlite.server.scan.RORecordScan;
-import lite.sqlite.server.scan.RORecordScanImpl;
-import lite.sqlite.server.storage.Block;
-import lite.sqlite.server.storage.BasicFileManager;
-import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.parser.StatementCache;
+import lite.sqlite.server.statistics.ColumnStatistics;
+import lite.sqlite.server.statistics.StatisticsCollector;
+import lite.sqlite.server.statistics.TableStatistics;
+import lite.sqlite.server.storage.buffer.BackgroundWriter;
 import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.buffer.SyncPolicy;
+import lite.sqlite.server.storage.catalog.SystemCatalog;
+import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.storage.filemanager.FileManagerType;
 import lite.sqlite.server.storage.index.TableIndex;
 import lite.sqlite.server.storage.table.RecordId;
 import lite.sqlite.server.storage.table.Table;
 import lite.sqlite.server.storage.record.DataType;
 import lite.sqlite.server.storage.record.Record;
 import lite.sqlite.server.storage.record.Schema;
-import lite.sqlite.server.storage.record.SlottedRecordPage;
-import lite.sqlite.server.storage.record.SlottedRecordPage.RecordWithSlot;
-
-
-public class QueryEngineImpl implements QueryEngine {
-    
-    private final Map<String,Table> tables = new ConcurrentHashMap<>();
-    private final File dbDirectory;
-    private final BufferPool bufferPool;
-    private final BasicFileManager fileManager;
-    private final EventEmitter eventEmitter;
+import lite.sqlite.server.wal.RecoveryManager;
+import lite.sqlite.server.wal.WriteAheadLog;
+
+
+public class QueryEngineImpl implements QueryEngine {
+    private static final String KEY_PREFETCH_ENABLED = "buffer.prefetch.enabled";
+    private static final String KEY_PREFETCH_MAX_WINDOW = "buffer.prefetch.max.window";
+    private static final String KEY_PREFETCH_IO_THREADS = "buffer.prefetch.io.threads";
+    private static final String KEY_WRITER_INTERVAL_MS = "buffer.writer.interval.ms";
+    private static final String KEY_WRITER_DIRTY_RATIO = "buffer.writer.dirty.ratio";
+    private static final String KEY_CHECKPOINT_INTERVAL_MS = "checkpoint.interval.ms";
+    private static final String KEY_SYNC_INTERVAL_MS = "sync.interval.ms";
+    private static final String KEY_WAL_ENABLED = "wal.enabled";
+    private static final String KEY_WAL_GROUP_COMMIT_WINDOW_US = "wal.group.commit.window.us";
+    
+    private final Map<String,Table> tables = new ConcurrentHashMap<>();
+    private final File dbDirectory;
+    private final BufferPool bufferPool;
+    private final FileManager fileManager;
+    private final SystemCatalog catalog;
+    private final BackgroundWriter backgroundWriter;
+    private final WriteAheadLog writeAheadLog;
+    private final EventEmitter eventEmitter;
+    private final QueryPlanner planner;
+    private final StatisticsCollector statisticsCollector = StatisticsCollector.fromConfig();
+    private final StatementCache statementCache = StatementCache.fromConfig();
 
     /**
      * Creates a query engine backed by a local database directory and a fixed-size buffer pool.
@@ -70,33 +96,107 @@ public class QueryEngineImpl implements QueryEngine {
         this(new File("database"), eventEmitter);
     }
 
-    public QueryEngineImpl(File dbDirectory, EventEmitter eventEmitter) {
-        this.dbDirectory = dbDirectory;
-        this.fileManager = new BasicFileManager(dbDirectory);
-        this.bufferPool = new BufferPool(50, fileManager);
-        this.eventEmitter = Objects.requireNonNull(eventEmitter, "eventEmitter must not be null");
+    public QueryEngineImpl(File dbDirectory, EventEmitter eventEmitter) {
+        this.dbDirectory = dbDirectory;
+        this.fileManager = FileManagerType.fromConfig().create(dbDirectory);
+        this.bufferPool = new BufferPool(50, fileManager);
+        this.catalog = new SystemCatalog(bufferPool, fileManager);
+        this.planner = new QueryPlanner(bufferPool, fileManager);
+        this.writeAheadLog = openWriteAheadLog();
+        if (Boolean.parseBoolean(AppConfig.getOrDefault(KEY_PREFETCH_ENABLED, "false"))) {
+            this.bufferPool.enableReadAhead(
+                Integer.parseInt(AppConfig.getOrDefault(KEY_PREFETCH_MAX_WINDOW, "32")),
+                Integer.parseInt(AppConfig.getOrDefault(KEY_PREFETCH_IO_THREADS, "2"))
+            );
+        }
+        this.backgroundWriter = new BackgroundWriter(
+            bufferPool,
+            fileManager,
+            SyncPolicy.fromConfig(),
+            Long.parseLong(AppConfig.getOrDefault(KEY_WRITER_INTERVAL_MS, "200")),
+            Double.parseDouble(AppConfig.getOrDefault(KEY_WRITER_DIRTY_RATIO, "0.25")),
+            Long.parseLong(AppConfig.getOrDefault(KEY_CHECKPOINT_INTERVAL_MS, "30000")),
+            Long.parseLong(AppConfig.getOrDefault(KEY_SYNC_INTERVAL_MS, "100"))
+        );
+        this.backgroundWriter.start();
+        this.eventEmitter = Objects.requireNonNull(eventEmitter, "eventEmitter must not be null");
     }
 
     /**
-     * Executes a SQL query command (for example, SELECT) and returns tabular output.
+     * Opens the write-ahead log, replays it over the table files and attaches it to the
+     * buffer pool, unless the log is disabled in configuration.
+     *
+     * @return open log, or null when disabled
+     */
+    private WriteAheadLog openWriteAheadLog() {
+        if (!Boolean.parseBoolean(AppConfig.getOrDefault(KEY_WAL_ENABLED, "true"))) {
+            return null;
+        }
+        try {
+            WriteAheadLog wal = WriteAheadLog.open(
+                dbDirectory,
+                Long.parseLong(AppConfig.getOrDefault(KEY_WAL_GROUP_COMMIT_WINDOW_US, "0"))
+            );
+            new RecoveryManager(wal, bufferPool, fileManager).recover();
+            bufferPool.setWriteAheadLog(wal);
+            return wal;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to recover database from the write-ahead log", e);
+        }
+    }
+
+    /**
+     * Executes a SQL query command (for example, SELECT) and returns tabular output. The
+     * whole result is materialized; use {@link #openQuery} to stream large results.
      *
      * @param sql SQL query text
      * @return query result table or an error table
      */
     @Override
     public TableDto doQuery(String sql) {
+        QueryData queryData;
         try {
-            Parser parser = new ParserImpl(sql);
-            Object command = parser.queryCmd();
+            Object command = parseStatement(sql);
             
-            if (command instanceof QueryData) {
-                return executeSelect((QueryData) command);
-            } else {
+            if (command instanceof ExplainData) {
+                return executeExplain(((ExplainData) command).getQuery());
+            }
+            if (!(command instanceof QueryData)) {
                 return TableDto.forError("Invalid query command");
             }
+            queryData = (QueryData) command;
         } catch (Exception e) {
             return TableDto.forError("Query error: " + e.getMessage());
         }
+
+        try (QueryCursor cursor = openSelect(queryData, null)) {
+            return TableDto.fromCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return TableDto.forError(e.getMessage());
+        } catch (Exception e) {
+            return TableDto.forError("Error executing SELECT: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a SQL query and opens a cursor over its rows without materializing them.
+     *
+     * @param sql SQL query text
+     * @return open cursor; the caller closes it
+     * @throws IllegalArgumentException when the SQL is not a valid query on existing columns
+     */
+    @Override
+    public QueryCursor openQuery(String sql) {
+        Object command;
+        try {
+            command = parseStatement(sql);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Query error: " + e.getMessage(), e);
+        }
+        if (!(command instanceof QueryData)) {
+            throw new IllegalArgumentException("Invalid query command");
+        }
+        return openSelect((QueryData) command, null);
     }
 
     /**
@@ -108,17 +208,18 @@ public class QueryEngineImpl implements QueryEngine {
     @Override
     public TableDto doUpdate(String sql) {
         try {
-            Parser parser = new ParserImpl(sql);
-            Object command = parser.updateCmd();
+            Object command = parseStatement(sql);
             
             if (command instanceof CreateTableData) {
                 return executeCreateTable((CreateTableData) command);
             } else if (command instanceof InsertData) {
                 return executeInsert((InsertData) command);
             } else if (command instanceof UpdateData) {
-                return executeUpdate((UpdateData) command);
+                return executeUpdate((UpdateData) command, null);
             } else if (command instanceof DeleteData) {
-                return executeDelete((DeleteData) command);
+                return executeDelete((DeleteData) command, null);
+            } else if (command instanceof AnalyzeData) {
+                return executeAnalyze((AnalyzeData) command);
             } else {
                 return TableDto.forError("Unknown update command");
             }
@@ -127,6 +228,74 @@ public class QueryEngineImpl implements QueryEngine {
         }
     }
 
+    /**
+     * Parses a SELECT, INSERT, UPDATE or DELETE with {@code ?} placeholders once and
+     * chooses its access path, for repeated runs through {@link #execute}. The access path
+     * is kept for the life of the statement, so statistics gathered later only reach
+     * statements prepared after them.
+     *
+     * @param sql statement text
+     * @return prepared statement
+     * @throws IllegalArgumentException when the SQL is invalid, of another kind, or names a
+     *         table that does not exist
+     */
+    @Override
+    public PreparedStatement prepare(String sql) {
+        Object command;
+        try {
+            command = new ParserImpl(sql).command();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Query error: " + e.getMessage(), e);
+        }
+        if (!CommandBinder.isBindable(command)) {
+            throw new IllegalArgumentException("Only SELECT, INSERT, UPDATE and DELETE statements can be prepared");
+        }
+        String tableName = getCommandTable(command);
+        Table table = getTable(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Table '" + tableName + "' does not exist");
+        }
+        GenericAccessPath accessPath = command instanceof InsertData
+            ? null
+            : planner.chooseGenericAccessPath(table, getCommandPredicate(command));
+        return PreparedStatement.create(sql, command, tableName, table.getSchema(), accessPath);
+    }
+
+    /**
+     * Runs a prepared statement with one value per placeholder, through the access path
+     * chosen when it was prepared.
+     *
+     * @param statement statement from {@link #prepare}
+     * @param params placeholder values in order: Integer for INTEGER columns, String for VARCHAR
+     * @return query or update result table, or an error table
+     */
+    @Override
+    public TableDto execute(PreparedStatement statement, Object... params) {
+        Object command;
+        try {
+            command = statement.bind(params);
+        } catch (IllegalArgumentException e) {
+            return TableDto.forError(e.getMessage());
+        }
+
+        if (command instanceof QueryData) {
+            try (QueryCursor cursor = openSelect((QueryData) command, statement.getAccessPath())) {
+                return TableDto.fromCursor(cursor);
+            } catch (IllegalArgumentException e) {
+                return TableDto.forError(e.getMessage());
+            } catch (Exception e) {
+                return TableDto.forError("Error executing SELECT: " + e.getMessage());
+            }
+        }
+        if (command instanceof InsertData) {
+            return executeInsert((InsertData) command);
+        }
+        if (command instanceof UpdateData) {
+            return executeUpdate((UpdateData) command, statement.getAccessPath());
+        }
+        return executeDelete((DeleteData) command, statement.getAccessPath());
+    }
+
     /**
      * Executes a SQL CREATE INDEX command.
      *
@@ -149,6 +318,40 @@ public class QueryEngineImpl implements QueryEngine {
         }
     }
 
+    /**
+     * Loads records into a table through {@link Table#bulkInsert} and commits once at the
+     * end. Records must already hold values of the schema types, in schema order.
+     *
+     * @param tableName target table
+     * @param records records to insert
+     * @return update result table or an error table
+     */
+    @Override
+    public TableDto bulkLoad(String tableName, Iterator<Record> records) {
+        Table table = getTable(tableName);
+        if (table == null) {
+            return TableDto.forError("Table '" + tableName + "' does not exist");
+        }
+        try {
+            int inserted = table.bulkInsert(records);
+            backgroundWriter.onStatementCommit();
+            emitMutationResultEvent(tableName, MutationOperation.INSERT, inserted);
+            return TableDto.forUpdateResult(inserted);
+        } catch (Exception e) {
+            return TableDto.forError("Error loading records: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the cache of parsed statements shared by {@link #doQuery}, {@link #openQuery}
+     * and {@link #doUpdate}, e.g. to read its hit and miss counters.
+     *
+     * @return statement cache
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
     public void emitUpdateEvents(MutationEvent mutationEvent) {
         if (mutationEvent == null) {
             throw new IllegalArgumentException("mutationEvent must not be null");
@@ -180,11 +383,11 @@ public class QueryEngineImpl implements QueryEngine {
         String tableName = command.getTblname();
         boolean isUnique = command.isUnique(); 
         
-        if (!tables.containsKey(tableName)) {
+        if (getTable(tableName) == null) {
             return TableDto.forError("Table '" + tableName + "' does not exist");
         }
         
-        Table table = tables.get(tableName);
+        Table table = getTable(tableName);
         
         Schema schema = table.getSchema();
         int columnIndex = schema.getColumnIndex(columnName);
@@ -195,6 +398,7 @@ public class QueryEngineImpl implements QueryEngine {
         try {
             DataType columnType = schema.getColumn(columnIndex).getType();
             TableIndex<?> newIndex = table.createTypedIndex(columnName, tableName, indexName, isUnique, columnType);    
+            catalog.saveTable(table);
             return TableDto.forIndexResult(newIndex.getColumnName());
             
         } catch (Exception e) {
@@ -204,224 +408,166 @@ public class QueryEngineImpl implements QueryEngine {
     }
 
     /**
-     * Executes a SELECT command by collecting candidate records, applying predicates,
-     * projecting selected columns, and returning the final result table.
+     * Parses a statement to run directly, which leaves no way to fill {@code ?} placeholders.
      *
-     * @param queryData parsed query command
-     * @return result table containing selected columns and rows, or an error table
+     * @throws IllegalArgumentException when the statement has placeholders
      */
-    private TableDto executeSelect(QueryData queryData)
-    {
-        String tableName = queryData.getTable();
-        
-        if (!tables.containsKey(tableName)) {
-            return TableDto.forError("Table" + tableName + "doesn't exist");
-        }
-
-        Table table = tables.get(tableName);
-        Schema selectedSchema = table.getSchema();
-        List<String> selectedColumns = queryData.getFields();
-
-        if (Boolean.TRUE.equals(queryData.getSelectAll())) {
-            selectedColumns = selectedSchema.getColumnNames();
-        }
-
-        if  (selectedColumns.isEmpty()) {
-            return TableDto.forError("Table" + tableName + "has no fields");
-        }
-
-        try {
-            //search candidates index
-            List<Record> candidateRecords = getCandidateRecords(table, queryData.getPredicate());
-
-            //filter the candidates 
-            List<Record> filteredRows = (candidateRecords.isEmpty())?candidateRecords:applyWhereFilter(selectedSchema, candidateRecords, queryData.getPredicate());
-            List<Integer> columnIndexes = new ArrayList<>();
-        
-            for (String columnName: selectedColumns) {
-                int columnIdx = selectedSchema.getColumnIndex(columnName);
-                columnIndexes.add(columnIdx);
-            }
-
-            List<List<String>> resultRows = new ArrayList<>();
-            for (Record record : filteredRows) {
-                List<String> resultRow = new ArrayList<>();
-                Object[] values = record.getValues();
-                
-                for (int colIndex : columnIndexes) {
-                    Object value = (colIndex < values.length) ? values[colIndex] : null;
-                    resultRow.add(value != null ? value.toString() : "NULL");
-                }
-                resultRows.add(resultRow);
+    private Object parseStatement(String sql) {
+        Object command = statementCache.parse(sql);
+        if (sql.indexOf('?') >= 0 && CommandBinder.hasParameters(command)) {
+            throw new IllegalArgumentException("Statement has ? parameters; use prepare and execute");
         }
-        
-        return new TableDto(selectedColumns, resultRows);
-        
-    } catch (Exception e) {
-        return TableDto.forError("Error executing SELECT: " + e.getMessage());
-    }
+        return command;
     }
 
     /**
-     * Retrieves candidate records for a predicate, attempting index lookup for simple
-     * equality predicates and falling back to full table scan when needed.
+     * Opens a cursor over a SELECT: the statement is compiled to an operator tree by the
+     * {@link QueryPlanner}, which filters and projects rows as the cursor is advanced.
      *
-     * @param table source table
-     * @param predicate optional query predicate
-     * @return candidate record list (possibly empty)
+     * @param queryData parsed query command
+     * @param accessPath access path of a prepared statement, or null to choose one by cost
+     * @return open cursor; the caller closes it
+     * @throws IllegalArgumentException when the table or a selected column does not exist
      */
-    private List<Record> getCandidateRecords(Table table, DBPredicate predicate) {
-        
+    private QueryCursor openSelect(QueryData queryData, GenericAccessPath accessPath) {
+        Table table = getQueriedTable(queryData);
+        List<String> selectedColumns = getSelectedColumns(table, queryData);
+
+        Operator plan = accessPath == null
+            ? planner.planSelect(table, selectedColumns, queryData.getPredicate())
+            : planner.planSelect(table, selectedColumns, queryData.getPredicate(), accessPath);
         try {
-            if (predicate != null && predicate.getTerms().size() == 1) {
-                DBTerm term = predicate.getTerms().get(0);
-                
-                if (term.getOperator() == ComparisonOperator.EQUALS) {
-
-                    // Get all terms and prepare for search
-                    String columnName = term.getLhsField();
-                    TableIndex<?> index = table.findIndexForColumn(columnName);
-                    Object valueObj = term.getRhsConstant().getVal();
-                    
-                    if (valueObj == null) {
-                        throw new IllegalArgumentException("Null value after equality");
-                    }
-                    
-                    if (index != null) {
-
-                        Comparable searchValue = (Comparable) valueObj;
-                        if (index.isUnique()) {
-                            RecordId rid = searchInIndex(index, searchValue);
-                            if (rid != null) {
-                            
-                                Record record = table.getRecord(rid);
-                                return record != null ? Arrays.asList(record) : new ArrayList<>();
-                            }
-                            return new ArrayList<>(); // No match found
-                        }
-
-                        List<RecordId> rids = searchAllInIndex(index, searchValue);
-                        if (!rids.isEmpty()) {
-                            List<Record> indexedRecords = new ArrayList<>();
-                            for (RecordId rid : rids) {
-                                Record record = table.getRecord(rid);
-                                if (record != null) {
-                                    indexedRecords.add(record);
-                                }
-                            }
-                            return indexedRecords;
-                        }
-                        return new ArrayList<>();
-                    }
-                }
-            }
-            // Fallback to full table scan if no index can be used
-            List<Record> records = new ArrayList<>();
-            for (Record record : table) {
-                records.add(record);
-            }
-            return records;
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-            // Fallback to table scan on error
-            List<Record> records = new ArrayList<>();
-            for (Record record : table) {
-                records.add(record);
-            }
-            return records;
+            plan.open();
+        } catch (RuntimeException e) {
+            plan.close();
+            throw e;
         }
+        return new OperatorCursor(plan, selectedColumns);
     }
 
     /**
-     * Helper method for type-safe index searching
+     * Shows the plan a SELECT would run with, its estimated rows and costs, and the
+     * access paths the planner rejected.
+     *
+     * @param queryData parsed query command
+     * @return plan table or an error table
      */
-    @SuppressWarnings("unchecked")
-    private <K extends Comparable<K>> RecordId searchInIndex(TableIndex<?> index, Comparable value) {
-        // Safe cast because we know K extends Comparable<K>
-        return ((TableIndex<K>) index).search((K) value);
+    private TableDto executeExplain(QueryData queryData) {
+        try {
+            Table table = getQueriedTable(queryData);
+            List<String> selectedColumns = getSelectedColumns(table, queryData);
+            List<List<String>> lines = planner.explainSelect(table, selectedColumns, queryData.getPredicate());
+            return new TableDto(List.of("plan", "rows", "cost"), lines);
+        } catch (IllegalArgumentException e) {
+            return TableDto.forError(e.getMessage());
+        }
     }
 
     /**
-     * Helper method for type-safe non-unique index search.
+     * Recollects optimizer statistics for each named table and lists them per column.
      *
-     * @param index target index
-     * @param value lookup key
-     * @param <K> key type
-     * @return all matching record ids, possibly empty
+     * @param analyzeData parsed ANALYZE command
+     * @return statistics table or an error table
      */
-    @SuppressWarnings("unchecked")
-    private <K extends Comparable<K>> List<RecordId> searchAllInIndex(TableIndex<?> index, Comparable value) {
-        return ((TableIndex<K>) index).searchAll((K) value);
+    private TableDto executeAnalyze(AnalyzeData analyzeData) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        for (String tableName : analyzeData.getTables()) {
+            Table table = getTable(tableName);
+            if (table == null) {
+                return TableDto.forError("Table '" + tableName + "' does not exist");
+            }
+            TableStatistics statistics = statisticsCollector.analyze(table);
+            table.setStatistics(statistics);
+            catalog.saveTable(table);
+            for (ColumnStatistics column : statistics.getColumns().values()) {
+                rows.add(Arrays.asList(tableName, String.valueOf(statistics.getRowCount()),
+                    String.valueOf(statistics.getBlockCount()), column.getColumnName(),
+                    String.valueOf(column.getDistinctCount()), String.format("%.3f", column.getNullFraction()),
+                    String.valueOf(column.getMin()), String.valueOf(column.getMax()),
+                    String.valueOf(column.getHistogram().getBucketCount())));
+            }
+        }
+        return new TableDto(List.of("table", "rows", "blocks", "column", "distinct", "null_fraction",
+            "min", "max", "buckets"), rows);
     }
 
-    /**
-     * Applies WHERE predicate terms to a list of records.
-     *
-     * @param selectedSchema schema used to resolve field names in predicate terms
-     * @param rows input rows to filter
-     * @param predicate optional WHERE predicate
-     * @return filtered rows; returns input rows unchanged when predicate is empty
-     */
-    private List<Record> applyWhereFilter(Schema selectedSchema, List<Record> rows, DBPredicate predicate) {
+    private Table getQueriedTable(QueryData queryData) {
+        String tableName = queryData.getTable();
+        Table table = getTable(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Table " + tableName + " doesn't exist");
+        }
+        return table;
+    }
 
-        if (predicate == null || predicate.getTerms() == null || predicate.getTerms().isEmpty()) {
-            return rows;
-        }   
+    private static String getCommandTable(Object command) {
+        if (command instanceof QueryData) {
+            return ((QueryData) command).getTable();
+        }
+        if (command instanceof InsertData) {
+            return ((InsertData) command).getTableName();
+        }
+        if (command instanceof UpdateData) {
+            return ((UpdateData) command).getTableName();
+        }
+        return ((DeleteData) command).getTableName();
+    }
 
-        List<Record> filteredRows = new ArrayList<>();
-        for (Record row: rows) {
-            RORecordScan recordScan = new RORecordScanImpl(row, selectedSchema);
-            boolean matchesAllTerms = true;
+    private static DBPredicate getCommandPredicate(Object command) {
+        if (command instanceof QueryData) {
+            return ((QueryData) command).getPredicate();
+        }
+        if (command instanceof UpdateData) {
+            return ((UpdateData) command).getPredicate();
+        }
+        if (command instanceof DeleteData && ((DeleteData) command).getPredicate() != null
+                && !((DeleteData) command).getPredicate().isEmpty()) {
+            return ((DeleteData) command).getPredicate().get(0);
+        }
+        return null;
+    }
 
-            for (DBTerm term : predicate.getTerms()) {
-                if (!term.isSatisfied(recordScan)) {
-                    matchesAllTerms = false;
-                    break;
-                }
-            }
-            
-            if (matchesAllTerms) {
-                filteredRows.add(row);
-            }
+    private List<String> getSelectedColumns(Table table, QueryData queryData) {
+        List<String> selectedColumns = queryData.getFields();
+        if (Boolean.TRUE.equals(queryData.getSelectAll())) {
+            selectedColumns = table.getSchema().getColumnNames();
         }
-        return filteredRows;
+        if (selectedColumns.isEmpty()) {
+            throw new IllegalArgumentException("Table " + table.getTableName() + " has no fields");
+        }
+        return selectedColumns;
     }
 
     /**
-     * Evaluates a predicate against a single record, defaulting to true when no
-     * predicate terms are supplied.
+     * Looks a table up among the tables in use, loading it from the system catalog the first
+     * time it is asked for.
      *
-     * @param schema record schema
-     * @param record record to evaluate
-     * @param predicate predicate to apply
-     * @return true when record satisfies predicate (or predicate is empty)
+     * @param tableName table name
+     * @return table, or null when it does not exist
      */
-    private boolean matchesPredicate(Schema schema, Record record, DBPredicate predicate) {
-        if (predicate == null || predicate.getTerms() == null || predicate.getTerms().isEmpty()) {
-            return true;
-        }
-        RORecordScan recordScan = new RORecordScanImpl(record, schema);
-        return predicate.isSatisfied(recordScan);
+    private Table getTable(String tableName) {
+        return tables.computeIfAbsent(tableName, catalog::loadTable);
     }
 
     /**
-     * Creates a new in-memory table with the provided schema definition.
+     * Creates a new table with the provided schema definition and records it in the
+     * system catalog.
      *
      * @param createData parsed CREATE TABLE command data
      * @return update result table or an error table
      */
-    private TableDto executeCreateTable(CreateTableData createData) {
-        String tableName = createData.getTableName();
-        
-        if (tables.containsKey(tableName) || tableFileExists(tableName)) {
-            return TableDto.forError("Table '" + tableName + "' already exists");
-        }
+    private TableDto executeCreateTable(CreateTableData createData) {
+        String tableName = createData.getTableName();
+        
+        if (getTable(tableName) != null) {
+            return TableDto.forError("Table '" + tableName + "' already exists");
+        }
         
         try {
             Schema newSchema = createData.getSchemaPresentation().convertToSchema();
             Table newTable = new Table(newSchema, bufferPool, tableName, fileManager);
             fileManager.initializePhysicalTable(newTable);
+            catalog.saveTable(newTable);
             
             tables.put(tableName, newTable);
         
@@ -431,16 +577,12 @@ public class QueryEngineImpl implements QueryEngine {
         e.printStackTrace();
         return TableDto.forError("Error creating table: " + e.getMessage());
     }
-}
-
-    private boolean tableFileExists(String tableName) {
-        File tableFile = new File(dbDirectory, tableName + ".tbl");
-        return tableFile.exists();
-    }
-
-    /**
-     * Inserts one record into a target table after validating fields and converting
-     * values to schema-compatible types.
+}
+
+    /**
+     * Inserts the rows of an INSERT after validating fields and converting values to
+     * schema-compatible types. A multi-row INSERT goes through {@link Table#bulkInsert}
+     * and commits once for all rows.
      *
      * @param insertData parsed INSERT command data
      * @return update result table or an error table
@@ -448,40 +590,53 @@ public class QueryEngineImpl implements QueryEngine {
     private TableDto executeInsert(InsertData insertData) {
         String tableName = insertData.getTableName();
         
-        if (!tables.containsKey(tableName)) {
+        if (getTable(tableName) == null) {
             return TableDto.forError("Table '" + tableName + "' does not exist");
         }
         
-        Table table = tables.get(tableName);
+        Table table = getTable(tableName);
         Schema schema = table.getSchema();
         List<String> schemaFields = schema.getColumnNames();
         List<String> insertFields = insertData.getFields();
-        List<DBConstant> insertValues = insertData.getValues();
         
         try {
-            Object[] recordData = new Object[schemaFields.size()];
-            
+            int[] schemaIndexes = new int[insertFields.size()];
             for (int i = 0; i < insertFields.size(); i++) {
                 String fieldName = insertFields.get(i);
-                int schemaIndex = schemaFields.indexOf(fieldName);
+                schemaIndexes[i] = schemaFields.indexOf(fieldName);
                 
-                if (schemaIndex == -1) {
+                if (schemaIndexes[i] == -1) {
                     return TableDto.forError("Column '" + fieldName + "' does not exist");
                 }
-                
-                DBConstant value = insertValues.get(i);
-                Object convertedValue = convertValueToSchemaType(value, schema.getColumn(schemaIndex).getType());
-                recordData[schemaIndex] = convertedValue;
+            }
+
+            List<Record> records = new ArrayList<>();
+            for (List<DBConstant> insertValues : insertData.getRows()) {
+                if (insertValues.size() != insertFields.size()) {
+                    return TableDto.forError("INSERT has " + insertFields.size() + " columns but a row has "
+                        + insertValues.size() + " values");
+                }
+                Object[] recordData = new Object[schemaFields.size()];
+                for (int i = 0; i < insertValues.size(); i++) {
+                    DBConstant value = insertValues.get(i);
+                    Object convertedValue = convertValueToSchemaType(value, schema.getColumn(schemaIndexes[i]).getType());
+                    recordData[schemaIndexes[i]] = convertedValue;
+                }
+                records.add(new Record(recordData));
             }
             
-            Record record = new Record(recordData);
-            
-            table.insertRecord(record);
+            int inserted;
+            if (records.size() == 1) {
+                table.insertRecord(records.get(0));
+                inserted = 1;
+            } else {
+                inserted = table.bulkInsert(records.iterator());
+            }
             
-            bufferPool.flushAll();
-            emitMutationResultEvent(tableName, MutationOperation.INSERT, 1);
+            backgroundWriter.onStatementCommit();
+            emitMutationResultEvent(tableName, MutationOperation.INSERT, inserted);
             
-            return TableDto.forUpdateResult(1);
+            return TableDto.forUpdateResult(inserted);
         } catch (Exception e) {
             e.printStackTrace(); // Print stack trace for better debugging
             return TableDto.forError("Error inserting record: " + e.getMessage());
@@ -492,11 +647,12 @@ public class QueryEngineImpl implements QueryEngine {
      * Updates records that satisfy the command predicate.
      *
      * @param updateData parsed UPDATE command data
+     * @param accessPath access path of a prepared statement, or null to choose one by cost
      * @return update result table or an error table
      */
-    private TableDto executeUpdate(UpdateData updateData) {
+    private TableDto executeUpdate(UpdateData updateData, GenericAccessPath accessPath) {
         String tableName = updateData.getTableName();
-        if (!tables.containsKey(tableName)) {
+        if (getTable(tableName) == null) {
             return TableDto.forError("Table '" + tableName + "' does not exist");
         }
 
@@ -510,7 +666,7 @@ public class QueryEngineImpl implements QueryEngine {
             return TableDto.forError("UPDATE field/value assignment count does not match");
         }
 
-        Table table = tables.get(tableName);
+        Table table = getTable(tableName);
         Schema schema = table.getSchema();
         List<Integer> columnIndexes = new ArrayList<>();
 
@@ -524,46 +680,28 @@ public class QueryEngineImpl implements QueryEngine {
             }
 
             int affectedRows = 0;
-            String filename = table.getTableName() + ".tbl";
-            int blockCount = fileManager.getBlockCount(filename);
-
-            for (int blockNum = 0; blockNum < blockCount; blockNum++) {
-                Block block = new Block(filename, blockNum);
-                Page page = bufferPool.pinBlock(block);
-
-                try {
-                    SlottedRecordPage recordPage = new SlottedRecordPage(page, schema, block, bufferPool);
-                    List<RecordWithSlot> records = recordPage.getAllRecords();
-
-                    for (RecordWithSlot recordWithSlot : records) {
-                        Object[] currentValues = recordWithSlot.getRecord();
-                        Record currentRecord = new Record(currentValues);
-
-                        if (!matchesPredicate(schema, currentRecord, updateData.getPredicate())) {
-                            continue;
-                        }
-
-                        Object[] updatedValues = Arrays.copyOf(currentValues, currentValues.length);
-                        for (int i = 0; i < columnIndexes.size(); i++) {
-                            int columnIndex = columnIndexes.get(i);
-                            DataType targetType = schema.getColumn(columnIndex).getType();
-                            updatedValues[columnIndex] = convertValueToSchemaType(values.get(i), targetType);
-                        }
-
-                        if (!recordPage.update(recordWithSlot.getSlot(), updatedValues)) {
-                            return TableDto.forError(
-                                "Unable to update record at block " + blockNum + ", slot " + recordWithSlot.getSlot()
-                            );
-                        }
-                        affectedRows++;
-                    }
-                } finally {
-                    bufferPool.unpinBlock(block);
+            for (RecordId rid : findMatchingRecords(table, updateData.getPredicate(), accessPath)) {
+                Record current = table.getRecord(rid);
+                if (current == null) {
+                    continue;
                 }
+                Object[] currentValues = current.getValues();
+                Object[] updatedValues = Arrays.copyOf(currentValues, currentValues.length);
+                for (int i = 0; i < columnIndexes.size(); i++) {
+                    int columnIndex = columnIndexes.get(i);
+                    DataType targetType = schema.getColumn(columnIndex).getType();
+                    updatedValues[columnIndex] = convertValueToSchemaType(values.get(i), targetType);
+                }
+
+                if (!table.updateRecord(rid, updatedValues)) {
+                    return TableDto.forError(
+                        "Unable to update record at block " + rid.getBlockId().getBlockNum() + ", slot " + rid.getSlotNumber()
+                    );
+                }
+                affectedRows++;
             }
 
-            table.rebuildIndexes();
-            bufferPool.flushAll();
+            backgroundWriter.onStatementCommit();
             emitMutationResultEvent(tableName, MutationOperation.UPDATE, affectedRows);
             return TableDto.forUpdateResult(affectedRows);
         } catch (Exception e) {
@@ -576,15 +714,16 @@ public class QueryEngineImpl implements QueryEngine {
      * Deletes records that satisfy the command predicate.
      *
      * @param deleteData parsed DELETE command data
+     * @param accessPath access path of a prepared statement, or null to choose one by cost
      * @return update result table or an error table
      */
-    private TableDto executeDelete(DeleteData deleteData) {
+    private TableDto executeDelete(DeleteData deleteData, GenericAccessPath accessPath) {
         String tableName = deleteData.getTableName();
-        if (!tables.containsKey(tableName)) {
+        if (getTable(tableName) == null) {
             return TableDto.forError("Table '" + tableName + "' does not exist");
         }
 
-        Table table = tables.get(tableName);
+        Table table = getTable(tableName);
         Schema schema = table.getSchema();
         DBPredicate predicate = null;
         if (deleteData.getPredicate() != null && !deleteData.getPredicate().isEmpty()) {
@@ -593,34 +732,13 @@ public class QueryEngineImpl implements QueryEngine {
 
         try {
             int affectedRows = 0;
-            String filename = table.getTableName() + ".tbl";
-            int blockCount = fileManager.getBlockCount(filename);
-
-            for (int blockNum = 0; blockNum < blockCount; blockNum++) {
-                Block block = new Block(filename, blockNum);
-                Page page = bufferPool.pinBlock(block);
-
-                try {
-                    SlottedRecordPage recordPage = new SlottedRecordPage(page, schema, block, bufferPool);
-                    List<RecordWithSlot> records = recordPage.getAllRecords();
-
-                    for (RecordWithSlot recordWithSlot : records) {
-                        Record currentRecord = new Record(recordWithSlot.getRecord());
-                        if (!matchesPredicate(schema, currentRecord, predicate)) {
-                            continue;
-                        }
-
-                        if (recordPage.delete(recordWithSlot.getSlot())) {
-                            affectedRows++;
-                        }
-                    }
-                } finally {
-                    bufferPool.unpinBlock(block);
+            for (RecordId rid : findMatchingRecords(table, predicate, accessPath)) {
+                if (table.deleteRecord(rid)) {
+                    affectedRows++;
                 }
             }
 
-            table.rebuildIndexes();
-            bufferPool.flushAll();
+            backgroundWriter.onStatementCommit();
             emitMutationResultEvent(tableName, MutationOperation.DELETE, affectedRows);
             return TableDto.forUpdateResult(affectedRows);
         } catch (Exception e) {
@@ -629,6 +747,32 @@ public class QueryEngineImpl implements QueryEngine {
         }
     }
 
+    /**
+     * Runs the access plan of an UPDATE or DELETE and collects the ids of the matching
+     * records. Only ids are kept, and the table is changed after the plan is closed, so a
+     * change can never move a row back into the path of the scan that found it.
+     *
+     * @param table target table
+     * @param predicate WHERE predicate, or null
+     * @param accessPath access path of a prepared statement, or null to choose one by cost
+     * @return ids of matching records in scan order
+     */
+    private List<RecordId> findMatchingRecords(Table table, DBPredicate predicate, GenericAccessPath accessPath) {
+        List<RecordId> rids = new ArrayList<>();
+        try (Operator plan = accessPath == null
+                ? planner.planAccess(table, predicate)
+                : planner.planAccess(table, predicate, accessPath)) {
+            plan.open();
+            plan.push(Operator.DEFAULT_BATCH_SIZE, batch -> {
+                for (Row row : batch) {
+                    rids.add(row.getRecordId());
+                }
+                return true;
+            });
+        }
+        return rids;
+    }
+
     /**
      * Converts a parsed constant into the expected storage type defined by schema.
      *
@@ -688,10 +832,22 @@ public class QueryEngineImpl implements QueryEngine {
         return trimmed;
     }
 
+    /**
+     * Buffer pool shared by all tables; used by tests to check pins.
+     */
+    BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     @Override
     public void close() {
         try {
-            bufferPool.flushAll();
+            backgroundWriter.close();
+            bufferPool.disableReadAhead();
+            catalog.close();
+            if (writeAheadLog != null) {
+                writeAheadLog.close();
+            }
             fileManager.close();
         } catch (IOException e) {
             throw new RuntimeException("Failed to close query engine resources", e);
@@ -0,0 +1,113 @@
+package lite.sqlite.server.statistics;
+
+import lite.sqlite.server.storage.record.ColumnValues;
+
+/**
+ * Statistics of one column: null fraction, number of distinct values, min/max, an
+ * {@link EquiDepthHistogram} and the correlation between value order and physical row
+ * order, plus the selectivity estimates the planner derives from them.
+ */
+public class ColumnStatistics {
+
+    private final String columnName;
+    private final double nullFraction;
+    private final long distinctCount;
+    private final Comparable<?> min;
+    private final Comparable<?> max;
+    private final EquiDepthHistogram histogram;
+    private final double correlation;
+
+    /**
+     * @param columnName column the statistics describe
+     * @param nullFraction fraction of rows holding NULL
+     * @param distinctCount estimated number of distinct non-null values
+     * @param min smallest value, or null when the column holds no values
+     * @param max largest value, or null when the column holds no values
+     * @param histogram histogram of the non-null values
+     * @param correlation correlation between value order and physical order, from -1 to 1
+     */
+    public ColumnStatistics(String columnName, double nullFraction, long distinctCount,
+            Comparable<?> min, Comparable<?> max, EquiDepthHistogram histogram, double correlation) {
+        this.columnName = columnName;
+        this.nullFraction = nullFraction;
+        this.distinctCount = distinctCount;
+        this.min = min;
+        this.max = max;
+        this.histogram = histogram;
+        this.correlation = correlation;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public double getNullFraction() {
+        return nullFraction;
+    }
+
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    public Comparable<?> getMin() {
+        return min;
+    }
+
+    public Comparable<?> getMax() {
+        return max;
+    }
+
+    public EquiDepthHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * How closely the rows are stored in value order: 1 when ascending values sit in
+     * ascending blocks, near 0 when they are scattered. An index range over a correlated
+     * column reads few, adjacent blocks.
+     */
+    public double getCorrelation() {
+        return correlation;
+    }
+
+    /**
+     * Estimated fraction of rows equal to {@code value}: the non-null rows spread evenly
+     * over the distinct values unless the value fills whole histogram buckets, or 0 outside
+     * {@code [min, max]}.
+     */
+    public double equalitySelectivity(Comparable<?> value) {
+        return rangeSelectivity(value, true, value, true);
+    }
+
+    /**
+     * Estimated fraction of rows whose value lies between two bounds.
+     *
+     * @param low lower bound, or null for none
+     * @param lowInclusive whether the lower bound matches
+     * @param high upper bound, or null for none
+     * @param highInclusive whether the upper bound matches
+     */
+    public double rangeSelectivity(Comparable<?> low, boolean lowInclusive, Comparable<?> high, boolean highInclusive) {
+        double below = high == null ? 1.0 : histogram.fractionBelow(high) + (highInclusive ? valueFraction(high) : 0.0);
+        double notAbove = low == null ? 0.0 : histogram.fractionBelow(low) + (lowInclusive ? 0.0 : valueFraction(low));
+        double fraction = Math.min(1.0, below) - Math.min(1.0, notAbove);
+        return Math.max(0.0, Math.min(1.0, fraction)) * (1.0 - nullFraction);
+    }
+
+    /**
+     * Fraction of the non-null values equal to {@code value}: its share of the distinct
+     * values, or more when it fills whole histogram buckets.
+     */
+    private double valueFraction(Comparable<?> value) {
+        if (distinctCount == 0 || min == null || ColumnValues.compare(value, min) < 0 || ColumnValues.compare(value, max) > 0) {
+            return 0.0;
+        }
+        return Math.max(1.0 / distinctCount, histogram.fractionEqual(value));
+    }
+
+    @Override
+    public String toString() {
+        return columnName + "(distinct=" + distinctCount + ", nulls=" + nullFraction
+            + ", min=" + min + ", max=" + max + ", buckets=" + histogram.getBucketCount() + ", correlation=" + correlation + ")";
+    }
+}
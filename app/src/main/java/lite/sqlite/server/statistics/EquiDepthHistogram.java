@@ -0,0 +1,116 @@
+package lite.sqlite.server.statistics;
+
+import java.util.Arrays;
+import java.util.List;
+
+import lite.sqlite.server.storage.record.ColumnValues;
+
+/**
+ * Equi-depth histogram over the non-null values of one column: every bucket holds about
+ * the same number of values, so buckets are narrow where values are dense.
+ *
+ * <p>{@code bounds[0]} is the smallest value and {@code bounds[k + 1]} the upper bound of
+ * bucket {@code k}; both bounds are values of the column. Within a bucket INTEGER values are
+ * assumed to be spread evenly over the {@code high - low + 1} integers of the bucket; for
+ * VARCHAR, which cannot be interpolated, a value is assumed to sit in the middle. A value
+ * repeated often enough fills whole buckets whose bounds both equal it.
+ */
+public class EquiDepthHistogram {
+
+    private final Comparable<?>[] bounds;
+
+    private EquiDepthHistogram(Comparable<?>[] bounds) {
+        this.bounds = bounds;
+    }
+
+    /**
+     * Builds a histogram from sorted values.
+     *
+     * @param sortedValues non-null values in ascending order
+     * @param buckets wanted number of buckets; fewer are used when there are fewer values
+     */
+    public static EquiDepthHistogram build(List<? extends Comparable<?>> sortedValues, int buckets) {
+        int n = sortedValues.size();
+        if (n == 0) {
+            return new EquiDepthHistogram(new Comparable<?>[0]);
+        }
+        int bucketCount = Math.max(1, Math.min(buckets, n - 1));
+        Comparable<?>[] bounds = new Comparable<?>[bucketCount + 1];
+        for (int k = 0; k <= bucketCount; k++) {
+            bounds[k] = sortedValues.get((int) ((long) k * (n - 1) / bucketCount));
+        }
+        return new EquiDepthHistogram(bounds);
+    }
+
+    /**
+     * Recreates a histogram from the bounds of another, as returned by {@link #getBounds()}.
+     *
+     * @param bounds smallest value followed by the upper bound of each bucket
+     */
+    public static EquiDepthHistogram fromBounds(List<? extends Comparable<?>> bounds) {
+        return new EquiDepthHistogram(bounds.toArray(new Comparable<?>[0]));
+    }
+
+    public int getBucketCount() {
+        return Math.max(0, bounds.length - 1);
+    }
+
+    /**
+     * Bucket bounds, smallest value first; one more than {@link #getBucketCount()}.
+     */
+    public List<Comparable<?>> getBounds() {
+        return Arrays.asList(bounds.clone());
+    }
+
+    /**
+     * Estimated fraction of the values that are smaller than {@code value}.
+     */
+    public double fractionBelow(Comparable<?> value) {
+        int bucketCount = getBucketCount();
+        if (bucketCount == 0 || ColumnValues.compare(value, bounds[0]) <= 0) {
+            return 0.0;
+        }
+        if (ColumnValues.compare(value, bounds[bucketCount]) > 0) {
+            return 1.0;
+        }
+        // Smallest bucket whose upper bound reaches the value.
+        int lo = 0;
+        int hi = bucketCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ColumnValues.compare(bounds[mid + 1], value) >= 0) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return (lo + positionInBucket(bounds[lo], bounds[lo + 1], value)) / bucketCount;
+    }
+
+    /**
+     * Fraction of the values in buckets that hold nothing but {@code value}: a lower bound
+     * on how often a frequent value occurs, and 0 for a value that fills no bucket alone.
+     */
+    public double fractionEqual(Comparable<?> value) {
+        int bucketCount = getBucketCount();
+        int filled = 0;
+        for (int k = 0; k < bucketCount; k++) {
+            if (ColumnValues.compare(bounds[k], value) == 0 && ColumnValues.compare(bounds[k + 1], value) == 0) {
+                filled++;
+            }
+        }
+        return bucketCount == 0 ? 0.0 : filled / (double) bucketCount;
+    }
+
+    /**
+     * Share of a bucket below {@code value}, where {@code low < value <= high}. The bucket's
+     * upper bound is one of its values, so even {@code value == high} leaves a share above.
+     */
+    private static double positionInBucket(Comparable<?> low, Comparable<?> high, Comparable<?> value) {
+        if (low instanceof Integer && high instanceof Integer && value instanceof Integer) {
+            long values = (long) (Integer) high - (Integer) low + 1;
+            return ((long) (Integer) value - (Integer) low) / (double) values;
+        }
+        return 0.5;
+    }
+}
@@ -0,0 +1,185 @@
+package lite.sqlite.server.statistics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import lite.sqlite.config.AppConfig;
+import lite.sqlite.server.storage.record.ColumnValues;
+import lite.sqlite.server.storage.record.Record;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.table.Table;
+
+/**
+ * Collects {@link TableStatistics} with one scan of the table (ANALYZE).
+ *
+ * <p>Row count, null counts and min/max are exact. Histograms and distinct counts come from
+ * a uniform reservoir sample of at most {@code optimizer.analyze.sample.rows} rows; when the
+ * table is larger than the sample the distinct count is extrapolated with the Haas-Stokes
+ * estimator {@code n*d / (n - f1 + f1*n/N)}, where {@code f1} is the number of values seen
+ * exactly once. The number of histogram buckets is {@code optimizer.histogram.buckets}.
+ * The physical-order correlation of a column is the correlation between the scan position
+ * of the sampled rows and the rank of their values.
+ */
+public final class StatisticsCollector {
+
+    public static final String HISTOGRAM_BUCKETS_KEY = "optimizer.histogram.buckets";
+    public static final String SAMPLE_ROWS_KEY = "optimizer.analyze.sample.rows";
+
+    public static final int DEFAULT_HISTOGRAM_BUCKETS = 32;
+    public static final int DEFAULT_SAMPLE_ROWS = 30_000;
+
+    private final int histogramBuckets;
+    private final int sampleRows;
+
+    /**
+     * @param histogramBuckets buckets per column histogram
+     * @param sampleRows rows kept in the sample histograms are built from
+     */
+    public StatisticsCollector(int histogramBuckets, int sampleRows) {
+        if (histogramBuckets <= 0) {
+            throw new IllegalArgumentException("Histogram buckets must be positive: " + histogramBuckets);
+        }
+        if (sampleRows <= 0) {
+            throw new IllegalArgumentException("Sample rows must be positive: " + sampleRows);
+        }
+        this.histogramBuckets = histogramBuckets;
+        this.sampleRows = sampleRows;
+    }
+
+    public static StatisticsCollector fromConfig() {
+        return new StatisticsCollector(
+            Integer.parseInt(AppConfig.getOrDefault(HISTOGRAM_BUCKETS_KEY, String.valueOf(DEFAULT_HISTOGRAM_BUCKETS))),
+            Integer.parseInt(AppConfig.getOrDefault(SAMPLE_ROWS_KEY, String.valueOf(DEFAULT_SAMPLE_ROWS)))
+        );
+    }
+
+    /**
+     * Scans the table and returns fresh statistics; the table itself is not changed.
+     *
+     * @throws IOException when a page cannot be read
+     */
+    public TableStatistics analyze(Table table) throws IOException {
+        Schema schema = table.getSchema();
+        int columnCount = schema.getColumnCount();
+        long[] nullCounts = new long[columnCount];
+        Comparable<?>[] mins = new Comparable<?>[columnCount];
+        Comparable<?>[] maxs = new Comparable<?>[columnCount];
+        List<Object[]> sample = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        Random random = new Random();
+        long rows = 0;
+
+        for (Record record : table) {
+            Object[] values = record.getValues();
+            for (int i = 0; i < columnCount; i++) {
+                Comparable<?> value = i < values.length ? (Comparable<?>) values[i] : null;
+                if (value == null) {
+                    nullCounts[i]++;
+                    continue;
+                }
+                if (mins[i] == null || ColumnValues.compare(value, mins[i]) < 0) {
+                    mins[i] = value;
+                }
+                if (maxs[i] == null || ColumnValues.compare(value, maxs[i]) > 0) {
+                    maxs[i] = value;
+                }
+            }
+            if (sample.size() < sampleRows) {
+                sample.add(values);
+                positions.add(rows);
+            } else {
+                long slot = (long) (random.nextDouble() * (rows + 1));
+                if (slot < sampleRows) {
+                    sample.set((int) slot, values);
+                    positions.set((int) slot, rows);
+                }
+            }
+            rows++;
+        }
+
+        Map<String, ColumnStatistics> columns = new LinkedHashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            String name = schema.getColumn(i).getName();
+            List<Integer> byValue = new ArrayList<>();
+            for (int row = 0; row < sample.size(); row++) {
+                Object[] sampled = sample.get(row);
+                if (i < sampled.length && sampled[i] != null) {
+                    byValue.add(row);
+                }
+            }
+            int column = i;
+            byValue.sort((a, b) -> ColumnValues.compare((Comparable<?>) sample.get(a)[column], (Comparable<?>) sample.get(b)[column]));
+            List<Comparable<?>> values = new ArrayList<>(byValue.size());
+            List<Long> valuePositions = new ArrayList<>(byValue.size());
+            for (int row : byValue) {
+                values.add((Comparable<?>) sample.get(row)[i]);
+                valuePositions.add(positions.get(row));
+            }
+            long nonNullRows = rows - nullCounts[i];
+            double nullFraction = rows == 0 ? 0.0 : nullCounts[i] / (double) rows;
+            columns.put(name, new ColumnStatistics(name, nullFraction,
+                estimateDistinct(values, nonNullRows), mins[i], maxs[i],
+                EquiDepthHistogram.build(values, histogramBuckets), correlation(valuePositions)));
+        }
+        return new TableStatistics(rows, table.getBlockCount(), columns);
+    }
+
+    /**
+     * Pearson correlation between value rank (the list index) and scan position.
+     */
+    private static double correlation(List<Long> positionsByValue) {
+        int n = positionsByValue.size();
+        if (n < 2) {
+            return 1.0;
+        }
+        double meanRank = (n - 1) / 2.0;
+        double meanPosition = 0.0;
+        for (long position : positionsByValue) {
+            meanPosition += position;
+        }
+        meanPosition /= n;
+        double covariance = 0.0;
+        double rankVariance = 0.0;
+        double positionVariance = 0.0;
+        for (int rank = 0; rank < n; rank++) {
+            double dr = rank - meanRank;
+            double dp = positionsByValue.get(rank) - meanPosition;
+            covariance += dr * dp;
+            rankVariance += dr * dr;
+            positionVariance += dp * dp;
+        }
+        if (positionVariance == 0.0) {
+            return 1.0;
+        }
+        return covariance / Math.sqrt(rankVariance * positionVariance);
+    }
+
+    /**
+     * Distinct values among {@code total} non-null rows, judged from the sorted sample.
+     */
+    private static long estimateDistinct(List<Comparable<?>> sortedSample, long total) {
+        int n = sortedSample.size();
+        long distinct = 0;
+        long singletons = 0;
+        for (int start = 0; start < n; ) {
+            int end = start + 1;
+            while (end < n && sortedSample.get(end).equals(sortedSample.get(start))) {
+                end++;
+            }
+            distinct++;
+            if (end - start == 1) {
+                singletons++;
+            }
+            start = end;
+        }
+        if (n == 0 || n >= total) {
+            return distinct;
+        }
+        double estimate = n * (double) distinct / (n - singletons + singletons * (double) n / total);
+        return Math.max(distinct, Math.min(total, Math.round(estimate)));
+    }
+}
@@ -0,0 +1,54 @@
+package lite.sqlite.server.statistics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistics of one table as of its last ANALYZE: row and block counts and per-column
+ * {@link ColumnStatistics}. They are not maintained by writes; {@link #estimateRowCount}
+ * scales the row count by how much the table file has grown or shrunk since.
+ */
+public class TableStatistics {
+
+    private final long rowCount;
+    private final int blockCount;
+    private final Map<String, ColumnStatistics> columns;
+
+    public TableStatistics(long rowCount, int blockCount, Map<String, ColumnStatistics> columns) {
+        this.rowCount = rowCount;
+        this.blockCount = blockCount;
+        this.columns = Collections.unmodifiableMap(new LinkedHashMap<>(columns));
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Statistics of a column, or null when the column was not analyzed.
+     */
+    public ColumnStatistics getColumn(String columnName) {
+        return columns.get(columnName);
+    }
+
+    public Map<String, ColumnStatistics> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Row count scaled to the table's current size, assuming the rows per block stayed the same.
+     *
+     * @param currentBlockCount blocks the table file has now
+     */
+    public double estimateRowCount(int currentBlockCount) {
+        if (blockCount == 0) {
+            return rowCount;
+        }
+        return rowCount * (currentBlockCount / (double) blockCount);
+    }
+}
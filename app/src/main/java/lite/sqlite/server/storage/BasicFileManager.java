@@ -2,34 +2,73 @@ package lite.sqlite.server.storage;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.ConcurrentHashMap;
 
+import lite.sqlite.config.AppConfig;
 import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.filemanager.DatabaseHeader;
 import lite.sqlite.server.storage.filemanager.FileManager;
-import lite.sqlite.server.storage.record.SlottedRecordPage;
 import lite.sqlite.server.storage.table.Table;
 
+/**
+ * File manager over plain file channels. Reads and writes use positional channel I/O, which
+ * keeps no shared file pointer, so any number of threads can read and write blocks of the
+ * same file at once. Only appends lock, and only their own file.
+ *
+ * <p>Files grow in extents of {@code storage.extent.blocks} zeroed blocks. The blocks in use
+ * end at a high-water mark, and appending inside the current extent only moves that mark.
+ * The mark is kept in memory and saved next to the file ({@code <file>.hwm}) by
+ * {@link #sync()} and {@link #close()}. A file without a saved mark is taken to be in use
+ * to its end.
+ *
+ * <p>Every block past the mark is zero: it is handed out without being written again. After
+ * a crash the saved mark may be behind the blocks that reached the file, so opening a file
+ * moves the mark past the last non-zero block of its preallocated tail.
+ */
 public class BasicFileManager implements FileManager {
 
+    public static final String EXTENT_BLOCKS_KEY = "storage.extent.blocks";
+    public static final int DEFAULT_EXTENT_BLOCKS = 256;
+    static final String HIGH_WATER_MARK_SUFFIX = ".hwm";
+
+    /** Zeros that extents are written from, a slice at a time. */
+    private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(256 * 1024).asReadOnlyBuffer();
+
     private final File dbDir;
-    private ConcurrentHashMap<String, RandomAccessFile> openFiles;
+    private final ConcurrentHashMap<String, TableFile> openFiles;
     private final BufferPool bufferPool;
+    private final int pageSize;
+    private final int extentBlocks;
 
     public BasicFileManager(File dbDirectory) {
         this(dbDirectory, null);
     }
 
     public BasicFileManager(File dbDirectory, BufferPool bufferPool) {
+        this(dbDirectory, bufferPool,
+            Integer.parseInt(AppConfig.getOrDefault(EXTENT_BLOCKS_KEY, String.valueOf(DEFAULT_EXTENT_BLOCKS))));
+    }
+
+    /**
+     * @param dbDirectory directory holding the table files
+     * @param bufferPool pool that new tables' first block is loaded into, or null
+     * @param extentBlocks blocks a file grows by at a time
+     */
+    public BasicFileManager(File dbDirectory, BufferPool bufferPool, int extentBlocks) {
         this.dbDir = dbDirectory;
         this.openFiles = new ConcurrentHashMap<>();
         this.bufferPool = bufferPool;
-
-        if (!dbDirectory.exists()) {
-            dbDirectory.mkdirs();
+        this.pageSize = DatabaseHeader.pageSizeOf(dbDirectory);
+        if (extentBlocks <= 0 || (long) extentBlocks * pageSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid extent size: " + extentBlocks + " blocks");
         }
-        
+        this.extentBlocks = extentBlocks;
+
         // Clean up temp files
         String[] files = dbDirectory.list();
         if (files != null) {
@@ -41,75 +80,71 @@ public class BasicFileManager implements FileManager {
         }
     }
 
-    @Override 
-    public synchronized void read(Block blockId, Page page) throws IOException {
+    /**
+     * Reads a block into {@code page}; a block past the end of the file reads as zeros.
+     */
+    @Override
+    public void read(Block blockId, Page page) throws IOException {
         try {
-            RandomAccessFile file = getFile(blockId.getFileName());
-            long position = (long) blockId.getBlockNum() * Page.PAGE_SIZE; // Use Page.PAGE_SIZE!
-            file.seek(position);
-            
-            page.contents().clear(); // Reset buffer position
-            file.getChannel().read(page.contents());
-            page.contents().rewind(); // Reset for reading
-            
+            getFile(blockId.getFileName()).read(blockId.getBlockNum(), page);
         } catch (IOException e) {
             throw new RuntimeException("Cannot read block " + blockId, e);
         }
     }
 
     @Override
-    public synchronized void write(Block blockId, Page page) throws IOException {
+    public void write(Block blockId, Page page) throws IOException {
         try {
-            RandomAccessFile file = getFile(blockId.getFileName());
-            long position = (long) blockId.getBlockNum() * Page.PAGE_SIZE; // Use Page.PAGE_SIZE!
-            file.seek(position);
-            
-            page.contents().rewind(); // Reset buffer for writing
-            file.getChannel().write(page.contents());            
+            getFile(blockId.getFileName()).write(blockId.getBlockNum(), page);
         } catch (IOException e) {
             throw new RuntimeException("Cannot write block " + blockId, e);
         }
     }
 
     @Override
-    public synchronized Block append(String fileName) throws IOException {
+    public Block append(String fileName) throws IOException {
+        return appendExtent(fileName, 1);
+    }
+
+    /**
+     * Hands out {@code blocks} zeroed blocks past the high-water mark, growing the file by
+     * whole extents when they do not fit in the space already allocated.
+     */
+    @Override
+    public Block appendExtent(String fileName, int blocks) throws IOException {
+        if (blocks <= 0) {
+            throw new IllegalArgumentException("Extent must have at least one block: " + blocks);
+        }
         try {
-            int newBlockNum = getBlockCount(fileName); // Get current block count
-            Block newBlock = new Block(fileName, newBlockNum);
-            
-            RandomAccessFile file = getFile(fileName);
-            long position = (long) newBlockNum * Page.PAGE_SIZE; // Use PAGE_SIZE!
-            file.seek(position);
-            
-            // Write full page of zeros
-            byte[] emptyPage = new byte[Page.PAGE_SIZE]; // Fixed size!
-            file.write(emptyPage);
-            
-            return newBlock;
-            
+            return new Block(fileName, getFile(fileName).append(blocks));
         } catch (IOException e) {
             throw new RuntimeException("Cannot append to " + fileName, e);
         }
     }
 
+    /**
+     * Number of blocks in use, which is the high-water mark rather than the file size.
+     */
     @Override
-    public synchronized int getBlockCount(String fileName) throws IOException {
-        try {
-            RandomAccessFile file = getFile(fileName);
-            long fileLength = file.length();
-            return (int) Math.ceil((double) fileLength / Page.PAGE_SIZE);
-            
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot get file size for " + fileName, e);
-        }
+    public int getBlockCount(String fileName) throws IOException {
+        return getFile(fileName).blockCount;
+    }
+
+    @Override
+    public int getPageSize() {
+        return pageSize;
     }
 
     public File initializePhysicalTable(Table table) throws IOException {
-        
+
         String fileName = table.getTableName() + ".tbl";
         File tableFile = new File(dbDir, fileName);
         if (!tableFile.exists()) {
             Files.createFile(tableFile.toPath());
+        } else {
+            // Left behind by a table that never reached the catalog: start it over empty.
+            getFile(fileName).truncate();
+            truncateIfExists(table.getTableName() + ".fsm");
         }
 
         Block block0 = append(fileName);
@@ -130,57 +165,223 @@ public class BasicFileManager implements FileManager {
         }
     }
 
+    /**
+     * Forces every open file to storage, then saves the high-water marks that moved. Files
+     * are no longer opened in synchronous mode, so this is the only point at which written
+     * blocks are guaranteed to be durable.
+     */
     @Override
-    public void close() throws IOException {
-        for (RandomAccessFile file : openFiles.values()) {
-            file.close();
+    public void sync() throws IOException {
+        for (TableFile file : openFiles.values()) {
+            file.force();
         }
-        openFiles.clear();
     }
 
+    /**
+     * Forces one file and saves its high-water mark, leaving the others alone.
+     */
     @Override
-    public Block searchForInsertableBlock(Table table, Object[] recordValues) {
-        if (table == null) {
-            throw new IllegalArgumentException("table must not be null");
-        }
-        if (recordValues == null) {
-            throw new IllegalArgumentException("recordValues must not be null");
+    public void sync(String fileName) throws IOException {
+        TableFile file = openFiles.get(fileName);
+        if (file != null) {
+            file.force();
         }
+    }
 
-        String filename = table.getTableName() + ".tbl";
-        int blockCount;
-        try {
-            blockCount = getBlockCount(filename);
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot get block count for file: " + filename, e);
+    @Override
+    public void close() throws IOException {
+        for (TableFile file : openFiles.values()) {
+            file.close();
         }
+        openFiles.clear();
+    }
 
-        for (int i = 0; i < blockCount; i++) {
-            Block block = new Block(filename, i);
-            Page page = new Page();
-            try {
-                read(block, page);
-                SlottedRecordPage wrapperRecordPage =
-                    new SlottedRecordPage(page, table.getSchema(), block, null);
-                if (wrapperRecordPage.checkSufficientRecordSpace(recordValues)) {
-                    return block;
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("Cannot inspect block while searching insertable block: " + block, e);
-            }
+    private void truncateIfExists(String fileName) throws IOException {
+        if (openFiles.containsKey(fileName) || new File(dbDir, fileName).exists()) {
+            getFile(fileName).truncate();
         }
-
-        return null;
     }
 
-    private RandomAccessFile getFile(String filename) throws IOException {
+    private TableFile getFile(String filename) {
         return openFiles.computeIfAbsent(filename, fn -> {
             try {
-                File dbTable = new File(dbDir, fn);
-                return new RandomAccessFile(dbTable, "rws");
+                return new TableFile(new File(dbDir, fn), pageSize, extentBlocks);
             } catch (IOException e) {
                 throw new RuntimeException("Cannot open file: " + fn, e);
             }
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * One open table file. Block I/O goes through the channel's positional methods, and a
+     * page is always transferred through a duplicate of its buffer, so no position is
+     * shared between threads.
+     */
+    private static final class TableFile {
+        private final FileChannel channel;
+        private final Path markPath;
+        private final int pageSize;
+        private final int extentBlocks;
+        /** High-water mark: blocks below it are in use. */
+        private volatile int blockCount;
+        /** Blocks the file has room for; guarded by the file's lock. */
+        private int allocatedBlocks;
+        /** Mark last saved to {@link #markPath}, or -1 when none is; guarded by the file's lock. */
+        private int savedBlockCount;
+
+        TableFile(File file, int pageSize, int extentBlocks) throws IOException {
+            this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.markPath = new File(file.getParentFile(), file.getName() + HIGH_WATER_MARK_SUFFIX).toPath();
+            this.pageSize = pageSize;
+            this.extentBlocks = extentBlocks;
+            this.allocatedBlocks = (int) ((channel.size() + pageSize - 1) / pageSize);
+            this.savedBlockCount = readMark();
+            int mark = savedBlockCount < 0 ? allocatedBlocks : savedBlockCount;
+            this.blockCount = Math.max(mark, lastUsedBlock(mark) + 1);
+        }
+
+        void read(int blockNum, Page page) throws IOException {
+            ByteBuffer dst = page.contents().duplicate().clear();
+            long position = (long) blockNum * pageSize;
+            while (dst.hasRemaining()) {
+                if (channel.read(dst, position + dst.position()) < 0) {
+                    while (dst.hasRemaining()) {
+                        dst.put((byte) 0);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Writes a block in place. A block past the mark is written under the append lock,
+         * so that a concurrent append cannot hand it out as a zeroed block.
+         */
+        void write(int blockNum, Page page) throws IOException {
+            ByteBuffer src = page.contents().duplicate().clear();
+            long position = (long) blockNum * pageSize;
+            if (blockNum < blockCount) {
+                writeFully(src, position);
+                return;
+            }
+            synchronized (this) {
+                writeFully(src, position);
+                allocatedBlocks = Math.max(allocatedBlocks, blockNum + 1);
+                if (blockNum >= blockCount) {
+                    blockCount = blockNum + 1;
+                }
+            }
+        }
+
+        /**
+         * Moves the mark past {@code blocks} blocks and returns the number of the first.
+         * Only when they run past the allocated space is the file grown, to the next
+         * extent boundary. The first time a file grows its mark is saved, unforced, so
+         * that a file with a preallocated tail is not mistaken for one in use to its end.
+         */
+        synchronized int append(int blocks) throws IOException {
+            int first = blockCount;
+            int end = first + blocks;
+            if (end > allocatedBlocks) {
+                if (savedBlockCount < 0) {
+                    saveMark(false);
+                }
+                grow((end + extentBlocks - 1) / extentBlocks * extentBlocks);
+            }
+            blockCount = first + blocks;
+            return first;
+        }
+
+        synchronized void force() throws IOException {
+            channel.force(true);
+            saveMark(true);
+        }
+
+        synchronized void close() throws IOException {
+            saveMark(true);
+            channel.close();
+        }
+
+        /**
+         * Drops every block, leaving an empty file with a mark of zero.
+         */
+        synchronized void truncate() throws IOException {
+            channel.truncate(0);
+            allocatedBlocks = 0;
+            blockCount = 0;
+            saveMark(true);
+        }
+
+        /**
+         * Writes zeros from the allocated end to block {@code blocks}, so the space is
+         * reserved on disk rather than left as a hole.
+         */
+        private void grow(int blocks) throws IOException {
+            ByteBuffer zeros = ZEROS.duplicate();
+            int chunkBlocks = zeros.capacity() / pageSize;
+            while (allocatedBlocks < blocks) {
+                int count = Math.min(blocks - allocatedBlocks, chunkBlocks);
+                zeros.clear().limit(count * pageSize);
+                writeFully(zeros, (long) allocatedBlocks * pageSize);
+                allocatedBlocks += count;
+            }
+        }
+
+        private void writeFully(ByteBuffer src, long position) throws IOException {
+            while (src.hasRemaining()) {
+                channel.write(src, position + src.position());
+            }
+        }
+
+        private void saveMark(boolean durable) throws IOException {
+            int mark = blockCount;
+            if (mark == savedBlockCount) {
+                return;
+            }
+            try (FileChannel out = FileChannel.open(markPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                ByteBuffer src = ByteBuffer.allocate(Integer.BYTES).putInt(0, mark);
+                while (src.hasRemaining()) {
+                    out.write(src, src.position());
+                }
+                if (durable) {
+                    out.force(true);
+                }
+            }
+            savedBlockCount = mark;
+        }
+
+        /**
+         * Saved mark, or -1 when the file has none: it has never grown by an extent, so it
+         * is in use to its end.
+         */
+        private int readMark() throws IOException {
+            if (!Files.exists(markPath)) {
+                return -1;
+            }
+            byte[] bytes = Files.readAllBytes(markPath);
+            if (bytes.length < Integer.BYTES) {
+                return -1;
+            }
+            return Math.min(ByteBuffer.wrap(bytes).getInt(), allocatedBlocks);
+        }
+
+        /**
+         * Last block at or past {@code mark} that holds anything but zeros, or the block
+         * before the mark when there is none.
+         */
+        private int lastUsedBlock(int mark) throws IOException {
+            Page page = new Page(pageSize);
+            for (int blockNum = allocatedBlocks - 1; blockNum >= mark; blockNum--) {
+                read(blockNum, page);
+                ByteBuffer contents = page.contents();
+                for (int i = 0; i < pageSize; i += Long.BYTES) {
+                    if (contents.getLong(i) != 0) {
+                        return blockNum;
+                    }
+                }
+            }
+            return mark - 1;
+        }
+    }
+}
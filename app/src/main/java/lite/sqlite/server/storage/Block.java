@@ -1,8 +1,8 @@
 package lite.sqlite.server.storage;
 
 public class Block {
-    private String filename;
-    private int blockNum;
+    private final String filename;
+    private final int blockNum;
 
     public Block (String filename, int blockNum) {
         this.filename = filename;
@@ -19,6 +19,8 @@ public class Block {
 
     @Override
     public boolean equals(Object anotherBlock) {
+        if (this == anotherBlock) return true;
+        if (!(anotherBlock instanceof Block)) return false;
         Block blk = (Block) anotherBlock;
         return blk.getFileName().equals(this.filename) && blk.getBlockNum() == this.blockNum; 
     }
@@ -28,6 +30,7 @@ public class Block {
     }
 
     public int hashCode() {
-        return toString().hashCode();
+        // Hot path for the buffer pool page table: avoid building the toString() form.
+        return 31 * filename.hashCode() + blockNum;
     }
 }
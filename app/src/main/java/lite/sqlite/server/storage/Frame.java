@@ -1,58 +1,173 @@
 package lite.sqlite.server.storage;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 public class Frame {
-    private Block blockId;          
-    private Page page;              
-    private int pinCount = 0;            
-    private boolean dirty;            
-    private long lastAccessTime;     
-    
+    /** Pin count value used while a frame is claimed for eviction and cannot be pinned. */
+    private static final int CLAIMED = -1;
+
+    private volatile Block blockId;
+    private volatile Page page;
+    private final AtomicInteger pinCount = new AtomicInteger(0);
+    private volatile boolean dirty;
+    private volatile boolean loaded;
+    private volatile boolean prefetched;
+    private final AtomicLong pageLsn = new AtomicLong();
+    private volatile long lastAccessTime;
+    private final ReentrantLock ioLatch = new ReentrantLock();
+    private final ReentrantReadWriteLock contentLatch = new ReentrantReadWriteLock();
+
     public Frame() {
-        this.page = null;  
-        this.pinCount = 0;
+        this(null);
+    }
+
+    /**
+     * @param page page the frame keeps for every block it holds, or null to be given one
+     *             with each block
+     */
+    public Frame(Page page) {
+        this.page = page;
         this.dirty = false;
+        this.loaded = false;
         this.blockId = null;
         this.lastAccessTime = System.currentTimeMillis();
     }
-    
+
     public void pin() {
-        pinCount++;
+        pinCount.incrementAndGet();
         lastAccessTime = System.currentTimeMillis();
     }
-    
+
+    /**
+     * Pins the frame unless it is currently claimed for eviction.
+     *
+     * @return true when the pin was taken, false when the frame is being evicted
+     */
+    public boolean tryPin() {
+        while (true) {
+            int current = pinCount.get();
+            if (current == CLAIMED) {
+                return false;
+            }
+            if (pinCount.compareAndSet(current, current + 1)) {
+                lastAccessTime = System.currentTimeMillis();
+                return true;
+            }
+        }
+    }
+
     public void unpin() {
-        if (pinCount > 0) {
-            pinCount--;
+        while (true) {
+            int current = pinCount.get();
+            if (current <= 0) {
+                return;
+            }
+            if (pinCount.compareAndSet(current, current - 1)) {
+                return;
+            }
         }
     }
-    
+
+    /**
+     * Claims an unpinned frame for eviction. A claimed frame rejects {@link #tryPin()}
+     * until it is re-assigned or released.
+     *
+     * @return true when the frame was unpinned and is now exclusively owned by the caller
+     */
+    public boolean tryClaim() {
+        return pinCount.compareAndSet(0, CLAIMED);
+    }
+
+    /**
+     * Gives up a claim without re-assigning the frame.
+     */
+    public void releaseClaim() {
+        pinCount.compareAndSet(CLAIMED, 0);
+    }
+
+    public boolean isClaimed() {
+        return pinCount.get() == CLAIMED;
+    }
+
     public boolean isPinned() {
-        return pinCount > 0;
+        return pinCount.get() > 0;
     }
-    
+
     public int getPinCount() {
-        return pinCount;
+        return Math.max(0, pinCount.get());
     }
-    
+
     public void setDirty(boolean dirty) {
         this.dirty = dirty;
     }
-    
+
     public boolean isDirty() {
         return dirty;
     }
-    
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void setLoaded(boolean loaded) {
+        this.loaded = loaded;
+    }
+
+    /**
+     * True while the frame holds a read-ahead block that no caller has pinned yet.
+     */
+    public boolean isPrefetched() {
+        return prefetched;
+    }
+
+    public void setPrefetched(boolean prefetched) {
+        this.prefetched = prefetched;
+    }
+
+    /**
+     * LSN of the newest logged change made to the page since it was loaded. The log must
+     * be flushed up to this LSN before the page may be written back.
+     */
+    public long getPageLsn() {
+        return pageLsn.get();
+    }
+
+    public void advancePageLsn(long lsn) {
+        pageLsn.accumulateAndGet(lsn, Math::max);
+    }
+
     public void assignToBlock(Block blockId) {
         this.blockId = blockId;
         if (this.page == null) {
             this.page = new Page();
         }
     }
-    
+
+    /**
+     * Binds a claimed frame to a new block and hands the single pin to the caller.
+     * The page contents are not valid until {@link #setLoaded(boolean)} is called.
+     *
+     * @param blockId block the frame will hold
+     * @param page page buffer receiving the block contents
+     */
+    public void assignClaimed(Block blockId, Page page) {
+        this.blockId = blockId;
+        this.page = page;
+        this.dirty = false;
+        this.loaded = false;
+        this.prefetched = false;
+        this.pageLsn.set(0);
+        this.lastAccessTime = System.currentTimeMillis();
+        pinCount.set(1);
+    }
+
     public Block getBlockId() {
         return blockId;
     }
-    
+
     public void setBlockId(Block blockId) {
         this.blockId = blockId;
     }
@@ -65,27 +180,87 @@ public class Frame {
     public void setPage(Page page) {
         this.page = page;
     }
-    
+
     public long getLastAccessTime() {
         return lastAccessTime;
     }
-    
+
 
     public boolean isReplaceable() {
-        return pinCount == 0;
+        return pinCount.get() == 0;
+    }
+
+    /**
+     * Acquires the frame I/O latch. Held while the frame is being read from or
+     * written to disk so that concurrent pinners wait instead of seeing a partial page.
+     */
+    public void lockIo() {
+        ioLatch.lock();
+    }
+
+    public void unlockIo() {
+        ioLatch.unlock();
     }
-    
+
+    public boolean isIoInProgress() {
+        return ioLatch.isLocked();
+    }
+
+    /**
+     * Blocks until any in-flight read or write-back of this frame has finished.
+     */
+    public void awaitIo() {
+        if (ioLatch.isHeldByCurrentThread()) {
+            return;
+        }
+        ioLatch.lock();
+        ioLatch.unlock();
+    }
+
+    /**
+     * Acquires the content latch exclusively. Held by a pinner while it modifies the page
+     * so that a write-back never copies a half-modified page to disk.
+     */
+    public void lockContent() {
+        contentLatch.writeLock().lock();
+    }
+
+    /**
+     * Releases the exclusive content latch if the calling thread holds it.
+     */
+    public void unlockContent() {
+        if (contentLatch.isWriteLockedByCurrentThread()) {
+            contentLatch.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Acquires the content latch shared. Held while the page is written to disk.
+     */
+    public void lockContentShared() {
+        contentLatch.readLock().lock();
+    }
+
+    public void unlockContentShared() {
+        contentLatch.readLock().unlock();
+    }
+
+    /**
+     * Unmaps the frame. Its page is kept, to be reused for the next block.
+     */
     public void reset() {
         this.blockId = null;
-        this.page = null;
-        this.pinCount = 0;
+        this.pinCount.set(0);
         this.dirty = false;
+        this.loaded = false;
+        this.prefetched = false;
+        this.pageLsn.set(0);
         this.lastAccessTime = System.currentTimeMillis();
     }
-    
+
     @Override
     public String toString() {
-        return String.format("Frame{block=%s, pinCount=%d, dirty=%b}", 
-                           blockId, pinCount, dirty);
+        return String.format("Frame{block=%s, pinCount=%d, dirty=%b}",
+                           blockId, pinCount.get(), dirty);
     }
-}
\ No newline at end of file
+}
@@ -115,7 +115,7 @@ public class LRUCache<K,V> {
             }
             
             if (lruList.size() >= capacity) {
-                evict();
+                evictUnlocked();
             }
             
             CacheEntry<K,V> newEntry = new CacheEntry<K,V>(key, value, k);
@@ -129,6 +129,15 @@ public class LRUCache<K,V> {
     }
 
     public Object[] evict() {
+        lock.writeLock().lock();
+        try {
+            return evictUnlocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Object[] evictUnlocked() {
         if (lruList.isEmpty()) {
             return null;
         }
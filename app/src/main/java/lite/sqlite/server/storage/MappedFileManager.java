@@ -0,0 +1,369 @@
+package lite.sqlite.server.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lite.sqlite.config.AppConfig;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.filemanager.DatabaseHeader;
+import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.storage.table.Table;
+
+/**
+ * File manager over memory-mapped table files. Each file is mapped in chunks of
+ * {@code storage.mmap.chunk.blocks} blocks, and the next chunk is mapped when an append
+ * runs past the last one. Reads and writes copy one block between the mapping and the page
+ * with no system call and no lock; only appends lock, and only their own file.
+ *
+ * <p>Frames get a copy of the block, not a slice of the mapping. The operating system may
+ * write mapped memory back at any time, and a page the buffer pool modifies must not reach
+ * the file before its log records do.
+ *
+ * <p>Mapping a chunk extends the file to the end of that chunk, so the file size says
+ * nothing about the blocks in use. As in {@link BasicFileManager}, they end at a high-water
+ * mark saved next to the file ({@code <file>.hwm}) by {@link #sync()} and {@link #close()},
+ * and opening a file moves the mark past the last non-zero block of the tail, which is
+ * where blocks written after the last save are found after a crash. Files are never
+ * truncated: shrinking a file under a live mapping fails on Windows and faults on Linux when
+ * the lost pages are touched, so the padding stays and only the mark bounds the blocks.
+ */
+public class MappedFileManager implements FileManager {
+
+    public static final String CHUNK_BLOCKS_KEY = "storage.mmap.chunk.blocks";
+    public static final int DEFAULT_CHUNK_BLOCKS = 1024;
+
+    private static final ByteBuffer EMPTY_BLOCK =
+        ByteBuffer.allocateDirect(DatabaseHeader.MAX_PAGE_SIZE).asReadOnlyBuffer();
+
+    private final File dbDir;
+    private final BufferPool bufferPool;
+    private final int pageSize;
+    private final int chunkBlocks;
+    private final ConcurrentHashMap<String, MappedFile> openFiles = new ConcurrentHashMap<>();
+
+    public MappedFileManager(File dbDirectory) {
+        this(dbDirectory, null,
+            Integer.parseInt(AppConfig.getOrDefault(CHUNK_BLOCKS_KEY, String.valueOf(DEFAULT_CHUNK_BLOCKS))));
+    }
+
+    /**
+     * @param dbDirectory directory holding the table files
+     * @param bufferPool pool that new tables' first block is loaded into, or null
+     * @param chunkBlocks blocks mapped at a time
+     */
+    public MappedFileManager(File dbDirectory, BufferPool bufferPool, int chunkBlocks) {
+        this.dbDir = dbDirectory;
+        this.bufferPool = bufferPool;
+        this.pageSize = DatabaseHeader.pageSizeOf(dbDirectory);
+        if (chunkBlocks <= 0 || (long) chunkBlocks * pageSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid mapped chunk size: " + chunkBlocks + " blocks");
+        }
+        this.chunkBlocks = chunkBlocks;
+
+        String[] files = dbDirectory.list();
+        if (files != null) {
+            for (String filename : files) {
+                if (filename.startsWith("temp")) {
+                    new File(dbDirectory, filename).delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a block into {@code page}; a block past the end of the file reads as zeros.
+     */
+    @Override
+    public void read(Block blockId, Page page) throws IOException {
+        getFile(blockId.getFileName()).read(blockId.getBlockNum(), page);
+    }
+
+    @Override
+    public void write(Block blockId, Page page) throws IOException {
+        try {
+            getFile(blockId.getFileName()).write(blockId.getBlockNum(), page);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write block " + blockId, e);
+        }
+    }
+
+    @Override
+    public Block append(String fileName) throws IOException {
+        return appendExtent(fileName, 1);
+    }
+
+    @Override
+    public Block appendExtent(String fileName, int blocks) throws IOException {
+        if (blocks <= 0) {
+            throw new IllegalArgumentException("Extent must have at least one block: " + blocks);
+        }
+        try {
+            return new Block(fileName, getFile(fileName).append(blocks));
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot append to " + fileName, e);
+        }
+    }
+
+    @Override
+    public int getBlockCount(String fileName) throws IOException {
+        return getFile(fileName).blockCount;
+    }
+
+    @Override
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public File initializePhysicalTable(Table table) throws IOException {
+        String fileName = table.getTableName() + ".tbl";
+        File tableFile = new File(dbDir, fileName);
+        if (!tableFile.exists()) {
+            Files.createFile(tableFile.toPath());
+        } else {
+            // Left behind by a table that never reached the catalog: start it over empty.
+            getFile(fileName).truncate();
+            truncateIfExists(table.getTableName() + ".fsm");
+        }
+
+        Block block0 = append(fileName);
+        if (bufferPool != null) {
+            bufferPool.pinBlock(block0);
+            bufferPool.unpinBlock(block0);
+        }
+        return tableFile;
+    }
+
+    @Override
+    public int searchForEmptyBlock(String filename) {
+        try {
+            return getBlockCount(filename);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Forces the mapped chunks of every open file to storage.
+     */
+    @Override
+    public void sync() throws IOException {
+        for (MappedFile file : openFiles.values()) {
+            file.force();
+        }
+    }
+
+    @Override
+    public void sync(String fileName) throws IOException {
+        MappedFile file = openFiles.get(fileName);
+        if (file != null) {
+            file.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MappedFile file : openFiles.values()) {
+            file.close();
+        }
+        openFiles.clear();
+    }
+
+    private void truncateIfExists(String fileName) throws IOException {
+        if (openFiles.containsKey(fileName) || new File(dbDir, fileName).exists()) {
+            getFile(fileName).truncate();
+        }
+    }
+
+    private MappedFile getFile(String filename) {
+        return openFiles.computeIfAbsent(filename, fn -> {
+            try {
+                return new MappedFile(new File(dbDir, fn), pageSize, chunkBlocks);
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot open file: " + fn, e);
+            }
+        });
+    }
+
+    /**
+     * One table file and its mapped chunks. The chunk array is replaced, never modified,
+     * so readers see either the old or the new one.
+     */
+    private static final class MappedFile {
+        private final FileChannel channel;
+        private final Path markPath;
+        private final int pageSize;
+        private final int chunkBlocks;
+        private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+        /** High-water mark: blocks below it are in use. */
+        private volatile int blockCount;
+        /** Mark last saved to {@link #markPath}, or -1 when none is; guarded by the file's lock. */
+        private int savedBlockCount;
+
+        MappedFile(File file, int pageSize, int chunkBlocks) throws IOException {
+            this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.markPath = new File(file.getParentFile(),
+                file.getName() + BasicFileManager.HIGH_WATER_MARK_SUFFIX).toPath();
+            this.pageSize = pageSize;
+            this.chunkBlocks = chunkBlocks;
+            int allocatedBlocks = (int) ((channel.size() + pageSize - 1) / pageSize);
+            this.savedBlockCount = readMark(allocatedBlocks);
+            int mark = savedBlockCount < 0 ? allocatedBlocks : savedBlockCount;
+            this.blockCount = mark;
+            mapThrough(allocatedBlocks);
+            this.blockCount = Math.max(mark, lastUsedBlock(mark, allocatedBlocks) + 1);
+        }
+
+        void read(int blockNum, Page page) {
+            MappedByteBuffer[] mapped = chunks;
+            int chunk = blockNum / chunkBlocks;
+            if (blockNum >= blockCount || chunk >= mapped.length) {
+                page.copyFrom(EMPTY_BLOCK, 0);
+                return;
+            }
+            page.copyFrom(mapped[chunk], (blockNum % chunkBlocks) * pageSize);
+        }
+
+        void write(int blockNum, Page page) throws IOException {
+            if (blockNum >= blockCount) {
+                synchronized (this) {
+                    mapThrough(blockNum + 1);
+                    if (blockNum >= blockCount) {
+                        blockCount = blockNum + 1;
+                    }
+                }
+            }
+            page.copyTo(chunks[blockNum / chunkBlocks], (blockNum % chunkBlocks) * pageSize);
+        }
+
+        /**
+         * Adds zeroed blocks at the end of the file and returns the number of the first.
+         */
+        synchronized int append(int blocks) throws IOException {
+            int first = blockCount;
+            mapThrough(first + blocks);
+            MappedByteBuffer[] mapped = chunks;
+            for (int blockNum = first; blockNum < first + blocks; blockNum++) {
+                mapped[blockNum / chunkBlocks].put((blockNum % chunkBlocks) * pageSize,
+                    EMPTY_BLOCK, 0, pageSize);
+            }
+            blockCount = first + blocks;
+            return first;
+        }
+
+        synchronized void force() throws IOException {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+            saveMark(true);
+        }
+
+        synchronized void close() throws IOException {
+            force();
+            chunks = new MappedByteBuffer[0];
+            channel.close();
+        }
+
+        /**
+         * Drops every block. They are zeroed and forced before the mark is reset, so that
+         * the scan for blocks written after the last save does not bring them back after
+         * a crash; the file keeps its size and its mapping.
+         */
+        synchronized void truncate() throws IOException {
+            MappedByteBuffer[] mapped = chunks;
+            for (int blockNum = 0; blockNum < blockCount; blockNum++) {
+                mapped[blockNum / chunkBlocks].put((blockNum % chunkBlocks) * pageSize,
+                    EMPTY_BLOCK, 0, pageSize);
+            }
+            for (MappedByteBuffer chunk : mapped) {
+                chunk.force();
+            }
+            blockCount = 0;
+            saveMark(true);
+        }
+
+        /**
+         * Maps chunks until the first {@code blocks} blocks are covered. Called with the
+         * file's lock held, or from the constructor. The first time mapping extends a
+         * file its mark is saved, unforced, so that the padding is not mistaken for
+         * blocks in use.
+         */
+        private void mapThrough(int blocks) throws IOException {
+            int needed = (blocks + chunkBlocks - 1) / chunkBlocks;
+            MappedByteBuffer[] mapped = chunks;
+            if (needed <= mapped.length) {
+                return;
+            }
+            long chunkBytes = (long) chunkBlocks * pageSize;
+            if (savedBlockCount < 0 && needed * chunkBytes > channel.size()) {
+                saveMark(false);
+            }
+            MappedByteBuffer[] grown = Arrays.copyOf(mapped, needed);
+            for (int i = mapped.length; i < needed; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * chunkBytes, chunkBytes);
+            }
+            chunks = grown;
+        }
+
+        private void saveMark(boolean durable) throws IOException {
+            int mark = blockCount;
+            if (mark == savedBlockCount) {
+                return;
+            }
+            try (FileChannel out = FileChannel.open(markPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                ByteBuffer src = ByteBuffer.allocate(Integer.BYTES).putInt(0, mark);
+                while (src.hasRemaining()) {
+                    out.write(src, src.position());
+                }
+                if (durable) {
+                    out.force(true);
+                }
+            }
+            savedBlockCount = mark;
+        }
+
+        /**
+         * Saved mark, or -1 when the file has none: it has never been extended by a
+         * mapping, so it is in use to its end.
+         */
+        private int readMark(int allocatedBlocks) throws IOException {
+            if (!Files.exists(markPath)) {
+                return -1;
+            }
+            byte[] bytes = Files.readAllBytes(markPath);
+            if (bytes.length < Integer.BYTES) {
+                return -1;
+            }
+            return Math.min(ByteBuffer.wrap(bytes).getInt(), allocatedBlocks);
+        }
+
+        /**
+         * Last block at or past {@code mark} that holds anything but zeros, or the block
+         * before the mark when there is none. Reads the mapping, so it must cover the
+         * first {@code allocatedBlocks} blocks.
+         */
+        private int lastUsedBlock(int mark, int allocatedBlocks) {
+            MappedByteBuffer[] mapped = chunks;
+            for (int blockNum = allocatedBlocks - 1; blockNum >= mark; blockNum--) {
+                MappedByteBuffer chunk = mapped[blockNum / chunkBlocks];
+                int offset = (blockNum % chunkBlocks) * pageSize;
+                for (int i = 0; i < pageSize; i += Long.BYTES) {
+                    if (chunk.getLong(offset + i) != 0) {
+                        return blockNum;
+                    }
+                }
+            }
+            return mark - 1;
+        }
+    }
+}
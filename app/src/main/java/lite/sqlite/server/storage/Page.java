@@ -5,6 +5,10 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
 public class Page {
+    /**
+     * Page size of databases that do not choose another; a database's own size is given by
+     * {@link lite.sqlite.server.storage.filemanager.FileManager#getPageSize()}.
+     */
     public static final int PAGE_SIZE = 4096;
     public static final Charset CHARSET = StandardCharsets.US_ASCII;
     
@@ -21,6 +25,14 @@ public class Page {
     public Page(byte[] b) {
         buffer = ByteBuffer.wrap(b);
     }
+
+    /**
+     * Page over {@code buffer}'s bytes from 0 to its capacity, for example one frame's slice
+     * of the buffer pool arena.
+     */
+    public Page(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
     
     public int getInt(int offset) {
         return buffer.getInt(offset);
@@ -29,19 +41,29 @@ public class Page {
     public void setInt(int offset, int n) {
         buffer.putInt(offset, n);
     }
+
+    public byte getByte(int offset) {
+        return buffer.get(offset);
+    }
+
+    public long getLong(int offset) {
+        return buffer.getLong(offset);
+    }
+
+    public void setLong(int offset, long n) {
+        buffer.putLong(offset, n);
+    }
     
     public byte[] getBytes(int offset) {
-        buffer.position(offset);
-        int length = buffer.getInt();
+        int length = buffer.getInt(offset);
         byte[] b = new byte[length];
-        buffer.get(b);
+        buffer.get(offset + Integer.BYTES, b);
         return b;
     }
     
     public void setBytes(int offset, byte[] b) {
-        buffer.position(offset);
-        buffer.putInt(b.length);
-        buffer.put(b);
+        buffer.putInt(offset, b.length);
+        buffer.put(offset + Integer.BYTES, b);
     }
     
     public String getString(int offset) {
@@ -60,8 +82,8 @@ public class Page {
                 String.format("Data exceeds page boundary: offset=%d, dataLength=%d, pageSize=%d", 
                              offset, data.length, buffer.capacity()));
         }
-        buffer.position(offset);
-        buffer.put(data);
+        // Absolute bulk put: pages are shared between threads, so never touch the buffer position.
+        buffer.put(offset, data);
     }
     
     public void read(int offset, byte[] data) {
@@ -70,10 +92,25 @@ public class Page {
                 String.format("Read exceeds page boundary: offset=%d, dataLength=%d, pageSize=%d", 
                              offset, data.length, buffer.capacity()));
         }
-        buffer.position(offset);
-        buffer.get(data);
+        buffer.get(offset, data);
     }
     
+    /**
+     * Overwrites the whole page with {@code capacity()} bytes of {@code src} starting at
+     * {@code srcOffset}. Neither buffer's position is touched.
+     */
+    public void copyFrom(ByteBuffer src, int srcOffset) {
+        buffer.put(0, src, srcOffset, buffer.capacity());
+    }
+
+    /**
+     * Copies the whole page into {@code dst} at {@code dstOffset}. Neither buffer's position
+     * is touched.
+     */
+    public void copyTo(ByteBuffer dst, int dstOffset) {
+        dst.put(dstOffset, buffer, 0, buffer.capacity());
+    }
+
     public static int maxLength(int strlen) {
         float bytesPerChar = CHARSET.newEncoder().maxBytesPerChar();
         return Integer.BYTES + (strlen * (int)bytesPerChar);
@@ -0,0 +1,10 @@
+package lite.sqlite.server.storage.buffer;
+
+/**
+ * How a page is being accessed. Buffer pool hit/miss counters are kept per type so
+ * point-lookup hit ratios can be watched separately from sequential scans.
+ */
+public enum AccessType {
+    NORMAL,
+    SCAN
+}
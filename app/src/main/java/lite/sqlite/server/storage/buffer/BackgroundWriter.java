@@ -0,0 +1,198 @@
+package lite.sqlite.server.storage.buffer;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.wal.WriteAheadLog;
+
+/**
+ * Writes dirty pages back in the background so statements do not have to.
+ *
+ * <p>Every writer interval the pool's dirty ratio is compared with the target and, when it
+ * is above, enough unpinned dirty frames are written to bring it back down. Checkpoints
+ * write every dirty frame and force the files, and run on their own interval. The
+ * {@link SyncPolicy} decides what a statement commit does: make it durable right away,
+ * leave it to a periodic sync, or leave it to the next checkpoint. With a write-ahead log
+ * attached to the pool, making a commit durable only forces the log; otherwise the dirty
+ * pages themselves are written and forced.
+ */
+public class BackgroundWriter implements AutoCloseable {
+
+    private final BufferPool bufferPool;
+    private final FileManager fileManager;
+    private final SyncPolicy syncPolicy;
+    private final long writerIntervalMs;
+    private final double dirtyRatioTarget;
+    private final long checkpointIntervalMs;
+    private final long syncIntervalMs;
+    private final Object syncLock = new Object();
+    private final LongAdder pagesWritten = new LongAdder();
+    private final LongAdder checkpoints = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param writerIntervalMs how often the dirty ratio is checked; 0 disables trickle writes
+     * @param dirtyRatioTarget fraction of the pool allowed to stay dirty between writer rounds
+     * @param checkpointIntervalMs how often a checkpoint runs; 0 disables periodic checkpoints
+     * @param syncIntervalMs how often committed work is forced under {@link SyncPolicy#INTERVAL}
+     */
+    public BackgroundWriter(BufferPool bufferPool, FileManager fileManager, SyncPolicy syncPolicy,
+                            long writerIntervalMs, double dirtyRatioTarget,
+                            long checkpointIntervalMs, long syncIntervalMs) {
+        if (dirtyRatioTarget < 0 || dirtyRatioTarget > 1) {
+            throw new IllegalArgumentException("Dirty ratio target must be between 0 and 1: " + dirtyRatioTarget);
+        }
+        this.bufferPool = bufferPool;
+        this.fileManager = fileManager;
+        this.syncPolicy = syncPolicy;
+        this.writerIntervalMs = writerIntervalMs;
+        this.dirtyRatioTarget = dirtyRatioTarget;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        this.syncIntervalMs = syncIntervalMs;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "background-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (writerIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::runWriterRound, writerIntervalMs, writerIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (checkpointIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::runCheckpoint, checkpointIntervalMs, checkpointIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (syncPolicy == SyncPolicy.INTERVAL && syncIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::runSync, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Called after a mutating statement finished changing pages.
+     */
+    public void onStatementCommit() throws IOException {
+        if (syncPolicy == SyncPolicy.STATEMENT) {
+            sync();
+        }
+    }
+
+    /**
+     * Writes every dirty frame and forces the files, so everything committed so far survives a crash.
+     */
+    public void checkpoint() throws IOException {
+        synchronized (syncLock) {
+            WriteAheadLog wal = bufferPool.getWriteAheadLog();
+            // Changes logged before this point are on disk once the flush below finishes.
+            long redoLsn = wal != null ? wal.getEndLsn() : 0;
+            pagesWritten.add(bufferPool.flushAll());
+            fileManager.sync();
+            if (wal != null) {
+                wal.checkpoint(redoLsn);
+            }
+            checkpoints.increment();
+        }
+    }
+
+    private void sync() throws IOException {
+        WriteAheadLog wal = bufferPool.getWriteAheadLog();
+        if (wal != null) {
+            wal.commit();
+        } else {
+            synchronized (syncLock) {
+                pagesWritten.add(bufferPool.flushAll());
+                fileManager.sync();
+            }
+        }
+        syncs.increment();
+    }
+
+    /**
+     * Writes unpinned dirty frames until the dirty ratio is back under the target.
+     *
+     * @return number of frames written
+     */
+    public int writeDirtyPages() throws IOException {
+        int allowed = (int) (bufferPool.getPoolSize() * dirtyRatioTarget);
+        int excess = bufferPool.getDirtyFrames() - allowed;
+        if (excess <= 0) {
+            return 0;
+        }
+        int written = bufferPool.flushDirty(excess);
+        pagesWritten.add(written);
+        return written;
+    }
+
+    private void runWriterRound() {
+        try {
+            writeDirtyPages();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: background writer failed: " + e.getMessage());
+        }
+    }
+
+    private void runSync() {
+        try {
+            sync();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: periodic sync failed: " + e.getMessage());
+        }
+    }
+
+    private void runCheckpoint() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    public double getDirtyRatioTarget() {
+        return dirtyRatioTarget;
+    }
+
+    public long getPagesWritten() {
+        return pagesWritten.sum();
+    }
+
+    public long getCheckpoints() {
+        return checkpoints.sum();
+    }
+
+    public long getSyncs() {
+        return syncs.sum();
+    }
+
+    /**
+     * Stops the writer thread and takes a final checkpoint.
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = scheduler;
+            scheduler = null;
+        }
+        if (current != null) {
+            current.shutdown();
+            try {
+                current.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        checkpoint();
+    }
+}
@@ -1,179 +1,692 @@
 package lite.sqlite.server.storage.buffer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 import lite.sqlite.server.storage.Block;
 import lite.sqlite.server.storage.Frame;
-import lite.sqlite.server.storage.LRUCache;
 import lite.sqlite.server.storage.Page;
 import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.wal.WriteAheadLog;
 
+/**
+ * Buffer pool with a concurrent page table and partitioned replacement state.
+ *
+ * <p>Lookups go through a {@link ConcurrentHashMap} and pin frames with a CAS on the
+ * frame pin count, so cache hits never take a pool-wide lock. Frames are split into
+ * partitions, each with its own free list, {@link ReplacementPolicy} and lock; only misses
+ * lock a partition, and disk I/O happens outside of it under the frame I/O latch.
+ *
+ * <p>Sequential scans pin through a {@link BufferRing} so they recycle a few frames of
+ * their own instead of flushing the point-lookup working set out of the pool.
+ *
+ * <p>Each frame owns one page of the file manager's page size for the life of the pool,
+ * sliced from a direct-buffer arena allocated up front, so a miss reads into memory that is
+ * already there instead of allocating a direct buffer.
+ */
 public class BufferPool {
 
+    private static final int FRAMES_PER_PARTITION = 16;
+    private static final int MAX_PARTITIONS = 16;
+    private static final int MAX_RING_SIZE = 16;
+    /** Largest direct buffer the frame pages are sliced from; bigger pools use several. */
+    private static final int MAX_ARENA_BYTES = 1 << 30;
+
     private final int poolCapacity;
     private final FileManager fManager;
-    private final LRUCache<Block, Frame> cache;
-    private final Deque<Frame> freeFrames;
-    private final ReentrantReadWriteLock lock; 
+    private final ReplacementPolicyType policyType;
+    private final ConcurrentHashMap<Block, Frame> pageTable;
+    private final Partition[] partitions;
+    private final Map<Frame, Partition> frameOwners;
+    private final List<Frame> frames;
+    private final LongAdder[] hits = newCounters();
+    private final LongAdder[] misses = newCounters();
+    private final AtomicInteger flushCursor = new AtomicInteger();
+    private volatile ReadAheadPrefetcher prefetcher;
+    private volatile WriteAheadLog writeAheadLog;
 
     public BufferPool(int poolCapacity, FileManager fManager) {
+        this(poolCapacity, fManager, ReplacementPolicyType.fromConfig());
+    }
+
+    public BufferPool(int poolCapacity, FileManager fManager, ReplacementPolicyType policyType) {
+        this(poolCapacity, fManager, defaultPartitionCount(poolCapacity), policyType);
+    }
+
+    public BufferPool(int poolCapacity, FileManager fManager, int partitionCount) {
+        this(poolCapacity, fManager, partitionCount, ReplacementPolicyType.fromConfig());
+    }
+
+    public BufferPool(int poolCapacity, FileManager fManager, int partitionCount, ReplacementPolicyType policyType) {
+        if (poolCapacity <= 0) {
+            throw new IllegalArgumentException("Pool capacity must be positive: " + poolCapacity);
+        }
+        if (partitionCount <= 0 || partitionCount > poolCapacity) {
+            throw new IllegalArgumentException("Partition count must be between 1 and " + poolCapacity + ": " + partitionCount);
+        }
         this.poolCapacity = poolCapacity;
         this.fManager = fManager;
-        this.cache = new LRUCache<>(poolCapacity, 2); 
-        this.freeFrames = new ArrayDeque<>(poolCapacity);
-        this.lock = new ReentrantReadWriteLock();
-        
+        this.policyType = policyType;
+        this.pageTable = new ConcurrentHashMap<>(poolCapacity * 2, 0.75f, partitionCount);
+        this.partitions = new Partition[partitionCount];
+        this.frameOwners = new IdentityHashMap<>(poolCapacity);
+        this.frames = new ArrayList<>(poolCapacity);
+
+        for (int p = 0; p < partitionCount; p++) {
+            int size = poolCapacity / partitionCount + (p < poolCapacity % partitionCount ? 1 : 0);
+            partitions[p] = new Partition(policyType.create(size));
+        }
+        Page[] pages = allocatePages(poolCapacity, fManager.getPageSize());
         for (int i = 0; i < poolCapacity; i++) {
-            freeFrames.push(new Frame());
+            Frame frame = new Frame(pages[i]);
+            Partition owner = partitions[i % partitionCount];
+            owner.freeFrames.push(frame);
+            frameOwners.put(frame, owner);
+            frames.add(frame);
+        }
+    }
+
+    private static Page[] allocatePages(int count, int pageSize) {
+        Page[] pages = new Page[count];
+        int pagesPerArena = MAX_ARENA_BYTES / pageSize;
+        ByteBuffer arena = null;
+        for (int i = 0; i < count; i++) {
+            int slot = i % pagesPerArena;
+            if (slot == 0) {
+                arena = ByteBuffer.allocateDirect(Math.min(count - i, pagesPerArena) * pageSize);
+            }
+            pages[i] = new Page(arena.slice(slot * pageSize, pageSize));
+        }
+        return pages;
+    }
+
+    private static int defaultPartitionCount(int poolCapacity) {
+        return Math.max(1, Math.min(MAX_PARTITIONS, poolCapacity / FRAMES_PER_PARTITION));
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[AccessType.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
         }
+        return counters;
+    }
+
+    /**
+     * Creates a ring for one sequential scan, sized to an eighth of the pool (at most 16 frames).
+     */
+    public BufferRing newBufferRing() {
+        return new BufferRing(Math.max(1, Math.min(MAX_RING_SIZE, poolCapacity / 8)));
     }
 
     public Page pinBlock(Block block) throws IOException {
-        lock.writeLock().lock();
-        try {
-            Frame frame = cache.get(block);
-            
+        return pinBlock(block, null);
+    }
+
+    /**
+     * Pins a block on behalf of a sequential scan. Misses are loaded into the ring's
+     * frames, and hits do not count as references for the replacement policy.
+     *
+     * @param block block to pin
+     * @param ring scan ring, or null for a normal access
+     * @return pinned page
+     */
+    public Page pinBlock(Block block, BufferRing ring) throws IOException {
+        AccessType accessType = ring == null ? AccessType.NORMAL : AccessType.SCAN;
+        ReadAheadPrefetcher readAhead = prefetcher;
+        if (readAhead != null) {
+            readAhead.onAccess(block);
+        }
+        while (true) {
+            Frame frame = pageTable.get(block);
             if (frame != null) {
-                frame.pin();
-                return frame.getPage();
-            }
-            
-            frame = allocateFrame();
-            Page page = new Page();
-            fManager.read(block, page);
-            frame.setBlockId(block); 
-            frame.setPage(page);
-            frame.pin();
-            cache.put(block, frame);
-            
-            return page;
-            
-        } finally {
-            lock.writeLock().unlock();
+                Page page = pinResident(block, frame, accessType);
+                if (page != null) {
+                    return page;
+                }
+                continue;
+            }
+
+            frame = ring == null ? null : reclaimRingFrame(ring);
+            if (frame == null) {
+                frame = allocateFrame(block);
+            }
+            if (!loadBlock(block, frame, false)) {
+                continue;
+            }
+            misses[accessType.ordinal()].increment();
+            if (readAhead != null) {
+                readAhead.onMiss(block);
+            }
+            if (ring != null) {
+                ring.advance(frame, block);
+            }
+            return frame.getPage();
         }
     }
-    
-    public void unpinBlock(Block blockId) {
-        lock.writeLock().lock();
+
+    /**
+     * Reads a block into a claimed frame and publishes it in the page table. The frame
+     * ends up pinned once for the caller.
+     *
+     * @return false when another thread mapped the block first; the frame is then released
+     */
+    private boolean loadBlock(Block block, Frame frame, boolean prefetch) throws IOException {
+        Partition owner = frameOwners.get(frame);
+        Page page = frame.getPage();
+        frame.lockIo();
         try {
-            Frame frame = cache.get(blockId);
-            if (frame != null) {
-                frame.unpin();
+            frame.assignClaimed(block, page);
+            frame.setPrefetched(prefetch);
+            if (pageTable.putIfAbsent(block, frame) != null) {
+                // Another thread loaded the block first; hand the frame back and use theirs.
+                frame.reset();
+                owner.release(frame);
+                return false;
+            }
+            owner.lock.lock();
+            try {
+                owner.policy.recordLoad(frame);
+            } finally {
+                owner.lock.unlock();
+            }
+            try {
+                fManager.read(block, page);
+            } catch (IOException | RuntimeException e) {
+                pageTable.remove(block, frame);
+                owner.discard(frame);
+                throw e;
             }
+            frame.setLoaded(true);
+            return true;
         } finally {
-            lock.writeLock().unlock();
+            frame.unlockIo();
         }
     }
-    
-    public void flushBlock(Block blockId) throws IOException {
-        lock.readLock().lock();
+
+    /**
+     * Loads a block in the background for read-ahead. Gives up instead of waiting when
+     * the block is already resident or no frame can be freed.
+     *
+     * @return true when the block was read into the pool
+     */
+    boolean prefetchBlock(Block block) throws IOException {
+        if (pageTable.containsKey(block)) {
+            return false;
+        }
+        Frame frame;
         try {
-            Frame frame = cache.get(blockId);
-            if (frame != null && frame.isDirty()) {
-                fManager.write(blockId, frame.getPage());
-                frame.setDirty(false);
+            frame = allocateFrame(block);
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (!loadBlock(block, frame, true)) {
+            return false;
+        }
+        frame.unpin();
+        return true;
+    }
+
+    /**
+     * Starts background read-ahead for sequential access. Calling it again replaces the
+     * running prefetcher.
+     *
+     * @param maxWindow largest number of blocks read ahead of a scan
+     * @param ioThreads threads issuing read-ahead I/O
+     */
+    public synchronized void enableReadAhead(int maxWindow, int ioThreads) {
+        disableReadAhead();
+        int window = Math.max(1, Math.min(maxWindow, poolCapacity / 4));
+        prefetcher = new ReadAheadPrefetcher(this, fManager, window, ioThreads);
+    }
+
+    public synchronized void disableReadAhead() {
+        if (prefetcher != null) {
+            prefetcher.close();
+            prefetcher = null;
+        }
+    }
+
+    public ReadAheadPrefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    /**
+     * Pins a frame found in the page table. Returns null when the frame was evicted,
+     * re-assigned or failed to load in the meantime, in which case the caller retries.
+     */
+    private Page pinResident(Block block, Frame frame, AccessType accessType) {
+        if (!frame.tryPin()) {
+            // Claimed for eviction: wait for the write-back to finish before looking again.
+            frame.awaitIo();
+            Thread.onSpinWait();
+            return null;
+        }
+        if (!block.equals(frame.getBlockId())) {
+            frame.unpin();
+            return null;
+        }
+        if (frame.isPrefetched()) {
+            frame.setPrefetched(false);
+            ReadAheadPrefetcher readAhead = prefetcher;
+            if (readAhead != null) {
+                readAhead.onPrefetchConsumed(block, frame.isIoInProgress());
             }
-        } finally {
-            lock.readLock().unlock();
         }
+        frame.awaitIo();
+        if (!frame.isLoaded()) {
+            frame.unpin();
+            return null;
+        }
+        if (accessType == AccessType.NORMAL) {
+            frameOwners.get(frame).policy.recordAccess(frame);
+        }
+        hits[accessType.ordinal()].increment();
+        return frame.getPage();
     }
-    
-    public void flushAll() throws IOException {
-        lock.writeLock().lock();
-        try {
-            cache.forEachValue(frame -> {
-                if (frame.isDirty()) {
-                    try {
-                        fManager.write(frame.getBlockId(), frame.getPage());
-                        frame.setDirty(false);
-                    } catch (IOException e) {
-                        throw new RuntimeException("Failed to flush frame", e);
-                    }
-                }
-            }); 
+
+    public void unpinBlock(Block blockId) {
+        Frame frame = pageTable.get(blockId);
+        if (frame != null && blockId.equals(frame.getBlockId())) {
+            frame.unpin();
         }
-        finally {
-            lock.writeLock().unlock();
+    }
+
+    public void flushBlock(Block blockId) throws IOException {
+        Frame frame = pageTable.get(blockId);
+        if (frame != null) {
+            flushFrame(frame, blockId);
         }
     }
-    
-    public void markDirtyBlock(Block block) {
-        lock.writeLock().lock();
+
+    /**
+     * Writes back every dirty frame, pinned or not. A pinned frame that is being modified
+     * under {@link #latchBlock(Block)} is written once the modification is complete.
+     *
+     * @return number of frames written
+     */
+    public int flushAll() throws IOException {
+        int written = 0;
+        for (Frame frame : frames) {
+            Block block = frame.getBlockId();
+            if (block != null && frame.isDirty() && flushFrame(frame, block)) {
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Writes back up to {@code maxFrames} dirty frames that nobody has pinned. Each call
+     * resumes where the previous one stopped, so repeated calls sweep the whole pool.
+     *
+     * @return number of frames written
+     */
+    public int flushDirty(int maxFrames) throws IOException {
+        int written = 0;
+        int start = Math.floorMod(flushCursor.get(), frames.size());
+        int scanned = 0;
+        for (; scanned < frames.size() && written < maxFrames; scanned++) {
+            Frame frame = frames.get((start + scanned) % frames.size());
+            Block block = frame.getBlockId();
+            if (block != null && frame.isDirty() && !frame.isPinned() && flushFrame(frame, block)) {
+                written++;
+            }
+        }
+        flushCursor.set(start + scanned);
+        return written;
+    }
+
+    private boolean flushFrame(Frame frame, Block block) throws IOException {
+        frame.lockIo();
         try {
-            Frame frame = cache.get(block);
-            if (frame != null) {
+            if (!block.equals(frame.getBlockId()) || !frame.isLoaded() || !frame.isDirty()) {
+                return false;
+            }
+            // Clear first so a concurrent modification during the write keeps the frame dirty.
+            frame.setDirty(false);
+            // Pinned pages may be mid-modification; wait for the pinner to finish.
+            frame.lockContentShared();
+            try {
+                forceLogFor(frame);
+                fManager.write(block, frame.getPage());
+            } catch (IOException | RuntimeException e) {
                 frame.setDirty(true);
+                throw e;
+            } finally {
+                frame.unlockContentShared();
             }
+            return true;
+        } finally {
+            frame.unlockIo();
         }
-        finally {
-            lock.writeLock().unlock();
+    }
+
+    /**
+     * Latches a pinned block while the caller modifies its page, so that a write-back on
+     * another thread, such as a checkpoint, waits instead of writing a torn page. Does
+     * nothing when the block is not resident.
+     */
+    public void latchBlock(Block block) {
+        Frame frame = pageTable.get(block);
+        if (frame != null && block.equals(frame.getBlockId())) {
+            frame.lockContent();
         }
     }
 
-    private Frame allocateFrame() throws IOException {
-        
-        if (!freeFrames.isEmpty()) {
-            return freeFrames.pop();
+    public void unlatchBlock(Block block) {
+        Frame frame = pageTable.get(block);
+        if (frame != null && block.equals(frame.getBlockId())) {
+            frame.unlockContent();
         }
-        
-        Object[] victim = cache.evict();
-        if (victim != null) {
-            Block victimBlock = (Block) victim[0];
-            Frame victimFrame = (Frame) victim[1];
-            markDirtyBlock(victimBlock);
-            if (victimFrame.isDirty()) {
-                fManager.write(victimBlock, victimFrame.getPage());
-                victimFrame.setDirty(true);
+    }
+
+    public void markDirtyBlock(Block block) {
+        Frame frame = pageTable.get(block);
+        if (frame != null && block.equals(frame.getBlockId())) {
+            frame.setDirty(true);
+        }
+    }
+
+    /**
+     * Marks a block dirty with a logged change; the page will not be written back before
+     * the log is durable up to {@code lsn}.
+     */
+    public void markDirtyBlock(Block block, long lsn) {
+        Frame frame = pageTable.get(block);
+        if (frame != null && block.equals(frame.getBlockId())) {
+            frame.advancePageLsn(lsn);
+            frame.setDirty(true);
+        }
+    }
+
+    /**
+     * Attaches the log that page write-backs must respect; null detaches it.
+     */
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    public WriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
+
+    private void forceLogFor(Frame frame) throws IOException {
+        WriteAheadLog wal = writeAheadLog;
+        long pageLsn = frame.getPageLsn();
+        if (wal != null && pageLsn > 0) {
+            wal.flush(pageLsn);
+        }
+    }
+
+    /**
+     * Claims a frame for {@code block}, preferring the partition the block hashes to and
+     * falling back to the others so the whole pool is usable. The returned frame is
+     * claimed, unmapped and already written back.
+     */
+    private Frame allocateFrame(Block block) throws IOException {
+        int home = Math.floorMod(block.hashCode(), partitions.length);
+        for (int i = 0; i < partitions.length; i++) {
+            Frame frame = partitions[(home + i) % partitions.length].claimFrame();
+            if (frame != null) {
+                return frame;
             }
-            victimFrame.reset();
-            return victimFrame;
         }
-        
         throw new RuntimeException("No unpinned frames available");
     }
-    
+
+    /**
+     * Takes back the frame in the ring's current slot when nobody else is using it.
+     * Returns null when the slot is empty, was recycled by the pool or is pinned.
+     */
+    private Frame reclaimRingFrame(BufferRing ring) throws IOException {
+        Frame frame = ring.currentFrame();
+        Block block = ring.currentBlock();
+        if (frame == null || pageTable.get(block) != frame) {
+            return null;
+        }
+        Partition owner = frameOwners.get(frame);
+        owner.lock.lock();
+        try {
+            if (!block.equals(frame.getBlockId()) || !frame.tryClaim()) {
+                return null;
+            }
+            owner.policy.remove(frame);
+            frame.lockIo();
+        } finally {
+            owner.lock.unlock();
+        }
+        return owner.writeBackClaimed(frame, block);
+    }
+
     public double getHitRatio() {
-        return cache.getHitRatio(); 
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total * 100.0;
+    }
+
+    public double getHitRatio(AccessType accessType) {
+        long hitCount = getHits(accessType);
+        long total = hitCount + getMisses(accessType);
+        return total == 0 ? 0 : (double) hitCount / total * 100.0;
     }
-    
+
     public int getHits() {
-        return cache.getHits();
+        int total = 0;
+        for (AccessType accessType : AccessType.values()) {
+            total += getHits(accessType);
+        }
+        return total;
     }
-    
+
+    public int getHits(AccessType accessType) {
+        return hits[accessType.ordinal()].intValue();
+    }
+
     public int getMisses() {
-        return cache.getMisses();
+        int total = 0;
+        for (AccessType accessType : AccessType.values()) {
+            total += getMisses(accessType);
+        }
+        return total;
     }
-    
+
+    public int getMisses(AccessType accessType) {
+        return misses[accessType.ordinal()].intValue();
+    }
+
     public int getPoolSize() {
         return poolCapacity;
     }
-    
+
+    public ReplacementPolicyType getPolicyType() {
+        return policyType;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
     public int getUsedFrames() {
-        return cache.size();
+        return pageTable.size();
     }
-    
+
     public int getFreeFrames() {
-        return freeFrames.size();
+        int free = 0;
+        for (Partition partition : partitions) {
+            partition.lock.lock();
+            try {
+                free += partition.freeFrames.size();
+            } finally {
+                partition.lock.unlock();
+            }
+        }
+        return free;
     }
-    
+
+    public int getPinnedFrames() {
+        int pinned = 0;
+        for (Frame frame : frames) {
+            if (frame.isPinned()) {
+                pinned++;
+            }
+        }
+        return pinned;
+    }
+
+    public int getDirtyFrames() {
+        int dirty = 0;
+        for (Frame frame : frames) {
+            if (frame.getBlockId() != null && frame.isDirty()) {
+                dirty++;
+            }
+        }
+        return dirty;
+    }
+
+    public double getDirtyRatio() {
+        return (double) getDirtyFrames() / poolCapacity;
+    }
+
     public void printStatistics() {
         System.out.println("Buffer Pool Statistics:");
         System.out.println("  Pool Capacity: " + poolCapacity);
+        System.out.println("  Partitions: " + partitions.length);
+        System.out.println("  Replacement Policy: " + partitions[0].policy.getName());
         System.out.println("  Free Frames: " + getFreeFrames());
-        cache.printCacheState();
+        System.out.printf("  Hits: %d, Misses: %d, Hit Ratio: %.2f%%%n", getHits(), getMisses(), getHitRatio());
+        for (AccessType accessType : AccessType.values()) {
+            System.out.printf("    %s - Hits: %d, Misses: %d, Hit Ratio: %.2f%%%n", accessType,
+                getHits(accessType), getMisses(accessType), getHitRatio(accessType));
+        }
     }
-    
+
     public void close() throws IOException {
-        lock.writeLock().lock();
+        disableReadAhead();
+        for (Partition partition : partitions) {
+            partition.lock.lock();
+        }
         try {
-            cache.clear();
-            freeFrames.clear();
+            pageTable.clear();
+            for (Partition partition : partitions) {
+                partition.policy.clear();
+                partition.freeFrames.clear();
+            }
+            for (Frame frame : frames) {
+                frame.reset();
+                frameOwners.get(frame).freeFrames.push(frame);
+            }
+            for (AccessType accessType : AccessType.values()) {
+                hits[accessType.ordinal()].reset();
+                misses[accessType.ordinal()].reset();
+            }
         } finally {
-            lock.writeLock().unlock();
+            for (Partition partition : partitions) {
+                partition.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A slice of the pool's frames with its own replacement state. The lock guards the
+     * free list and the claim of an eviction victim; it is never held across disk I/O.
+     */
+    private final class Partition {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ReplacementPolicy policy;
+        private final Deque<Frame> freeFrames = new ArrayDeque<>();
+
+        private Partition(ReplacementPolicy policy) {
+            this.policy = policy;
+        }
+
+        private Frame claimFrame() throws IOException {
+            Frame victim;
+            Block victimBlock;
+            lock.lock();
+            try {
+                for (int i = freeFrames.size(); i > 0; i--) {
+                    Frame free = freeFrames.poll();
+                    if (free.tryClaim()) {
+                        return free;
+                    }
+                    // A stale pinner still holds a transient pin; try it again later.
+                    freeFrames.addLast(free);
+                }
+
+                victim = policy.evict(Frame::tryClaim);
+                if (victim == null) {
+                    return null;
+                }
+                victimBlock = victim.getBlockId();
+                victim.lockIo();
+            } finally {
+                lock.unlock();
+            }
+            return writeBackClaimed(victim, victimBlock);
+        }
+
+        /**
+         * Finishes evicting a claimed frame whose I/O latch is held: writes it back if
+         * dirty and drops its page table mapping. Releases the latch either way.
+         */
+        private Frame writeBackClaimed(Frame victim, Block victimBlock) throws IOException {
+            // Pinners of the victim block spin on the claim until the mapping is gone,
+            // so nobody can re-read the block from disk before the write-back lands.
+            try {
+                ReadAheadPrefetcher readAhead = prefetcher;
+                if (victim.isPrefetched() && readAhead != null) {
+                    readAhead.onPrefetchWasted(victimBlock);
+                }
+                if (victim.isDirty() && victim.isLoaded()) {
+                    forceLogFor(victim);
+                    fManager.write(victimBlock, victim.getPage());
+                    victim.setDirty(false);
+                }
+                pageTable.remove(victimBlock, victim);
+                return victim;
+            } catch (IOException | RuntimeException e) {
+                victim.releaseClaim();
+                lock.lock();
+                try {
+                    policy.recordLoad(victim);
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            } finally {
+                victim.unlockIo();
+            }
+        }
+
+        private void release(Frame frame) {
+            lock.lock();
+            try {
+                freeFrames.push(frame);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void discard(Frame frame) {
+            lock.lock();
+            try {
+                policy.remove(frame);
+                frame.reset();
+                freeFrames.push(frame);
+            } finally {
+                lock.unlock();
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package lite.sqlite.server.storage.buffer;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Frame;
+
+/**
+ * A small ring of frames reused by one sequential scan, in the style of PostgreSQL's
+ * buffer access strategies. Blocks that miss the pool are loaded into the ring's own
+ * frames in turn, so a scan over a large table keeps at most {@link #size()} frames of
+ * the pool instead of evicting the whole working set.
+ *
+ * <p>Ring frames stay ordinary pool frames: other threads can hit them, and if the pool
+ * evicts one the ring simply takes a new frame for that slot. A ring is not thread-safe
+ * and should be used by a single scan; obtain one from {@link BufferPool#newBufferRing()}.
+ */
+public class BufferRing {
+
+    private final Frame[] frames;
+    private final Block[] blocks;
+    private int cursor;
+
+    BufferRing(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Ring size must be positive: " + size);
+        }
+        this.frames = new Frame[size];
+        this.blocks = new Block[size];
+    }
+
+    public int size() {
+        return frames.length;
+    }
+
+    /**
+     * Returns the frame in the current slot if it still holds the block the ring loaded
+     * into it, or null when the slot is empty or was recycled by the pool.
+     */
+    Frame currentFrame() {
+        Frame frame = frames[cursor];
+        Block block = blocks[cursor];
+        if (frame == null || block == null || !block.equals(frame.getBlockId())) {
+            return null;
+        }
+        return frame;
+    }
+
+    Block currentBlock() {
+        return blocks[cursor];
+    }
+
+    /**
+     * Records the frame loaded for the current slot and moves on to the next one.
+     */
+    void advance(Frame frame, Block block) {
+        frames[cursor] = frame;
+        blocks[cursor] = block;
+        cursor = (cursor + 1) % frames.length;
+    }
+}
@@ -0,0 +1,259 @@
+package lite.sqlite.server.storage.buffer;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Frame;
+
+/**
+ * CLOCK-Pro replacement over a ring of resident frames.
+ *
+ * <p>A hit only sets the frame's reference bit, so it never takes a lock or reorders
+ * anything. Frames are cold or hot: the cold hand evicts unreferenced cold frames, and a
+ * cold frame referenced again during its test period is promoted to hot. The hot hand
+ * demotes unreferenced hot frames once they exceed their share of the ring. Blocks evicted
+ * while still in their test period are remembered as non-resident, so a quick reload is
+ * admitted straight as hot and grows the cold target, while expired tests shrink it.
+ */
+public class ClockProReplacementPolicy implements ReplacementPolicy {
+
+    private static final class Entry {
+        private final Frame frame;
+        private volatile boolean referenced;
+        private boolean hot;
+        private boolean inTest;
+        private Entry prev;
+        private Entry next;
+
+        private Entry(Frame frame) {
+            this.frame = frame;
+        }
+    }
+
+    private final int capacity;
+    private final int minColdTarget;
+    private final int maxColdTarget;
+    private final ConcurrentHashMap<Frame, Entry> entries;
+    private final LinkedHashSet<Block> nonResidentTests;
+    private Entry handCold;
+    private Entry handHot;
+    private int hotCount;
+    private int coldCount;
+    private int coldTarget;
+
+    public ClockProReplacementPolicy(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.minColdTarget = 1;
+        this.maxColdTarget = Math.max(1, capacity - 1);
+        this.coldTarget = Math.max(minColdTarget, capacity / 2);
+        this.entries = new ConcurrentHashMap<>(capacity);
+        this.nonResidentTests = new LinkedHashSet<>();
+    }
+
+    @Override
+    public void recordLoad(Frame frame) {
+        Entry entry = new Entry(frame);
+        Block block = frame.getBlockId();
+        if (block != null && nonResidentTests.remove(block)) {
+            // Re-used within its test period: the reuse distance beats the cold frames'.
+            entry.hot = true;
+            hotCount++;
+            coldTarget = Math.min(maxColdTarget, coldTarget + 1);
+        } else {
+            entry.inTest = true;
+            coldCount++;
+        }
+        link(entry);
+        entries.put(frame, entry);
+    }
+
+    @Override
+    public void recordAccess(Frame frame) {
+        Entry entry = entries.get(frame);
+        if (entry != null) {
+            entry.referenced = true;
+        }
+    }
+
+    @Override
+    public Frame evict(Predicate<Frame> claim) {
+        int budget = 4 * entries.size() + 1;
+        while (budget-- > 0 && handCold != null) {
+            if (coldCount == 0 || hotCount > capacity - coldTarget) {
+                runHandHot();
+            }
+
+            Entry entry = handCold;
+            handCold = entry.next;
+            if (entry.hot) {
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                if (entry.inTest) {
+                    entry.hot = true;
+                    entry.inTest = false;
+                    coldCount--;
+                    hotCount++;
+                } else {
+                    entry.inTest = true;
+                }
+                continue;
+            }
+            if (entry.frame.isPinned() || !claim.test(entry.frame)) {
+                continue;
+            }
+
+            return evictEntry(entry);
+        }
+
+        // Concurrent hits kept setting reference bits faster than the hands cleared them;
+        // fall back to any claimable frame so eviction only fails when everything is pinned.
+        Entry entry = handCold;
+        for (int i = entries.size(); i > 0 && entry != null; i--) {
+            Entry next = entry.next;
+            if (!entry.frame.isPinned() && claim.test(entry.frame)) {
+                handCold = next;
+                return evictEntry(entry);
+            }
+            entry = next;
+        }
+        return null;
+    }
+
+    private Frame evictEntry(Entry entry) {
+        Block block = entry.frame.getBlockId();
+        unlink(entry);
+        if (entry.hot) {
+            hotCount--;
+        } else {
+            coldCount--;
+        }
+        if (entry.inTest && block != null) {
+            rememberNonResident(block);
+        }
+        return entry.frame;
+    }
+
+    /**
+     * Demotes one unreferenced hot frame, clearing reference bits on the way.
+     */
+    private void runHandHot() {
+        if (handHot == null) {
+            handHot = handCold;
+        }
+        int steps = 2 * entries.size();
+        while (steps-- > 0 && handHot != null) {
+            Entry entry = handHot;
+            handHot = entry.next;
+            if (!entry.hot) {
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                continue;
+            }
+            entry.hot = false;
+            entry.inTest = false;
+            hotCount--;
+            coldCount++;
+            return;
+        }
+    }
+
+    private void rememberNonResident(Block block) {
+        nonResidentTests.add(block);
+        if (nonResidentTests.size() > capacity) {
+            Iterator<Block> eldest = nonResidentTests.iterator();
+            eldest.next();
+            eldest.remove();
+            // A test period expired without reuse: cold frames need less room.
+            coldTarget = Math.max(minColdTarget, coldTarget - 1);
+        }
+    }
+
+    @Override
+    public void remove(Frame frame) {
+        Entry entry = entries.get(frame);
+        if (entry == null) {
+            return;
+        }
+        unlink(entry);
+        if (entry.hot) {
+            hotCount--;
+        } else {
+            coldCount--;
+        }
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        nonResidentTests.clear();
+        handCold = null;
+        handHot = null;
+        hotCount = 0;
+        coldCount = 0;
+        coldTarget = Math.max(minColdTarget, capacity / 2);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String getName() {
+        return "CLOCK-Pro";
+    }
+
+    public int getHotCount() {
+        return hotCount;
+    }
+
+    public int getColdTarget() {
+        return coldTarget;
+    }
+
+    /**
+     * Inserts the entry just behind the cold hand so it is the last frame the hand reaches.
+     */
+    private void link(Entry entry) {
+        if (handCold == null) {
+            entry.prev = entry;
+            entry.next = entry;
+            handCold = entry;
+            return;
+        }
+        Entry tail = handCold.prev;
+        entry.prev = tail;
+        entry.next = handCold;
+        tail.next = entry;
+        handCold.prev = entry;
+    }
+
+    private void unlink(Entry entry) {
+        entries.remove(entry.frame);
+        if (entry.next == entry) {
+            handCold = null;
+            handHot = null;
+        } else {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            if (handCold == entry) {
+                handCold = entry.next;
+            }
+            if (handHot == entry) {
+                handHot = entry.next;
+            }
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+}
@@ -0,0 +1,70 @@
+package lite.sqlite.server.storage.buffer;
+
+import java.util.function.Predicate;
+
+import lite.sqlite.server.storage.Frame;
+import lite.sqlite.server.storage.LRUCache;
+
+/**
+ * The original LRU-K replacement, backed by {@link LRUCache}. Every hit reorders the
+ * recency list under the cache lock and every eviction scans all entries.
+ */
+public class LruKReplacementPolicy implements ReplacementPolicy {
+
+    private final LRUCache<Frame, Frame> cache;
+    private final int capacity;
+    private final int k;
+
+    public LruKReplacementPolicy(int capacity, int k) {
+        this.cache = new LRUCache<>(capacity, k);
+        this.capacity = capacity;
+        this.k = k;
+    }
+
+    @Override
+    public void recordLoad(Frame frame) {
+        cache.put(frame, frame);
+    }
+
+    @Override
+    public void recordAccess(Frame frame) {
+        cache.get(frame);
+    }
+
+    @Override
+    public Frame evict(Predicate<Frame> claim) {
+        for (int attempt = 0; attempt < capacity; attempt++) {
+            Object[] entry = cache.evict();
+            if (entry == null) {
+                return null;
+            }
+            Frame candidate = (Frame) entry[1];
+            if (claim.test(candidate)) {
+                return candidate;
+            }
+            // Pinned between the scan and the claim; keep it cached.
+            cache.put(candidate, candidate);
+        }
+        return null;
+    }
+
+    @Override
+    public void remove(Frame frame) {
+        cache.remove(frame);
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    @Override
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    public String getName() {
+        return "LRU-" + k;
+    }
+}
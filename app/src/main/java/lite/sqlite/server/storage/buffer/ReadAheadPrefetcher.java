@@ -0,0 +1,217 @@
+package lite.sqlite.server.storage.buffer;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.filemanager.FileManager;
+
+/**
+ * Background read-ahead for sequential block access.
+ *
+ * <p>Accesses are tracked per file. Once a file is read sequentially for a few blocks,
+ * the next window of blocks is loaded into the pool on a small I/O thread pool, and more
+ * is requested when the scan has consumed half of what was read ahead. The window starts
+ * small, doubles whenever the scan catches up with a block that is still being read or not
+ * read yet, and halves whenever a read-ahead block is evicted before anyone used it.
+ */
+public class ReadAheadPrefetcher implements AutoCloseable {
+
+    private static final int MIN_WINDOW = 4;
+    private static final int SEQUENTIAL_THRESHOLD = 2;
+    private static final int QUEUE_CAPACITY = 64;
+
+    private static final class Stream {
+        private int lastBlock = -1;
+        private int run;
+        private int window = MIN_WINDOW;
+        private int prefetchedUpTo = -1;
+    }
+
+    private final BufferPool bufferPool;
+    private final FileManager fileManager;
+    private final int maxWindow;
+    private final ConcurrentHashMap<String, Stream> streams = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor ioExecutor;
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder late = new LongAdder();
+    private final LongAdder wasted = new LongAdder();
+
+    ReadAheadPrefetcher(BufferPool bufferPool, FileManager fileManager, int maxWindow, int ioThreads) {
+        this.bufferPool = bufferPool;
+        this.fileManager = fileManager;
+        this.maxWindow = Math.max(MIN_WINDOW, maxWindow);
+        AtomicInteger threadIds = new AtomicInteger();
+        this.ioExecutor = new ThreadPoolExecutor(
+            Math.max(1, ioThreads),
+            Math.max(1, ioThreads),
+            30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "read-ahead-" + threadIds.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // Read-ahead is only a hint: drop requests rather than stall the scan.
+            new ThreadPoolExecutor.DiscardPolicy()
+        );
+    }
+
+    /**
+     * Records an access and schedules read-ahead when the file is being read sequentially.
+     */
+    void onAccess(Block block) {
+        String fileName = block.getFileName();
+        int blockNum = block.getBlockNum();
+        Stream stream = streams.computeIfAbsent(fileName, name -> new Stream());
+        int from;
+        int to;
+        synchronized (stream) {
+            if (blockNum == stream.lastBlock + 1) {
+                stream.run++;
+            } else if (blockNum != stream.lastBlock) {
+                stream.run = 0;
+                stream.window = MIN_WINDOW;
+                stream.prefetchedUpTo = blockNum;
+            }
+            stream.lastBlock = blockNum;
+
+            if (stream.run < SEQUENTIAL_THRESHOLD || stream.prefetchedUpTo - blockNum > stream.window / 2) {
+                return;
+            }
+            from = Math.max(stream.prefetchedUpTo + 1, blockNum + 1);
+            to = blockNum + stream.window;
+            stream.prefetchedUpTo = to;
+        }
+        if (from <= to) {
+            ioExecutor.execute(() -> readAhead(fileName, from, to));
+        }
+    }
+
+    private void readAhead(String fileName, int from, int to) {
+        try {
+            int blockCount = fileManager.getBlockCount(fileName);
+            Stream stream = streams.get(fileName);
+            for (int blockNum = from; blockNum <= to && blockNum < blockCount; blockNum++) {
+                if (stream != null && isBehindScan(stream, blockNum)) {
+                    // The scan already read this block itself; loading it now would be wasted.
+                    continue;
+                }
+                issued.increment();
+                if (bufferPool.prefetchBlock(new Block(fileName, blockNum))) {
+                    loaded.increment();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // A failed read-ahead only costs the scan a synchronous read later.
+        }
+    }
+
+    private static boolean isBehindScan(Stream stream, int blockNum) {
+        synchronized (stream) {
+            return blockNum <= stream.lastBlock;
+        }
+    }
+
+    /**
+     * Called when a block had to be read synchronously. If it was inside the window that
+     * was already requested, the scan outran the read-ahead and the window grows.
+     */
+    void onMiss(Block block) {
+        Stream stream = streams.get(block.getFileName());
+        if (stream == null) {
+            return;
+        }
+        synchronized (stream) {
+            if (stream.run >= SEQUENTIAL_THRESHOLD && block.getBlockNum() <= stream.prefetchedUpTo) {
+                late.increment();
+                stream.window = Math.min(maxWindow, stream.window * 2);
+            }
+        }
+    }
+
+    /**
+     * Called when a scan pins a read-ahead block for the first time.
+     *
+     * @param stillLoading true when the block was still being read, so the window was too small
+     */
+    void onPrefetchConsumed(Block block, boolean stillLoading) {
+        consumed.increment();
+        if (!stillLoading) {
+            return;
+        }
+        late.increment();
+        Stream stream = streams.get(block.getFileName());
+        if (stream != null) {
+            synchronized (stream) {
+                stream.window = Math.min(maxWindow, stream.window * 2);
+            }
+        }
+    }
+
+    /**
+     * Called when a read-ahead block is evicted before being used, so the window overshot.
+     */
+    void onPrefetchWasted(Block block) {
+        wasted.increment();
+        Stream stream = streams.get(block.getFileName());
+        if (stream != null) {
+            synchronized (stream) {
+                stream.window = Math.max(MIN_WINDOW, stream.window / 2);
+            }
+        }
+    }
+
+    public int getWindow(String fileName) {
+        Stream stream = streams.get(fileName);
+        if (stream == null) {
+            return MIN_WINDOW;
+        }
+        synchronized (stream) {
+            return stream.window;
+        }
+    }
+
+    public int getMaxWindow() {
+        return maxWindow;
+    }
+
+    public long getIssued() {
+        return issued.sum();
+    }
+
+    public long getLoaded() {
+        return loaded.sum();
+    }
+
+    public long getConsumed() {
+        return consumed.sum();
+    }
+
+    public long getLate() {
+        return late.sum();
+    }
+
+    public long getWasted() {
+        return wasted.sum();
+    }
+
+    @Override
+    public void close() {
+        // No shutdownNow(): interrupting a thread inside FileChannel.read closes the channel.
+        ioExecutor.getQueue().clear();
+        ioExecutor.shutdown();
+        try {
+            ioExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package lite.sqlite.server.storage.buffer;
+
+import java.util.function.Predicate;
+
+import lite.sqlite.server.storage.Frame;
+
+/**
+ * Chooses which resident frame of a buffer pool partition is evicted next.
+ *
+ * <p>{@link #recordAccess(Frame)} is called on the cache-hit path without any pool lock
+ * and must be safe to run concurrently with the other methods. All other methods are
+ * called while the owning partition lock is held.
+ */
+public interface ReplacementPolicy {
+
+    /**
+     * Starts tracking a frame that was just loaded with a new block.
+     */
+    void recordLoad(Frame frame);
+
+    /**
+     * Notes a cache hit on a tracked frame.
+     */
+    void recordAccess(Frame frame);
+
+    /**
+     * Picks a victim and stops tracking it. Candidates are offered to {@code claim},
+     * which returns true once the frame has been taken exclusively by the caller.
+     *
+     * @param claim attempts to claim a candidate frame for eviction
+     * @return the claimed frame, or null when every tracked frame is pinned
+     */
+    Frame evict(Predicate<Frame> claim);
+
+    /**
+     * Stops tracking a frame without evicting it through the policy.
+     */
+    void remove(Frame frame);
+
+    void clear();
+
+    int size();
+
+    String getName();
+}
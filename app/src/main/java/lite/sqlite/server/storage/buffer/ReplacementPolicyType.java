@@ -0,0 +1,49 @@
+package lite.sqlite.server.storage.buffer;
+
+import java.util.Locale;
+
+import lite.sqlite.config.AppConfig;
+
+/**
+ * Replacement policies selectable through the {@code buffer.replacement.policy} key.
+ */
+public enum ReplacementPolicyType {
+    LRU_K("lru-k"),
+    CLOCK_PRO("clock-pro");
+
+    public static final String CONFIG_KEY = "buffer.replacement.policy";
+
+    private final String configName;
+
+    ReplacementPolicyType(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public ReplacementPolicy create(int capacity) {
+        switch (this) {
+            case CLOCK_PRO:
+                return new ClockProReplacementPolicy(capacity);
+            case LRU_K:
+            default:
+                return new LruKReplacementPolicy(capacity, 2);
+        }
+    }
+
+    public static ReplacementPolicyType fromConfig() {
+        return parse(AppConfig.getOrDefault(CONFIG_KEY, LRU_K.configName));
+    }
+
+    public static ReplacementPolicyType parse(String value) {
+        String normalized = value.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+        for (ReplacementPolicyType type : values()) {
+            if (type.configName.equals(normalized)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported buffer replacement policy: " + value);
+    }
+}
@@ -0,0 +1,43 @@
+package lite.sqlite.server.storage.buffer;
+
+import java.util.Locale;
+
+import lite.sqlite.config.AppConfig;
+
+/**
+ * When committed statements are made durable, selectable through the {@code sync.policy} key.
+ */
+public enum SyncPolicy {
+    /** Every mutating statement writes its dirty pages and forces the files before returning. */
+    STATEMENT("statement"),
+    /** Statements return immediately; dirty pages are written and forced every {@code sync.interval.ms}. */
+    INTERVAL("interval"),
+    /** Only checkpoints (and the background writer) put pages on disk. */
+    CHECKPOINT("checkpoint");
+
+    public static final String CONFIG_KEY = "sync.policy";
+
+    private final String configName;
+
+    SyncPolicy(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public static SyncPolicy fromConfig() {
+        return parse(AppConfig.getOrDefault(CONFIG_KEY, STATEMENT.configName));
+    }
+
+    public static SyncPolicy parse(String value) {
+        String normalized = value.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+        for (SyncPolicy policy : values()) {
+            if (policy.configName.equals(normalized)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sync policy: " + value);
+    }
+}
@@ -0,0 +1,463 @@
+package lite.sqlite.server.storage.catalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import lite.sqlite.server.statistics.ColumnStatistics;
+import lite.sqlite.server.statistics.EquiDepthHistogram;
+import lite.sqlite.server.statistics.TableStatistics;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.buffer.BufferRing;
+import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.storage.index.TableIndex;
+import lite.sqlite.server.storage.record.Column;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.table.Table;
+
+/**
+ * Tables of a database with their columns, indexes and optimizer statistics, kept in
+ * {@value #FILE_NAME} and read and written through the {@link BufferPool}.
+ *
+ * <p>Block 0 holds a magic number, the format version and a clean-shutdown flag. Every
+ * other block is either free (all zeros) or part of the entry of one table: the entry is
+ * serialized and spread over a chain of blocks, each starting with its kind, the next block
+ * of the chain and the number of entry bytes it holds. The head block of a chain also holds
+ * the entry's version, and its bytes start with the table name.
+ *
+ * <p>Entries are never changed in place. A new version is written to free blocks and
+ * forced, its continuation blocks before its head, and only then are the blocks of the old
+ * version reused; after a crash the newest complete head of a table wins.
+ *
+ * <p>Nothing is read until the first lookup, which reads the head blocks once to map table
+ * names to their chains. An entry is decoded, and its table and indexes opened, when the
+ * table is first asked for; callers cache the tables they get.
+ *
+ * <p>Index pages are not logged. When the previous session did not close the catalog, each
+ * index is rebuilt from its table as the table is loaded, and the catalog is only marked
+ * clean again once every table has been.
+ */
+public class SystemCatalog {
+
+    public static final String FILE_NAME = "catalog.cat";
+
+    private static final int MAGIC = 0x4C534354;
+    private static final int VERSION = 1;
+    private static final int HEADER_BLOCK = 0;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CLEAN_OFFSET = 8;
+
+    private static final int KIND_FREE = 0;
+    private static final int KIND_HEAD = 1;
+    private static final int KIND_CONTINUATION = 2;
+    /** Block 0 is the header, so it can stand for the end of a chain. */
+    private static final int NO_BLOCK = 0;
+    private static final int KIND_OFFSET = 0;
+    private static final int NEXT_OFFSET = 4;
+    private static final int LENGTH_OFFSET = 8;
+    private static final int ENTRY_VERSION_OFFSET = 12;
+    private static final int PAYLOAD_OFFSET = 20;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_INTEGER = 1;
+    private static final byte VALUE_VARCHAR = 2;
+
+    private final BufferPool bufferPool;
+    private final FileManager fileManager;
+    private final Block headerBlock = new Block(FILE_NAME, HEADER_BLOCK);
+
+    /** Head block and version of each table's current entry. */
+    private final Map<String, EntryLocation> entries = new HashMap<>();
+    private final TreeSet<Integer> freeBlocks = new TreeSet<>();
+    private final Set<String> loadedTables = new HashSet<>();
+    private boolean loaded;
+    /** Whether the previous session ended without {@link #close()}. */
+    private boolean recovering;
+
+    public SystemCatalog(BufferPool bufferPool, FileManager fileManager) {
+        this.bufferPool = bufferPool;
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * Builds a table from its catalog entry: its schema, its indexes, reopened from their
+     * files or rebuilt when that fails or the last session crashed, and its statistics.
+     * Every call builds a new {@link Table}.
+     *
+     * @return the table, or null when the catalog has no entry for it
+     */
+    public synchronized Table loadTable(String tableName) {
+        try {
+            load();
+            EntryLocation location = entries.get(tableName);
+            if (location == null) {
+                return null;
+            }
+            Table table = decode(readEntry(location.headBlock));
+            loadedTables.add(tableName);
+            return table;
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot load table " + tableName + " from catalog", e);
+        }
+    }
+
+    /**
+     * Writes the current definition of a table: schema, indexes and statistics. Returns
+     * once the new entry is on disk.
+     */
+    public synchronized void saveTable(Table table) throws IOException {
+        load();
+        String tableName = table.getTableName();
+        EntryLocation previous = entries.get(tableName);
+        long version = previous == null ? 1 : previous.version + 1;
+        int headBlock = writeEntry(encode(table), version);
+        entries.put(tableName, new EntryLocation(headBlock, version));
+        loadedTables.add(tableName);
+        if (previous != null) {
+            freeBlocks.addAll(chainOf(previous.headBlock));
+        }
+    }
+
+    /**
+     * Marks the catalog clean once the pages of every index have been written back, so the
+     * next session trusts the index files. Call after the buffer pool has been flushed.
+     */
+    public synchronized void close() throws IOException {
+        if (!loaded) {
+            return;
+        }
+        if (recovering && !loadedTables.containsAll(entries.keySet())) {
+            // Some indexes were never rebuilt; leave that to the next session.
+            return;
+        }
+        writeHeader(true);
+    }
+
+    /**
+     * Reads the header and the head of every entry, on the first call only. Blocks outside
+     * the chain of a current entry are free.
+     */
+    private void load() throws IOException {
+        if (loaded) {
+            return;
+        }
+        int blockCount = fileManager.getBlockCount(FILE_NAME);
+        if (blockCount == 0) {
+            fileManager.append(FILE_NAME);
+        }
+
+        Page header = bufferPool.pinBlock(headerBlock);
+        try {
+            if (header.getInt(MAGIC_OFFSET) == 0) {
+                // New catalog, or one whose header never reached the disk: it has no entries.
+                blockCount = 0;
+            } else if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not a catalog file: " + FILE_NAME);
+            } else if (header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Unsupported catalog version " + header.getInt(VERSION_OFFSET));
+            } else {
+                recovering = header.getInt(CLEAN_OFFSET) == 0;
+            }
+        } finally {
+            bufferPool.unpinBlock(headerBlock);
+        }
+
+        if (blockCount == 0) {
+            writeHeader(false);
+            loaded = true;
+            return;
+        }
+
+        int[] next = new int[blockCount];
+        BufferRing ring = bufferPool.newBufferRing();
+        for (int blockNum = 1; blockNum < blockCount; blockNum++) {
+            Block block = new Block(FILE_NAME, blockNum);
+            Page page = bufferPool.pinBlock(block, ring);
+            try {
+                int kind = page.getInt(KIND_OFFSET);
+                if (kind == KIND_FREE) {
+                    continue;
+                }
+                next[blockNum] = page.getInt(NEXT_OFFSET);
+                if (kind == KIND_HEAD) {
+                    String tableName = readPayload(page).readUTF();
+                    long version = page.getLong(ENTRY_VERSION_OFFSET);
+                    EntryLocation current = entries.get(tableName);
+                    if (current == null || current.version < version) {
+                        entries.put(tableName, new EntryLocation(blockNum, version));
+                    }
+                }
+            } finally {
+                bufferPool.unpinBlock(block);
+            }
+        }
+
+        BitSet used = new BitSet(blockCount);
+        used.set(HEADER_BLOCK);
+        for (EntryLocation location : entries.values()) {
+            for (int blockNum = location.headBlock; blockNum != NO_BLOCK; blockNum = next[blockNum]) {
+                used.set(blockNum);
+            }
+        }
+        for (int blockNum = used.nextClearBit(0); blockNum < blockCount; blockNum = used.nextClearBit(blockNum + 1)) {
+            freeBlocks.add(blockNum);
+        }
+        if (!recovering) {
+            writeHeader(false);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Writes an entry to free blocks and forces it, continuation blocks first.
+     *
+     * @return head block of the entry
+     */
+    private int writeEntry(byte[] data, long version) throws IOException {
+        int payload = fileManager.getPageSize() - PAYLOAD_OFFSET;
+        int blockTotal = Math.max(1, (data.length + payload - 1) / payload);
+        int[] blocks = new int[blockTotal];
+        for (int i = 0; i < blockTotal; i++) {
+            Integer free = freeBlocks.pollFirst();
+            blocks[i] = free != null ? free : fileManager.append(FILE_NAME).getBlockNum();
+        }
+
+        for (int i = blockTotal - 1; i > 0; i--) {
+            int next = i + 1 < blockTotal ? blocks[i + 1] : NO_BLOCK;
+            writeBlock(blocks[i], KIND_CONTINUATION, next, 0, data, i * payload, payload);
+        }
+        if (blockTotal > 1) {
+            for (int i = 1; i < blockTotal; i++) {
+                bufferPool.flushBlock(new Block(FILE_NAME, blocks[i]));
+            }
+            fileManager.sync(FILE_NAME);
+        }
+        writeBlock(blocks[0], KIND_HEAD, blockTotal > 1 ? blocks[1] : NO_BLOCK, version, data, 0, payload);
+        bufferPool.flushBlock(new Block(FILE_NAME, blocks[0]));
+        fileManager.sync(FILE_NAME);
+        return blocks[0];
+    }
+
+    private void writeBlock(int blockNum, int kind, int next, long version, byte[] data, int offset, int payload)
+            throws IOException {
+        int length = Math.min(payload, data.length - offset);
+        Block block = new Block(FILE_NAME, blockNum);
+        Page page = bufferPool.pinBlock(block);
+        try {
+            page.setInt(KIND_OFFSET, kind);
+            page.setInt(NEXT_OFFSET, next);
+            page.setInt(LENGTH_OFFSET, length);
+            page.setLong(ENTRY_VERSION_OFFSET, version);
+            page.contents().put(PAYLOAD_OFFSET, data, offset, length);
+            bufferPool.markDirtyBlock(block);
+        } finally {
+            bufferPool.unpinBlock(block);
+        }
+    }
+
+    private byte[] readEntry(int headBlock) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int blockNum = headBlock; blockNum != NO_BLOCK; ) {
+            Block block = new Block(FILE_NAME, blockNum);
+            Page page = bufferPool.pinBlock(block);
+            try {
+                byte[] bytes = new byte[page.getInt(LENGTH_OFFSET)];
+                page.read(PAYLOAD_OFFSET, bytes);
+                out.write(bytes);
+                blockNum = page.getInt(NEXT_OFFSET);
+            } finally {
+                bufferPool.unpinBlock(block);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private List<Integer> chainOf(int headBlock) throws IOException {
+        List<Integer> blocks = new ArrayList<>();
+        for (int blockNum = headBlock; blockNum != NO_BLOCK; ) {
+            blocks.add(blockNum);
+            Block block = new Block(FILE_NAME, blockNum);
+            Page page = bufferPool.pinBlock(block);
+            try {
+                blockNum = page.getInt(NEXT_OFFSET);
+            } finally {
+                bufferPool.unpinBlock(block);
+            }
+        }
+        return blocks;
+    }
+
+    private void writeHeader(boolean clean) throws IOException {
+        Page header = bufferPool.pinBlock(headerBlock);
+        try {
+            header.setInt(MAGIC_OFFSET, MAGIC);
+            header.setInt(VERSION_OFFSET, VERSION);
+            header.setInt(CLEAN_OFFSET, clean ? 1 : 0);
+            bufferPool.markDirtyBlock(headerBlock);
+        } finally {
+            bufferPool.unpinBlock(headerBlock);
+        }
+        bufferPool.flushBlock(headerBlock);
+        fileManager.sync(FILE_NAME);
+    }
+
+    private static DataInputStream readPayload(Page page) {
+        byte[] bytes = new byte[page.getInt(LENGTH_OFFSET)];
+        page.read(PAYLOAD_OFFSET, bytes);
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Entry layout: table name, columns (name, type, length), indexes (name, column, unique)
+     * and, when the table has been analyzed, its statistics.
+     */
+    private static byte[] encode(Table table) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(table.getTableName());
+
+        List<Column> columns = table.getSchema().getColumns();
+        out.writeInt(columns.size());
+        for (Column column : columns) {
+            out.writeUTF(column.getName());
+            out.writeUTF(column.getType().name());
+            out.writeInt(column.getMaxLength());
+        }
+
+        List<TableIndex<?>> indexes = table.getIndexes();
+        out.writeInt(indexes.size());
+        for (TableIndex<?> index : indexes) {
+            out.writeUTF(index.getIndexName());
+            out.writeUTF(index.getColumnName());
+            out.writeBoolean(index.isUnique());
+        }
+
+        TableStatistics statistics = table.getStatistics();
+        out.writeBoolean(statistics != null);
+        if (statistics != null) {
+            out.writeLong(statistics.getRowCount());
+            out.writeInt(statistics.getBlockCount());
+            out.writeInt(statistics.getColumns().size());
+            for (ColumnStatistics column : statistics.getColumns().values()) {
+                out.writeUTF(column.getColumnName());
+                out.writeDouble(column.getNullFraction());
+                out.writeLong(column.getDistinctCount());
+                out.writeDouble(column.getCorrelation());
+                writeValue(out, column.getMin());
+                writeValue(out, column.getMax());
+                List<Comparable<?>> bounds = column.getHistogram().getBounds();
+                out.writeInt(bounds.size());
+                for (Comparable<?> bound : bounds) {
+                    writeValue(out, bound);
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private Table decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        String tableName = in.readUTF();
+
+        Schema schema = new Schema();
+        int columnCount = in.readInt();
+        for (int i = 0; i < columnCount; i++) {
+            schema.addColumn(in.readUTF(), DataType.valueOf(in.readUTF()), in.readInt());
+        }
+        Table table = new Table(schema, bufferPool, tableName, fileManager);
+
+        int indexCount = in.readInt();
+        for (int i = 0; i < indexCount; i++) {
+            String indexName = in.readUTF();
+            String columnName = in.readUTF();
+            boolean unique = in.readBoolean();
+            if (!recovering) {
+                try {
+                    table.openIndex(columnName, indexName, unique);
+                    continue;
+                } catch (IOException e) {
+                    System.err.println("Warning: Rebuilding index " + indexName + ": " + e.getMessage());
+                }
+            }
+            table.createTypedIndex(columnName, tableName, indexName, unique, schema.getColumn(columnName).getType());
+        }
+
+        if (in.readBoolean()) {
+            long rowCount = in.readLong();
+            int blockCount = in.readInt();
+            int statisticsCount = in.readInt();
+            Map<String, ColumnStatistics> columns = new LinkedHashMap<>();
+            for (int i = 0; i < statisticsCount; i++) {
+                String columnName = in.readUTF();
+                double nullFraction = in.readDouble();
+                long distinctCount = in.readLong();
+                double correlation = in.readDouble();
+                Comparable<?> min = readValue(in);
+                Comparable<?> max = readValue(in);
+                List<Comparable<?>> bounds = new ArrayList<>();
+                int boundCount = in.readInt();
+                for (int b = 0; b < boundCount; b++) {
+                    bounds.add(readValue(in));
+                }
+                columns.put(columnName, new ColumnStatistics(columnName, nullFraction, distinctCount,
+                    min, max, EquiDepthHistogram.fromBounds(bounds), correlation));
+            }
+            table.setStatistics(new TableStatistics(rowCount, blockCount, columns));
+        }
+        return table;
+    }
+
+    private static void writeValue(DataOutputStream out, Comparable<?> value) throws IOException {
+        if (value == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(VALUE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof String) {
+            out.writeByte(VALUE_VARCHAR);
+            out.writeUTF((String) value);
+        } else {
+            throw new IllegalArgumentException("Unsupported catalog value: " + value.getClass().getName());
+        }
+    }
+
+    private static Comparable<?> readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_INTEGER:
+                return in.readInt();
+            case VALUE_VARCHAR:
+                return in.readUTF();
+            default:
+                throw new IOException("Corrupt catalog value tag: " + tag);
+        }
+    }
+
+    private static final class EntryLocation {
+        final int headBlock;
+        final long version;
+
+        EntryLocation(int headBlock, long version) {
+            this.headBlock = headBlock;
+            this.version = version;
+        }
+    }
+}
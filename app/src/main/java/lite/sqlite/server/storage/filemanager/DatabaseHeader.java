@@ -0,0 +1,133 @@
+package lite.sqlite.server.storage.filemanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import lite.sqlite.config.AppConfig;
+import lite.sqlite.server.storage.Page;
+
+/**
+ * Settings fixed when a database directory is created, kept in its header file
+ * ({@value #FILE_NAME}). Today that is the page size: every table, index and free-space
+ * file of the database is made of blocks of that size.
+ *
+ * <p>A new database takes its page size from {@code storage.page.size}; an existing one
+ * keeps the size in its header whatever the configuration says. A directory that already
+ * holds data files but no header predates the header and is given {@link Page#PAGE_SIZE}.
+ *
+ * <p>Layout: magic number, format version, page size.
+ */
+public final class DatabaseHeader {
+
+    public static final String FILE_NAME = "database.hdr";
+    public static final String PAGE_SIZE_KEY = "storage.page.size";
+    public static final int MIN_PAGE_SIZE = 4096;
+    public static final int MAX_PAGE_SIZE = 32768;
+
+    private static final int MAGIC = 0x4C534442;
+    private static final int VERSION = 1;
+    private static final int VERSION_OFFSET = 4;
+    private static final int PAGE_SIZE_OFFSET = 8;
+    private static final int HEADER_SIZE = 12;
+
+    private final int pageSize;
+
+    private DatabaseHeader(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Reads the header of a database directory, creating the directory and the header
+     * when they do not exist yet.
+     *
+     * @throws IOException when the header file is not one or cannot be read
+     */
+    public static synchronized DatabaseHeader open(File dbDirectory) throws IOException {
+        if (!dbDirectory.exists()) {
+            dbDirectory.mkdirs();
+        }
+        File file = new File(dbDirectory, FILE_NAME);
+        if (file.exists()) {
+            return read(file);
+        }
+        int pageSize = hasDataFiles(dbDirectory)
+            ? Page.PAGE_SIZE
+            : checkPageSize(Integer.parseInt(AppConfig.getOrDefault(PAGE_SIZE_KEY, String.valueOf(Page.PAGE_SIZE)).trim()));
+        DatabaseHeader header = new DatabaseHeader(pageSize);
+        header.write(file);
+        return header;
+    }
+
+    /**
+     * Page size of a database directory, through {@link #open}.
+     */
+    public static int pageSizeOf(File dbDirectory) {
+        try {
+            return open(dbDirectory).getPageSize();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot open database header in " + dbDirectory, e);
+        }
+    }
+
+    /**
+     * @return {@code pageSize} when it is a power of two from {@value #MIN_PAGE_SIZE} to
+     *         {@value #MAX_PAGE_SIZE} bytes
+     */
+    public static int checkPageSize(int pageSize) {
+        if (pageSize < MIN_PAGE_SIZE || pageSize > MAX_PAGE_SIZE || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Unsupported page size: " + pageSize
+                + " (expected a power of two from " + MIN_PAGE_SIZE + " to " + MAX_PAGE_SIZE + ")");
+        }
+        return pageSize;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    private static DatabaseHeader read(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+        }
+        if (buffer.hasRemaining() || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a database header: " + file);
+        }
+        if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("Unsupported database header version " + buffer.getInt(VERSION_OFFSET) + ": " + file);
+        }
+        return new DatabaseHeader(checkPageSize(buffer.getInt(PAGE_SIZE_OFFSET)));
+    }
+
+    private void write(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.putInt(0, MAGIC).putInt(VERSION_OFFSET, VERSION).putInt(PAGE_SIZE_OFFSET, pageSize);
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static boolean hasDataFiles(File dbDirectory) {
+        String[] files = dbDirectory.list();
+        if (files == null) {
+            return false;
+        }
+        for (String name : files) {
+            if (name.endsWith(".tbl") || name.endsWith(".idx") || name.endsWith(".fsm")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
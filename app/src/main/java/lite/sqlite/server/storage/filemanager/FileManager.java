@@ -10,10 +10,38 @@ import lite.sqlite.server.storage.table.Table;
 public interface FileManager {
     void read(Block blockId, Page page) throws IOException;
     void write(Block blockId, Page page) throws IOException;
+
+    /**
+     * Creates the file of a new table with its first block. A file of that name that no
+     * table in the catalog owns is emptied first, together with its free-space map.
+     */
     File initializePhysicalTable(Table newTable) throws IOException;
     Block append(String fileName) throws IOException;
+
+    /**
+     * Appends {@code blocks} zeroed blocks at once and returns the first of them.
+     */
+    default Block appendExtent(String fileName, int blocks) throws IOException {
+        Block first = append(fileName);
+        for (int i = 1; i < blocks; i++) {
+            append(fileName);
+        }
+        return first;
+    }
     int getBlockCount(String fileName) throws IOException;
+
+    /**
+     * Size of every block of the database, as recorded in its {@link DatabaseHeader}.
+     */
+    int getPageSize();
+    void sync() throws IOException;
+
+    /**
+     * Forces one file to storage; by default through {@link #sync()}.
+     */
+    default void sync(String fileName) throws IOException {
+        sync();
+    }
     void close() throws IOException; 
     int searchForEmptyBlock(String filename);
-    Block searchForInsertableBlock(Table table, Object[] recordValues);
 }
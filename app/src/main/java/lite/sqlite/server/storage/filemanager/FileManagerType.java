@@ -0,0 +1,52 @@
+package lite.sqlite.server.storage.filemanager;
+
+import java.io.File;
+import java.util.Locale;
+
+import lite.sqlite.config.AppConfig;
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.MappedFileManager;
+
+/**
+ * File manager backends selectable through the {@code storage.file.manager} key.
+ */
+public enum FileManagerType {
+    BASIC("basic"),
+    MAPPED("mmap");
+
+    public static final String CONFIG_KEY = "storage.file.manager";
+
+    private final String configName;
+
+    FileManagerType(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public FileManager create(File dbDirectory) {
+        switch (this) {
+            case MAPPED:
+                return new MappedFileManager(dbDirectory);
+            case BASIC:
+            default:
+                return new BasicFileManager(dbDirectory);
+        }
+    }
+
+    public static FileManagerType fromConfig() {
+        return parse(AppConfig.getOrDefault(CONFIG_KEY, BASIC.configName));
+    }
+
+    public static FileManagerType parse(String value) {
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        for (FileManagerType type : values()) {
+            if (type.configName.equals(normalized)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported file manager: " + value);
+    }
+}
@@ -0,0 +1,288 @@
+package lite.sqlite.server.storage.index;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.table.RecordId;
+
+/**
+ * View over one B+ tree node stored in a page.
+ *
+ * <p>Header: node flags, entry count, next and previous leaf. Leaf entries are
+ * {@code [key][rid block][rid slot]}. Internal nodes start with the left-most child
+ * pointer, followed by entries {@code [key][rid block][rid slot][right child]}, where the
+ * key and record id form the separator. Entries are ordered by key, then record id, so
+ * duplicate keys of a non-unique index still have a total order.
+ *
+ * @param <K> key type
+ */
+final class BtreeNodePage<K extends Comparable<K>> {
+
+    static final int NO_PAGE = -1;
+
+    private static final int FLAGS_OFFSET = 0;
+    private static final int COUNT_OFFSET = 4;
+    private static final int NEXT_OFFSET = 8;
+    private static final int PREV_OFFSET = 12;
+    static final int HEADER_SIZE = 16;
+    private static final int FLAG_LEAF = 1;
+    private static final int RID_SIZE = Integer.BYTES * 2;
+
+    private final Page page;
+    private final IndexKeyCodec<K> codec;
+    private final Block block;
+
+    BtreeNodePage(Page page, IndexKeyCodec<K> codec, Block block) {
+        this.page = page;
+        this.codec = codec;
+        this.block = block;
+    }
+
+    static int leafEntrySize(IndexKeyCodec<?> codec) {
+        return codec.width() + RID_SIZE;
+    }
+
+    static int internalEntrySize(IndexKeyCodec<?> codec) {
+        return codec.width() + RID_SIZE + Integer.BYTES;
+    }
+
+    Block getBlock() {
+        return block;
+    }
+
+    int getBlockNum() {
+        return block.getBlockNum();
+    }
+
+    void initialize(boolean leaf) {
+        page.setInt(FLAGS_OFFSET, leaf ? FLAG_LEAF : 0);
+        page.setInt(COUNT_OFFSET, 0);
+        page.setInt(NEXT_OFFSET, NO_PAGE);
+        page.setInt(PREV_OFFSET, NO_PAGE);
+    }
+
+    boolean isLeaf() {
+        return (page.getInt(FLAGS_OFFSET) & FLAG_LEAF) != 0;
+    }
+
+    int getCount() {
+        return page.getInt(COUNT_OFFSET);
+    }
+
+    void setCount(int count) {
+        page.setInt(COUNT_OFFSET, count);
+    }
+
+    int getNext() {
+        return page.getInt(NEXT_OFFSET);
+    }
+
+    void setNext(int blockNum) {
+        page.setInt(NEXT_OFFSET, blockNum);
+    }
+
+    int getPrev() {
+        return page.getInt(PREV_OFFSET);
+    }
+
+    void setPrev(int blockNum) {
+        page.setInt(PREV_OFFSET, blockNum);
+    }
+
+    private int entrySize() {
+        return isLeaf() ? leafEntrySize(codec) : internalEntrySize(codec);
+    }
+
+    private int entryOffset(int index) {
+        int base = isLeaf() ? HEADER_SIZE : HEADER_SIZE + Integer.BYTES;
+        return base + index * entrySize();
+    }
+
+    K getKey(int index) {
+        return codec.read(page, entryOffset(index));
+    }
+
+    int getRidBlock(int index) {
+        return page.getInt(entryOffset(index) + codec.width());
+    }
+
+    int getRidSlot(int index) {
+        return page.getInt(entryOffset(index) + codec.width() + Integer.BYTES);
+    }
+
+    RecordId getRecordId(int index, String tableFileName) {
+        return new RecordId(new Block(tableFileName, getRidBlock(index)), getRidSlot(index));
+    }
+
+    /**
+     * Child pointer {@code index} of an internal node; child 0 is left of the first separator.
+     */
+    int getChild(int index) {
+        if (index == 0) {
+            return page.getInt(HEADER_SIZE);
+        }
+        return page.getInt(entryOffset(index - 1) + codec.width() + RID_SIZE);
+    }
+
+    void setChild(int index, int blockNum) {
+        if (index == 0) {
+            page.setInt(HEADER_SIZE, blockNum);
+        } else {
+            page.setInt(entryOffset(index - 1) + codec.width() + RID_SIZE, blockNum);
+        }
+    }
+
+    int compareKey(int index, K key) {
+        return codec.compare(page, entryOffset(index), key);
+    }
+
+    int compareEntry(int index, K key, int ridBlock, int ridSlot) {
+        int cmp = compareKey(index, key);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Integer.compare(getRidBlock(index), ridBlock);
+        return cmp != 0 ? cmp : Integer.compare(getRidSlot(index), ridSlot);
+    }
+
+    /**
+     * First index whose key is not less than {@code key}.
+     */
+    int lowerBoundKey(K key) {
+        int low = 0;
+        int high = getCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First index whose key is greater than {@code key}.
+     */
+    int upperBoundKey(K key) {
+        int low = 0;
+        int high = getCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First index whose entry is not less than {@code (key, rid)}.
+     */
+    int lowerBoundEntry(K key, int ridBlock, int ridSlot) {
+        int low = 0;
+        int high = getCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareEntry(mid, key, ridBlock, ridSlot) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First index whose entry is greater than {@code (key, rid)}; in an internal node this
+     * is the child that holds the entry.
+     */
+    int upperBoundEntry(K key, int ridBlock, int ridSlot) {
+        int low = 0;
+        int high = getCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareEntry(mid, key, ridBlock, ridSlot) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    byte[] readEntry(int index) {
+        byte[] entry = new byte[entrySize()];
+        page.read(entryOffset(index), entry);
+        return entry;
+    }
+
+    void writeEntry(int index, byte[] entry) {
+        page.write(entryOffset(index), entry);
+    }
+
+    /**
+     * Encodes an entry for this node type. {@code child} is ignored for leaves.
+     */
+    byte[] encodeEntry(K key, int ridBlock, int ridSlot, int child) {
+        byte[] entry = new byte[entrySize()];
+        Page scratch = new Page(entry);
+        codec.write(scratch, 0, key);
+        scratch.setInt(codec.width(), ridBlock);
+        scratch.setInt(codec.width() + Integer.BYTES, ridSlot);
+        if (!isLeaf()) {
+            scratch.setInt(codec.width() + RID_SIZE, child);
+        }
+        return entry;
+    }
+
+    /**
+     * Inserts an encoded entry at {@code index}, shifting later entries right.
+     */
+    void insertEntry(int index, byte[] entry) {
+        int count = getCount();
+        int size = entrySize();
+        if (index < count) {
+            byte[] tail = new byte[(count - index) * size];
+            page.read(entryOffset(index), tail);
+            page.write(entryOffset(index + 1), tail);
+        }
+        page.write(entryOffset(index), entry);
+        setCount(count + 1);
+    }
+
+    /**
+     * Removes the entry at {@code index}, shifting later entries left.
+     */
+    void removeEntry(int index) {
+        int count = getCount();
+        int size = entrySize();
+        if (index < count - 1) {
+            byte[] tail = new byte[(count - index - 1) * size];
+            page.read(entryOffset(index + 1), tail);
+            page.write(entryOffset(index), tail);
+        }
+        setCount(count - 1);
+    }
+
+    K keyOf(byte[] entry) {
+        return codec.read(new Page(entry), 0);
+    }
+
+    int ridBlockOf(byte[] entry) {
+        return new Page(entry).getInt(codec.width());
+    }
+
+    int ridSlotOf(byte[] entry) {
+        return new Page(entry).getInt(codec.width() + Integer.BYTES);
+    }
+
+    /**
+     * Right child of an encoded internal entry.
+     */
+    int childOf(byte[] entry) {
+        return new Page(entry).getInt(codec.width() + RID_SIZE);
+    }
+}
@@ -0,0 +1,67 @@
+package lite.sqlite.server.storage.index;
+
+import java.util.Iterator;
+import java.util.List;
+
+import lite.sqlite.server.datastructure.BplusTree.BplusTree;
+import lite.sqlite.server.storage.table.RecordId;
+
+/**
+ * {@link IndexTree} kept entirely on the heap in a {@link BplusTree}. Lost on restart.
+ */
+public class InMemoryIndexTree<K extends Comparable<K>> implements IndexTree<K> {
+
+    private final int maxDegree;
+    private BplusTree<K, RecordId> tree;
+
+    public InMemoryIndexTree(int maxDegree) {
+        this.maxDegree = maxDegree;
+        this.tree = new BplusTree<>(maxDegree);
+    }
+
+    @Override
+    public void insert(K key, RecordId rid) {
+        tree.insert(key, rid);
+    }
+
+    @Override
+    public boolean delete(K key, RecordId rid) {
+        return tree.delete(key, rid);
+    }
+
+    @Override
+    public RecordId search(K key) {
+        return tree.searchUniqueIndex(key);
+    }
+
+    @Override
+    public List<RecordId> searchAll(K key) {
+        return tree.searchNonUniqueIndex(key);
+    }
+
+    @Override
+    public Iterator<RecordId> rangeScan(K lowKey, boolean lowInclusive, K highKey, boolean highInclusive) {
+        return tree.rangeScan(lowKey, lowInclusive, highKey, highInclusive);
+    }
+
+    /**
+     * Inserts the entries one by one; the heap tree has no page layout to pack, so the
+     * fill factor is ignored.
+     */
+    @Override
+    public void bulkLoad(Iterator<IndexEntry<K>> sortedEntries, double fillFactor) {
+        while (sortedEntries.hasNext()) {
+            IndexEntry<K> entry = sortedEntries.next();
+            tree.insert(entry.getKey(), entry.getRecordId());
+        }
+    }
+
+    @Override
+    public void clear() {
+        tree = new BplusTree<>(maxDegree);
+    }
+
+    public BplusTree<K, RecordId> getTree() {
+        return tree;
+    }
+}
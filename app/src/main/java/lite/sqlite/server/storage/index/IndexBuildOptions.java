@@ -0,0 +1,49 @@
+package lite.sqlite.server.storage.index;
+
+import lite.sqlite.config.AppConfig;
+
+/**
+ * Settings for building an index from existing rows, selectable through the
+ * {@code index.build.fill.factor} and {@code index.build.sort.memory.bytes} keys.
+ */
+public final class IndexBuildOptions {
+
+    public static final String FILL_FACTOR_KEY = "index.build.fill.factor";
+    public static final String SORT_MEMORY_KEY = "index.build.sort.memory.bytes";
+
+    public static final double DEFAULT_FILL_FACTOR = 0.9;
+    public static final long DEFAULT_SORT_MEMORY_BYTES = 64L * 1024 * 1024;
+
+    private final double fillFactor;
+    private final long sortMemoryBytes;
+
+    /**
+     * @param fillFactor fraction of each tree node a bulk load fills, between 0.5 and 1
+     * @param sortMemoryBytes heap the entry sort may use before spilling runs to disk
+     */
+    public IndexBuildOptions(double fillFactor, long sortMemoryBytes) {
+        if (fillFactor < 0.5 || fillFactor > 1.0) {
+            throw new IllegalArgumentException("Fill factor must be between 0.5 and 1: " + fillFactor);
+        }
+        if (sortMemoryBytes <= 0) {
+            throw new IllegalArgumentException("Sort memory must be positive: " + sortMemoryBytes);
+        }
+        this.fillFactor = fillFactor;
+        this.sortMemoryBytes = sortMemoryBytes;
+    }
+
+    public static IndexBuildOptions fromConfig() {
+        return new IndexBuildOptions(
+            Double.parseDouble(AppConfig.getOrDefault(FILL_FACTOR_KEY, String.valueOf(DEFAULT_FILL_FACTOR))),
+            Long.parseLong(AppConfig.getOrDefault(SORT_MEMORY_KEY, String.valueOf(DEFAULT_SORT_MEMORY_BYTES)))
+        );
+    }
+
+    public double getFillFactor() {
+        return fillFactor;
+    }
+
+    public long getSortMemoryBytes() {
+        return sortMemoryBytes;
+    }
+}
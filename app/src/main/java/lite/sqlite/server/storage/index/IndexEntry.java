@@ -0,0 +1,43 @@
+package lite.sqlite.server.storage.index;
+
+import lite.sqlite.server.storage.table.RecordId;
+
+/**
+ * One {@code (key, RecordId)} pair of an index, ordered by key and then by record id the
+ * same way entries are ordered inside a {@link PagedBplusTree}.
+ *
+ * @param <K> key type
+ */
+public final class IndexEntry<K extends Comparable<K>> implements Comparable<IndexEntry<K>> {
+
+    private final K key;
+    private final RecordId recordId;
+
+    public IndexEntry(K key, RecordId recordId) {
+        this.key = key;
+        this.recordId = recordId;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public RecordId getRecordId() {
+        return recordId;
+    }
+
+    @Override
+    public int compareTo(IndexEntry<K> other) {
+        int cmp = key.compareTo(other.key);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Integer.compare(recordId.getBlockId().getBlockNum(), other.recordId.getBlockId().getBlockNum());
+        return cmp != 0 ? cmp : Integer.compare(recordId.getSlotNumber(), other.recordId.getSlotNumber());
+    }
+
+    @Override
+    public String toString() {
+        return "IndexEntry(" + key + "," + recordId + ")";
+    }
+}
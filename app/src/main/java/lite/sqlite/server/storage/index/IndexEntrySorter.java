@@ -0,0 +1,200 @@
+package lite.sqlite.server.storage.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.table.RecordId;
+
+/**
+ * Sorts index entries for a bulk load, spilling to disk when they outgrow a memory budget.
+ *
+ * <p>Entries are buffered until the estimated heap they occupy reaches the budget; the
+ * buffer is then sorted and written to a temporary run file using the index key encoding
+ * ({@code [key][rid block][rid slot]}). {@link #sortedIterator()} merges all runs in a
+ * single pass, so the number of open files grows with {@code entries / budget}. Run files
+ * are deleted by {@link #close()}.
+ *
+ * @param <K> key type
+ */
+public class IndexEntrySorter<K extends Comparable<K>> implements AutoCloseable {
+
+    /** Rough heap cost of one buffered entry besides its encoded key: entry, record id, block, boxing. */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+    private final IndexKeyCodec<K> codec;
+    private final String tableFileName;
+    private final int maxBufferedEntries;
+    private final byte[] keyScratch;
+    private final List<IndexEntry<K>> buffer = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private final List<RunReader> openReaders = new ArrayList<>();
+    private long size;
+
+    /**
+     * @param codec key encoding, also used to validate keys as they are added
+     * @param tableFileName table file the record ids point into
+     * @param memoryBudgetBytes heap the buffered entries may take before a run is spilled
+     */
+    public IndexEntrySorter(IndexKeyCodec<K> codec, String tableFileName, long memoryBudgetBytes) {
+        this.codec = codec;
+        this.tableFileName = tableFileName;
+        long perEntry = ENTRY_OVERHEAD_BYTES + codec.width();
+        this.maxBufferedEntries = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, memoryBudgetBytes / perEntry));
+        this.keyScratch = new byte[codec.width()];
+    }
+
+    /**
+     * Adds one entry.
+     *
+     * @throws IllegalArgumentException when the key cannot be encoded, e.g. a VARCHAR that is too long
+     * @throws IOException when a run cannot be spilled
+     */
+    public void add(K key, RecordId rid) throws IOException {
+        codec.write(new Page(keyScratch), 0, key);
+        buffer.add(new IndexEntry<>(key, rid));
+        size++;
+        if (buffer.size() >= maxBufferedEntries) {
+            spill();
+        }
+    }
+
+    /**
+     * Number of entries added so far.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Number of runs spilled to disk so far.
+     */
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Returns every added entry in {@link IndexEntry} order. Must be called once, after the
+     * last {@link #add}.
+     */
+    public Iterator<IndexEntry<K>> sortedIterator() throws IOException {
+        if (runs.isEmpty()) {
+            Collections.sort(buffer);
+            return buffer.iterator();
+        }
+        if (!buffer.isEmpty()) {
+            spill();
+        }
+        PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) -> a.current.compareTo(b.current));
+        for (File run : runs) {
+            RunReader reader = new RunReader(run);
+            openReaders.add(reader);
+            if (reader.advance()) {
+                heap.add(reader);
+            }
+        }
+        return new Iterator<IndexEntry<K>>() {
+            @Override
+            public boolean hasNext() {
+                return !heap.isEmpty();
+            }
+
+            @Override
+            public IndexEntry<K> next() {
+                RunReader reader = heap.poll();
+                if (reader == null) {
+                    throw new NoSuchElementException();
+                }
+                IndexEntry<K> entry = reader.current;
+                try {
+                    if (reader.advance()) {
+                        heap.add(reader);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("Cannot read sort run", e);
+                }
+                return entry;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        for (RunReader reader : openReaders) {
+            try {
+                reader.input.close();
+            } catch (IOException e) {
+                System.err.println("Warning: Failed to close sort run: " + e.getMessage());
+            }
+        }
+        openReaders.clear();
+        for (File run : runs) {
+            if (!run.delete() && run.exists()) {
+                System.err.println("Warning: Failed to delete sort run " + run);
+            }
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private void spill() throws IOException {
+        Collections.sort(buffer);
+        File run = File.createTempFile("lite-sqlite-index-", ".run");
+        runs.add(run);
+        byte[] encodedKey = new byte[codec.width()];
+        Page keyPage = new Page(encodedKey);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(run), IO_BUFFER_BYTES))) {
+            for (IndexEntry<K> entry : buffer) {
+                codec.write(keyPage, 0, entry.getKey());
+                out.write(encodedKey);
+                out.writeInt(entry.getRecordId().getBlockId().getBlockNum());
+                out.writeInt(entry.getRecordId().getSlotNumber());
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Sequential reader over one run; {@link #current} is the entry at the head.
+     */
+    private final class RunReader {
+        private final DataInputStream input;
+        private final byte[] encodedKey = new byte[codec.width()];
+        private IndexEntry<K> current;
+
+        private RunReader(File run) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(run), IO_BUFFER_BYTES));
+        }
+
+        private boolean advance() throws IOException {
+            try {
+                input.readFully(encodedKey);
+            } catch (EOFException e) {
+                current = null;
+                input.close();
+                return false;
+            }
+            K key = codec.read(new Page(encodedKey), 0);
+            int blockNum = input.readInt();
+            int slot = input.readInt();
+            current = new IndexEntry<>(key, new RecordId(new Block(tableFileName, blockNum), slot));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package lite.sqlite.server.storage.index;
+
+import java.nio.charset.StandardCharsets;
+
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.record.Column;
+import lite.sqlite.server.storage.record.DataType;
+
+/**
+ * Fixed-width encoding of index keys inside B+ tree pages.
+ *
+ * <p>INTEGER keys take four bytes. VARCHAR keys take a two-byte length followed by the
+ * column's declared maximum number of bytes (255 when undeclared, matching the longest
+ * string a record can hold), so every entry of a node has the same size and can be
+ * binary-searched in place.
+ *
+ * @param <K> Java type of the key
+ */
+public abstract class IndexKeyCodec<K extends Comparable<K>> {
+
+    private static final int DEFAULT_VARCHAR_BYTES = 255;
+
+    public static IndexKeyCodec<Integer> integer() {
+        return new IntegerCodec();
+    }
+
+    public static IndexKeyCodec<String> varchar(int maxBytes) {
+        return new VarcharCodec(maxBytes);
+    }
+
+    /**
+     * Returns the codec for keys of the given column.
+     */
+    public static IndexKeyCodec<?> forColumn(Column column) {
+        switch (column.getType()) {
+            case INTEGER:
+                return integer();
+            case VARCHAR:
+                return varchar(column.getMaxLength() > 0 ? column.getMaxLength() : DEFAULT_VARCHAR_BYTES);
+            default:
+                throw new UnsupportedOperationException("Unsupported column type for indexing: " + column.getType());
+        }
+    }
+
+    /**
+     * Rebuilds a codec from what {@link #getType()} and {@link #maxBytes()} returned.
+     */
+    static IndexKeyCodec<?> of(DataType type, int maxBytes) {
+        return type == DataType.INTEGER ? integer() : varchar(maxBytes);
+    }
+
+    public abstract DataType getType();
+
+    /**
+     * Bytes an encoded key occupies in a node.
+     */
+    public abstract int width();
+
+    /**
+     * Type-specific size parameter persisted with the index.
+     */
+    abstract int maxBytes();
+
+    abstract void write(Page page, int offset, K key);
+
+    abstract K read(Page page, int offset);
+
+    int compare(Page page, int offset, K key) {
+        return read(page, offset).compareTo(key);
+    }
+
+    private static final class IntegerCodec extends IndexKeyCodec<Integer> {
+        @Override
+        public DataType getType() {
+            return DataType.INTEGER;
+        }
+
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        int maxBytes() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        void write(Page page, int offset, Integer key) {
+            page.setInt(offset, key);
+        }
+
+        @Override
+        Integer read(Page page, int offset) {
+            return page.getInt(offset);
+        }
+
+        @Override
+        int compare(Page page, int offset, Integer key) {
+            return Integer.compare(page.getInt(offset), key);
+        }
+    }
+
+    private static final class VarcharCodec extends IndexKeyCodec<String> {
+        private final int maxBytes;
+
+        private VarcharCodec(int maxBytes) {
+            if (maxBytes <= 0 || maxBytes > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid VARCHAR key size: " + maxBytes);
+            }
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public DataType getType() {
+            return DataType.VARCHAR;
+        }
+
+        @Override
+        public int width() {
+            return Short.BYTES + maxBytes;
+        }
+
+        @Override
+        int maxBytes() {
+            return maxBytes;
+        }
+
+        @Override
+        void write(Page page, int offset, String key) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > maxBytes) {
+                throw new IllegalArgumentException(
+                    "Key '" + key + "' is longer than " + maxBytes + " bytes and cannot be indexed");
+            }
+            byte[] slot = new byte[width()];
+            slot[0] = (byte) (bytes.length >>> 8);
+            slot[1] = (byte) bytes.length;
+            System.arraycopy(bytes, 0, slot, Short.BYTES, bytes.length);
+            page.write(offset, slot);
+        }
+
+        @Override
+        String read(Page page, int offset) {
+            byte[] header = new byte[Short.BYTES];
+            page.read(offset, header);
+            int length = ((header[0] & 0xFF) << 8) | (header[1] & 0xFF);
+            byte[] bytes = new byte[length];
+            page.read(offset + Short.BYTES, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
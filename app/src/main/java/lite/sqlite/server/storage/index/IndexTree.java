@@ -0,0 +1,51 @@
+package lite.sqlite.server.storage.index;
+
+import java.util.Iterator;
+import java.util.List;
+
+import lite.sqlite.server.storage.table.RecordId;
+
+/**
+ * Ordered key to record id mapping behind a {@link TableIndex}.
+ *
+ * @param <K> key type
+ */
+public interface IndexTree<K extends Comparable<K>> {
+
+    void insert(K key, RecordId rid);
+
+    /**
+     * Removes the entry {@code (key, rid)}.
+     *
+     * @return true when the entry existed
+     */
+    boolean delete(K key, RecordId rid);
+
+    /**
+     * Returns one record id stored under the key, or null when there is none.
+     */
+    RecordId search(K key);
+
+    /**
+     * Returns every record id stored under the key, possibly empty.
+     */
+    List<RecordId> searchAll(K key);
+
+    /**
+     * Returns a lazy cursor over the record ids whose keys lie between the bounds, in key
+     * order. A null bound leaves that side open.
+     */
+    Iterator<RecordId> rangeScan(K lowKey, boolean lowInclusive, K highKey, boolean highInclusive);
+
+    /**
+     * Loads entries into an empty tree. The entries must come in {@link IndexEntry} order.
+     *
+     * @param fillFactor fraction of each node to fill, between 0.5 and 1
+     */
+    void bulkLoad(Iterator<IndexEntry<K>> sortedEntries, double fillFactor);
+
+    /**
+     * Removes every entry.
+     */
+    void clear();
+}
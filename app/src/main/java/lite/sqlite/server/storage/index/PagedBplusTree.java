@@ -0,0 +1,951 @@
+package lite.sqlite.server.storage.index;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.table.RecordId;
+
+/**
+ * B+ tree whose nodes are page-sized blocks of an index file, read and written
+ * through the {@link BufferPool}.
+ *
+ * <p>Block 0 holds the tree metadata (key type, root block, free list head, entry count);
+ * every other block is a node laid out by {@link BtreeNodePage}. Leaves are linked to both
+ * siblings so equal keys spanning several leaves can be scanned without going back to the
+ * root. Nodes other than the root are kept at least half full: a delete that leaves one
+ * under that borrows from a sibling or merges with it. Freed nodes are chained through
+ * their next pointer and reused before the file grows.
+ *
+ * <p>Index pages are not written to the log: after a crash the file reflects the last
+ * checkpoint and should be rebuilt from the table.
+ *
+ * @param <K> key type
+ */
+public class PagedBplusTree<K extends Comparable<K>> implements IndexTree<K> {
+
+    private static final int MAGIC = 0x42545245;
+    private static final int META_BLOCK = 0;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int KEY_TYPE_OFFSET = 4;
+    private static final int KEY_BYTES_OFFSET = 8;
+    private static final int ROOT_OFFSET = 12;
+    private static final int FREE_HEAD_OFFSET = 16;
+    private static final int MAX_ENTRIES_OFFSET = 20;
+    private static final int SIZE_OFFSET = 24;
+    private static final int NO_PAGE = BtreeNodePage.NO_PAGE;
+
+    private final BufferPool bufferPool;
+    private final FileManager fileManager;
+    private final String fileName;
+    private final String tableFileName;
+    private final IndexKeyCodec<K> codec;
+    private final int maxEntriesPerNode;
+    private final int leafCapacity;
+    private final int internalCapacity;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int rootBlock;
+    private int freeHead = NO_PAGE;
+    private long size;
+
+    private PagedBplusTree(BufferPool bufferPool, FileManager fileManager, String fileName,
+                           String tableFileName, IndexKeyCodec<K> codec, int maxEntriesPerNode) {
+        this.bufferPool = bufferPool;
+        this.fileManager = fileManager;
+        this.fileName = fileName;
+        this.tableFileName = tableFileName;
+        this.codec = codec;
+        this.maxEntriesPerNode = maxEntriesPerNode;
+        int pageSize = fileManager.getPageSize();
+        int leafFit = (pageSize - BtreeNodePage.HEADER_SIZE) / BtreeNodePage.leafEntrySize(codec);
+        int internalFit = (pageSize - BtreeNodePage.HEADER_SIZE - Integer.BYTES)
+            / BtreeNodePage.internalEntrySize(codec);
+        this.leafCapacity = Math.min(maxEntriesPerNode, leafFit);
+        this.internalCapacity = Math.min(maxEntriesPerNode, internalFit);
+        if (leafCapacity < 3 || internalCapacity < 3) {
+            throw new IllegalArgumentException("Index keys of " + codec.width() + " bytes leave fewer than 3 entries per node");
+        }
+    }
+
+    /**
+     * Creates an empty tree in {@code fileName}, discarding whatever the file held.
+     *
+     * @param tableFileName table file the stored record ids point into
+     */
+    public static <K extends Comparable<K>> PagedBplusTree<K> create(BufferPool bufferPool, FileManager fileManager,
+            String fileName, String tableFileName, IndexKeyCodec<K> codec) throws IOException {
+        return create(bufferPool, fileManager, fileName, tableFileName, codec, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #create(BufferPool, FileManager, String, String, IndexKeyCodec)} with nodes
+     * capped at {@code maxEntriesPerNode} entries, which is mostly useful to get deep trees in tests.
+     */
+    public static <K extends Comparable<K>> PagedBplusTree<K> create(BufferPool bufferPool, FileManager fileManager,
+            String fileName, String tableFileName, IndexKeyCodec<K> codec, int maxEntriesPerNode) throws IOException {
+        PagedBplusTree<K> tree = new PagedBplusTree<>(bufferPool, fileManager, fileName, tableFileName, codec, maxEntriesPerNode);
+        while (fileManager.getBlockCount(fileName) < 2) {
+            fileManager.append(fileName);
+        }
+        tree.clear();
+        return tree;
+    }
+
+    /**
+     * Reopens a tree previously created in {@code fileName}.
+     *
+     * @throws IOException when the file does not hold a tree
+     */
+    public static PagedBplusTree<?> open(BufferPool bufferPool, FileManager fileManager,
+            String fileName, String tableFileName) throws IOException {
+        if (fileManager.getBlockCount(fileName) < 2) {
+            throw new IOException("Index file " + fileName + " is empty");
+        }
+        Block metaBlock = new Block(fileName, META_BLOCK);
+        Page meta = bufferPool.pinBlock(metaBlock);
+        try {
+            if (meta.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not an index file: " + fileName);
+            }
+            IndexKeyCodec<?> codec = IndexKeyCodec.of(DataType.values()[meta.getInt(KEY_TYPE_OFFSET)],
+                meta.getInt(KEY_BYTES_OFFSET));
+            PagedBplusTree<?> tree = newTree(bufferPool, fileManager, fileName, tableFileName, codec,
+                meta.getInt(MAX_ENTRIES_OFFSET));
+            tree.rootBlock = meta.getInt(ROOT_OFFSET);
+            tree.freeHead = meta.getInt(FREE_HEAD_OFFSET);
+            tree.size = meta.getLong(SIZE_OFFSET);
+            return tree;
+        } finally {
+            bufferPool.unpinBlock(metaBlock);
+        }
+    }
+
+    private static <K extends Comparable<K>> PagedBplusTree<K> newTree(BufferPool bufferPool, FileManager fileManager,
+            String fileName, String tableFileName, IndexKeyCodec<K> codec, int maxEntriesPerNode) {
+        return new PagedBplusTree<>(bufferPool, fileManager, fileName, tableFileName, codec, maxEntriesPerNode);
+    }
+
+    @Override
+    public void insert(K key, RecordId rid) {
+        lock.writeLock().lock();
+        try {
+            insertEntry(key, rid.getBlockId().getBlockNum(), rid.getSlotNumber());
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot insert into index " + fileName, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(K key, RecordId rid) {
+        lock.writeLock().lock();
+        try {
+            return deleteEntry(key, rid.getBlockId().getBlockNum(), rid.getSlotNumber());
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot delete from index " + fileName, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public RecordId search(K key) {
+        lock.readLock().lock();
+        try {
+            List<RecordId> result = new ArrayList<>(1);
+            collectEqual(key, result, 1);
+            return result.isEmpty() ? null : result.get(0);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot search index " + fileName, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<RecordId> searchAll(K key) {
+        lock.readLock().lock();
+        try {
+            List<RecordId> result = new ArrayList<>();
+            collectEqual(key, result, Integer.MAX_VALUE);
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot search index " + fileName, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a cursor that reads one leaf at a time. Between leaves it holds neither pins
+     * nor the tree lock; it resumes by descending again from the last entry it returned, so
+     * concurrent splits and merges cannot make it skip or repeat entries.
+     */
+    @Override
+    public Iterator<RecordId> rangeScan(K lowKey, boolean lowInclusive, K highKey, boolean highInclusive) {
+        return new RangeCursor(lowKey, lowInclusive, highKey, highInclusive);
+    }
+
+    /**
+     * Builds the tree bottom-up instead of inserting entry by entry: leaves are filled left
+     * to right to {@code fillFactor} of their capacity and linked as they go, then each
+     * internal level is packed the same way over the first entries of the level below. No
+     * node is split or visited twice. When the last node of a level would be under its
+     * minimum it is merged into, or evened out with, its left neighbour.
+     *
+     * @throws IllegalStateException when the tree is not empty
+     * @throws IllegalArgumentException when the entries are out of order
+     */
+    @Override
+    public void bulkLoad(Iterator<IndexEntry<K>> sortedEntries, double fillFactor) {
+        if (fillFactor < 0.5 || fillFactor > 1.0) {
+            throw new IllegalArgumentException("Fill factor must be between 0.5 and 1: " + fillFactor);
+        }
+        lock.writeLock().lock();
+        try {
+            if (size != 0) {
+                throw new IllegalStateException("Index " + fileName + " must be empty before a bulk load");
+            }
+            List<Separator<K>> level = buildLeaves(sortedEntries, fillFactor);
+            while (level.size() > 1) {
+                level = buildInternalLevel(level, fillFactor);
+            }
+            rootBlock = level.get(0).rightChild;
+            writeMeta();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot bulk load index " + fileName, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Empties the tree. Every node block except the root goes on the free list, so the
+     * file keeps its size but is reused by later inserts.
+     */
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            int blockCount = fileManager.getBlockCount(fileName);
+            freeHead = NO_PAGE;
+            for (int blockNum = blockCount - 1; blockNum > 1; blockNum--) {
+                BtreeNodePage<K> node = pinNode(blockNum);
+                node.initialize(true);
+                node.setNext(freeHead);
+                freeHead = blockNum;
+                release(node, true);
+            }
+            BtreeNodePage<K> root = pinNode(1);
+            root.initialize(true);
+            release(root, true);
+            rootBlock = 1;
+            size = 0;
+            writeMeta();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot clear index " + fileName, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of entries in the tree.
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of levels from the root to the leaves.
+     */
+    public int height() {
+        lock.readLock().lock();
+        try {
+            int height = 1;
+            BtreeNodePage<K> node = pinNode(rootBlock);
+            while (!node.isLeaf()) {
+                int child = node.getChild(0);
+                release(node, false);
+                node = pinNode(child);
+                height++;
+            }
+            release(node, false);
+            return height;
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read index " + fileName, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public IndexKeyCodec<K> getCodec() {
+        return codec;
+    }
+
+    private void insertEntry(K key, int ridBlock, int ridSlot) throws IOException {
+        Deque<int[]> path = new ArrayDeque<>();
+        BtreeNodePage<K> leaf = descend(key, ridBlock, ridSlot, path);
+        Separator<K> split;
+        try {
+            int pos = leaf.lowerBoundEntry(key, ridBlock, ridSlot);
+            if (pos < leaf.getCount() && leaf.compareEntry(pos, key, ridBlock, ridSlot) == 0) {
+                return;
+            }
+            byte[] entry = leaf.encodeEntry(key, ridBlock, ridSlot, NO_PAGE);
+            if (leaf.getCount() < leafCapacity) {
+                leaf.insertEntry(pos, entry);
+                split = null;
+            } else {
+                split = splitLeaf(leaf, pos, entry);
+            }
+        } finally {
+            release(leaf, true);
+        }
+        size++;
+
+        while (split != null && !path.isEmpty()) {
+            split = insertIntoInternal(path.pop()[0], split);
+        }
+        if (split != null) {
+            growRoot(split);
+        }
+        writeMeta();
+    }
+
+    private boolean deleteEntry(K key, int ridBlock, int ridSlot) throws IOException {
+        Deque<int[]> path = new ArrayDeque<>();
+        BtreeNodePage<K> leaf = descend(key, ridBlock, ridSlot, path);
+        boolean underflow;
+        try {
+            int pos = leaf.lowerBoundEntry(key, ridBlock, ridSlot);
+            if (pos >= leaf.getCount() || leaf.compareEntry(pos, key, ridBlock, ridSlot) != 0) {
+                release(leaf, false);
+                return false;
+            }
+            leaf.removeEntry(pos);
+            underflow = leaf.getCount() < minEntries(true);
+            release(leaf, true);
+        } catch (RuntimeException e) {
+            release(leaf, false);
+            throw e;
+        }
+        size--;
+
+        while (underflow && !path.isEmpty()) {
+            int[] step = path.pop();
+            underflow = rebalanceChild(step[0], step[1]);
+        }
+        shrinkRoot();
+        writeMeta();
+        return true;
+    }
+
+    /**
+     * Walks from the root to the leaf that holds {@code (key, rid)}, pushing each internal
+     * node passed on the way with the index of the child taken. The returned leaf is pinned.
+     */
+    private BtreeNodePage<K> descend(K key, int ridBlock, int ridSlot, Deque<int[]> path) throws IOException {
+        BtreeNodePage<K> node = pinNode(rootBlock);
+        while (!node.isLeaf()) {
+            int childIndex = node.upperBoundEntry(key, ridBlock, ridSlot);
+            path.push(new int[] {node.getBlockNum(), childIndex});
+            int child = node.getChild(childIndex);
+            release(node, false);
+            node = pinNode(child);
+        }
+        return node;
+    }
+
+    private int minEntries(boolean leaf) {
+        return (leaf ? leafCapacity : internalCapacity) / 2;
+    }
+
+    /**
+     * Brings child {@code childIndex} of an internal node back to its minimum fill by
+     * borrowing an entry from a sibling or merging with one.
+     *
+     * @return true when the parent itself is now under its minimum
+     */
+    private boolean rebalanceChild(int parentBlock, int childIndex) throws IOException {
+        BtreeNodePage<K> parent = pinNode(parentBlock);
+        try {
+            BtreeNodePage<K> child = pinNode(parent.getChild(childIndex));
+            try {
+                int min = minEntries(child.isLeaf());
+                if (child.getCount() >= min) {
+                    return false;
+                }
+                if (childIndex > 0) {
+                    BtreeNodePage<K> left = pinNode(parent.getChild(childIndex - 1));
+                    try {
+                        if (left.getCount() > min) {
+                            borrowFromLeft(parent, childIndex, left, child);
+                            return false;
+                        }
+                        if (childIndex == parent.getCount()) {
+                            mergeNodes(parent, childIndex - 1, left, child);
+                            return parent.getCount() < minEntries(false);
+                        }
+                    } finally {
+                        release(left, true);
+                    }
+                }
+                BtreeNodePage<K> right = pinNode(parent.getChild(childIndex + 1));
+                try {
+                    if (right.getCount() > min) {
+                        borrowFromRight(parent, childIndex, child, right);
+                        return false;
+                    }
+                    mergeNodes(parent, childIndex, child, right);
+                    return parent.getCount() < minEntries(false);
+                } finally {
+                    release(right, true);
+                }
+            } finally {
+                release(child, true);
+            }
+        } finally {
+            release(parent, true);
+        }
+    }
+
+    private void borrowFromLeft(BtreeNodePage<K> parent, int childIndex, BtreeNodePage<K> left,
+                                BtreeNodePage<K> child) {
+        int last = left.getCount() - 1;
+        byte[] moved = left.readEntry(last);
+        left.removeEntry(last);
+        if (child.isLeaf()) {
+            child.insertEntry(0, moved);
+            setSeparator(parent, childIndex - 1, child.getKey(0), child.getRidBlock(0), child.getRidSlot(0));
+        } else {
+            byte[] separator = parent.readEntry(childIndex - 1);
+            child.insertEntry(0, child.encodeEntry(parent.keyOf(separator), parent.ridBlockOf(separator),
+                parent.ridSlotOf(separator), child.getChild(0)));
+            child.setChild(0, left.childOf(moved));
+            setSeparator(parent, childIndex - 1, left.keyOf(moved), left.ridBlockOf(moved), left.ridSlotOf(moved));
+        }
+    }
+
+    private void borrowFromRight(BtreeNodePage<K> parent, int childIndex, BtreeNodePage<K> child,
+                                 BtreeNodePage<K> right) {
+        byte[] moved = right.readEntry(0);
+        if (child.isLeaf()) {
+            right.removeEntry(0);
+            child.insertEntry(child.getCount(), moved);
+            setSeparator(parent, childIndex, right.getKey(0), right.getRidBlock(0), right.getRidSlot(0));
+        } else {
+            byte[] separator = parent.readEntry(childIndex);
+            child.insertEntry(child.getCount(), child.encodeEntry(parent.keyOf(separator),
+                parent.ridBlockOf(separator), parent.ridSlotOf(separator), right.getChild(0)));
+            right.setChild(0, right.childOf(moved));
+            right.removeEntry(0);
+            setSeparator(parent, childIndex, right.keyOf(moved), right.ridBlockOf(moved), right.ridSlotOf(moved));
+        }
+    }
+
+    /**
+     * Moves every entry of {@code right} into {@code left}, drops their separator from the
+     * parent and frees {@code right}.
+     */
+    private void mergeNodes(BtreeNodePage<K> parent, int separatorIndex, BtreeNodePage<K> left,
+                            BtreeNodePage<K> right) throws IOException {
+        if (left.isLeaf()) {
+            for (int i = 0; i < right.getCount(); i++) {
+                left.insertEntry(left.getCount(), right.readEntry(i));
+            }
+            left.setNext(right.getNext());
+            if (right.getNext() != NO_PAGE) {
+                BtreeNodePage<K> next = pinNode(right.getNext());
+                next.setPrev(left.getBlockNum());
+                release(next, true);
+            }
+        } else {
+            byte[] separator = parent.readEntry(separatorIndex);
+            left.insertEntry(left.getCount(), left.encodeEntry(parent.keyOf(separator),
+                parent.ridBlockOf(separator), parent.ridSlotOf(separator), right.getChild(0)));
+            for (int i = 0; i < right.getCount(); i++) {
+                left.insertEntry(left.getCount(), right.readEntry(i));
+            }
+        }
+        parent.removeEntry(separatorIndex);
+        freeNode(right);
+    }
+
+    /**
+     * Rewrites the key and record id of separator {@code index}, keeping its right child.
+     */
+    private void setSeparator(BtreeNodePage<K> node, int index, K key, int ridBlock, int ridSlot) {
+        node.writeEntry(index, node.encodeEntry(key, ridBlock, ridSlot, node.getChild(index + 1)));
+    }
+
+    /**
+     * Replaces an internal root left without separators by its only child.
+     */
+    private void shrinkRoot() throws IOException {
+        BtreeNodePage<K> root = pinNode(rootBlock);
+        if (root.isLeaf() || root.getCount() > 0) {
+            release(root, false);
+            return;
+        }
+        rootBlock = root.getChild(0);
+        freeNode(root);
+        release(root, true);
+    }
+
+    private Separator<K> splitLeaf(BtreeNodePage<K> leaf, int pos, byte[] entry) throws IOException {
+        List<byte[]> entries = readEntries(leaf);
+        entries.add(pos, entry);
+        int leftCount = entries.size() / 2;
+
+        BtreeNodePage<K> right = allocateNode(true);
+        try {
+            for (int i = leftCount; i < entries.size(); i++) {
+                right.writeEntry(i - leftCount, entries.get(i));
+            }
+            right.setCount(entries.size() - leftCount);
+            for (int i = 0; i < leftCount; i++) {
+                leaf.writeEntry(i, entries.get(i));
+            }
+            leaf.setCount(leftCount);
+
+            right.setPrev(leaf.getBlockNum());
+            right.setNext(leaf.getNext());
+            if (leaf.getNext() != NO_PAGE) {
+                BtreeNodePage<K> next = pinNode(leaf.getNext());
+                next.setPrev(right.getBlockNum());
+                release(next, true);
+            }
+            leaf.setNext(right.getBlockNum());
+            return new Separator<>(right.getKey(0), right.getRidBlock(0), right.getRidSlot(0), right.getBlockNum());
+        } finally {
+            release(right, true);
+        }
+    }
+
+    /**
+     * Adds a separator produced by a split below. Returns the separator to push further up
+     * when this node had to split as well.
+     */
+    private Separator<K> insertIntoInternal(int blockNum, Separator<K> separator) throws IOException {
+        BtreeNodePage<K> node = pinNode(blockNum);
+        try {
+            int pos = node.upperBoundEntry(separator.key, separator.ridBlock, separator.ridSlot);
+            byte[] entry = node.encodeEntry(separator.key, separator.ridBlock, separator.ridSlot, separator.rightChild);
+            if (node.getCount() < internalCapacity) {
+                node.insertEntry(pos, entry);
+                return null;
+            }
+
+            List<byte[]> entries = readEntries(node);
+            entries.add(pos, entry);
+            int mid = entries.size() / 2;
+            byte[] promoted = entries.get(mid);
+
+            BtreeNodePage<K> right = allocateNode(false);
+            try {
+                right.setChild(0, node.childOf(promoted));
+                for (int i = mid + 1; i < entries.size(); i++) {
+                    right.writeEntry(i - mid - 1, entries.get(i));
+                }
+                right.setCount(entries.size() - mid - 1);
+                for (int i = 0; i < mid; i++) {
+                    node.writeEntry(i, entries.get(i));
+                }
+                node.setCount(mid);
+                return new Separator<>(node.keyOf(promoted), node.ridBlockOf(promoted), node.ridSlotOf(promoted),
+                    right.getBlockNum());
+            } finally {
+                release(right, true);
+            }
+        } finally {
+            release(node, true);
+        }
+    }
+
+    private void growRoot(Separator<K> separator) throws IOException {
+        BtreeNodePage<K> root = allocateNode(false);
+        try {
+            root.setChild(0, rootBlock);
+            root.insertEntry(0, root.encodeEntry(separator.key, separator.ridBlock, separator.ridSlot,
+                separator.rightChild));
+            rootBlock = root.getBlockNum();
+        } finally {
+            release(root, true);
+        }
+    }
+
+    /**
+     * Writes the leaf level of a bulk load, starting in the (empty) root leaf. A leaf is
+     * released once the leaf after the next one is started, so the last two can still be
+     * evened out at the end.
+     *
+     * @return the first entry and block of every leaf, left to right
+     */
+    private List<Separator<K>> buildLeaves(Iterator<IndexEntry<K>> entries, double fillFactor) throws IOException {
+        int target = Math.max(Math.max(1, minEntries(true)), (int) (leafCapacity * fillFactor));
+        List<Separator<K>> leaves = new ArrayList<>();
+        BtreeNodePage<K> previous = null;
+        BtreeNodePage<K> current = pinNode(rootBlock);
+        current.initialize(true);
+        try {
+            while (entries.hasNext()) {
+                IndexEntry<K> entry = entries.next();
+                K key = entry.getKey();
+                int ridBlock = entry.getRecordId().getBlockId().getBlockNum();
+                int ridSlot = entry.getRecordId().getSlotNumber();
+                BtreeNodePage<K> last = current.getCount() > 0 ? current : previous;
+                if (last != null) {
+                    int cmp = last.compareEntry(last.getCount() - 1, key, ridBlock, ridSlot);
+                    if (cmp == 0) {
+                        continue;
+                    }
+                    if (cmp > 0) {
+                        throw new IllegalArgumentException("Bulk load entries are out of order at " + entry);
+                    }
+                }
+                if (current.getCount() == target) {
+                    BtreeNodePage<K> next = allocateNode(true);
+                    current.setNext(next.getBlockNum());
+                    next.setPrev(current.getBlockNum());
+                    if (previous != null) {
+                        leaves.add(firstEntryOf(previous));
+                        release(previous, true);
+                    }
+                    previous = current;
+                    current = next;
+                }
+                current.insertEntry(current.getCount(), current.encodeEntry(key, ridBlock, ridSlot, NO_PAGE));
+                size++;
+            }
+
+            if (previous != null && current.getCount() < minEntries(true)) {
+                int total = previous.getCount() + current.getCount();
+                if (total <= leafCapacity) {
+                    for (int i = 0; i < current.getCount(); i++) {
+                        previous.insertEntry(previous.getCount(), current.readEntry(i));
+                    }
+                    previous.setNext(NO_PAGE);
+                    freeNode(current);
+                    release(current, true);
+                    current = null;
+                } else {
+                    while (current.getCount() < total / 2) {
+                        int lastIndex = previous.getCount() - 1;
+                        current.insertEntry(0, previous.readEntry(lastIndex));
+                        previous.removeEntry(lastIndex);
+                    }
+                }
+            }
+            if (previous != null) {
+                leaves.add(firstEntryOf(previous));
+            }
+            if (current != null) {
+                leaves.add(firstEntryOf(current));
+            }
+            return leaves;
+        } finally {
+            if (previous != null) {
+                release(previous, true);
+            }
+            if (current != null) {
+                release(current, true);
+            }
+        }
+    }
+
+    /**
+     * Writes one internal level of a bulk load over {@code children}, each given by its
+     * first entry and block.
+     *
+     * @return the first entry and block of every node written, left to right
+     */
+    private List<Separator<K>> buildInternalLevel(List<Separator<K>> children, double fillFactor) throws IOException {
+        int fanout = Math.max(minEntries(false), (int) (internalCapacity * fillFactor)) + 1;
+        List<Integer> sizes = new ArrayList<>();
+        for (int remaining = children.size(); remaining > 0; remaining -= fanout) {
+            sizes.add(Math.min(fanout, remaining));
+        }
+        int lastIndex = sizes.size() - 1;
+        if (lastIndex > 0 && sizes.get(lastIndex) < minEntries(false) + 1) {
+            int total = sizes.get(lastIndex - 1) + sizes.get(lastIndex);
+            if (total <= internalCapacity + 1) {
+                sizes.remove(lastIndex);
+                sizes.set(lastIndex - 1, total);
+            } else {
+                sizes.set(lastIndex - 1, total - total / 2);
+                sizes.set(lastIndex, total / 2);
+            }
+        }
+
+        List<Separator<K>> parents = new ArrayList<>(sizes.size());
+        int start = 0;
+        for (int count : sizes) {
+            BtreeNodePage<K> node = allocateNode(false);
+            try {
+                Separator<K> first = children.get(start);
+                node.setChild(0, first.rightChild);
+                for (int i = 1; i < count; i++) {
+                    Separator<K> child = children.get(start + i);
+                    node.insertEntry(i - 1, node.encodeEntry(child.key, child.ridBlock, child.ridSlot, child.rightChild));
+                }
+                parents.add(new Separator<>(first.key, first.ridBlock, first.ridSlot, node.getBlockNum()));
+            } finally {
+                release(node, true);
+            }
+            start += count;
+        }
+        return parents;
+    }
+
+    /**
+     * First entry of a node paired with the node itself; the key is null for an empty node.
+     */
+    private Separator<K> firstEntryOf(BtreeNodePage<K> node) {
+        if (node.getCount() == 0) {
+            return new Separator<>(null, 0, 0, node.getBlockNum());
+        }
+        return new Separator<>(node.getKey(0), node.getRidBlock(0), node.getRidSlot(0), node.getBlockNum());
+    }
+
+    /**
+     * Adds up to {@code limit} record ids stored under {@code key}, following leaf links
+     * when the run of equal keys continues in the next leaf.
+     */
+    private void collectEqual(K key, List<RecordId> result, int limit) throws IOException {
+        BtreeNodePage<K> node = pinNode(rootBlock);
+        while (!node.isLeaf()) {
+            int child = node.getChild(node.lowerBoundKey(key));
+            release(node, false);
+            node = pinNode(child);
+        }
+        int pos = node.lowerBoundKey(key);
+        while (true) {
+            int count = node.getCount();
+            for (; pos < count; pos++) {
+                if (node.compareKey(pos, key) != 0 || result.size() >= limit) {
+                    release(node, false);
+                    return;
+                }
+                result.add(node.getRecordId(pos, tableFileName));
+            }
+            int next = node.getNext();
+            release(node, false);
+            if (next == NO_PAGE) {
+                return;
+            }
+            node = pinNode(next);
+            pos = 0;
+        }
+    }
+
+    /**
+     * Lazy range cursor; see {@link #rangeScan}.
+     */
+    private final class RangeCursor implements Iterator<RecordId> {
+        private final K lowKey;
+        private final boolean lowInclusive;
+        private final K highKey;
+        private final boolean highInclusive;
+        private final List<RecordId> batch = new ArrayList<>();
+        private int batchIndex;
+        private boolean exhausted;
+        private K lastKey;
+        private int lastRidBlock;
+        private int lastRidSlot;
+
+        private RangeCursor(K lowKey, boolean lowInclusive, K highKey, boolean highInclusive) {
+            this.lowKey = lowKey;
+            this.lowInclusive = lowInclusive;
+            this.highKey = highKey;
+            this.highInclusive = highInclusive;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (batchIndex < batch.size()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            lock.readLock().lock();
+            try {
+                fillBatch();
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot scan index " + fileName, e);
+            } finally {
+                lock.readLock().unlock();
+            }
+            return batchIndex < batch.size();
+        }
+
+        @Override
+        public RecordId next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.get(batchIndex++);
+        }
+
+        /**
+         * Copies the in-range entries of the next non-empty leaf into the batch.
+         */
+        private void fillBatch() throws IOException {
+            batch.clear();
+            batchIndex = 0;
+            BtreeNodePage<K> node = pinNode(rootBlock);
+            while (!node.isLeaf()) {
+                int child = node.getChild(childIndex(node));
+                release(node, false);
+                node = pinNode(child);
+            }
+            int pos = childIndex(node);
+
+            while (true) {
+                int count = node.getCount();
+                for (; pos < count; pos++) {
+                    if (highKey != null) {
+                        int cmp = node.compareKey(pos, highKey);
+                        if (cmp > 0 || (cmp == 0 && !highInclusive)) {
+                            exhausted = true;
+                            break;
+                        }
+                    }
+                    batch.add(node.getRecordId(pos, tableFileName));
+                }
+                if (!batch.isEmpty()) {
+                    int last = pos - 1;
+                    lastKey = node.getKey(last);
+                    lastRidBlock = node.getRidBlock(last);
+                    lastRidSlot = node.getRidSlot(last);
+                }
+                int next = node.getNext();
+                release(node, false);
+                if (exhausted || !batch.isEmpty()) {
+                    return;
+                }
+                if (next == NO_PAGE) {
+                    exhausted = true;
+                    return;
+                }
+                node = pinNode(next);
+                pos = 0;
+            }
+        }
+
+        /**
+         * Position of the first entry the cursor has not returned yet; in an internal node
+         * this is the child holding it.
+         */
+        private int childIndex(BtreeNodePage<K> node) {
+            if (lastKey != null) {
+                return node.upperBoundEntry(lastKey, lastRidBlock, lastRidSlot);
+            }
+            if (lowKey == null) {
+                return 0;
+            }
+            return lowInclusive ? node.lowerBoundKey(lowKey) : node.upperBoundKey(lowKey);
+        }
+    }
+
+    private List<byte[]> readEntries(BtreeNodePage<K> node) {
+        int count = node.getCount();
+        List<byte[]> entries = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            entries.add(node.readEntry(i));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns a pinned, initialized node, taken from the free list when possible.
+     */
+    private BtreeNodePage<K> allocateNode(boolean leaf) throws IOException {
+        BtreeNodePage<K> node;
+        if (freeHead != NO_PAGE) {
+            node = pinNode(freeHead);
+            freeHead = node.getNext();
+        } else {
+            node = pinNode(fileManager.append(fileName).getBlockNum());
+        }
+        node.initialize(leaf);
+        return node;
+    }
+
+    /**
+     * Puts a pinned node on the free list; the caller still releases it.
+     */
+    private void freeNode(BtreeNodePage<K> node) {
+        node.initialize(true);
+        node.setNext(freeHead);
+        freeHead = node.getBlockNum();
+    }
+
+    private BtreeNodePage<K> pinNode(int blockNum) throws IOException {
+        Block block = new Block(fileName, blockNum);
+        return new BtreeNodePage<>(bufferPool.pinBlock(block), codec, block);
+    }
+
+    private void release(BtreeNodePage<K> node, boolean dirty) {
+        if (dirty) {
+            bufferPool.markDirtyBlock(node.getBlock());
+        }
+        bufferPool.unpinBlock(node.getBlock());
+    }
+
+    private void writeMeta() throws IOException {
+        Block metaBlock = new Block(fileName, META_BLOCK);
+        Page meta = bufferPool.pinBlock(metaBlock);
+        try {
+            meta.setInt(MAGIC_OFFSET, MAGIC);
+            meta.setInt(KEY_TYPE_OFFSET, codec.getType().ordinal());
+            meta.setInt(KEY_BYTES_OFFSET, codec.maxBytes());
+            meta.setInt(ROOT_OFFSET, rootBlock);
+            meta.setInt(FREE_HEAD_OFFSET, freeHead);
+            meta.setInt(MAX_ENTRIES_OFFSET, maxEntriesPerNode);
+            meta.setLong(SIZE_OFFSET, size);
+            bufferPool.markDirtyBlock(metaBlock);
+        } finally {
+            bufferPool.unpinBlock(metaBlock);
+        }
+    }
+
+    /**
+     * Key and record id that separate two nodes, plus the node on the right.
+     */
+    private static final class Separator<K> {
+        private final K key;
+        private final int ridBlock;
+        private final int ridSlot;
+        private final int rightChild;
+
+        private Separator(K key, int ridBlock, int ridSlot, int rightChild) {
+            this.key = key;
+            this.ridBlock = ridBlock;
+            this.ridSlot = ridSlot;
+            this.rightChild = rightChild;
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package lite.sqlite.server.storage.index;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
-import lite.sqlite.server.datastructure.BplusTree.BplusTree;
 import lite.sqlite.server.storage.table.RecordId;
 import lombok.Getter;
 
 @Getter
 public class TableIndex<K extends Comparable<K>> {
-    private BplusTree<K, RecordId> tree;
+    private IndexTree<K> tree;
     private String columnName;
     private String tableName;
     private String indexName;
@@ -21,7 +22,19 @@ public class TableIndex<K extends Comparable<K>> {
         this.columnName = columnName;
         this.isUnique = isUnique;
         this.maxDegree = maxDegree;
-        this.tree = new BplusTree<>(maxDegree);
+        this.tree = new InMemoryIndexTree<>(maxDegree);
+    }
+
+    /**
+     * Creates an index stored in the given tree, e.g. a {@link PagedBplusTree} that
+     * survives restarts.
+     */
+    public TableIndex(String indexName, String tableName, String columnName, boolean isUnique, IndexTree<K> tree) {
+        this.indexName = indexName;
+        this.tableName = tableName;
+        this.columnName = columnName;
+        this.isUnique = isUnique;
+        this.tree = tree;
     }
     
     /**
@@ -33,7 +46,7 @@ public class TableIndex<K extends Comparable<K>> {
      */
     public void insert(K key, RecordId recordToInsert) {
         if (isUnique) {
-            RecordId recordWithThisKey = tree.searchUniqueIndex(key);
+            RecordId recordWithThisKey = tree.search(key);
             if (recordWithThisKey != null) {
                 throw new IllegalArgumentException(
                 String.format("Duplicate key '%s' in unique index '%s' on table '%s'", 
@@ -45,6 +58,46 @@ public class TableIndex<K extends Comparable<K>> {
         tree.insert(key, recordToInsert);
     }
     
+    /**
+     * Removes the mapping of {@code key} to {@code rid}.
+     *
+     * @param key indexed key value
+     * @param rid record identifier stored under the key
+     * @return true when the mapping existed
+     */
+    public boolean delete(K key, RecordId rid) {
+        return tree.delete(key, rid);
+    }
+
+    /**
+     * Moves a record from {@code oldKey} to {@code newKey}. Either key may be null when
+     * the column was or becomes null, which is not indexed.
+     *
+     * @param oldKey key before the update
+     * @param newKey key after the update
+     * @param rid record identifier of the updated row
+     */
+    public void update(K oldKey, K newKey, RecordId rid) {
+        if (oldKey != null && newKey != null && oldKey.compareTo(newKey) == 0) {
+            return;
+        }
+        if (newKey != null && isUnique) {
+            RecordId recordWithThisKey = tree.search(newKey);
+            if (recordWithThisKey != null && !recordWithThisKey.equals(rid)) {
+                throw new IllegalArgumentException(
+                    String.format("Duplicate key '%s' in unique index '%s' on table '%s'",
+                        newKey, indexName, tableName)
+                );
+            }
+        }
+        if (oldKey != null) {
+            tree.delete(oldKey, rid);
+        }
+        if (newKey != null) {
+            tree.insert(newKey, rid);
+        }
+    }
+
     /**
      * Looks up one record id for a key (intended for unique indexes).
      *
@@ -52,7 +105,7 @@ public class TableIndex<K extends Comparable<K>> {
      * @return one matching record id or null when absent
      */
     public RecordId search(K key) {
-        return tree.searchUniqueIndex(key);
+        return tree.search(key);
     }
     
     /**
@@ -62,11 +115,80 @@ public class TableIndex<K extends Comparable<K>> {
      * @return all matching record ids, possibly empty
      */
     public List<RecordId> searchAll(K key) {
-        return tree.searchNonUniqueIndex(key);
+        return tree.searchAll(key);
+    }
+
+    /**
+     * Streams record ids whose keys lie between the bounds, in key order.
+     *
+     * @param lowKey lower bound, or null for none
+     * @param lowInclusive whether keys equal to {@code lowKey} match
+     * @param highKey upper bound, or null for none
+     * @param highInclusive whether keys equal to {@code highKey} match
+     * @return lazy cursor over matching record ids
+     */
+    public Iterator<RecordId> rangeScan(K lowKey, boolean lowInclusive, K highKey, boolean highInclusive) {
+        return tree.rangeScan(lowKey, lowInclusive, highKey, highInclusive);
+    }
+
+    /**
+     * Fills an empty index from entries sorted in {@link IndexEntry} order. A unique index
+     * keeps the first entry of each key and reports the others, like {@link #insert} would.
+     *
+     * @param sortedEntries entries ordered by key, then record id
+     * @param fillFactor fraction of each tree node to fill
+     */
+    public void bulkLoad(Iterator<IndexEntry<K>> sortedEntries, double fillFactor) {
+        tree.bulkLoad(isUnique ? new DistinctKeyIterator(sortedEntries) : sortedEntries, fillFactor);
+    }
+
+    /**
+     * Removes every entry, keeping the index definition.
+     */
+    public void clear() {
+        tree.clear();
     }
     @Override
     public String toString() {
         return String.format("Index[%s on %s.%s, unique=%s]", 
             indexName, tableName, columnName, isUnique);
     }
+
+    /**
+     * Drops entries whose key equals the previous entry's key.
+     */
+    private final class DistinctKeyIterator implements Iterator<IndexEntry<K>> {
+        private final Iterator<IndexEntry<K>> source;
+        private IndexEntry<K> pending;
+        private K lastKey;
+
+        private DistinctKeyIterator(Iterator<IndexEntry<K>> source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending == null && source.hasNext()) {
+                IndexEntry<K> entry = source.next();
+                if (lastKey != null && lastKey.compareTo(entry.getKey()) == 0) {
+                    System.err.println("Warning: Failed to index record: " + String.format(
+                        "Duplicate key '%s' in unique index '%s' on table '%s'", entry.getKey(), indexName, tableName));
+                    continue;
+                }
+                pending = entry;
+            }
+            return pending != null;
+        }
+
+        @Override
+        public IndexEntry<K> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            IndexEntry<K> entry = pending;
+            pending = null;
+            lastKey = entry.getKey();
+            return entry;
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package lite.sqlite.server.storage.record;
+
+/**
+ * Ordering of column values. The values of one column all have the Java type of its
+ * {@link DataType} ({@link Integer} or {@link String}), so any two of them compare
+ * directly; this is the one place where that is taken on trust.
+ */
+public final class ColumnValues {
+
+    private ColumnValues() {
+    }
+
+    /**
+     * Compares two non-null values of the same column.
+     */
+    @SuppressWarnings("unchecked")
+    public static int compare(Comparable<?> left, Comparable<?> right) {
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+}
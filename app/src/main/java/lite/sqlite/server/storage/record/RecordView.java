@@ -0,0 +1,128 @@
+package lite.sqlite.server.storage.record;
+
+import lite.sqlite.server.storage.Page;
+
+/**
+ * Reusable read-only window onto one record of a page, positioned by
+ * {@link SlottedRecordPage#view}. Fields are read from the page buffer when asked for:
+ * offsets of variable-length columns are found by walking the record once, up to the
+ * furthest column read, and comparisons run on the stored bytes, so looking at a record
+ * allocates nothing until values are {@link #materialize materialized}.
+ *
+ * <p>A view is only valid while its page stays pinned and until it is moved to another
+ * record. It is not thread-safe.
+ */
+public final class RecordView {
+
+    private final Schema schema;
+    private final DataType[] types;
+    /** Page offset of each column, known for the first {@code resolved} columns. */
+    private final int[] offsets;
+
+    private Page page;
+    private int resolved;
+
+    public RecordView(Schema schema) {
+        this.schema = schema;
+        this.types = new DataType[schema.getColumnCount()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = schema.getColumn(i).getType();
+        }
+        this.offsets = new int[types.length];
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Points the view at the record stored at {@code recordOffset} of {@code page}.
+     */
+    void moveTo(Page page, int recordOffset) {
+        this.page = page;
+        if (offsets.length > 0) {
+            offsets[0] = recordOffset;
+        }
+        this.resolved = 1;
+    }
+
+    /**
+     * Value of an INTEGER column.
+     */
+    public int getInt(int column) {
+        return page.getInt(offset(column));
+    }
+
+    /**
+     * Value of a VARCHAR column; this copies the bytes and decodes them.
+     */
+    public String getString(int column) {
+        int offset = offset(column);
+        byte[] bytes = new byte[page.getByte(offset) & 0xFF];
+        page.read(offset + 1, bytes);
+        return new String(bytes);
+    }
+
+    /**
+     * Value of a column as {@link SlottedRecordPage#getRecord} returns it.
+     */
+    public Object getValue(int column) {
+        return types[column] == DataType.INTEGER ? (Object) getInt(column) : getString(column);
+    }
+
+    /**
+     * Compares an INTEGER column with {@code value}, as {@link Integer#compare} does.
+     */
+    public int compareInt(int column, int value) {
+        return Integer.compare(getInt(column), value);
+    }
+
+    /**
+     * Compares the stored bytes of a VARCHAR column with {@code value}, unsigned byte by
+     * byte and then by length. For an ASCII {@code value} the sign is that of
+     * {@link String#compareTo} between the decoded column and the string {@code value}
+     * encodes.
+     */
+    public int compareBytes(int column, byte[] value) {
+        int offset = offset(column);
+        int length = page.getByte(offset) & 0xFF;
+        int common = Math.min(length, value.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (page.getByte(offset + 1 + i) & 0xFF) - (value[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - value.length;
+    }
+
+    /**
+     * Decodes the record into a schema-aligned array.
+     *
+     * @param columns columns to decode, or null for all; the others are left null
+     */
+    public Object[] materialize(int[] columns) {
+        Object[] values = new Object[types.length];
+        if (columns == null) {
+            for (int i = 0; i < types.length; i++) {
+                values[i] = getValue(i);
+            }
+        } else {
+            for (int column : columns) {
+                values[column] = getValue(column);
+            }
+        }
+        return values;
+    }
+
+    private int offset(int column) {
+        while (resolved <= column) {
+            int previous = offsets[resolved - 1];
+            offsets[resolved] = previous + (types[resolved - 1] == DataType.INTEGER
+                ? Integer.BYTES
+                : 1 + (page.getByte(previous) & 0xFF));
+            resolved++;
+        }
+        return offsets[column];
+    }
+}
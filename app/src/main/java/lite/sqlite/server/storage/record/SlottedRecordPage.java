@@ -3,7 +3,10 @@ package lite.sqlite.server.storage.record;
 import lite.sqlite.server.storage.Block;
 import lite.sqlite.server.storage.Page;
 import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.table.FreeSpaceMap;
 import lite.sqlite.server.storage.table.RecordId;
+import lite.sqlite.server.wal.LogRecord;
+import lite.sqlite.server.wal.WriteAheadLog;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -20,11 +23,13 @@ public class SlottedRecordPage {
     
     private static final int RECORD_COUNT_OFFSET = 0;  
     private static final int FREE_POINTER_OFFSET = 4;
+    private static final int PAGE_LSN_OFFSET = 8;
     
     private final Page page;
     private final Schema schema;
     private final Block blockId;       
     private final BufferPool bufferPool; 
+    private final FreeSpaceMap freeSpaceMap;
     
     /**
      * Creates a record page view over a physical page and initializes page metadata when empty.
@@ -35,13 +40,28 @@ public class SlottedRecordPage {
      * @param bufferPool buffer pool used for dirty tracking
      */
     public SlottedRecordPage(Page page, Schema schema, Block blockId, BufferPool bufferPool) {
+        this(page, schema, blockId, bufferPool, null);
+    }
+
+    /**
+     * Creates a record page view that reports its free space to a free-space map after
+     * every insert, update and delete.
+     *
+     * @param page backing page bytes
+     * @param schema schema used for record serialization
+     * @param blockId physical block identifier
+     * @param bufferPool buffer pool used for dirty tracking
+     * @param freeSpaceMap map of the owning table, or null
+     */
+    public SlottedRecordPage(Page page, Schema schema, Block blockId, BufferPool bufferPool, FreeSpaceMap freeSpaceMap) {
         this.page = page;
         this.schema = schema;
         this.blockId = blockId;
         this.bufferPool = bufferPool;
+        this.freeSpaceMap = freeSpaceMap;
         
         if (getRecordCount() == 0) {
-            setFreeSpacePointer(Page.PAGE_SIZE);
+            setFreeSpacePointer(page.capacity());
             setRecordCount(0);
         }
     }
@@ -54,6 +74,23 @@ public class SlottedRecordPage {
      */
     public boolean insert(Object[] record) {
         byte[] recordData = serializeRecord(record);
+        boolean inserted;
+        latch();
+        try {
+            int slot = getRecordCount();
+            inserted = insertBytes(recordData);
+            if (inserted) {
+                logChange(LogRecord.Type.INSERT, slot, recordData);
+            }
+        } finally {
+            unlatch();
+        }
+        // On failure compaction may have run, and a stale map entry is what sent the caller here.
+        reportFreeSpace();
+        return inserted;
+    }
+
+    private boolean insertBytes(byte[] recordData) {
         int recordLength = recordData.length;
 
         if (checkSufficientRecordSpace(recordLength)) {
@@ -93,6 +130,40 @@ public class SlottedRecordPage {
         return checkSufficientRecordSpace(recordLength);
     }
 
+    /**
+     * Space a record of the given values takes on a page, including its slot entry.
+     *
+     * @param schema schema used for record serialization
+     * @param record logical record values
+     * @return required bytes
+     */
+    public static int requiredSpace(Schema schema, Object[] record) {
+        return calculateRecordSize(schema, record) + SLOT_SIZE;
+    }
+
+    /**
+     * Returns how many bytes a new record, including its slot entry, could use on this page.
+     * Space held by deleted records counts only when an insert would compact the page to
+     * reclaim it.
+     *
+     * @return usable free bytes
+     */
+    public int getFreeSpace() {
+        int recordCount = getRecordCount();
+        int freeSpace = getFreeSpacePointer() - (DIRECTORY_OFFSET + HEADER_SIZE + recordCount * SLOT_SIZE);
+        if (getFragmentationRatio() > 0.2) {
+            int liveBytes = 0;
+            for (int slot = 0; slot < recordCount; slot++) {
+                int slotOffset = DIRECTORY_OFFSET + HEADER_SIZE + (slot * SLOT_SIZE);
+                if (page.getInt(slotOffset + SLOT_OFFSET) != -1) {
+                    liveBytes += page.getInt(slotOffset + SLOT_LENGTH);
+                }
+            }
+            freeSpace += (page.capacity() - getFreeSpacePointer()) - liveBytes;
+        }
+        return Math.max(0, freeSpace);
+    }
+
     /**
      * Checks whether this page can fit a record payload of the given byte length.
      *
@@ -140,6 +211,24 @@ public class SlottedRecordPage {
      * @return true when update succeeds, false otherwise
      */
     public boolean update(int slot, Object[] record) {
+        if (slot < 0 || slot >= getRecordCount()) {
+            return false;
+        }
+        byte[] newRecordData = serializeRecord(record);
+        latch();
+        try {
+            if (!updateBytes(slot, newRecordData)) {
+                return false;
+            }
+            logChange(LogRecord.Type.UPDATE, slot, newRecordData);
+        } finally {
+            unlatch();
+        }
+        reportFreeSpace();
+        return true;
+    }
+
+    private boolean updateBytes(int slot, byte[] newRecordData) {
         if (slot < 0 || slot >= getRecordCount()) {
             return false; 
         }
@@ -150,7 +239,6 @@ public class SlottedRecordPage {
             return false;
         }
         int currentLength = page.getInt(slotOffset + SLOT_LENGTH);
-        byte[] newRecordData = serializeRecord(record);
         int newLength = newRecordData.length;
         
         if (newLength <= currentLength) {
@@ -197,6 +285,20 @@ public class SlottedRecordPage {
      * @return true when delete succeeds, false for invalid slot
      */
     public boolean delete(int slot) {
+        latch();
+        try {
+            if (!deleteSlot(slot)) {
+                return false;
+            }
+            logChange(LogRecord.Type.DELETE, slot, null);
+        } finally {
+            unlatch();
+        }
+        reportFreeSpace();
+        return true;
+    }
+
+    private boolean deleteSlot(int slot) {
         int recordCount = getRecordCount();
         if (slot < 0 || slot >= recordCount) {
             return false; 
@@ -237,6 +339,25 @@ public class SlottedRecordPage {
         
         return deserializeRecord(recordData);
     }
+
+    /**
+     * Positions {@code view} on a slot's record without copying or decoding it.
+     *
+     * @param slot slot number
+     * @param view view over this page's schema
+     * @return false, leaving the view as it was, when the slot is empty/invalid
+     */
+    public boolean view(int slot, RecordView view) {
+        if (slot < 0 || slot >= getRecordCount()) {
+            return false;
+        }
+        int recordOffset = page.getInt(DIRECTORY_OFFSET + HEADER_SIZE + (slot * SLOT_SIZE) + SLOT_OFFSET);
+        if (recordOffset == -1) {
+            return false;
+        }
+        view.moveTo(page, recordOffset);
+        return true;
+    }
     
     /**
      * Returns all non-deleted records together with their slot metadata.
@@ -309,7 +430,7 @@ public class SlottedRecordPage {
      * @param pointer new pointer value
      */
     private void setFreeSpacePointer(int pointer) {
-        if (pointer < DIRECTORY_OFFSET + HEADER_SIZE || pointer > Page.PAGE_SIZE) {
+        if (pointer < DIRECTORY_OFFSET + HEADER_SIZE || pointer > page.capacity()) {
             throw new IllegalArgumentException("Invalid free space pointer: " + pointer);
         }
         page.setInt(FREE_POINTER_OFFSET, pointer);
@@ -323,6 +444,116 @@ public class SlottedRecordPage {
             bufferPool.markDirtyBlock(blockId);
         }
     }
+
+    /**
+     * Keeps write-backs of the owning block out while the page is being modified.
+     */
+    private void latch() {
+        if (bufferPool != null && blockId != null) {
+            bufferPool.latchBlock(blockId);
+        }
+    }
+
+    private void unlatch() {
+        if (bufferPool != null && blockId != null) {
+            bufferPool.unlatchBlock(blockId);
+        }
+    }
+
+    /**
+     * Records the page's current free space in the table's free-space map, if there is one.
+     */
+    private void reportFreeSpace() {
+        if (freeSpaceMap != null && blockId != null) {
+            freeSpaceMap.update(blockId.getBlockNum(), getFreeSpace());
+        }
+    }
+
+    /**
+     * Logs a change that was just applied to this page and stamps the page with its LSN.
+     *
+     * @param type kind of change
+     * @param slot slot that changed
+     * @param recordData serialized record written to the slot, or null for deletes
+     */
+    private void logChange(LogRecord.Type type, int slot, byte[] recordData) {
+        WriteAheadLog wal = bufferPool != null ? bufferPool.getWriteAheadLog() : null;
+        if (wal == null || blockId == null) {
+            return;
+        }
+        long lsn = wal.append(type, blockId, slot, recordData);
+        setPageLsn(lsn);
+        bufferPool.markDirtyBlock(blockId, lsn);
+    }
+
+    /**
+     * Returns the LSN of the newest logged change contained in this page.
+     *
+     * @return page LSN, 0 when the page was never changed under the log
+     */
+    public long getPageLsn() {
+        return page.getLong(PAGE_LSN_OFFSET);
+    }
+
+    private void setPageLsn(long lsn) {
+        page.setLong(PAGE_LSN_OFFSET, lsn);
+    }
+
+    private boolean isLiveSlot(int slot) {
+        if (slot < 0 || slot >= getRecordCount()) {
+            return false;
+        }
+        int slotOffset = DIRECTORY_OFFSET + HEADER_SIZE + (slot * SLOT_SIZE);
+        return page.getInt(slotOffset + SLOT_OFFSET) != -1;
+    }
+
+    /**
+     * Re-applies a logged change during recovery unless the page already contains it.
+     *
+     * @param record log record addressed to this page
+     * @return true when the change was applied, false when the page was already newer
+     */
+    public boolean redo(LogRecord record) {
+        latch();
+        try {
+            return redoLatched(record);
+        } finally {
+            unlatch();
+        }
+    }
+
+    private boolean redoLatched(LogRecord record) {
+        if (record.getLsn() <= getPageLsn()) {
+            return false;
+        }
+        int slot = record.getSlot();
+        switch (record.getType()) {
+            case INSERT:
+                // The page may have been written after the insert but before its LSN was stamped.
+                if (slot < getRecordCount()) {
+                    break;
+                }
+                if (slot != getRecordCount() || !insertBytes(record.getData())) {
+                    throw new IllegalStateException("Cannot redo " + record + " on page with "
+                        + getRecordCount() + " slots");
+                }
+                break;
+            case UPDATE:
+                // A slot that is already gone was deleted by a later change that reached disk.
+                if (!updateBytes(slot, record.getData()) && isLiveSlot(slot)) {
+                    throw new IllegalStateException("Cannot redo " + record);
+                }
+                break;
+            case DELETE:
+                deleteSlot(slot);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported log record: " + record);
+        }
+        setPageLsn(record.getLsn());
+        markDirty();
+        return true;
+    }
     
     /**
      * Serializes logical record values to binary form based on schema.
@@ -331,8 +562,8 @@ public class SlottedRecordPage {
      * @return encoded bytes
      */
     private byte[] serializeRecord(Object[] record) {
-        int estimatedSize = calculateRecordSize(record);
-        int maxRecordSize = Page.PAGE_SIZE - HEADER_SIZE - SLOT_SIZE - 100; // Leave some margin
+        int estimatedSize = calculateRecordSize(schema, record);
+        int maxRecordSize = page.capacity() - HEADER_SIZE - SLOT_SIZE - 100; // Leave some margin
         if (estimatedSize > maxRecordSize) {
             throw new IllegalArgumentException("Record too large: " + estimatedSize + 
                                               " bytes (max: " + maxRecordSize + ")");
@@ -403,10 +634,11 @@ public class SlottedRecordPage {
     /**
      * Estimates encoded record size according to schema and current values.
      *
+     * @param schema schema used for record serialization
      * @param record logical record values
      * @return estimated encoded size in bytes
      */
-    private int calculateRecordSize(Object[] record) {
+    private static int calculateRecordSize(Schema schema, Object[] record) {
         int size = 0;
         
         for (int i = 0; i < schema.getColumnCount(); i++) {
@@ -454,7 +686,7 @@ public class SlottedRecordPage {
 
         if (activeRecord.isEmpty()) {
             setRecordCount(0);
-            setFreeSpacePointer(Page.PAGE_SIZE);
+            setFreeSpacePointer(page.capacity());
             markDirty(); 
             return;
         } 
@@ -465,7 +697,7 @@ public class SlottedRecordPage {
             page.setInt(slotOffset + SLOT_LENGTH, 0);
         }
     
-        int newFreePointer = Page.PAGE_SIZE;
+        int newFreePointer = page.capacity();
     
         for (int i = 0; i < activeRecord.size(); i++) {
             byte[] recordData = activeRecord.get(i);
@@ -563,7 +795,7 @@ public class SlottedRecordPage {
      * Prints a coarse visualization of page layout and occupancy statistics.
      */
     public void visualizePage() {
-    int pageSize = Page.PAGE_SIZE;
+    int pageSize = page.capacity();
     int directorySpace = HEADER_SIZE + (getRecordCount() * SLOT_SIZE);
     int usedDataSpace = pageSize - getFreeSpacePointer();
     int freeSpace = getFreeSpacePointer() - directorySpace;
@@ -0,0 +1,228 @@
+package lite.sqlite.server.storage.table;
+
+import java.io.IOException;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.filemanager.FileManager;
+
+/**
+ * Per-table record of how much room each block has left, so an insert can pick a target
+ * block without reading the table.
+ *
+ * <p>Every table block gets one byte holding its free space in steps of a 256th of the page
+ * size, rounded down. The bytes live in their own file ({@code <table>.fsm}): block 0 holds
+ * a magic number and the number of table blocks tracked, blocks 1.. hold the categories,
+ * one page size's worth per block. Pages are changed through
+ * the {@link BufferPool} and written back with the other dirty pages.
+ *
+ * <p>All categories are cached in memory together with a max tree over them, so finding a
+ * block with enough room takes {@code O(log n)}. The map is not logged, which makes it a
+ * hint: after a crash it may be stale, and callers confirm the space on the page itself and
+ * report the real value with {@link #update} when it was wrong.
+ */
+public class FreeSpaceMap {
+
+    private static final int MAGIC = 0x46534D31;
+    private static final int META_BLOCK = 0;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int TRACKED_OFFSET = 4;
+    private static final int MAX_CATEGORY = 255;
+
+    private final BufferPool bufferPool;
+    private final FileManager fileManager;
+    private final String fileName;
+    /** Free bytes one category step stands for; one byte per block covers a whole page. */
+    private final int bytesPerCategory;
+    private final int entriesPerBlock;
+
+    private int tracked;
+    /** Implicit binary tree: leaves at {@code capacity + block}, inner nodes hold the max of their children. */
+    private byte[] tree = new byte[2];
+    private int capacity = 1;
+
+    private FreeSpaceMap(BufferPool bufferPool, FileManager fileManager, String fileName) {
+        this.bufferPool = bufferPool;
+        this.fileManager = fileManager;
+        this.fileName = fileName;
+        this.bytesPerCategory = fileManager.getPageSize() / 256;
+        this.entriesPerBlock = fileManager.getPageSize();
+    }
+
+    /**
+     * Opens the map stored in {@code fileName}, creating an empty one when the file is empty.
+     *
+     * @throws IOException when the file holds something else
+     */
+    public static FreeSpaceMap open(BufferPool bufferPool, FileManager fileManager, String fileName) throws IOException {
+        FreeSpaceMap map = new FreeSpaceMap(bufferPool, fileManager, fileName);
+        if (fileManager.getBlockCount(fileName) == 0) {
+            fileManager.append(fileName);
+            map.writeMeta();
+            return map;
+        }
+
+        Block metaBlock = new Block(fileName, META_BLOCK);
+        Page meta = bufferPool.pinBlock(metaBlock);
+        int trackedBlocks;
+        try {
+            if (meta.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not a free-space map: " + fileName);
+            }
+            trackedBlocks = meta.getInt(TRACKED_OFFSET);
+        } finally {
+            bufferPool.unpinBlock(metaBlock);
+        }
+
+        map.ensureCapacity(trackedBlocks);
+        byte[] entries = new byte[map.entriesPerBlock];
+        for (int start = 0; start < trackedBlocks; start += map.entriesPerBlock) {
+            Block block = new Block(fileName, 1 + start / map.entriesPerBlock);
+            Page page = bufferPool.pinBlock(block);
+            try {
+                page.read(0, entries);
+            } finally {
+                bufferPool.unpinBlock(block);
+            }
+            int count = Math.min(map.entriesPerBlock, trackedBlocks - start);
+            System.arraycopy(entries, 0, map.tree, map.capacity + start, count);
+        }
+        for (int node = map.capacity - 1; node >= 1; node--) {
+            map.tree[node] = (byte) Math.max(map.category(2 * node), map.category(2 * node + 1));
+        }
+        map.tracked = trackedBlocks;
+        return map;
+    }
+
+    /**
+     * Number of table blocks the map has an entry for; blocks past it were never reported.
+     */
+    public synchronized int getTrackedBlocks() {
+        return tracked;
+    }
+
+    /**
+     * Returns the newest block known to have at least {@code requiredBytes} free, or -1.
+     */
+    public synchronized int findBlock(int requiredBytes) {
+        int needed = (requiredBytes + bytesPerCategory - 1) / bytesPerCategory;
+        if (needed > MAX_CATEGORY || category(1) < needed) {
+            return -1;
+        }
+        int node = 1;
+        while (node < capacity) {
+            node = category(2 * node + 1) >= needed ? 2 * node + 1 : 2 * node;
+        }
+        return node - capacity;
+    }
+
+    /**
+     * Free bytes recorded for a block, rounded down to a whole category.
+     */
+    public synchronized int getFreeSpace(int blockNum) {
+        return blockNum < tracked ? category(capacity + blockNum) * bytesPerCategory : 0;
+    }
+
+    /**
+     * Records the free space of a block, extending the map when the block is new.
+     *
+     * @param freeBytes bytes a new record (with its slot) could use on the block
+     */
+    public synchronized void update(int blockNum, int freeBytes) {
+        int category = Math.min(MAX_CATEGORY, Math.max(0, freeBytes) / bytesPerCategory);
+        boolean grows = blockNum >= tracked;
+        if (!grows && category(capacity + blockNum) == category) {
+            return;
+        }
+        try {
+            if (grows) {
+                ensureCapacity(blockNum + 1);
+                tracked = blockNum + 1;
+                writeMeta();
+            }
+            setCategory(blockNum, category);
+            writeEntry(blockNum, category);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot update free-space map " + fileName, e);
+        }
+    }
+
+    /**
+     * Forgets blocks at or past {@code blockCount}, e.g. when the table file is shorter than the map.
+     */
+    public synchronized void truncate(int blockCount) {
+        if (blockCount >= tracked) {
+            return;
+        }
+        for (int blockNum = blockCount; blockNum < tracked; blockNum++) {
+            setCategory(blockNum, 0);
+        }
+        tracked = blockCount;
+        try {
+            writeMeta();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot update free-space map " + fileName, e);
+        }
+    }
+
+    private int category(int node) {
+        return tree[node] & 0xFF;
+    }
+
+    private void setCategory(int blockNum, int category) {
+        int node = capacity + blockNum;
+        tree[node] = (byte) category;
+        for (node >>= 1; node >= 1; node >>= 1) {
+            int max = Math.max(category(2 * node), category(2 * node + 1));
+            if (category(node) == max) {
+                break;
+            }
+            tree[node] = (byte) max;
+        }
+    }
+
+    private void ensureCapacity(int blocks) {
+        if (blocks <= capacity) {
+            return;
+        }
+        int newCapacity = capacity;
+        while (newCapacity < blocks) {
+            newCapacity <<= 1;
+        }
+        byte[] newTree = new byte[2 * newCapacity];
+        System.arraycopy(tree, capacity, newTree, newCapacity, capacity);
+        tree = newTree;
+        capacity = newCapacity;
+        for (int node = capacity - 1; node >= 1; node--) {
+            tree[node] = (byte) Math.max(category(2 * node), category(2 * node + 1));
+        }
+    }
+
+    private void writeEntry(int blockNum, int category) throws IOException {
+        int mapBlock = 1 + blockNum / entriesPerBlock;
+        while (fileManager.getBlockCount(fileName) <= mapBlock) {
+            fileManager.append(fileName);
+        }
+        Block block = new Block(fileName, mapBlock);
+        Page page = bufferPool.pinBlock(block);
+        try {
+            page.write(blockNum % entriesPerBlock, new byte[] {(byte) category});
+            bufferPool.markDirtyBlock(block);
+        } finally {
+            bufferPool.unpinBlock(block);
+        }
+    }
+
+    private void writeMeta() throws IOException {
+        Block metaBlock = new Block(fileName, META_BLOCK);
+        Page meta = bufferPool.pinBlock(metaBlock);
+        try {
+            meta.setInt(MAGIC_OFFSET, MAGIC);
+            meta.setInt(TRACKED_OFFSET, tracked);
+            bufferPool.markDirtyBlock(metaBlock);
+        } finally {
+            bufferPool.unpinBlock(metaBlock);
+        }
+    }
+}
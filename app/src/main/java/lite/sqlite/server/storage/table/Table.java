@@ -3,14 +3,24 @@ package lite.sqlite.server.storage.table;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
+import lite.sqlite.server.statistics.TableStatistics;
 import lite.sqlite.server.storage.Block;
 import lite.sqlite.server.storage.Page;
 import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.buffer.BufferRing;
 import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.storage.index.IndexBuildOptions;
+import lite.sqlite.server.storage.index.IndexEntry;
+import lite.sqlite.server.storage.index.IndexEntrySorter;
+import lite.sqlite.server.storage.index.IndexKeyCodec;
+import lite.sqlite.server.storage.index.PagedBplusTree;
 import lite.sqlite.server.storage.index.TableIndex;
 import lite.sqlite.server.storage.record.DataType;
 import lite.sqlite.server.storage.record.Record;
@@ -20,11 +30,19 @@ import lite.sqlite.server.storage.record.Schema;
 
 public class Table implements Iterable<Record> {
 
+    /** Rows {@link #bulkInsert} checks and indexes together. */
+    private static final int BULK_BATCH_ROWS = 1024;
+    /** Blocks {@link #bulkInsert} adds to the file whenever it runs out of room. */
+    private static final int BULK_EXTENT_BLOCKS = 16;
+
     private final String tableName;
     private final Schema schema;
     private final BufferPool bufferPool;
     private final FileManager fileManager;
     private List<TableIndex<?>> indexes;  // Add this field
+    private IndexBuildOptions indexBuildOptions = IndexBuildOptions.fromConfig();
+    private FreeSpaceMap freeSpaceMap;
+    private volatile TableStatistics statistics;
     
     /**
      * Creates a table wrapper bound to a schema, backing buffer pool, and table name.
@@ -43,7 +61,8 @@ public class Table implements Iterable<Record> {
     
     // Index management methods
     /**
-     * Creates and populates a typed index for a specific column.
+     * Creates and populates a typed index for a specific column. The index is a
+     * {@link PagedBplusTree} stored in {@code <table>_<index>.idx} next to the table file.
      *
      * @param columnName indexed column name
      * @param tableName table name used by index metadata
@@ -71,10 +90,9 @@ public class Table implements Iterable<Record> {
         TableIndex<?> newIndex;
         switch (columnType) {
             case INTEGER:
-                newIndex = new TableIndex<Integer>(indexName, tableName, columnName, isUnique, 100);
-                break;
             case VARCHAR:
-                newIndex = new TableIndex<String>(indexName, tableName, columnName, isUnique, 100);
+                newIndex = newPagedIndex(indexName, tableName, columnName, isUnique,
+                    IndexKeyCodec.forColumn(schema.getColumn(columnIndex)));
                 break;
             default:
                 throw new UnsupportedOperationException("Unsupported column type for indexing: " + columnType);
@@ -89,6 +107,43 @@ public class Table implements Iterable<Record> {
         return newIndex;
     }
     
+    private <K extends Comparable<K>> TableIndex<K> newPagedIndex(String indexName, String tableName,
+            String columnName, boolean isUnique, IndexKeyCodec<K> codec) throws IOException {
+        PagedBplusTree<K> tree = PagedBplusTree.create(bufferPool, fileManager,
+            getIndexFileName(indexName), getFileName(), codec);
+        return new TableIndex<>(indexName, tableName, columnName, isUnique, tree);
+    }
+
+    /**
+     * Registers an index created earlier by {@link #createTypedIndex} from its existing
+     * {@code .idx} file, without reading the table.
+     *
+     * @param columnName indexed column name
+     * @param indexName index name
+     * @param isUnique whether duplicate keys are rejected
+     * @return reopened index
+     * @throws IOException when the index file is missing or does not hold an index
+     */
+    public TableIndex<?> openIndex(String columnName, String indexName, boolean isUnique) throws IOException {
+        for (TableIndex<?> existingIndex : indexes) {
+            if (existingIndex.getIndexName().equals(indexName)) {
+                throw new IllegalArgumentException("Index '" + indexName + "' already exists");
+            }
+        }
+        if (schema.getColumnIndex(columnName) == -1) {
+            throw new IllegalArgumentException("Column '" + columnName + "' does not exist");
+        }
+        TableIndex<?> index = wrapIndex(indexName, columnName, isUnique,
+            PagedBplusTree.open(bufferPool, fileManager, getIndexFileName(indexName), getFileName()));
+        indexes.add(index);
+        return index;
+    }
+
+    private <K extends Comparable<K>> TableIndex<K> wrapIndex(String indexName, String columnName,
+            boolean isUnique, PagedBplusTree<K> tree) {
+        return new TableIndex<>(indexName, tableName, columnName, isUnique, tree);
+    }
+
     /**
      * Finds the first index registered for the given column.
      *
@@ -115,7 +170,8 @@ public class Table implements Iterable<Record> {
 
     /**
      * Rebuilds every index registered on this table from current table contents.
-     * Useful after in-place UPDATE/DELETE mutations where keys may have changed.
+     * {@link #updateRecord} and {@link #deleteRecord} keep indexes in sync row by row, so
+     * this is only needed when pages were changed behind the table's back.
      *
      * @throws IOException when page access fails during index population
      */
@@ -124,7 +180,6 @@ public class Table implements Iterable<Record> {
             return;
         }
 
-        List<TableIndex<?>> rebuiltIndexes = new ArrayList<>();
         for (TableIndex<?> existingIndex : indexes) {
             int columnIndex = schema.getColumnIndex(existingIndex.getColumnName());
             if (columnIndex == -1) {
@@ -133,74 +188,62 @@ public class Table implements Iterable<Record> {
                 );
             }
 
-            DataType columnType = schema.getColumn(columnIndex).getType();
-            TableIndex<?> rebuilt;
-            switch (columnType) {
-                case INTEGER:
-                    rebuilt = new TableIndex<Integer>(
-                        existingIndex.getIndexName(),
-                        existingIndex.getTableName(),
-                        existingIndex.getColumnName(),
-                        existingIndex.isUnique(),
-                        existingIndex.getMaxDegree()
-                    );
-                    break;
-                case VARCHAR:
-                    rebuilt = new TableIndex<String>(
-                        existingIndex.getIndexName(),
-                        existingIndex.getTableName(),
-                        existingIndex.getColumnName(),
-                        existingIndex.isUnique(),
-                        existingIndex.getMaxDegree()
-                    );
-                    break;
-                default:
-                    throw new UnsupportedOperationException(
-                        "Unsupported column type for indexing: " + columnType
-                    );
-            }
-
-            populateIndex(rebuilt, columnIndex);
-            rebuiltIndexes.add(rebuilt);
+            // Paged trees reuse their file: cleared nodes go on the free list.
+            existingIndex.clear();
+            populateIndex(existingIndex, columnIndex);
         }
-
-        this.indexes = rebuiltIndexes;
     }
     
     /**
-     * Scans existing records and inserts eligible values into a newly created index.
+     * Sets the fill factor and sort budget used when indexes are built from existing rows.
+     *
+     * @param indexBuildOptions build settings
+     */
+    public void setIndexBuildOptions(IndexBuildOptions indexBuildOptions) {
+        this.indexBuildOptions = indexBuildOptions;
+    }
+
+    /**
+     * Scans existing records and bulk loads eligible values into an empty index.
      *
      * @param index target index to populate
      * @param columnIndex schema column index used as key source
      * @throws IOException when page access fails
      */
-    private void populateIndex(TableIndex<?> index, int columnIndex) throws IOException {
-        String filename = getFileName();
-        int blockCount = fileManager.getBlockCount(filename);
+    @SuppressWarnings("unchecked")
+    private <K extends Comparable<K>> void populateIndex(TableIndex<?> index, int columnIndex) throws IOException {
+        IndexKeyCodec<K> codec = (IndexKeyCodec<K>) IndexKeyCodec.forColumn(schema.getColumn(columnIndex));
+        try (IndexEntrySorter<K> sorter = new IndexEntrySorter<>(codec, getFileName(),
+                indexBuildOptions.getSortMemoryBytes())) {
+            String filename = getFileName();
+            int blockCount = fileManager.getBlockCount(filename);
+            BufferRing ring = bufferPool.newBufferRing();
 
-        for (int blockNum = 0; blockNum < blockCount; blockNum++) {
-            Block block = new Block(filename, blockNum);
-            Page page = bufferPool.pinBlock(block);
+            for (int blockNum = 0; blockNum < blockCount; blockNum++) {
+                Block block = new Block(filename, blockNum);
+                Page page = bufferPool.pinBlock(block, ring);
 
-            try {
-                SlottedRecordPage recordPage = new SlottedRecordPage(page, schema, block, bufferPool);
+                try {
+                    SlottedRecordPage recordPage = new SlottedRecordPage(page, schema, block, bufferPool);
 
-                for (RecordWithSlot rws : recordPage.getAllRecords()) {
-                    Object[] values = rws.getRecord();
-                    Object valueObj = values[columnIndex];
+                    for (RecordWithSlot rws : recordPage.getAllRecords()) {
+                        Object[] values = rws.getRecord();
+                        Object valueObj = values[columnIndex];
 
-                    if (valueObj != null && valueObj instanceof Comparable) {
-                        try {
-                            RecordId rid = rws.toRecordId();
-                            updateIndexTyped(index, (Comparable) valueObj, rid);
-                        } catch (Exception e) {
-                            System.err.println("Warning: Failed to index record: " + e.getMessage());
+                        if (valueObj != null && valueObj instanceof Comparable) {
+                            try {
+                                sorter.add((K) valueObj, rws.toRecordId());
+                            } catch (IllegalArgumentException | ClassCastException e) {
+                                System.err.println("Warning: Failed to index record: " + e.getMessage());
+                            }
                         }
                     }
+                } finally {
+                    bufferPool.unpinBlock(block);
                 }
-            } finally {
-                bufferPool.unpinBlock(block);
             }
+
+            ((TableIndex<K>) index).bulkLoad(sorter.sortedIterator(), indexBuildOptions.getFillFactor());
         }
     }
     
@@ -217,6 +260,66 @@ public class Table implements Iterable<Record> {
         ((TableIndex<K>) index).insert((K) value, rid);
     }
     
+    /**
+     * Returns the table's free-space map, opening it on first use. Blocks the map has no
+     * entry for (a table created before the map existed, or blocks appended after its pages
+     * were last written back) are read once to fill it in.
+     *
+     * @return free-space map stored in {@code <table>.fsm}
+     * @throws IOException when the map or table pages cannot be read
+     */
+    synchronized FreeSpaceMap getFreeSpaceMap() throws IOException {
+        if (freeSpaceMap != null) {
+            return freeSpaceMap;
+        }
+        FreeSpaceMap map = FreeSpaceMap.open(bufferPool, fileManager, getFreeSpaceMapFileName());
+        String fileName = getFileName();
+        int blockCount = fileManager.getBlockCount(fileName);
+        map.truncate(blockCount);
+        BufferRing ring = bufferPool.newBufferRing();
+        for (int blockNum = map.getTrackedBlocks(); blockNum < blockCount; blockNum++) {
+            Block block = new Block(fileName, blockNum);
+            Page page = bufferPool.pinBlock(block, ring);
+            try {
+                map.update(blockNum, new SlottedRecordPage(page, schema, block, bufferPool).getFreeSpace());
+            } finally {
+                bufferPool.unpinBlock(block);
+            }
+        }
+        freeSpaceMap = map;
+        return map;
+    }
+
+    /**
+     * Finds a block with room for the given values through the free-space map. The page is
+     * still checked, since the map is only a hint; a wrong entry is corrected and the search
+     * repeated.
+     *
+     * @param recordValues values of the record about to be inserted
+     * @return block with enough free space, or null when every block is full
+     * @throws IOException when page access fails
+     */
+    private Block findInsertableBlock(Object[] recordValues) throws IOException {
+        FreeSpaceMap map = getFreeSpaceMap();
+        int required = SlottedRecordPage.requiredSpace(schema, recordValues);
+        String fileName = getFileName();
+        int blockNum;
+        while ((blockNum = map.findBlock(required)) != -1) {
+            Block block = new Block(fileName, blockNum);
+            Page page = bufferPool.pinBlock(block);
+            try {
+                SlottedRecordPage recordPage = new SlottedRecordPage(page, schema, block, bufferPool);
+                if (recordPage.checkSufficientRecordSpace(recordValues)) {
+                    return block;
+                }
+                map.update(blockNum, Math.min(recordPage.getFreeSpace(), required - 1));
+            } finally {
+                bufferPool.unpinBlock(block);
+            }
+        }
+        return null;
+    }
+
     /**
      * Inserts a record into the table and updates all applicable indexes.
      *
@@ -225,13 +328,13 @@ public class Table implements Iterable<Record> {
      * @throws IOException when page operations fail
      */
     public RecordId insertRecord(Record record) throws IOException {
-        Block block = fileManager.searchForInsertableBlock(this, record.getValues());
+        Block block = findInsertableBlock(record.getValues());
         if (block == null) {
             block = fileManager.append(getFileName());
         }
 
         Page page = bufferPool.pinBlock(block);
-        SlottedRecordPage recordPage = new SlottedRecordPage(page, getSchema(), block, bufferPool);
+        SlottedRecordPage recordPage = new SlottedRecordPage(page, getSchema(), block, bufferPool, getFreeSpaceMap());
         
         try {
             if (!indexes.isEmpty()) {
@@ -289,6 +392,258 @@ public class Table implements Iterable<Record> {
         }
     }
     
+    /**
+     * Inserts a stream of records, filling pages in file order instead of asking the
+     * free-space map for every row. The tail block is kept pinned until it is full, the file
+     * grows by {@link #BULK_EXTENT_BLOCKS} blocks at a time, and index entries are added once
+     * per batch of {@link #BULK_BATCH_ROWS} rows in key order.
+     *
+     * <p>Unique indexes are checked for a whole batch before any of its rows is written. A
+     * duplicate fails the call, leaving the rows of earlier batches in the table. A row that
+     * cannot be written, such as one too large for a page or holding a value of the wrong
+     * type, fails the call as well; the rows before it, including those of its own batch,
+     * stay in the table and in its indexes.
+     *
+     * @param records records to insert
+     * @return number of records inserted
+     * @throws IOException when page operations fail
+     */
+    public int bulkInsert(Iterator<Record> records) throws IOException {
+        FreeSpaceMap map = getFreeSpaceMap();
+        String fileName = getFileName();
+        int allocatedEnd = fileManager.getBlockCount(fileName);
+        int blockNum = allocatedEnd - 1;
+        Block block = null;
+        SlottedRecordPage recordPage = null;
+        if (blockNum >= 0) {
+            block = new Block(fileName, blockNum);
+            recordPage = new SlottedRecordPage(bufferPool.pinBlock(block), schema, block, bufferPool, map);
+        }
+
+        List<Record> batch = new ArrayList<>(BULK_BATCH_ROWS);
+        List<RecordId> rids = new ArrayList<>(BULK_BATCH_ROWS);
+        int inserted = 0;
+        try {
+            while (records.hasNext()) {
+                batch.clear();
+                rids.clear();
+                while (records.hasNext() && batch.size() < BULK_BATCH_ROWS) {
+                    batch.add(records.next());
+                }
+                checkUniqueBatch(batch);
+
+                try {
+                    for (Record record : batch) {
+                        if (recordPage == null || !recordPage.insert(record.getValues())) {
+                            if (block != null) {
+                                bufferPool.unpinBlock(block);
+                                block = null;
+                            }
+                            blockNum++;
+                            if (blockNum >= allocatedEnd) {
+                                Block first = fileManager.appendExtent(fileName, BULK_EXTENT_BLOCKS);
+                                blockNum = first.getBlockNum();
+                                allocatedEnd = blockNum + BULK_EXTENT_BLOCKS;
+                            }
+                            block = new Block(fileName, blockNum);
+                            recordPage = new SlottedRecordPage(bufferPool.pinBlock(block), schema, block, bufferPool, map);
+                            if (!recordPage.insert(record.getValues())) {
+                                throw new RuntimeException("Record does not fit in an empty page");
+                            }
+                        }
+                        rids.add(new RecordId(block, recordPage.getRecordCount() - 1));
+                    }
+                } finally {
+                    // Rows already on their pages are indexed even when a later one failed.
+                    List<Record> written = batch.subList(0, rids.size());
+                    for (TableIndex<?> index : indexes) {
+                        insertBatchTyped(index, schema.getColumnIndex(index.getColumnName()), written, rids);
+                    }
+                }
+                inserted += batch.size();
+            }
+        } finally {
+            if (block != null) {
+                bufferPool.unpinBlock(block);
+            }
+            // Blocks of the last extent that stayed empty are still open for later inserts.
+            for (int emptyBlock = blockNum + 1; emptyBlock < allocatedEnd; emptyBlock++) {
+                Block empty = new Block(fileName, emptyBlock);
+                Page page = bufferPool.pinBlock(empty);
+                try {
+                    map.update(emptyBlock, new SlottedRecordPage(page, schema, empty, bufferPool).getFreeSpace());
+                } finally {
+                    bufferPool.unpinBlock(empty);
+                }
+            }
+        }
+        if (inserted > 0) {
+            touch();
+        }
+        return inserted;
+    }
+
+    /**
+     * Rejects a batch holding a key that a unique index already has, or that appears twice
+     * in the batch.
+     *
+     * @param batch records about to be inserted
+     */
+    private void checkUniqueBatch(List<Record> batch) {
+        for (TableIndex<?> index : indexes) {
+            if (!index.isUnique()) {
+                continue;
+            }
+            int colIndex = schema.getColumnIndex(index.getColumnName());
+            Set<Object> seen = new HashSet<>();
+            for (Record record : batch) {
+                Object value = record.getValues()[colIndex];
+                if (value instanceof Comparable
+                        && (!seen.add(value) || searchInIndexTyped(index, (Comparable) value) != null)) {
+                    throw new IllegalArgumentException(
+                        "Duplicate key '" + value + "' in unique index '" +
+                        index.getIndexName() + "'"
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the entries of one inserted batch to a typed index, sorted so that neighbouring
+     * inserts land on the same leaf.
+     *
+     * @param index target index
+     * @param colIndex schema column index used as key source
+     * @param batch inserted records
+     * @param rids record ids of {@code batch}, in the same order
+     * @param <K> key type
+     */
+    @SuppressWarnings("unchecked")
+    private <K extends Comparable<K>> void insertBatchTyped(TableIndex<?> index, int colIndex,
+            List<Record> batch, List<RecordId> rids) {
+        List<IndexEntry<K>> entries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Object value = batch.get(i).getValues()[colIndex];
+            if (value instanceof Comparable) {
+                entries.add(new IndexEntry<>((K) value, rids.get(i)));
+            }
+        }
+        Collections.sort(entries);
+        TableIndex<K> typedIndex = (TableIndex<K>) index;
+        for (IndexEntry<K> entry : entries) {
+            try {
+                typedIndex.insert(entry.getKey(), entry.getRecordId());
+            } catch (Exception e) {
+                System.err.println("Warning: Failed to update index: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Replaces the values of a record in place and moves its index entries to the new keys.
+     * Unique indexes are checked before the page is touched.
+     *
+     * @param rid record to update
+     * @param newValues full set of new column values
+     * @return false when the slot is empty or the page has no room for the new values
+     * @throws IOException when page operations fail
+     */
+    public boolean updateRecord(RecordId rid, Object[] newValues) throws IOException {
+        Block block = rid.getBlockId();
+        Page page = bufferPool.pinBlock(block);
+
+        try {
+            SlottedRecordPage recordPage = new SlottedRecordPage(page, schema, block, bufferPool, getFreeSpaceMap());
+            Object[] oldValues = recordPage.getRecord(rid.getSlotNumber());
+            if (oldValues == null) {
+                return false;
+            }
+
+            for (TableIndex<?> index : indexes) {
+                if (!index.isUnique()) {
+                    continue;
+                }
+                int colIndex = schema.getColumnIndex(index.getColumnName());
+                Object newValue = newValues[colIndex];
+                if (newValue instanceof Comparable && !newValue.equals(oldValues[colIndex])) {
+                    RecordId existingRid = searchInIndexTyped(index, (Comparable) newValue);
+                    if (existingRid != null && !existingRid.equals(rid)) {
+                        throw new IllegalArgumentException(
+                            "Duplicate key '" + newValue + "' in unique index '" +
+                            index.getIndexName() + "'"
+                        );
+                    }
+                }
+            }
+
+            if (!recordPage.update(rid.getSlotNumber(), newValues)) {
+                return false;
+            }
+
+            for (TableIndex<?> index : indexes) {
+                int colIndex = schema.getColumnIndex(index.getColumnName());
+                moveIndexEntryTyped(index, indexKey(oldValues[colIndex]), indexKey(newValues[colIndex]), rid);
+            }
+
+            touch();
+            return true;
+        } finally {
+            bufferPool.unpinBlock(block);
+        }
+    }
+
+    /**
+     * Deletes a record and removes its entries from every index.
+     *
+     * @param rid record to delete
+     * @return false when the slot was already empty
+     * @throws IOException when page operations fail
+     */
+    public boolean deleteRecord(RecordId rid) throws IOException {
+        Block block = rid.getBlockId();
+        Page page = bufferPool.pinBlock(block);
+
+        try {
+            SlottedRecordPage recordPage = new SlottedRecordPage(page, schema, block, bufferPool, getFreeSpaceMap());
+            Object[] oldValues = recordPage.getRecord(rid.getSlotNumber());
+            if (oldValues == null || !recordPage.delete(rid.getSlotNumber())) {
+                return false;
+            }
+
+            for (TableIndex<?> index : indexes) {
+                int colIndex = schema.getColumnIndex(index.getColumnName());
+                moveIndexEntryTyped(index, indexKey(oldValues[colIndex]), null, rid);
+            }
+
+            touch();
+            return true;
+        } finally {
+            bufferPool.unpinBlock(block);
+        }
+    }
+
+    /**
+     * Returns the value as an index key, or null for values that are not indexed.
+     */
+    private static Comparable indexKey(Object value) {
+        return value instanceof Comparable ? (Comparable) value : null;
+    }
+
+    /**
+     * Moves a record's entry in a typed index; a null key means no entry on that side.
+     *
+     * @param index target index
+     * @param oldKey key before the change
+     * @param newKey key after the change
+     * @param rid record identifier
+     * @param <K> key type
+     */
+    @SuppressWarnings("unchecked")
+    private <K extends Comparable<K>> void moveIndexEntryTyped(TableIndex<?> index, Comparable oldKey, Comparable newKey, RecordId rid) {
+        ((TableIndex<K>) index).update((K) oldKey, (K) newKey, rid);
+    }
+
     /**
      * Performs a typed index lookup using a comparable key.
      *
@@ -351,9 +706,65 @@ public class Table implements Iterable<Record> {
      *
      * @return physical file name
      */
-    private String getFileName() {
+    public String getFileName() {
         return tableName + ".tbl";
     }
+
+    /**
+     * Returns the number of blocks in the table file, including empty ones.
+     *
+     * @return block count
+     * @throws IOException when the file size cannot be read
+     */
+    public int getBlockCount() throws IOException {
+        return fileManager.getBlockCount(getFileName());
+    }
+
+    /**
+     * Returns the size of the table's blocks, which is the database page size.
+     *
+     * @return page size in bytes
+     */
+    public int getPageSize() {
+        return fileManager.getPageSize();
+    }
+
+    /**
+     * Returns the optimizer statistics collected by the last ANALYZE.
+     *
+     * @return statistics, or null when the table was never analyzed
+     */
+    public TableStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Replaces the optimizer statistics of this table.
+     *
+     * @param statistics freshly collected statistics
+     */
+    public void setStatistics(TableStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Derives the file name of an index on this table.
+     *
+     * @param indexName index name
+     * @return physical index file name
+     */
+    private String getIndexFileName(String indexName) {
+        return tableName + "_" + indexName + ".idx";
+    }
+
+    /**
+     * Returns the free-space map file name for this table.
+     *
+     * @return map file name
+     */
+    private String getFreeSpaceMapFileName() {
+        return tableName + ".fsm";
+    }
     
     /**
      * Hook for metadata updates after mutating operations.
@@ -375,6 +786,7 @@ public class Table implements Iterable<Record> {
     }
     
     private class TableIterator implements Iterator<Record> {
+        private final BufferRing ring = bufferPool.newBufferRing();
         private int currentBlockNum = 0;
         private List<RecordWithSlot> currentRecords = new ArrayList<>();
         private int currentRecordIndex = 0;
@@ -388,7 +800,8 @@ public class Table implements Iterable<Record> {
         }
         
         /**
-         * Loads records from the next block into memory for iteration.
+         * Loads records from the next non-empty block into memory for iteration. Empty
+         * blocks are skipped, since bulk loads grow the file by whole extents.
          */
         private void loadNextBlock() {
             currentRecords.clear();
@@ -398,15 +811,18 @@ public class Table implements Iterable<Record> {
             
             try {
                 String filename = getFileName();
-                Block block = new Block(filename, currentBlockNum);
-                Page page = bufferPool.pinBlock(block);
-                
-                try {
-                    SlottedRecordPage recordPage = new SlottedRecordPage(page, schema, block, bufferPool);
-                    currentRecords = recordPage.getAllRecords();
-                    currentBlockNum++;
-                } finally {
-                    bufferPool.unpinBlock(block);
+                int blockCount = fileManager.getBlockCount(filename);
+                while (currentRecords.isEmpty() && currentBlockNum < blockCount) {
+                    Block block = new Block(filename, currentBlockNum);
+                    Page page = bufferPool.pinBlock(block, ring);
+                    
+                    try {
+                        SlottedRecordPage recordPage = new SlottedRecordPage(page, schema, block, bufferPool);
+                        currentRecords = recordPage.getAllRecords();
+                        currentBlockNum++;
+                    } finally {
+                        bufferPool.unpinBlock(block);
+                    }
                 }
             } catch (Exception e) {
                 hasMoreBlocks = false;
@@ -0,0 +1,110 @@
+package lite.sqlite.server.wal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import lite.sqlite.server.storage.Block;
+
+/**
+ * One redo entry: a record-level change to a slot of a slotted record page.
+ *
+ * <p>The LSN of a record is the log position just past its end, so a page whose LSN is at
+ * least a record's LSN already contains that change, and flushing the log up to a page's
+ * LSN makes every change on it durable.
+ */
+public final class LogRecord {
+
+    public enum Type {
+        INSERT(1),
+        UPDATE(2),
+        DELETE(3);
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        static Type fromCode(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown log record type: " + code);
+        }
+    }
+
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final long lsn;
+    private final Type type;
+    private final Block block;
+    private final int slot;
+    private final byte[] data;
+
+    public LogRecord(long lsn, Type type, Block block, int slot, byte[] data) {
+        this.lsn = lsn;
+        this.type = type;
+        this.block = block;
+        this.slot = slot;
+        this.data = data == null ? NO_DATA : data;
+    }
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Block getBlock() {
+        return block;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Serialized record bytes written by the change; empty for deletes.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    static int payloadSize(Block block, byte[] data) {
+        int nameLength = block.getFileName().getBytes(StandardCharsets.UTF_8).length;
+        return 1 + Short.BYTES + nameLength + Integer.BYTES * 3 + (data == null ? 0 : data.length);
+    }
+
+    static void writePayload(ByteBuffer target, Type type, Block block, int slot, byte[] data) {
+        byte[] name = block.getFileName().getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = data == null ? NO_DATA : data;
+        target.put(type.code);
+        target.putShort((short) name.length);
+        target.put(name);
+        target.putInt(block.getBlockNum());
+        target.putInt(slot);
+        target.putInt(bytes.length);
+        target.put(bytes);
+    }
+
+    static LogRecord readPayload(long lsn, ByteBuffer source) {
+        Type type = Type.fromCode(source.get());
+        byte[] name = new byte[source.getShort()];
+        source.get(name);
+        int blockNum = source.getInt();
+        int slot = source.getInt();
+        byte[] data = new byte[source.getInt()];
+        source.get(data);
+        return new LogRecord(lsn, type, new Block(new String(name, StandardCharsets.UTF_8), blockNum), slot, data);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LogRecord{lsn=%d, type=%s, block=%s, slot=%d, bytes=%d}",
+            lsn, type, block, slot, data.length);
+    }
+}
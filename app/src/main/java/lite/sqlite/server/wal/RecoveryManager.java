@@ -0,0 +1,64 @@
+package lite.sqlite.server.wal;
+
+import java.io.IOException;
+import java.util.List;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.filemanager.FileManager;
+import lite.sqlite.server.storage.record.SlottedRecordPage;
+
+/**
+ * Brings table files up to date with the log after an unclean shutdown.
+ *
+ * <p>Every record after the last checkpoint is redone on its page unless the page LSN shows
+ * the change already reached disk. The repaired pages are then written and forced, and a
+ * new checkpoint is taken so the next startup has nothing to replay.
+ */
+public class RecoveryManager {
+
+    private final WriteAheadLog writeAheadLog;
+    private final BufferPool bufferPool;
+    private final FileManager fileManager;
+
+    public RecoveryManager(WriteAheadLog writeAheadLog, BufferPool bufferPool, FileManager fileManager) {
+        this.writeAheadLog = writeAheadLog;
+        this.bufferPool = bufferPool;
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * Replays the log from the last checkpoint. Must run before the log is attached to the
+     * buffer pool and before any statement touches the table files.
+     *
+     * @return number of changes that had to be re-applied
+     */
+    public int recover() throws IOException {
+        List<LogRecord> records = writeAheadLog.readFrom(writeAheadLog.getCheckpointLsn());
+        int applied = 0;
+        for (LogRecord record : records) {
+            Block block = record.getBlock();
+            // Blocks appended just before the crash may not have reached the file.
+            while (fileManager.getBlockCount(block.getFileName()) <= block.getBlockNum()) {
+                fileManager.append(block.getFileName());
+            }
+            Page page = bufferPool.pinBlock(block);
+            try {
+                SlottedRecordPage recordPage = new SlottedRecordPage(page, null, block, bufferPool);
+                if (recordPage.redo(record)) {
+                    applied++;
+                }
+            } finally {
+                bufferPool.unpinBlock(block);
+            }
+        }
+
+        if (applied > 0) {
+            bufferPool.flushAll();
+            fileManager.sync();
+        }
+        writeAheadLog.checkpoint(writeAheadLog.getEndLsn());
+        return applied;
+    }
+}
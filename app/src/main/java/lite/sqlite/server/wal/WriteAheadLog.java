@@ -0,0 +1,447 @@
+package lite.sqlite.server.wal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import lite.sqlite.server.storage.Block;
+
+/**
+ * Append-only redo log shared by every table file in a database directory.
+ *
+ * <p>Changes are appended to an in-memory buffer and only reach the file when someone
+ * flushes. Flushes are serialized: the committer that gets in writes and forces everything
+ * appended so far, and committers queued behind it usually find their records already
+ * durable, so concurrent commits share one fsync. An optional group commit window makes
+ * the flushing committer wait briefly for more records before it forces.
+ *
+ * <p>Layout: a header with the magic number, the LSN of the first byte in the file and the
+ * redo LSN of the last checkpoint, followed by entries of {@code [length][crc][payload]}.
+ * A torn or corrupt tail found on open is cut off.
+ *
+ * <p>A checkpoint gives back the space below its redo LSN. When records follow it, they are
+ * copied to {@code wal.log.tmp}, which is forced and renamed over the log.
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    public static final String FILE_NAME = "wal.log";
+    private static final String REWRITE_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x4C57414C;
+    private static final int BASE_LSN_OFFSET = 8;
+    private static final int CHECKPOINT_LSN_OFFSET = 16;
+    private static final int HEADER_SIZE = 24;
+    private static final int ENTRY_HEADER_SIZE = Integer.BYTES * 2;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_THRESHOLD = 1024 * 1024;
+
+    private final Path path;
+    private final long groupCommitWindowNanos;
+    private final Object appendLock = new Object();
+    private final Object flushLock = new Object();
+    private final LongAdder appendedRecords = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder forces = new LongAdder();
+
+    // Guarded by appendLock.
+    private ByteBuffer appendBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long bufferStartLsn;
+    // Guarded by flushLock; a checkpoint may replace the channel.
+    private FileChannel channel;
+    private ByteBuffer spareBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long baseLsn;
+
+    private volatile long endLsn;
+    private volatile long flushedLsn;
+    private volatile long checkpointLsn;
+
+    private WriteAheadLog(Path path, FileChannel channel, long groupCommitWindowNanos) {
+        this.path = path;
+        this.channel = channel;
+        this.groupCommitWindowNanos = groupCommitWindowNanos;
+    }
+
+    /**
+     * Opens (or creates) the log in a database directory.
+     *
+     * @param dbDirectory directory holding the table files
+     * @param groupCommitWindowMicros how long a flushing committer waits for others; 0 to force immediately
+     */
+    public static WriteAheadLog open(File dbDirectory, long groupCommitWindowMicros) throws IOException {
+        if (!dbDirectory.exists()) {
+            dbDirectory.mkdirs();
+        }
+        Path path = new File(dbDirectory, FILE_NAME).toPath();
+        // Left by a checkpoint that crashed before its rename; the log itself is complete.
+        Files.deleteIfExists(rewritePath(path));
+        return open(path, FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE), groupCommitWindowMicros);
+    }
+
+    /**
+     * Opens the log stored in {@code channel}, an open channel over {@code path}, which the
+     * log then owns.
+     */
+    static WriteAheadLog open(Path path, FileChannel channel, long groupCommitWindowMicros) throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(path, channel, TimeUnit.MICROSECONDS.toNanos(groupCommitWindowMicros));
+        try {
+            wal.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return wal;
+    }
+
+    private void load() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            baseLsn = 0;
+            checkpointLsn = 0;
+            channel.truncate(0);
+            writeHeader();
+            channel.force(true);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a write-ahead log: " + FILE_NAME);
+            }
+            baseLsn = header.getLong(BASE_LSN_OFFSET);
+            checkpointLsn = header.getLong(CHECKPOINT_LSN_OFFSET);
+        }
+
+        long validEnd = scan(HEADER_SIZE, null);
+        if (validEnd < channel.size()) {
+            // A crash interrupted the last write: drop the partial entry so new ones follow valid data.
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        endLsn = toLsn(validEnd);
+        flushedLsn = endLsn;
+        bufferStartLsn = endLsn;
+    }
+
+    /**
+     * Appends a change to the log buffer. The change is durable only after a flush covering
+     * the returned LSN.
+     *
+     * @return LSN of the record, i.e. the log position just past it
+     */
+    public long append(LogRecord.Type type, Block block, int slot, byte[] data) {
+        int payloadSize = LogRecord.payloadSize(block, data);
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payloadSize);
+        entry.position(ENTRY_HEADER_SIZE);
+        LogRecord.writePayload(entry, type, block, slot, data);
+        CRC32 crc = new CRC32();
+        crc.update(entry.array(), ENTRY_HEADER_SIZE, payloadSize);
+        entry.putInt(0, payloadSize);
+        entry.putInt(Integer.BYTES, (int) crc.getValue());
+        entry.flip();
+
+        long lsn;
+        long buffered;
+        synchronized (appendLock) {
+            if (appendBuffer.remaining() < entry.remaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(appendBuffer.capacity() * 2,
+                    appendBuffer.position() + entry.remaining()));
+                appendBuffer.flip();
+                grown.put(appendBuffer);
+                appendBuffer = grown;
+            }
+            appendBuffer.put(entry);
+            lsn = endLsn + entry.capacity();
+            endLsn = lsn;
+            buffered = lsn - bufferStartLsn;
+        }
+        appendedRecords.increment();
+
+        if (buffered >= FLUSH_THRESHOLD) {
+            try {
+                flush(lsn);
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot write write-ahead log", e);
+            }
+        }
+        return lsn;
+    }
+
+    /**
+     * Makes every record up to the current end of the log durable.
+     */
+    public void commit() throws IOException {
+        commits.increment();
+        flush(endLsn);
+    }
+
+    /**
+     * Makes every record with an LSN up to {@code lsn} durable. When the write or the force
+     * fails, the records go back to the front of the log buffer, so the next flush writes
+     * them again at the same position instead of leaving a hole.
+     */
+    public void flush(long lsn) throws IOException {
+        if (lsn <= flushedLsn) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (lsn <= flushedLsn) {
+                // The previous flusher forced our records together with its own.
+                return;
+            }
+            if (groupCommitWindowNanos > 0) {
+                LockSupport.parkNanos(groupCommitWindowNanos);
+            }
+
+            ByteBuffer pending;
+            long startLsn;
+            long targetLsn;
+            synchronized (appendLock) {
+                pending = appendBuffer;
+                appendBuffer = spareBuffer;
+                startLsn = bufferStartLsn;
+                targetLsn = endLsn;
+                bufferStartLsn = targetLsn;
+            }
+
+            pending.flip();
+            boolean written = false;
+            try {
+                long position = HEADER_SIZE + (startLsn - baseLsn);
+                while (pending.hasRemaining()) {
+                    position += channel.write(pending, position);
+                }
+                channel.force(false);
+                written = true;
+            } finally {
+                if (!written) {
+                    restoreUnwritten(pending, startLsn);
+                }
+            }
+            pending.clear();
+            spareBuffer = pending;
+            flushedLsn = targetLsn;
+            forces.increment();
+        }
+    }
+
+    /**
+     * Puts the records of a failed flush back in front of those appended since, and gives
+     * the flusher a spare buffer that appenders are not filling. Called under the flush lock.
+     */
+    private void restoreUnwritten(ByteBuffer pending, long startLsn) {
+        synchronized (appendLock) {
+            ByteBuffer appended = appendBuffer;
+            pending.position(0);
+            appended.flip();
+            ByteBuffer restored = ByteBuffer.allocate(Math.max(INITIAL_BUFFER_SIZE,
+                pending.remaining() + appended.remaining()));
+            restored.put(pending).put(appended);
+            appendBuffer = restored;
+            bufferStartLsn = startLsn;
+            appended.clear();
+            spareBuffer = appended;
+        }
+    }
+
+    /**
+     * Records that every change below {@code redoLsn} is on disk, so recovery can start
+     * there, and reclaims the log below it. When nothing was logged after it, the log file
+     * is emptied. Otherwise, once the records below it take at least as much space as those
+     * after, the file is rewritten to start at it; copying never costs more than it frees.
+     */
+    public void checkpoint(long redoLsn) throws IOException {
+        flush(redoLsn);
+        synchronized (flushLock) {
+            synchronized (appendLock) {
+                checkpointLsn = redoLsn;
+                if (endLsn == redoLsn && flushedLsn == redoLsn) {
+                    baseLsn = redoLsn;
+                    channel.truncate(HEADER_SIZE);
+                    writeHeader();
+                    channel.force(true);
+                    return;
+                }
+            }
+            // Appenders only fill the buffer, which reaches the file under the flush lock.
+            if (redoLsn > baseLsn && redoLsn - baseLsn >= flushedLsn - redoLsn) {
+                rewriteFrom(redoLsn);
+            } else {
+                writeHeader();
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Replaces the log file with one that starts at {@code redoLsn}. The durable records
+     * from there on are copied to a temporary file, which is forced and renamed over the
+     * log; a crash before the rename leaves the old file, which still holds them all.
+     * Buffered records are written to the new file by later flushes. The channel is closed
+     * before the rename, which Windows requires. Called under the flush lock.
+     */
+    private void rewriteFrom(long redoLsn) throws IOException {
+        Path rewrite = rewritePath(path);
+        long start = HEADER_SIZE + (redoLsn - baseLsn);
+        long length = flushedLsn - redoLsn;
+        try (FileChannel out = FileChannel.open(rewrite,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = header(redoLsn, redoLsn);
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            long copied = 0;
+            while (copied < length) {
+                copied += channel.transferTo(start + copied, length - copied, out);
+            }
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(rewrite);
+            throw e;
+        }
+
+        channel.close();
+        boolean moved = false;
+        try {
+            Files.move(rewrite, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (moved) {
+                baseLsn = redoLsn;
+            }
+        }
+        forceDirectory(path.toAbsolutePath().getParent());
+    }
+
+    private static Path rewritePath(Path path) {
+        return path.resolveSibling(path.getFileName() + REWRITE_SUFFIX);
+    }
+
+    /**
+     * Forces a directory so that a rename in it survives a crash. Windows cannot open a
+     * directory as a channel; its file system journals the rename itself.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on this platform.
+        }
+    }
+
+    /**
+     * Reads the durable records after {@code fromLsn}, in log order.
+     */
+    public List<LogRecord> readFrom(long fromLsn) throws IOException {
+        List<LogRecord> records = new ArrayList<>();
+        synchronized (flushLock) {
+            long start = HEADER_SIZE + Math.max(0, fromLsn - baseLsn);
+            scan(start, records);
+        }
+        return records;
+    }
+
+    /**
+     * Walks entries from a file position, collecting them when {@code sink} is not null.
+     *
+     * @return file position just past the last valid entry
+     */
+    private long scan(long position, List<LogRecord> sink) throws IOException {
+        long size = channel.size();
+        ByteBuffer entryHeader = ByteBuffer.allocate(ENTRY_HEADER_SIZE);
+        while (position + ENTRY_HEADER_SIZE <= size) {
+            entryHeader.clear();
+            readFully(entryHeader, position);
+            int payloadSize = entryHeader.getInt(0);
+            if (payloadSize <= 0 || position + ENTRY_HEADER_SIZE + payloadSize > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+            readFully(payload, position + ENTRY_HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != entryHeader.getInt(Integer.BYTES)) {
+                break;
+            }
+            position += ENTRY_HEADER_SIZE + payloadSize;
+            if (sink != null) {
+                payload.flip();
+                sink.add(LogRecord.readPayload(toLsn(position), payload));
+            }
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of write-ahead log at " + position);
+            }
+            position += read;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        channel.write(header(baseLsn, checkpointLsn), 0);
+    }
+
+    private static ByteBuffer header(long baseLsn, long checkpointLsn) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(0, MAGIC);
+        header.putLong(BASE_LSN_OFFSET, baseLsn);
+        header.putLong(CHECKPOINT_LSN_OFFSET, checkpointLsn);
+        return header;
+    }
+
+    private long toLsn(long filePosition) {
+        return baseLsn + (filePosition - HEADER_SIZE);
+    }
+
+    public long getEndLsn() {
+        return endLsn;
+    }
+
+    public long getFlushedLsn() {
+        return flushedLsn;
+    }
+
+    public long getCheckpointLsn() {
+        return checkpointLsn;
+    }
+
+    public long getAppendedRecords() {
+        return appendedRecords.sum();
+    }
+
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    /**
+     * Number of fsyncs issued for commits and flushes; lower than {@link #getCommits()}
+     * when group commit batched concurrent committers.
+     */
+    public long getForces() {
+        return forces.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush(endLsn);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package lite.sqlite.server.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.model.domain.clause.ComparisonOperator;
+import lite.sqlite.server.model.domain.clause.DBConstant;
+import lite.sqlite.server.model.domain.clause.DBParameter;
+import lite.sqlite.server.model.domain.clause.DBPredicate;
+import lite.sqlite.server.model.domain.clause.DBTerm;
+import lite.sqlite.server.statistics.StatisticsCollector;
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Record;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.table.Table;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Execution Operator Tests")
+public class OperatorTest {
+
+    private static final int ROWS = 1000;
+
+    @TempDir
+    Path tempDir;
+
+    private BasicFileManager fileManager;
+    private BufferPool bufferPool;
+    private Table table;
+    private QueryPlanner planner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileManager = new BasicFileManager(tempDir.toFile());
+        bufferPool = new BufferPool(32, fileManager, 1);
+        Schema schema = new Schema();
+        schema.addColumn("id", DataType.INTEGER);
+        schema.addColumn("bucket", DataType.INTEGER);
+        schema.addColumn("name", DataType.VARCHAR, 30);
+        table = new Table(schema, bufferPool, "items", fileManager);
+        fileManager.initializePhysicalTable(table);
+        List<Record> records = new ArrayList<>();
+        for (int id = 0; id < ROWS; id++) {
+            records.add(new Record(new Object[] {id, id % 7, "item_" + id}));
+        }
+        table.bulkInsert(records.iterator());
+        planner = new QueryPlanner(bufferPool, fileManager);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        bufferPool.close();
+        fileManager.close();
+    }
+
+    private static DBPredicate predicate(DBTerm... terms) {
+        DBPredicate predicate = new DBPredicate();
+        for (DBTerm term : terms) {
+            predicate.add(term);
+        }
+        return predicate;
+    }
+
+    private static DBTerm term(String field, ComparisonOperator operator, Object value) {
+        return new DBTerm(field, operator, new DBConstant(value));
+    }
+
+    private static List<Row> pull(Operator operator) {
+        List<Row> rows = new ArrayList<>();
+        try (operator) {
+            operator.open();
+            Row row;
+            while ((row = operator.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static List<Row> push(Operator operator, int batchSize) {
+        List<Row> rows = new ArrayList<>();
+        try (operator) {
+            operator.open();
+            operator.push(batchSize, batch -> {
+                assertTrue(batch.size() <= batchSize);
+                rows.addAll(batch);
+                return true;
+            });
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Scan, filter and project give the same rows pulled or pushed")
+    void testPullAndPushAgree() {
+        DBPredicate where = predicate(term("bucket", ComparisonOperator.EQUALS, 3));
+        List<Row> pulled = pull(planner.planSelect(table, List.of("name", "id"), where));
+        List<Row> pushed = push(planner.planSelect(table, List.of("name", "id"), where), 10);
+
+        assertEquals(143, pulled.size());
+        assertEquals(pulled.size(), pushed.size());
+        for (int i = 0; i < pulled.size(); i++) {
+            assertArrayEquals(pulled.get(i).getValues(), pushed.get(i).getValues());
+            assertEquals(pulled.get(i).getRecordId(), pushed.get(i).getRecordId());
+        }
+        assertEquals("item_3", pulled.get(0).getString("name"));
+        assertEquals(3, pulled.get(0).getInt("id"));
+        assertEquals(0, bufferPool.getPinnedFrames(), "Closing the plan unpins the last page");
+    }
+
+    @Test
+    @DisplayName("A filter over a table scan is evaluated on page bytes when it can be")
+    void testPushedDownFilter() {
+        List<Row> all = pull(new TableScan(table, bufferPool, fileManager));
+        List<DBPredicate> pushable = List.of(
+            predicate(term("bucket", ComparisonOperator.EQUALS, 3), term("id", ComparisonOperator.GREATER_THAN, 500)),
+            predicate(term("name", ComparisonOperator.LESS_THAN_OR_EQUALS, "item_2")),
+            predicate(term("name", ComparisonOperator.GREATER_THAN_OR_EQUALS, "item_99"),
+                term("id", ComparisonOperator.LESS_THAN, 995)),
+            predicate(term("name", ComparisonOperator.EQUALS, "item_42")));
+        List<DBPredicate> notPushable = List.of(
+            predicate(term("name", ComparisonOperator.LIKE, "M_1")),
+            predicate(term("name", ComparisonOperator.GREATER_THAN, "item_é")),
+            predicate(term("id", ComparisonOperator.EQUALS, "42")),
+            predicate(term("missing", ComparisonOperator.EQUALS, 1)));
+
+        for (DBPredicate where : pushable) {
+            Filter filter = new Filter(new TableScan(table, bufferPool, fileManager), where);
+            assertTrue(filter.isPushedDown(), where.toString());
+            assertSameRows(all.stream().filter(where::isSatisfied).toList(), pull(filter));
+        }
+        for (DBPredicate where : notPushable) {
+            Filter filter = new Filter(new TableScan(table, bufferPool, fileManager), where);
+            assertFalse(filter.isPushedDown(), where.toString());
+            assertSameRows(all.stream().filter(where::isSatisfied).toList(), pull(filter));
+        }
+
+        Operator plan = planner.planSelect(table, List.of("name"),
+            predicate(term("bucket", ComparisonOperator.EQUALS, 3)));
+        List<Row> projected = push(plan, 16);
+        assertEquals(143, projected.size());
+        assertEquals("item_3", projected.get(0).getValue(0));
+        assertEquals(0, bufferPool.getPinnedFrames());
+    }
+
+    @Test
+    @DisplayName("A pushed-down filter allocates next to nothing per rejected row")
+    void testRejectedRowsDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        DBPredicate where = predicate(term("name", ComparisonOperator.EQUALS, "none"), term("id", ComparisonOperator.GREATER_THAN, 10));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(0, pull(new Filter(new TableScan(table, bufferPool, fileManager), where)).size());
+        }
+
+        int scans = 50;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < scans; i++) {
+            pull(new Filter(new TableScan(table, bufferPool, fileManager), where));
+        }
+        long perRow = (threads.getCurrentThreadAllocatedBytes() - before) / ((long) scans * ROWS);
+        assertTrue(perRow < 16, "Allocated " + perRow + " bytes per rejected row");
+    }
+
+    private static void assertSameRows(List<Row> expected, List<Row> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i).getValues(), actual.get(i).getValues());
+            assertEquals(expected.get(i).getRecordId(), actual.get(i).getRecordId());
+        }
+    }
+
+    @Test
+    @DisplayName("The planner picks an index scan for bounds on an indexed column")
+    void testIndexScanPlan() throws Exception {
+        table.createTypedIndex("id", "items", "idx_items_id", true, DataType.INTEGER);
+        table.setStatistics(new StatisticsCollector(32, 10_000).analyze(table));
+        DBPredicate where = predicate(
+            term("id", ComparisonOperator.GREATER_THAN_OR_EQUALS, 100),
+            term("id", ComparisonOperator.LESS_THAN, 110),
+            term("bucket", ComparisonOperator.EQUALS, 2));
+        Operator plan = planner.planAccess(table, where);
+        assertTrue(plan instanceof Filter);
+        assertTrue(((Filter) plan).getChild() instanceof IndexScan, "Got " + ((Filter) plan).getChild());
+
+        List<Row> rows = pull(plan);
+        assertEquals(2, rows.size());
+        assertEquals(100, rows.get(0).getValue(0));
+        assertEquals(107, rows.get(1).getValue(0));
+
+        Operator scan = planner.planAccess(table, predicate(term("name", ComparisonOperator.EQUALS, "item_5")));
+        assertTrue(((Filter) scan).getChild() instanceof TableScan, "No index on name");
+    }
+
+    @Test
+    @DisplayName("The cheapest access path wins once the table is analyzed")
+    void testCostBasedAccessPaths() throws Exception {
+        table.createTypedIndex("id", "items", "idx_items_id", true, DataType.INTEGER);
+        table.createTypedIndex("bucket", "items", "idx_items_bucket", false, DataType.INTEGER);
+
+        AccessPath probe = planner.chooseAccessPath(table, predicate(term("id", ComparisonOperator.EQUALS, 5)));
+        assertEquals(AccessPath.Kind.UNIQUE_PROBE, probe.getKind(), "Unique equality needs no statistics");
+
+        table.setStatistics(new StatisticsCollector(32, 10_000).analyze(table));
+        AccessPath bucket = planner.chooseAccessPath(table, predicate(term("bucket", ComparisonOperator.EQUALS, 3)));
+        assertEquals(AccessPath.Kind.FULL_SCAN, bucket.getKind(), "A seventh of the rows is cheaper to scan");
+
+        AccessPath range = planner.chooseAccessPath(table, predicate(
+            term("id", ComparisonOperator.GREATER_THAN_OR_EQUALS, 100),
+            term("id", ComparisonOperator.LESS_THAN, 200)));
+        assertEquals(AccessPath.Kind.RANGE_SCAN, range.getKind());
+        assertEquals(100, range.getRows(), 15, "Histogram estimate");
+
+        AccessPath empty = planner.chooseAccessPath(table, predicate(term("bucket", ComparisonOperator.EQUALS, 9)));
+        assertEquals(AccessPath.Kind.INDEX_SCAN, empty.getKind(), "Values past the max match nothing");
+    }
+
+    @Test
+    @DisplayName("Conjunctions on scattered indexed columns intersect record ids")
+    void testIndexIntersection() throws Exception {
+        Schema schema = new Schema();
+        schema.addColumn("a", DataType.INTEGER);
+        schema.addColumn("b", DataType.INTEGER);
+        Table events = new Table(schema, bufferPool, "events", fileManager);
+        fileManager.initializePhysicalTable(events);
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            records.add(new Record(new Object[] {(int) ((i * 7919L) % 20_000), i % 100}));
+        }
+        events.bulkInsert(records.iterator());
+        events.createTypedIndex("a", "events", "idx_events_a", false, DataType.INTEGER);
+        events.createTypedIndex("b", "events", "idx_events_b", false, DataType.INTEGER);
+        events.setStatistics(new StatisticsCollector(32, 10_000).analyze(events));
+
+        DBPredicate where = predicate(
+            term("a", ComparisonOperator.LESS_THAN, 2000),
+            term("b", ComparisonOperator.EQUALS, 7));
+        AccessPath path = planner.chooseAccessPath(events, where);
+        assertEquals(AccessPath.Kind.INDEX_INTERSECTION, path.getKind(), "Got " + path);
+        IndexIntersectionScan intersection = (IndexIntersectionScan) path.getOperator();
+        assertEquals("b", intersection.getInputs().get(0).getIndex().getColumnName(), "Most selective first");
+
+        List<Row> expected = pull(new Filter(new TableScan(events, bufferPool, fileManager), where));
+        List<Row> actual = pull(planner.planAccess(events, where));
+        assertEquals(20, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getRecordId(), actual.get(i).getRecordId(), "Fetched in block order");
+        }
+
+        DBPredicate template = predicate(
+            term("a", ComparisonOperator.LESS_THAN, new DBParameter(0)),
+            term("b", ComparisonOperator.EQUALS, new DBParameter(1)));
+        GenericAccessPath generic = planner.chooseGenericAccessPath(events, template);
+        assertEquals("b", generic.getColumns().get(0), "Got " + generic);
+        assertEquals(expected.size(), pull(planner.planAccess(events, where, generic)).size());
+        assertEquals(0, bufferPool.getPinnedFrames());
+
+        IndexIntersectionScan dense = new IndexIntersectionScan(events, bufferPool, List.of(
+            new IndexScan(events, events.findIndexForColumn("a"), null, false, 10_000, false),
+            new IndexScan(events, events.findIndexForColumn("b"), null, false, 50, false)));
+        Set<Block> blocks = new HashSet<>();
+        int pins;
+        try (dense) {
+            dense.open();
+            int before = bufferPool.getHits() + bufferPool.getMisses();
+            Row row;
+            while ((row = dense.next()) != null) {
+                blocks.add(row.getRecordId().getBlockId());
+            }
+            pins = bufferPool.getHits() + bufferPool.getMisses() - before;
+        }
+        assertTrue(blocks.size() < 5000, "Several ids per block, got " + blocks.size());
+        assertEquals(blocks.size(), pins, "Each block pinned once per run of ids");
+        assertEquals(0, bufferPool.getPinnedFrames());
+    }
+
+    @Test
+    @DisplayName("Limit stops pulling from its child, with and without an offset")
+    void testLimit() {
+        List<Row> rows = pull(new Limit(new TableScan(table, bufferPool, fileManager), 5, 10));
+        assertEquals(5, rows.size());
+        assertEquals(10, rows.get(0).getValue(0));
+
+        List<Row> pushed = push(new Limit(new TableScan(table, bufferPool, fileManager), 25, 3), 10);
+        assertEquals(25, pushed.size());
+        assertEquals(3, pushed.get(0).getValue(0));
+        assertEquals(27, pushed.get(24).getValue(0));
+        assertEquals(0, bufferPool.getPinnedFrames());
+    }
+
+    @Test
+    @DisplayName("Sort orders by several columns")
+    void testSort() {
+        Operator sort = new Sort(new Limit(new TableScan(table, bufferPool, fileManager), 20),
+            List.of("bucket", "id"), List.of(true, false));
+        List<Row> rows = pull(sort);
+        assertEquals(20, rows.size());
+        assertEquals(14, rows.get(0).getValue(0));
+        assertEquals(7, rows.get(1).getValue(0));
+        assertEquals(0, rows.get(2).getValue(0));
+        assertEquals(6, rows.get(19).getValue(0));
+    }
+
+    @Test
+    @DisplayName("Aggregate groups rows and computes COUNT, SUM, MIN and MAX")
+    void testAggregate() {
+        Operator aggregate = new Aggregate(new TableScan(table, bufferPool, fileManager), List.of("bucket"), List.of(
+            new Aggregate.Call(Aggregate.Function.COUNT, null, "n"),
+            new Aggregate.Call(Aggregate.Function.SUM, "id", "total"),
+            new Aggregate.Call(Aggregate.Function.MIN, "name", "first"),
+            new Aggregate.Call(Aggregate.Function.MAX, "id", "last")));
+        assertEquals(List.of("bucket", "n", "total", "first", "last"), aggregate.getSchema().getColumnNames());
+
+        List<Row> rows = pull(aggregate);
+        assertEquals(7, rows.size());
+        Row bucketZero = rows.get(0);
+        assertEquals(0, bucketZero.getValue(0));
+        assertEquals(143, bucketZero.getValue(1));
+        int sum = 0;
+        for (int id = 0; id < ROWS; id += 7) {
+            sum += id;
+        }
+        assertEquals(sum, bucketZero.getValue(2));
+        assertEquals("item_0", bucketZero.getValue(3));
+        assertEquals(994, bucketZero.getValue(4));
+
+        List<Row> empty = pull(new Aggregate(
+            new Filter(new TableScan(table, bufferPool, fileManager), predicate(term("id", ComparisonOperator.LESS_THAN, 0))),
+            List.of(), List.of(new Aggregate.Call(Aggregate.Function.COUNT, null, "n"))));
+        assertEquals(1, empty.size());
+        assertEquals(0, empty.get(0).getValue(0));
+    }
+}
@@ -0,0 +1,107 @@
+package lite.sqlite.server.parser;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import lite.sqlite.server.model.domain.clause.DBConstant;
+import lite.sqlite.server.model.domain.commands.CreateIndexData;
+import lite.sqlite.server.model.domain.commands.QueryData;
+import lite.sqlite.server.model.domain.commands.UpdateData;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Fast SQL Parser Tests")
+public class FastSqlParserTest {
+
+    private static void assertSameAsGrammar(String sql) {
+        Object fast = FastSqlParser.parse(sql);
+        assertNotNull(fast, "fast path should accept: " + sql);
+        Object grammar = ParserImpl.parseWithGrammar(sql);
+        assertEquals(grammar.getClass(), fast.getClass(), sql);
+        if (fast instanceof CreateIndexData) {
+            CreateIndexData a = (CreateIndexData) grammar;
+            CreateIndexData b = (CreateIndexData) fast;
+            assertEquals(List.of(a.getIdxname(), a.getTblname(), a.getFieldname(), a.isUnique()),
+                List.of(b.getIdxname(), b.getTblname(), b.getFieldname(), b.isUnique()), sql);
+        } else {
+            assertEquals(grammar.toString(), fast.toString(), sql);
+        }
+    }
+
+    @Test
+    @DisplayName("Statements in the subset parse to the same commands as the grammar")
+    void testSameCommands() {
+        for (String sql : List.of(
+            "SELECT * FROM t",
+            "select a, b from t where a = 1 and b > 'x'",
+            "SELECT t.a FROM t WHERE t.a <= -5;",
+            "SELECT a FROM t WHERE a BETWEEN 1 AND 5 AND b < 'z z'",
+            "SELECT a FROM t WHERE a >= 1 AND b = 'it''s'",
+            "SELECT a FROM t WHERE a = ? AND b = ?",
+            "EXPLAIN SELECT a FROM t WHERE a = 3",
+            "INSERT INTO t (id, name) VALUES (1, 'a')",
+            "INSERT INTO t (id, name) VALUES (-1, 'x''y'), (2, ' b '), (?, ?)",
+            "UPDATE t SET a = 1, b = 'x y' WHERE id = 3",
+            "UPDATE t SET b = 'it''s', a = -2",
+            "UPDATE t SET a = ? WHERE id = ?",
+            "DELETE FROM t WHERE id = 1 AND name = 'a'",
+            "DELETE FROM t",
+            "CREATE TABLE t (id INTEGER, name VARCHAR(20))",
+            "create table t (id INT, name varchar ( 20 ))",
+            "CREATE INDEX idx_a ON t (a)",
+            "CREATE UNIQUE INDEX idx_ab ON t (a DESC, b)",
+            "ANALYZE TABLE t1, t2"
+        )) {
+            assertSameAsGrammar(sql);
+        }
+    }
+
+    @Test
+    @DisplayName("Constants are typed as the grammar types them")
+    void testConstantTypes() {
+        QueryData query = (QueryData) FastSqlParser.parse("SELECT a FROM t WHERE a = -5 AND b = '7'");
+        assertEquals(-5, query.getPredicate().getTerms().get(0).getRhsConstant().asJavaVal());
+        assertEquals("7", query.getPredicate().getTerms().get(1).getRhsConstant().asJavaVal());
+
+        UpdateData update = (UpdateData) FastSqlParser.parse("UPDATE t SET a = 4, b = 'x' WHERE id = ?");
+        assertEquals(List.of(4, "x"), update.getValues().stream().map(DBConstant::asJavaVal).toList());
+        assertEquals(0, update.getPredicate().getTerms().get(0).getRhsConstant().asParameter().getIndex());
+    }
+
+    @Test
+    @DisplayName("Statements outside the subset are left to the grammar")
+    void testFallback() {
+        for (String sql : List.of(
+            "SELECT a FROM t WHERE a = 1 OR b = 2",
+            "SELECT a FROM t WHERE a <> 1",
+            "SELECT a FROM t WHERE name LIKE 'a%'",
+            "SELECT a FROM t WHERE (a = 1)",
+            "SELECT a FROM t WHERE a = b",
+            "SELECT a FROM t WHERE a = 1.5",
+            "SELECT a FROM t WHERE a = 2147483648",
+            "SELECT COUNT(*) FROM t",
+            "SELECT a FROM t ORDER BY a",
+            "SELECT a FROM t1, t2",
+            "SELECT `a` FROM `t`",
+            "INSERT INTO t VALUES (1, 'a')",
+            "INSERT INTO t (a) VALUES (NULL)",
+            "UPDATE t SET a = a + 1",
+            "CREATE TABLE t (id INTEGER PRIMARY KEY)",
+            "CREATE TABLE t (body TEXT)",
+            "SELECT FROM t",
+            "SELECT a FROM t WHERE",
+            "SELECT a FROM t; SELECT b FROM t"
+        )) {
+            assertNull(FastSqlParser.parse(sql), sql);
+        }
+    }
+
+    @Test
+    @DisplayName("ParserImpl falls back to the grammar")
+    void testParserImplFallback() {
+        String sql = "SELECT a FROM t WHERE a = 1.5";
+        assertEquals(ParserImpl.parseWithGrammar(sql).toString(), new ParserImpl(sql).command().toString());
+    }
+}
@@ -0,0 +1,118 @@
+package lite.sqlite.server.parser;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import lite.sqlite.server.model.domain.commands.InsertData;
+import lite.sqlite.server.model.domain.commands.QueryData;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Statement Cache Tests")
+public class StatementCacheTest {
+
+    private final AtomicInteger parses = new AtomicInteger();
+
+    private StatementCache cache(int capacity) {
+        return new StatementCache(capacity, sql -> {
+            parses.incrementAndGet();
+            return new ParserImpl(sql).command();
+        });
+    }
+
+    private static String fresh(String sql) {
+        return String.valueOf(new ParserImpl(sql).command());
+    }
+
+    @Test
+    @DisplayName("Literals are parameterized out of the shape")
+    void testNormalize() {
+        SqlNormalizer.NormalizedSql sql = SqlNormalizer.normalize(
+            "SELECT  name FROM t1\n WHERE id = 42 AND tag = 'a b' AND ratio > 1.5");
+        assertEquals("SELECT name FROM t1 WHERE id = ? AND tag = '?' AND ratio > 1.5", sql.getShape());
+        assertEquals(List.of("42", "a b"), sql.getLiterals());
+        assertEquals("SELECT name FROM t1 WHERE id = '__param_0__' AND tag = '__param_1__' AND ratio > 1.5",
+            sql.getProbeSql());
+        assertEquals(0, SqlNormalizer.markerIndex("__param_0__"));
+        assertEquals(-1, SqlNormalizer.markerIndex("param"));
+
+        assertNull(SqlNormalizer.normalize("SELECT a FROM t WHERE id = ?"), "Placeholders are not literals");
+        assertNull(SqlNormalizer.normalize("SELECT a FROM t WHERE name = 'it''s'"), "Escaped quotes are parsed");
+    }
+
+    @Test
+    @DisplayName("Statements of one shape are parsed once and bound to their own constants")
+    void testHitsBindConstants() {
+        StatementCache cache = cache(16);
+        String[] statements = {
+            "SELECT name FROM users WHERE id = 1",
+            "SELECT name FROM users WHERE id = 2",
+            "SELECT name FROM users WHERE id = 3 ",
+            "INSERT INTO users (id, name) VALUES (1, 'ann'), (2, 'bob')",
+            "INSERT INTO users (id, name) VALUES (7, 'cy'), (8, 'dee')",
+            "UPDATE users SET name = 'eve', age = 30 WHERE id >= 5 AND id < 9",
+            "UPDATE users SET name = 'fay', age = 31 WHERE id >= 6 AND id < 10",
+            "DELETE FROM users WHERE name = 'ann'",
+            "DELETE FROM users WHERE name = 'bob'"
+        };
+        for (String sql : statements) {
+            assertEquals(fresh(sql), String.valueOf(cache.parse(sql)), sql);
+        }
+        assertEquals(5, cache.getHits());
+        assertEquals(4, cache.getMisses());
+        assertEquals(4, cache.size());
+        assertEquals(8, parses.get(), "Each miss parses the statement and its probe");
+
+        QueryData query = (QueryData) cache.parse("SELECT name FROM users WHERE id = 9");
+        assertEquals(9, query.getPredicate().getTerms().get(0).getRhsConstant().getVal());
+        QueryData other = (QueryData) cache.parse("SELECT name FROM users WHERE id = 10");
+        assertNotSame(query.getPredicate(), other.getPredicate(), "Every hit gets its own command");
+        assertEquals(9, query.getPredicate().getTerms().get(0).getRhsConstant().getVal());
+
+        InsertData insert = (InsertData) cache.parse("INSERT INTO users (id, name) VALUES (3, 'x'), (4, 'y')");
+        assertEquals("3", insert.getRows().get(0).get(0).getVal(), "INSERT keeps values as text, like the visitor");
+        assertEquals("y", insert.getRows().get(1).get(1).getVal());
+    }
+
+    @Test
+    @DisplayName("Shapes the template cannot reproduce are always parsed")
+    void testUncacheableShapes() {
+        StatementCache cache = cache(16);
+        String[] statements = {
+            "SELECT name FROM users WHERE id = -1",
+            "SELECT name FROM users WHERE id = -2",
+            "CREATE TABLE t (id INTEGER, name VARCHAR(10))",
+            "SELECT name FROM users WHERE id = ?"
+        };
+        for (String sql : statements) {
+            assertEquals(fresh(sql), String.valueOf(cache.parse(sql)), sql);
+        }
+        assertEquals(0, cache.getHits());
+        assertEquals(4, cache.getMisses());
+        assertEquals(1, cache.size(), "Only the negative-number shape is remembered, as uncacheable");
+    }
+
+    @Test
+    @DisplayName("The least recently used shape is evicted")
+    void testEviction() {
+        StatementCache cache = cache(2);
+        cache.parse("SELECT a FROM t WHERE id = 1");
+        cache.parse("SELECT b FROM t WHERE id = 1");
+        cache.parse("SELECT a FROM t WHERE id = 2");
+        cache.parse("SELECT c FROM t WHERE id = 1");
+        assertEquals(2, cache.size());
+        cache.parse("SELECT a FROM t WHERE id = 3");
+        assertEquals(2, cache.getHits(), "The used shape survived");
+        cache.parse("SELECT b FROM t WHERE id = 2");
+        assertEquals(2, cache.getHits(), "The idle shape was dropped");
+
+        StatementCache disabled = cache(0);
+        disabled.parse("SELECT a FROM t WHERE id = 1");
+        disabled.parse("SELECT a FROM t WHERE id = 1");
+        assertEquals(0, disabled.getHits());
+        assertEquals(0, disabled.size());
+    }
+}
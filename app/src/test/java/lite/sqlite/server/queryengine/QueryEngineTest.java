@@ -8,10 +8,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import lite.sqlite.cli.TableDto;
+import lite.sqlite.server.execution.AccessPath;
+import lite.sqlite.server.storage.record.Record;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -146,6 +149,73 @@ public class QueryEngineTest {
                       result.getErrorMessage().contains("doesn't exist"), 
                 "Error should mention column doesn't exist");
         }
+
+        @Test
+        @DisplayName("Should insert every row of a multi-row INSERT")
+        void testMultiRowInsert() {
+            queryEngine.doUpdate("CREATE TABLE test_multi (id INTEGER, name VARCHAR(20))");
+
+            TableDto result = queryEngine.doUpdate(
+                "INSERT INTO test_multi (id, name) VALUES (1, 'a'), (2, 'b'), (3, 'c')");
+            assertNull(result.getErrorMessage(), "Multi-row insert should succeed");
+
+            List<List<String>> rows = queryEngine.doQuery("SELECT * FROM test_multi").getRows();
+            assertEquals(3, rows.size());
+            assertEquals("3", rows.get(2).get(0));
+            assertEquals("c", rows.get(2).get(1));
+
+            TableDto mismatch = queryEngine.doUpdate("INSERT INTO test_multi (id, name) VALUES (4, 'd'), (5)");
+            assertNotNull(mismatch.getErrorMessage(), "A short row should be rejected");
+            assertEquals(3, queryEngine.doQuery("SELECT * FROM test_multi").getRows().size());
+        }
+
+        @Test
+        @DisplayName("Should bulk load rows across many blocks and keep indexes in sync")
+        void testBulkLoad() {
+            queryEngine.doUpdate("CREATE TABLE test_bulk (id INTEGER, name VARCHAR(50))");
+            queryEngine.doCreateIndex("CREATE UNIQUE INDEX idx_bulk_id ON test_bulk(id)");
+            queryEngine.doUpdate("INSERT INTO test_bulk (id, name) VALUES (0, 'existing')");
+
+            List<Record> records = new ArrayList<>();
+            for (int id = 1; id <= 3000; id++) {
+                records.add(new Record(new Object[] {id, "name_" + id}));
+            }
+            TableDto result = queryEngine.bulkLoad("test_bulk", records.iterator());
+            assertNull(result.getErrorMessage(), "Bulk load should succeed");
+
+            assertEquals(3001, queryEngine.doQuery("SELECT * FROM test_bulk").getRows().size());
+            List<List<String>> found = queryEngine.doQuery("SELECT name FROM test_bulk WHERE id = 2500").getRows();
+            assertEquals(1, found.size());
+            assertEquals("name_2500", found.get(0).get(0));
+
+            TableDto duplicate = queryEngine.bulkLoad("test_bulk",
+                List.of(new Record(new Object[] {5000, "x"}), new Record(new Object[] {42, "dup"})).iterator());
+            assertNotNull(duplicate.getErrorMessage(), "Duplicate key should fail the load");
+            assertTrue(duplicate.getErrorMessage().contains("Duplicate key"));
+            assertEquals(3001, queryEngine.doQuery("SELECT * FROM test_bulk").getRows().size(),
+                "No row of the rejected batch should be written");
+
+            queryEngine.doUpdate("INSERT INTO test_bulk (id, name) VALUES (4000, 'after')");
+            assertEquals(1, queryEngine.doQuery("SELECT * FROM test_bulk WHERE id = 4000").getRows().size());
+            assertEquals(3002, queryEngine.doQuery("SELECT * FROM test_bulk").getRows().size());
+        }
+
+        @Test
+        @DisplayName("Rows written before a failing row of a bulk load are indexed")
+        void testBulkLoadFailingRowKeepsIndexInSync() {
+            queryEngine.doUpdate("CREATE TABLE test_bulk_fail (id INTEGER, name VARCHAR(50))");
+            queryEngine.doCreateIndex("CREATE UNIQUE INDEX idx_bulk_fail_id ON test_bulk_fail(id)");
+
+            TableDto failed = queryEngine.bulkLoad("test_bulk_fail",
+                List.of(new Record(new Object[] {50000, "first"}), new Record(new Object[] {"oops", "second"})).iterator());
+            assertNotNull(failed.getErrorMessage(), "A value of the wrong type should fail the load");
+
+            assertEquals(List.of(List.of("first")),
+                queryEngine.doQuery("SELECT name FROM test_bulk_fail WHERE id = 50000").getRows());
+            assertNotNull(queryEngine.doUpdate("INSERT INTO test_bulk_fail (id, name) VALUES (50000, 'again')").getErrorMessage(),
+                "The written row holds its key in the unique index");
+            assertEquals(1, queryEngine.doQuery("SELECT * FROM test_bulk_fail").getRows().size());
+        }
     }
 
     @Nested
@@ -277,10 +347,61 @@ public class QueryEngineTest {
             assertTrue(result.getErrorMessage().contains("doesn't exist") || 
                        result.getErrorMessage().contains("not exist"), 
                        "Error message should indicate table not found");
-        }
-    }
-
-    @Nested
+        }
+
+        @Test
+        @DisplayName("Should stream filtered rows through a cursor holding one page")
+        void testOpenQueryStreamsRows() {
+            queryEngine.doUpdate("CREATE TABLE test_cursor (id INTEGER, name VARCHAR(50))");
+            List<Record> records = new ArrayList<>();
+            for (int id = 0; id < 2000; id++) {
+                records.add(new Record(new Object[] {id, "name_" + id}));
+            }
+            queryEngine.bulkLoad("test_cursor", records.iterator());
+
+            int seen = 0;
+            try (QueryCursor cursor = queryEngine.openQuery("SELECT name, id FROM test_cursor WHERE id > 1000")) {
+                assertEquals(List.of("name", "id"), cursor.getColumnNames());
+                while (cursor.hasNext()) {
+                    Object[] row = cursor.next();
+                    assertEquals(1001 + seen, row[1], "Typed values in file order");
+                    assertEquals("name_" + row[1], row[0]);
+                    seen++;
+                    assertTrue(queryEngine.getBufferPool().getPinnedFrames() <= 1, "Only the current page is pinned");
+                }
+            }
+            assertEquals(999, seen);
+
+            QueryCursor abandoned = queryEngine.openQuery("SELECT * FROM test_cursor");
+            assertTrue(abandoned.hasNext());
+            abandoned.close();
+            assertEquals(0, queryEngine.getBufferPool().getPinnedFrames(), "Closing releases the page");
+
+            assertThrows(IllegalArgumentException.class, () -> queryEngine.openQuery("SELECT * FROM missing"));
+        }
+
+        @Test
+        @DisplayName("Repeated statements differing in constants are served from the statement cache")
+        void testStatementCache() {
+            queryEngine.doUpdate("CREATE TABLE cached (id INTEGER, name VARCHAR(20))");
+            for (int id = 0; id < 20; id++) {
+                queryEngine.doUpdate("INSERT INTO cached (id, name) VALUES (" + id + ", 'name_" + id + "')");
+            }
+            long hitsBefore = queryEngine.getStatementCache().getHits();
+            for (int id = 0; id < 20; id++) {
+                TableDto result = queryEngine.doQuery("SELECT name FROM cached WHERE id = " + id);
+                assertEquals(List.of(List.of("name_" + id)), result.getRows());
+            }
+            assertNull(queryEngine.doUpdate("UPDATE cached SET name = 'renamed' WHERE id = 4").getErrorMessage());
+            assertNull(queryEngine.doUpdate("UPDATE cached SET name = 'moved' WHERE id = 5").getErrorMessage());
+            assertEquals(List.of(List.of("moved")), queryEngine.doQuery("SELECT name FROM cached WHERE id = 5").getRows());
+            assertEquals(List.of(List.of("renamed")), queryEngine.doQuery("SELECT name FROM cached WHERE id = 4").getRows());
+            assertEquals(19 + 1 + 2, queryEngine.getStatementCache().getHits() - hitsBefore,
+                "Only the first SELECT and the first UPDATE are parsed");
+        }
+    }
+
+    @Nested
     @DisplayName("UPDATE/DELETE Tests")
     class MutateTests {
 
@@ -352,6 +473,184 @@ public class QueryEngineTest {
             assertTrue(ids.contains("4"), "Should include id=4");
             assertFalse(ids.contains("3"), "Should not include id=3");
         }
+
+        @Test
+        @DisplayName("Indexed lookups stay correct after UPDATE and DELETE")
+        void testIndexMaintainedByUpdateAndDelete() {
+            queryEngine.doUpdate("CREATE TABLE tickets (id INTEGER, status INTEGER)");
+            for (int id = 1; id <= 6; id++) {
+                queryEngine.doUpdate("INSERT INTO tickets (id, status) VALUES (" + id + ", " + (id % 2) + ")");
+            }
+            assertNull(queryEngine.doCreateIndex("CREATE INDEX idx_tickets_status ON tickets(status)").getErrorMessage());
+
+            assertNull(queryEngine.doUpdate("UPDATE tickets SET status = 7 WHERE id = 3").getErrorMessage());
+            assertNull(queryEngine.doUpdate("DELETE FROM tickets WHERE id = 5").getErrorMessage());
+
+            TableDto odd = queryEngine.doQuery("SELECT id FROM tickets WHERE status = 1");
+            assertEquals(List.of("1"), odd.getRows().stream().map(row -> row.get(0)).toList(),
+                "Updated and deleted rows must leave the old key");
+            TableDto moved = queryEngine.doQuery("SELECT id FROM tickets WHERE status = 7");
+            assertEquals(List.of("3"), moved.getRows().stream().map(row -> row.get(0)).toList(),
+                "Updated row must be found under its new key");
+            assertEquals(3, queryEngine.doQuery("SELECT id FROM tickets WHERE status = 0").getRows().size());
+        }
+
+        @Test
+        @DisplayName("Range predicates return the same rows with and without an index")
+        void testRangePredicates() {
+            queryEngine.doUpdate("CREATE TABLE scores (id INTEGER, points INTEGER)");
+            for (int id = 1; id <= 30; id++) {
+                queryEngine.doUpdate("INSERT INTO scores (id, points) VALUES (" + id + ", " + (id % 10) + ")");
+            }
+            String[] queries = {
+                "SELECT id FROM scores WHERE points >= 8",
+                "SELECT id FROM scores WHERE points < 2",
+                "SELECT id FROM scores WHERE points > 3 AND points <= 5",
+                "SELECT id FROM scores WHERE points BETWEEN 4 AND 6",
+                "SELECT id FROM scores WHERE points BETWEEN 4 AND 6 AND id > 20"
+            };
+            int[] expectedSizes = {6, 6, 6, 9, 3};
+            List<List<String>> scanned = new java.util.ArrayList<>();
+            for (int q = 0; q < queries.length; q++) {
+                TableDto result = queryEngine.doQuery(queries[q]);
+                assertNull(result.getErrorMessage(), queries[q]);
+                assertEquals(expectedSizes[q], result.getRows().size(), queries[q]);
+                scanned.add(result.getRows().stream().map(row -> row.get(0)).sorted().toList());
+            }
+
+            assertNull(queryEngine.doCreateIndex("CREATE INDEX idx_scores_points ON scores(points)").getErrorMessage());
+            for (int q = 0; q < queries.length; q++) {
+                TableDto result = queryEngine.doQuery(queries[q]);
+                assertEquals(scanned.get(q), result.getRows().stream().map(row -> row.get(0)).sorted().toList(),
+                    queries[q]);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("ANALYZE/EXPLAIN Tests")
+    class OptimizerTests {
+
+        private void createAccounts(int rows) {
+            queryEngine.doUpdate("CREATE TABLE accounts (id INTEGER, region INTEGER, owner VARCHAR(20))");
+            StringBuilder insert = new StringBuilder("INSERT INTO accounts (id, region, owner) VALUES ");
+            for (int id = 0; id < rows; id++) {
+                insert.append(id == 0 ? "" : ", ").append("(").append(id).append(", ").append(id % 4)
+                    .append(", 'owner_").append(id).append("')");
+            }
+            assertNull(queryEngine.doUpdate(insert.toString()).getErrorMessage());
+        }
+
+        @Test
+        @DisplayName("ANALYZE TABLE reports row counts and per-column statistics")
+        void testAnalyze() {
+            createAccounts(200);
+            TableDto result = queryEngine.doUpdate("ANALYZE TABLE accounts");
+            assertNull(result.getErrorMessage());
+            assertEquals(3, result.getRows().size(), "One row per column");
+            List<String> id = result.getRows().get(0);
+            assertEquals(List.of("accounts", "200"), id.subList(0, 2));
+            assertEquals("id", id.get(3));
+            assertEquals("200", id.get(4), "Distinct ids");
+            assertEquals(List.of("0", "199"), id.subList(6, 8));
+            assertEquals("4", result.getRows().get(1).get(4), "Distinct regions");
+
+            assertNotNull(queryEngine.doUpdate("ANALYZE TABLE missing").getErrorMessage());
+        }
+
+        @Test
+        @DisplayName("EXPLAIN shows the chosen plan with estimates and the rejected paths")
+        void testExplain() {
+            createAccounts(200);
+            assertNull(queryEngine.doCreateIndex("CREATE UNIQUE INDEX idx_accounts_id ON accounts(id)").getErrorMessage());
+            assertNull(queryEngine.doUpdate("ANALYZE TABLE accounts").getErrorMessage());
+
+            TableDto plan = queryEngine.doQuery("EXPLAIN SELECT owner FROM accounts WHERE id = 42");
+            assertNull(plan.getErrorMessage());
+            List<String> lines = plan.getRows().stream().map(row -> row.get(0)).toList();
+            assertEquals("Project(owner)", lines.get(0));
+            assertTrue(lines.get(1).trim().startsWith("Filter("), lines.toString());
+            assertTrue(lines.get(2).contains("IndexScan(accounts.id [42, 42])") && lines.get(2).contains("UNIQUE_PROBE"),
+                lines.toString());
+            assertTrue(lines.get(3).startsWith("rejected: TableScan(accounts)"), lines.toString());
+            assertEquals("1", plan.getRows().get(2).get(1), "Unique probe returns one row");
+            assertTrue(Double.parseDouble(plan.getRows().get(2).get(2)) < Double.parseDouble(plan.getRows().get(3).get(2)));
+
+            TableDto rows = queryEngine.doQuery("SELECT owner FROM accounts WHERE id = 42");
+            assertEquals(List.of(List.of("owner_42")), rows.getRows(), "EXPLAIN does not change the result");
+
+            assertNotNull(queryEngine.doQuery("EXPLAIN SELECT nope FROM accounts").getErrorMessage());
+            assertNotNull(queryEngine.doQuery("EXPLAIN UPDATE accounts SET region = 1").getErrorMessage());
+        }
+    }
+
+    @Nested
+    @DisplayName("Prepared Statement Tests")
+    class PreparedStatementTests {
+
+        @Test
+        @DisplayName("A prepared SELECT keeps its access path and binds typed parameters")
+        void testPreparedSelect() {
+            queryEngine.doUpdate("CREATE TABLE users (id INTEGER, name VARCHAR(20), age INTEGER)");
+            StringBuilder insert = new StringBuilder("INSERT INTO users (id, name, age) VALUES ");
+            for (int id = 0; id < 300; id++) {
+                insert.append(id == 0 ? "" : ", ").append("(").append(id).append(", 'user_").append(id)
+                    .append("', ").append(20 + id % 50).append(")");
+            }
+            assertNull(queryEngine.doUpdate(insert.toString()).getErrorMessage());
+            assertNull(queryEngine.doCreateIndex("CREATE UNIQUE INDEX idx_users_id ON users(id)").getErrorMessage());
+
+            PreparedStatement byId = queryEngine.prepare("SELECT name FROM users WHERE id = ?");
+            assertEquals(1, byId.getParameterCount());
+            assertEquals(AccessPath.Kind.UNIQUE_PROBE, byId.getAccessPath().getKind());
+            assertEquals(List.of("id"), byId.getAccessPath().getColumns());
+            for (int id = 0; id < 300; id += 37) {
+                assertEquals(List.of(List.of("user_" + id)), queryEngine.execute(byId, id).getRows());
+            }
+            assertEquals(0, queryEngine.execute(byId, 1000).getRows().size());
+
+            PreparedStatement range = queryEngine.prepare(
+                "SELECT id FROM users WHERE id BETWEEN ? AND ? AND name = ? AND age > 0");
+            assertEquals(3, range.getParameterCount());
+            assertEquals(List.of(List.of("12")), queryEngine.execute(range, 10, 20, "user_12").getRows());
+
+            assertTrue(queryEngine.execute(byId).getErrorMessage().contains("1 parameters but 0"));
+            assertTrue(queryEngine.execute(byId, "7").getErrorMessage().contains("must be INTEGER"));
+            assertTrue(queryEngine.execute(range, 1, 2, null).getErrorMessage().contains("null"));
+            assertNotNull(queryEngine.doQuery("SELECT name FROM users WHERE id = ?").getErrorMessage(),
+                "Placeholders need values");
+            TableDto quoted = queryEngine.doQuery("SELECT id FROM users WHERE name = '?'");
+            assertNull(quoted.getErrorMessage(), "A quoted ? is a literal");
+            assertTrue(quoted.getRows().isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> queryEngine.prepare("SELECT id FROM missing WHERE id = ?"));
+            assertThrows(IllegalArgumentException.class, () -> queryEngine.prepare("CREATE TABLE t (id INTEGER)"));
+        }
+
+        @Test
+        @DisplayName("Prepared INSERT, UPDATE and DELETE bind values in statement order")
+        void testPreparedUpdates() {
+            queryEngine.doUpdate("CREATE TABLE items (id INTEGER, label VARCHAR(20), qty INTEGER)");
+            assertNull(queryEngine.doCreateIndex("CREATE INDEX idx_items_id ON items(id)").getErrorMessage());
+
+            PreparedStatement insert = queryEngine.prepare("INSERT INTO items (id, label, qty) VALUES (?, ?, ?)");
+            assertEquals(3, insert.getParameterCount());
+            assertNull(insert.getAccessPath());
+            for (int id = 0; id < 10; id++) {
+                assertNull(queryEngine.execute(insert, id, "it's " + id, id * 10).getErrorMessage());
+            }
+            assertTrue(queryEngine.execute(insert, 10, 11, 12).getErrorMessage().contains("must be VARCHAR"));
+
+            PreparedStatement update = queryEngine.prepare("UPDATE items SET label = ?, qty = ? WHERE id = ?");
+            assertNotNull(update.getAccessPath());
+            assertEquals("1 row(s) affected", queryEngine.execute(update, "renamed", 7, 3).getRows().get(0).get(0));
+
+            PreparedStatement delete = queryEngine.prepare("DELETE FROM items WHERE id >= ?");
+            assertEquals("5 row(s) affected", queryEngine.execute(delete, 5).getRows().get(0).get(0));
+
+            TableDto rows = queryEngine.doQuery("SELECT id, label, qty FROM items WHERE id > 1");
+            assertEquals(List.of(List.of("2", "it's 2", "20"), List.of("3", "renamed", "7"), List.of("4", "it's 4", "40")),
+                rows.getRows());
+        }
     }
     
     @Test
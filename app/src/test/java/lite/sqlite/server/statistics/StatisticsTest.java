@@ -0,0 +1,134 @@
+package lite.sqlite.server.statistics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Record;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.table.Table;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Optimizer Statistics Tests")
+public class StatisticsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Equi-depth buckets follow skewed data")
+    void testHistogramFractions() {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 900; i++) {
+            values.add(i % 10);
+        }
+        for (int i = 0; i < 100; i++) {
+            values.add(1000 + i * 10);
+        }
+        values.sort(null);
+        EquiDepthHistogram histogram = EquiDepthHistogram.build(values, 20);
+        assertEquals(20, histogram.getBucketCount());
+        assertEquals(0, histogram.getBounds().get(0));
+        assertEquals(1990, histogram.getBounds().get(20));
+
+        assertEquals(0.0, histogram.fractionBelow(-5));
+        assertEquals(1.0, histogram.fractionBelow(5000));
+        assertEquals(0.9, histogram.fractionBelow(1000), 0.06, "Nine tenths of the values are below 10");
+        assertEquals(0.95, histogram.fractionBelow(1500), 0.03);
+
+        EquiDepthHistogram small = EquiDepthHistogram.build(List.of("a", "b", "c"), 32);
+        assertEquals(2, small.getBucketCount(), "No more buckets than gaps between values");
+        assertEquals(0, EquiDepthHistogram.build(List.of(), 8).getBucketCount());
+    }
+
+    @Test
+    @DisplayName("Ranges at and next to the largest value keep their share of the rows")
+    void testSelectivityAtLargestValue() {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add(1 + i / 10);
+        }
+        ColumnStatistics even = new ColumnStatistics("v", 0.0, 100, 1, 100,
+            EquiDepthHistogram.build(values, 20), 1.0);
+        assertEquals(0.01, even.equalitySelectivity(100), 0.005);
+        assertEquals(0.01, even.equalitySelectivity(99), 0.005);
+        assertEquals(0.01, even.rangeSelectivity(100, true, null, false), 0.005);
+        assertEquals(0.99, even.rangeSelectivity(null, false, 99, true), 0.005);
+        assertEquals(0.99, even.rangeSelectivity(null, false, 100, false), 0.005);
+        assertEquals(0.98, even.rangeSelectivity(null, false, 99, false), 0.005);
+
+        List<Integer> skewed = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            skewed.add(i);
+        }
+        for (int i = 0; i < 500; i++) {
+            skewed.add(501);
+        }
+        ColumnStatistics repeated = new ColumnStatistics("v", 0.0, 501, 1, 501,
+            EquiDepthHistogram.build(skewed, 20), 1.0);
+        assertEquals(0.5, repeated.equalitySelectivity(501), 0.06, "Half the rows hold the largest value, give or take a bucket");
+        assertEquals(0.5, repeated.rangeSelectivity(501, true, null, false), 0.05);
+        assertEquals(0.5, repeated.rangeSelectivity(null, false, 500, true), 0.05);
+        assertEquals(0.002, repeated.equalitySelectivity(500), 0.001);
+    }
+
+    @Test
+    @DisplayName("ANALYZE counts rows and distinct values and estimates ranges")
+    void testCollectStatistics() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(32, fileManager, 1);
+        try {
+            Schema schema = new Schema();
+            schema.addColumn("id", DataType.INTEGER);
+            schema.addColumn("shuffled", DataType.INTEGER);
+            schema.addColumn("tag", DataType.VARCHAR, 10);
+            Table table = new Table(schema, bufferPool, "facts", fileManager);
+            fileManager.initializePhysicalTable(table);
+            List<Record> records = new ArrayList<>();
+            for (int id = 0; id < 5000; id++) {
+                records.add(new Record(new Object[] {id, (int) ((id * 7919L) % 5000), "t" + (id % 50)}));
+            }
+            table.bulkInsert(records.iterator());
+
+            TableStatistics exact = new StatisticsCollector(50, 10_000).analyze(table);
+            assertEquals(5000, exact.getRowCount());
+            assertEquals(table.getBlockCount(), exact.getBlockCount());
+            ColumnStatistics id = exact.getColumn("id");
+            assertEquals(5000, id.getDistinctCount());
+            assertEquals(0, id.getMin());
+            assertEquals(4999, id.getMax());
+            assertEquals(1.0, id.getCorrelation(), 1e-9, "Ids are stored in order");
+            assertEquals(0.1, id.rangeSelectivity(1000, true, 1500, false), 0.01);
+            assertEquals(0.0002, id.equalitySelectivity(42), 1e-9);
+            assertEquals(0.0, id.equalitySelectivity(7000));
+            assertEquals(0.0, exact.getColumn("shuffled").getCorrelation(), 0.1, "Shuffled values are scattered");
+
+            ColumnStatistics tag = exact.getColumn("tag");
+            assertEquals(0.0, tag.getNullFraction());
+            assertEquals(50, tag.getDistinctCount());
+            assertEquals(0.02, tag.equalitySelectivity("t7"), 1e-9);
+            assertEquals("t0", tag.getMin());
+            assertEquals(0.0, tag.equalitySelectivity("u"), "Past the largest tag");
+
+            TableStatistics sampled = new StatisticsCollector(50, 1000).analyze(table);
+            assertEquals(5000, sampled.getRowCount(), "Row count is exact when sampling");
+            assertEquals(0, sampled.getColumn("id").getMin());
+            long distinct = sampled.getColumn("id").getDistinctCount();
+            assertTrue(distinct > 2500, "Unique values are extrapolated, got " + distinct);
+            assertEquals(50, sampled.getColumn("tag").getDistinctCount(), "Repeated values are all seen");
+            assertEquals(0.1, sampled.getColumn("id").rangeSelectivity(1000, true, 1500, false), 0.03);
+            assertEquals(2.0 * 5000, sampled.estimateRowCount(2 * sampled.getBlockCount()), 1e-9);
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package lite.sqlite.server.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Basic File Manager Tests")
+public class BasicFileManagerTest {
+
+    private static final String FILE_NAME = "basic.tbl";
+
+    @TempDir
+    Path tempDir;
+
+    private static Page pageWith(int value) {
+        Page page = new Page();
+        page.setInt(0, value);
+        page.setInt(Page.PAGE_SIZE - Integer.BYTES, -value);
+        return page;
+    }
+
+    @Test
+    @DisplayName("Files grow by extents and keep their high-water mark across a reopen")
+    void testExtentGrowth() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile(), null, 8);
+        assertEquals(0, fileManager.getBlockCount(FILE_NAME));
+        assertEquals(0, fileManager.append(FILE_NAME).getBlockNum());
+        assertEquals(8L * Page.PAGE_SIZE, Files.size(tempDir.resolve(FILE_NAME)), "First append allocates an extent");
+        assertEquals(1, fileManager.appendExtent(FILE_NAME, 4).getBlockNum());
+        assertEquals(5, fileManager.getBlockCount(FILE_NAME));
+        assertEquals(8L * Page.PAGE_SIZE, Files.size(tempDir.resolve(FILE_NAME)), "Appends inside the extent");
+        assertEquals(5, fileManager.appendExtent(FILE_NAME, 10).getBlockNum());
+        assertEquals(16L * Page.PAGE_SIZE, Files.size(tempDir.resolve(FILE_NAME)), "Grown to an extent boundary");
+        fileManager.write(new Block(FILE_NAME, 17), pageWith(18));
+        assertEquals(18, fileManager.getBlockCount(FILE_NAME), "Writing past the end extends the file");
+
+        Page page = pageWith(99);
+        fileManager.read(new Block(FILE_NAME, 40), page);
+        assertEquals(0, page.getInt(0), "Past the end reads as zeros");
+        assertEquals(0, page.getInt(Page.PAGE_SIZE - Integer.BYTES));
+        assertEquals(18, fileManager.append(FILE_NAME).getBlockNum());
+        fileManager.close();
+
+        BasicFileManager reopened = new BasicFileManager(tempDir.toFile(), null, 8);
+        assertEquals(19, reopened.getBlockCount(FILE_NAME), "Trailing zeroed blocks stay in use");
+        reopened.read(new Block(FILE_NAME, 17), page);
+        assertEquals(18, page.getInt(0));
+        assertEquals(-18, page.getInt(Page.PAGE_SIZE - Integer.BYTES));
+        assertEquals(19, reopened.append(FILE_NAME).getBlockNum());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Blocks written after the last saved mark are found again on reopen")
+    void testMarkRecoveredAfterCrash() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile(), null, 16);
+        for (int i = 0; i < 3; i++) {
+            fileManager.write(fileManager.append(FILE_NAME), pageWith(i + 1));
+        }
+        fileManager.sync();
+        for (int i = 3; i < 6; i++) {
+            fileManager.write(fileManager.append(FILE_NAME), pageWith(i + 1));
+        }
+        fileManager.append(FILE_NAME);
+
+        // Not closed: the saved mark is still 3
+        BasicFileManager reopened = new BasicFileManager(tempDir.toFile(), null, 16);
+        assertEquals(6, reopened.getBlockCount(FILE_NAME), "Mark moves past the last written block");
+        Page page = new Page();
+        reopened.read(new Block(FILE_NAME, 5), page);
+        assertEquals(6, page.getInt(0));
+        assertEquals(6, reopened.append(FILE_NAME).getBlockNum());
+        reopened.close();
+        fileManager.close();
+    }
+
+    @Test
+    @DisplayName("A file without a saved mark is in use to its end")
+    void testFileWithoutMark() throws Exception {
+        Files.write(tempDir.resolve(FILE_NAME), new byte[3 * Page.PAGE_SIZE]);
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile(), null, 16);
+        assertEquals(3, fileManager.getBlockCount(FILE_NAME));
+        assertEquals(3, fileManager.append(FILE_NAME).getBlockNum());
+        fileManager.close();
+    }
+
+    @Test
+    @DisplayName("Concurrent readers and writers of one file see whole blocks")
+    void testConcurrentReadsAndWrites() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        for (int i = 0; i < 64; i++) {
+            fileManager.write(fileManager.append(FILE_NAME), pageWith(i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    Page page = new Page();
+                    for (int i = 0; i < 5_000; i++) {
+                        int blockNum = (i * 4 + thread) % 64;
+                        if (i % 5 == 0) {
+                            fileManager.write(new Block(FILE_NAME, blockNum), pageWith(blockNum));
+                        }
+                        fileManager.read(new Block(FILE_NAME, blockNum), page);
+                        assertEquals(blockNum, page.getInt(0));
+                        assertEquals(-blockNum, page.getInt(Page.PAGE_SIZE - Integer.BYTES));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent appends hand out distinct blocks")
+    void testConcurrentAppends() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Integer>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Integer> blocks = new ArrayList<>();
+                    for (int i = 0; i < 100; i++) {
+                        Block block = fileManager.append(FILE_NAME);
+                        fileManager.write(block, pageWith(block.getBlockNum()));
+                        blocks.add(block.getBlockNum());
+                    }
+                    return blocks;
+                }));
+            }
+            Set<Integer> seen = new HashSet<>();
+            for (Future<List<Integer>> future : futures) {
+                seen.addAll(future.get());
+            }
+            assertEquals(400, seen.size());
+            assertEquals(400, fileManager.getBlockCount(FILE_NAME));
+
+            Page page = new Page();
+            for (int blockNum = 0; blockNum < 400; blockNum++) {
+                fileManager.read(new Block(FILE_NAME, blockNum), page);
+                assertEquals(blockNum, page.getInt(0));
+            }
+        } finally {
+            executor.shutdownNow();
+            fileManager.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package lite.sqlite.server.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.cli.TableDto;
+import lite.sqlite.server.queryengine.QueryEngineImpl;
+import lite.sqlite.server.storage.filemanager.FileManagerType;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.table.Table;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Mapped File Manager Tests")
+public class MappedFileManagerTest {
+
+    private static final String FILE_NAME = "mapped.tbl";
+
+    @TempDir
+    Path tempDir;
+
+    private static Page pageWith(int value) {
+        Page page = new Page();
+        page.setInt(0, value);
+        page.setInt(Page.PAGE_SIZE - Integer.BYTES, -value);
+        return page;
+    }
+
+    @Test
+    @DisplayName("Blocks written across chunk boundaries read back, and survive a reopen")
+    void testReadWriteAcrossChunks() throws Exception {
+        MappedFileManager fileManager = new MappedFileManager(tempDir.toFile(), null, 4);
+        assertEquals(0, fileManager.append(FILE_NAME).getBlockNum());
+        assertEquals(1, fileManager.appendExtent(FILE_NAME, 9).getBlockNum());
+        assertEquals(10, fileManager.getBlockCount(FILE_NAME));
+        for (int i = 0; i < 10; i++) {
+            fileManager.write(new Block(FILE_NAME, i), pageWith(i + 1));
+        }
+        fileManager.write(new Block(FILE_NAME, 12), pageWith(13));
+        assertEquals(13, fileManager.getBlockCount(FILE_NAME), "Writing past the end extends the file");
+
+        Page page = pageWith(99);
+        fileManager.read(new Block(FILE_NAME, 20), page);
+        assertEquals(0, page.getInt(0), "Past the end reads as zeros");
+        fileManager.read(new Block(FILE_NAME, 11), page);
+        assertEquals(0, page.getInt(0), "Skipped block is empty");
+        fileManager.close();
+        assertEquals(16L * Page.PAGE_SIZE, Files.size(tempDir.resolve(FILE_NAME)), "Padding is kept; the mark bounds the blocks");
+
+        BasicFileManager reopened = new BasicFileManager(tempDir.toFile());
+        assertEquals(13, reopened.getBlockCount(FILE_NAME));
+        for (int i : new int[] {0, 3, 4, 9, 12}) {
+            reopened.read(new Block(FILE_NAME, i), page);
+            assertEquals(i + 1, page.getInt(0));
+            assertEquals(-(i + 1), page.getInt(Page.PAGE_SIZE - Integer.BYTES));
+        }
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("After a crash the chunk padding is not taken for blocks in use")
+    void testMarkRecoveredAfterCrash() throws Exception {
+        MappedFileManager fileManager = new MappedFileManager(tempDir.toFile(), null, 16);
+        for (int i = 0; i < 3; i++) {
+            fileManager.write(fileManager.append(FILE_NAME), pageWith(i + 1));
+        }
+        fileManager.sync();
+        for (int i = 3; i < 6; i++) {
+            fileManager.write(fileManager.append(FILE_NAME), pageWith(i + 1));
+        }
+        fileManager.append(FILE_NAME);
+        assertEquals(16L * Page.PAGE_SIZE, Files.size(tempDir.resolve(FILE_NAME)), "Extended to a whole chunk");
+
+        // Not closed: the saved mark is still 3
+        MappedFileManager reopened = new MappedFileManager(tempDir.toFile(), null, 16);
+        assertEquals(6, reopened.getBlockCount(FILE_NAME), "Mark moves past the last written block");
+        Page page = new Page();
+        reopened.read(new Block(FILE_NAME, 5), page);
+        assertEquals(6, page.getInt(0));
+        assertEquals(6, reopened.append(FILE_NAME).getBlockNum());
+        reopened.close();
+        assertEquals(16L * Page.PAGE_SIZE, Files.size(tempDir.resolve(FILE_NAME)), "Still mapped by the first manager");
+        fileManager.close();
+
+        BasicFileManager basic = new BasicFileManager(tempDir.toFile());
+        assertEquals(7, basic.getBlockCount(FILE_NAME));
+        basic.close();
+    }
+
+    @Test
+    @DisplayName("An orphan table file is started over while mapped, and its old blocks stay gone after a crash")
+    void testOrphanFileStartedOver() throws Exception {
+        MappedFileManager fileManager = new MappedFileManager(tempDir.toFile(), null, 4);
+        for (int i = 0; i < 6; i++) {
+            fileManager.write(fileManager.append("orphan.tbl"), pageWith(i + 1));
+        }
+        fileManager.sync();
+
+        fileManager.initializePhysicalTable(new Table(new Schema(), null, "orphan", fileManager));
+        assertEquals(1, fileManager.getBlockCount("orphan.tbl"));
+        Page page = pageWith(99);
+        fileManager.read(new Block("orphan.tbl", 0), page);
+        assertEquals(0, page.getInt(0), "The new first block is empty");
+        assertEquals(8L * Page.PAGE_SIZE, Files.size(tempDir.resolve("orphan.tbl")), "Not truncated while mapped");
+        fileManager.write(new Block("orphan.tbl", 0), pageWith(42));
+
+        // Not closed: only the mark and the zeroed blocks tell the new table from the old
+        MappedFileManager reopened = new MappedFileManager(tempDir.toFile(), null, 4);
+        assertEquals(1, reopened.getBlockCount("orphan.tbl"), "Old blocks are not taken for blocks written after the save");
+        reopened.read(new Block("orphan.tbl", 0), page);
+        assertEquals(42, page.getInt(0));
+        reopened.close();
+        fileManager.close();
+    }
+
+    @Test
+    @DisplayName("Concurrent readers see the blocks appended before them")
+    void testConcurrentReads() throws Exception {
+        MappedFileManager fileManager = new MappedFileManager(tempDir.toFile(), null, 8);
+        for (int i = 0; i < 64; i++) {
+            fileManager.write(fileManager.append(FILE_NAME), pageWith(i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    Page page = new Page();
+                    for (int i = 0; i < 10_000; i++) {
+                        int blockNum = i % 64;
+                        fileManager.read(new Block(FILE_NAME, blockNum), page);
+                        assertEquals(blockNum, page.getInt(0));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("The query engine runs on the mapped backend when configured")
+    void testEngineOnMappedFiles() {
+        System.setProperty(FileManagerType.CONFIG_KEY, "mmap");
+        try {
+            QueryEngineImpl engine = new QueryEngineImpl(tempDir.toFile());
+            try {
+                assertNull(engine.doUpdate("CREATE TABLE notes (id INTEGER, body VARCHAR(40))").getErrorMessage());
+                for (int i = 0; i < 500; i++) {
+                    assertNull(engine.doUpdate("INSERT INTO notes (id, body) VALUES (" + i + ", 'note " + i + "')")
+                        .getErrorMessage());
+                }
+                assertNull(engine.doUpdate("DELETE FROM notes WHERE id >= 250").getErrorMessage());
+                TableDto result = engine.doQuery("SELECT body FROM notes WHERE id = 42");
+                assertEquals(List.of(List.of("note 42")), result.getRows());
+                assertEquals(250, engine.doQuery("SELECT id FROM notes").getRows().size());
+            } finally {
+                engine.close();
+            }
+        } finally {
+            System.clearProperty(FileManagerType.CONFIG_KEY);
+        }
+    }
+}
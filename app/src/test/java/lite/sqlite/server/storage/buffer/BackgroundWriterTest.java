@@ -0,0 +1,166 @@
+package lite.sqlite.server.storage.buffer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BackgroundWriter Tests")
+public class BackgroundWriterTest {
+
+    private static final String FILE_NAME = "writer.tbl";
+    private static final int BLOCK_COUNT = 16;
+    private static final int POOL_SIZE = 16;
+
+    @TempDir
+    Path tempDir;
+
+    private BasicFileManager fileManager;
+    private BufferPool bufferPool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path dbDirectory = tempDir.resolve("database");
+        fileManager = new BasicFileManager(dbDirectory.toFile());
+        Files.createFile(dbDirectory.resolve(FILE_NAME));
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            fileManager.append(FILE_NAME);
+        }
+        bufferPool = new BufferPool(POOL_SIZE, fileManager, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        bufferPool.close();
+        fileManager.close();
+    }
+
+    private void modify(int blockNum, int value) throws IOException {
+        Block block = new Block(FILE_NAME, blockNum);
+        Page page = bufferPool.pinBlock(block);
+        page.setInt(0, value);
+        bufferPool.markDirtyBlock(block);
+        bufferPool.unpinBlock(block);
+    }
+
+    private int readFromDisk(int blockNum) throws IOException {
+        Page page = new Page();
+        fileManager.read(new Block(FILE_NAME, blockNum), page);
+        return page.getInt(0);
+    }
+
+    @Test
+    @DisplayName("Writer rounds bring the dirty ratio down to the target and skip pinned frames")
+    void testWriteDirtyPagesHonoursTarget() throws IOException {
+        for (int i = 0; i < 12; i++) {
+            modify(i, i + 100);
+        }
+        Block pinned = new Block(FILE_NAME, 0);
+        bufferPool.pinBlock(pinned);
+
+        BackgroundWriter writer = new BackgroundWriter(bufferPool, fileManager, SyncPolicy.CHECKPOINT, 0, 0.25, 0, 0);
+        int written = writer.writeDirtyPages();
+
+        assertEquals(8, written);
+        assertEquals(4, bufferPool.getDirtyFrames());
+        assertEquals(0, readFromDisk(0), "Pinned frame must not be written by the writer");
+        assertEquals(0, writer.writeDirtyPages(), "Nothing to do once under the target");
+        bufferPool.unpinBlock(pinned);
+    }
+
+    @Test
+    @DisplayName("Statement policy makes each commit durable; checkpoint policy defers to checkpoints")
+    void testSyncPolicies() throws IOException {
+        BackgroundWriter perStatement = new BackgroundWriter(bufferPool, fileManager, SyncPolicy.STATEMENT, 0, 0.5, 0, 0);
+        modify(1, 11);
+        perStatement.onStatementCommit();
+        assertEquals(11, readFromDisk(1));
+        assertEquals(0, bufferPool.getDirtyFrames());
+
+        BackgroundWriter checkpointOnly = new BackgroundWriter(bufferPool, fileManager, SyncPolicy.CHECKPOINT, 0, 0.5, 0, 0);
+        modify(2, 22);
+        checkpointOnly.onStatementCommit();
+        assertEquals(0, readFromDisk(2), "Commit alone should not write under the checkpoint policy");
+        assertEquals(1, bufferPool.getDirtyFrames());
+
+        checkpointOnly.checkpoint();
+        assertEquals(22, readFromDisk(2));
+        assertEquals(1, checkpointOnly.getCheckpoints());
+    }
+
+    @Test
+    @DisplayName("The writer thread trickles dirty pages and close takes a final checkpoint")
+    void testBackgroundThread() throws Exception {
+        BackgroundWriter writer = new BackgroundWriter(bufferPool, fileManager, SyncPolicy.CHECKPOINT, 5, 0.5, 0, 0);
+        writer.start();
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            modify(i, i + 1);
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bufferPool.getDirtyFrames() > POOL_SIZE / 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(bufferPool.getDirtyFrames() <= POOL_SIZE / 2,
+            "Writer should trickle down to the target, dirty=" + bufferPool.getDirtyFrames());
+
+        writer.close();
+        assertEquals(0, bufferPool.getDirtyFrames());
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            assertEquals(i + 1, readFromDisk(i));
+        }
+    }
+
+    @Test
+    @DisplayName("A checkpoint waits for a pinned page that is being modified under its latch")
+    void testCheckpointWaitsForLatchedPage() throws Exception {
+        BackgroundWriter writer = new BackgroundWriter(bufferPool, fileManager, SyncPolicy.CHECKPOINT, 0, 0.5, 0, 0);
+        Block block = new Block(FILE_NAME, 3);
+        Page page = bufferPool.pinBlock(block);
+        bufferPool.latchBlock(block);
+        page.setInt(0, 31);
+        bufferPool.markDirtyBlock(block);
+
+        Thread checkpoint = new Thread(() -> {
+            try {
+                writer.checkpoint();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        checkpoint.start();
+        checkpoint.join(200);
+        assertTrue(checkpoint.isAlive(), "Checkpoint should wait for the latch");
+        assertEquals(0, readFromDisk(3), "Half-modified page must not reach disk");
+
+        page.setInt(4, 32);
+        bufferPool.unlatchBlock(block);
+        checkpoint.join(5000);
+        assertFalse(checkpoint.isAlive());
+        bufferPool.unpinBlock(block);
+
+        Page onDisk = new Page();
+        fileManager.read(block, onDisk);
+        assertEquals(31, onDisk.getInt(0));
+        assertEquals(32, onDisk.getInt(4));
+    }
+
+    @Test
+    @DisplayName("Sync policy names are parsed case-insensitively")
+    void testParseSyncPolicy() {
+        assertEquals(SyncPolicy.INTERVAL, SyncPolicy.parse(" Interval "));
+        assertEquals(SyncPolicy.CHECKPOINT, SyncPolicy.parse("CHECKPOINT"));
+        assertThrows(IllegalArgumentException.class, () -> SyncPolicy.parse("never"));
+    }
+}
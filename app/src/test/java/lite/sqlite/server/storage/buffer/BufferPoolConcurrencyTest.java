@@ -0,0 +1,174 @@
+package lite.sqlite.server.storage.buffer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Multi-threaded stress tests for the partitioned BufferPool: concurrent pins,
+ * modifications and evictions must neither lose writes nor leak pins.
+ */
+@DisplayName("BufferPool Concurrency Tests")
+public class BufferPoolConcurrencyTest {
+
+    private static final String FILE_NAME = "stress.tbl";
+    private static final int BLOCK_COUNT = 64;
+    private static final int POOL_SIZE = 16;
+    private static final int PARTITIONS = 4;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 2000;
+
+    @TempDir
+    Path tempDir;
+
+    private BasicFileManager fileManager;
+    private File dbDirectory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dbDirectory = tempDir.resolve("database").toFile();
+        fileManager = new BasicFileManager(dbDirectory);
+        Files.createFile(dbDirectory.toPath().resolve(FILE_NAME));
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            Block block = fileManager.append(FILE_NAME);
+            Page page = new Page();
+            page.setInt(0, block.getBlockNum());
+            fileManager.write(block, page);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fileManager.close();
+    }
+
+    @Test
+    @DisplayName("Concurrent pin/modify/unpin keeps pages consistent under LRU-K eviction")
+    void testConcurrentPinsWithLruK() throws Exception {
+        runStress(ReplacementPolicyType.LRU_K);
+    }
+
+    @Test
+    @DisplayName("Concurrent pin/modify/unpin keeps pages consistent under CLOCK-Pro eviction")
+    void testConcurrentPinsWithClockPro() throws Exception {
+        runStress(ReplacementPolicyType.CLOCK_PRO);
+    }
+
+    private void runStress(ReplacementPolicyType policyType) throws Exception {
+        BufferPool bufferPool = new BufferPool(POOL_SIZE, fileManager, PARTITIONS, policyType);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        int[][] expectedCounts = new int[THREADS][BLOCK_COUNT];
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            final int threadId = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int op = 0; op < OPERATIONS_PER_THREAD; op++) {
+                    int blockNum = random.nextInt(BLOCK_COUNT);
+                    Block block = new Block(FILE_NAME, blockNum);
+                    Page page = bufferPool.pinBlock(block);
+                    try {
+                        assertEquals(blockNum, page.getInt(0), "Pinned page must hold the requested block");
+                        if (random.nextBoolean()) {
+                            // Each thread owns one counter slot per page, so updates never race.
+                            int offset = Integer.BYTES * (threadId + 1);
+                            page.setInt(offset, page.getInt(offset) + 1);
+                            bufferPool.markDirtyBlock(block);
+                            expectedCounts[threadId][blockNum]++;
+                        }
+                    } finally {
+                        bufferPool.unpinBlock(block);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(0, bufferPool.getPinnedFrames(), "All pins should be released");
+        bufferPool.flushAll();
+        assertEquals(0, bufferPool.getDirtyFrames(), "flushAll should write back every dirty frame");
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, bufferPool.getHits() + bufferPool.getMisses());
+
+        BufferPool reopened = new BufferPool(POOL_SIZE, fileManager, PARTITIONS, policyType);
+        for (int blockNum = 0; blockNum < BLOCK_COUNT; blockNum++) {
+            Block block = new Block(FILE_NAME, blockNum);
+            Page page = reopened.pinBlock(block);
+            try {
+                assertEquals(blockNum, page.getInt(0));
+                for (int t = 0; t < THREADS; t++) {
+                    assertEquals(expectedCounts[t][blockNum], page.getInt(Integer.BYTES * (t + 1)),
+                        "Lost update for thread " + t + " on block " + blockNum);
+                }
+            } finally {
+                reopened.unpinBlock(block);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Pinning more blocks than frames fails once every partition is exhausted")
+    void testPinBeyondCapacity() throws IOException {
+        BufferPool bufferPool = new BufferPool(POOL_SIZE, fileManager, PARTITIONS);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            bufferPool.pinBlock(new Block(FILE_NAME, i));
+        }
+        assertEquals(POOL_SIZE, bufferPool.getUsedFrames());
+        assertEquals(0, bufferPool.getFreeFrames());
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+            () -> bufferPool.pinBlock(new Block(FILE_NAME, POOL_SIZE)));
+        assertEquals("No unpinned frames available", ex.getMessage());
+
+        bufferPool.unpinBlock(new Block(FILE_NAME, 0));
+        Page page = bufferPool.pinBlock(new Block(FILE_NAME, POOL_SIZE));
+        assertEquals(POOL_SIZE, page.getInt(0));
+    }
+
+    @Test
+    @DisplayName("Frames keep their page across evictions instead of allocating a new one")
+    void testFramesReusePages() throws IOException {
+        BufferPool bufferPool = new BufferPool(PARTITIONS, fileManager, PARTITIONS);
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            Block block = new Block(FILE_NAME, i);
+            Page page = bufferPool.pinBlock(block);
+            assertEquals(i, page.getInt(0));
+            assertEquals(fileManager.getPageSize(), page.capacity());
+            if (pages.stream().noneMatch(seen -> seen == page)) {
+                pages.add(page);
+            }
+            bufferPool.unpinBlock(block);
+        }
+        assertEquals(PARTITIONS, pages.size(), "Every block was read into one of the frames' pages");
+    }
+}
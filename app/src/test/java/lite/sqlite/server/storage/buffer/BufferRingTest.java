@@ -0,0 +1,109 @@
+package lite.sqlite.server.storage.buffer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BufferRing Scan Strategy Tests")
+public class BufferRingTest {
+
+    private static final String FILE_NAME = "ring.tbl";
+    private static final int BLOCK_COUNT = 200;
+    private static final int POOL_SIZE = 32;
+    private static final int HOT_BLOCKS = 8;
+
+    @TempDir
+    Path tempDir;
+
+    private BasicFileManager fileManager;
+    private BufferPool bufferPool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path dbDirectory = tempDir.resolve("database");
+        fileManager = new BasicFileManager(dbDirectory.toFile());
+        Files.createFile(dbDirectory.resolve(FILE_NAME));
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            Block block = fileManager.append(FILE_NAME);
+            Page page = new Page();
+            page.setInt(0, block.getBlockNum());
+            fileManager.write(block, page);
+        }
+        bufferPool = new BufferPool(POOL_SIZE, fileManager, 2, ReplacementPolicyType.CLOCK_PRO);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        bufferPool.close();
+        fileManager.close();
+    }
+
+    private void touch(Block block) throws IOException {
+        bufferPool.pinBlock(block);
+        bufferPool.unpinBlock(block);
+    }
+
+    @Test
+    @DisplayName("A full scan through a ring keeps the point-lookup working set resident")
+    void testScanDoesNotEvictHotSet() throws IOException {
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < HOT_BLOCKS; i++) {
+                touch(new Block(FILE_NAME, i));
+            }
+        }
+        int normalMissesBefore = bufferPool.getMisses(AccessType.NORMAL);
+
+        BufferRing ring = bufferPool.newBufferRing();
+        for (int i = HOT_BLOCKS; i < BLOCK_COUNT; i++) {
+            Block block = new Block(FILE_NAME, i);
+            Page page = bufferPool.pinBlock(block, ring);
+            assertEquals(i, page.getInt(0));
+            bufferPool.unpinBlock(block);
+        }
+
+        assertTrue(bufferPool.getUsedFrames() <= HOT_BLOCKS + ring.size(),
+            "Scan should only occupy its ring frames, used=" + bufferPool.getUsedFrames());
+        assertEquals(BLOCK_COUNT - HOT_BLOCKS, bufferPool.getMisses(AccessType.SCAN));
+
+        for (int i = 0; i < HOT_BLOCKS; i++) {
+            touch(new Block(FILE_NAME, i));
+        }
+        assertEquals(normalMissesBefore, bufferPool.getMisses(AccessType.NORMAL),
+            "Point lookups after the scan should all hit");
+        assertEquals(0, bufferPool.getHits(AccessType.SCAN));
+    }
+
+    @Test
+    @DisplayName("Dirty pages recycled by the ring are written back")
+    void testRingWritesBackDirtyPages() throws IOException {
+        BufferRing ring = bufferPool.newBufferRing();
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            Block block = new Block(FILE_NAME, i);
+            Page page = bufferPool.pinBlock(block, ring);
+            page.setInt(Integer.BYTES, i * 10);
+            bufferPool.markDirtyBlock(block);
+            bufferPool.unpinBlock(block);
+        }
+        bufferPool.flushAll();
+        bufferPool.close();
+
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            Block block = new Block(FILE_NAME, i);
+            Page page = bufferPool.pinBlock(block);
+            assertEquals(i * 10, page.getInt(Integer.BYTES), "Lost write on block " + i);
+            bufferPool.unpinBlock(block);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package lite.sqlite.server.storage.buffer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Frame;
+import lite.sqlite.server.storage.Page;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CLOCK-Pro Replacement Policy Tests")
+public class ClockProReplacementPolicyTest {
+
+    private static final int CAPACITY = 4;
+
+    private ClockProReplacementPolicy policy;
+    private Frame[] frames;
+
+    @BeforeEach
+    void setUp() {
+        policy = new ClockProReplacementPolicy(CAPACITY);
+        frames = new Frame[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            frames[i] = new Frame();
+            load(frames[i], i);
+        }
+    }
+
+    private void load(Frame frame, int blockNum) {
+        frame.assignClaimed(new Block("clock.tbl", blockNum), new Page());
+        frame.setLoaded(true);
+        frame.unpin();
+        policy.recordLoad(frame);
+    }
+
+    @Test
+    @DisplayName("Cold frames referenced during their test period are promoted and survive")
+    void testReferencedColdFramesArePromoted() {
+        policy.recordAccess(frames[0]);
+        policy.recordAccess(frames[1]);
+
+        Frame victim = policy.evict(Frame::tryClaim);
+        assertSame(frames[2], victim);
+        assertEquals(2, policy.getHotCount());
+        assertEquals(CAPACITY - 1, policy.size());
+    }
+
+    @Test
+    @DisplayName("A long scan only recycles cold frames while hot frames keep being referenced")
+    void testScanDoesNotEvictHotFrames() {
+        policy.recordAccess(frames[0]);
+        policy.recordAccess(frames[1]);
+
+        for (int scanBlock = 100; scanBlock < 200; scanBlock++) {
+            policy.recordAccess(frames[0]);
+            policy.recordAccess(frames[1]);
+            Frame victim = policy.evict(Frame::tryClaim);
+            assertNotNull(victim);
+            assertNotSame(frames[0], victim, "Hot frame evicted by scan");
+            assertNotSame(frames[1], victim, "Hot frame evicted by scan");
+            load(victim, scanBlock);
+        }
+    }
+
+    @Test
+    @DisplayName("Pinned frames are never offered as victims")
+    void testPinnedFramesAreSkipped() {
+        for (Frame frame : frames) {
+            frame.pin();
+        }
+        assertNull(policy.evict(Frame::tryClaim));
+
+        frames[3].unpin();
+        assertSame(frames[3], policy.evict(Frame::tryClaim));
+    }
+}
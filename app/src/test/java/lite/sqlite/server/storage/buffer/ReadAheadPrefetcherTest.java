@@ -0,0 +1,105 @@
+package lite.sqlite.server.storage.buffer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Read-Ahead Prefetcher Tests")
+public class ReadAheadPrefetcherTest {
+
+    private static final String FILE_NAME = "scan.tbl";
+    private static final int BLOCK_COUNT = 256;
+    private static final int POOL_SIZE = 64;
+
+    @TempDir
+    Path tempDir;
+
+    private BasicFileManager fileManager;
+    private BufferPool bufferPool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path dbDirectory = tempDir.resolve("database");
+        fileManager = new BasicFileManager(dbDirectory.toFile());
+        Files.createFile(dbDirectory.resolve(FILE_NAME));
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            Block block = fileManager.append(FILE_NAME);
+            Page page = new Page();
+            page.setInt(0, block.getBlockNum());
+            fileManager.write(block, page);
+        }
+        bufferPool = new BufferPool(POOL_SIZE, fileManager, 4, ReplacementPolicyType.CLOCK_PRO);
+        bufferPool.enableReadAhead(16, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        bufferPool.close();
+        fileManager.close();
+    }
+
+    private void awaitLoaded(ReadAheadPrefetcher prefetcher, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (prefetcher.getLoaded() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    @DisplayName("Sequential access triggers read-ahead that turns later misses into hits")
+    void testSequentialAccessIsPrefetched() throws Exception {
+        ReadAheadPrefetcher prefetcher = bufferPool.getPrefetcher();
+        BufferRing ring = bufferPool.newBufferRing();
+        for (int i = 0; i < 3; i++) {
+            Block block = new Block(FILE_NAME, i);
+            bufferPool.pinBlock(block, ring);
+            bufferPool.unpinBlock(block);
+        }
+        // The window 2..5 is issued on the second access; block 2 may race the scan's own read.
+        awaitLoaded(prefetcher, 3);
+        assertTrue(prefetcher.getLoaded() >= 3, "Read-ahead should have loaded the next window");
+
+        int missesBefore = bufferPool.getMisses(AccessType.SCAN);
+        Block next = new Block(FILE_NAME, 3);
+        Page page = bufferPool.pinBlock(next, ring);
+        assertEquals(3, page.getInt(0));
+        bufferPool.unpinBlock(next);
+        assertEquals(missesBefore, bufferPool.getMisses(AccessType.SCAN), "Prefetched block should be a hit");
+        assertTrue(prefetcher.getConsumed() >= 1);
+    }
+
+    @Test
+    @DisplayName("A full scan with read-ahead sees every block with the right contents")
+    void testFullScanWithReadAhead() throws Exception {
+        ReadAheadPrefetcher prefetcher = bufferPool.getPrefetcher();
+        BufferRing ring = bufferPool.newBufferRing();
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            Block block = new Block(FILE_NAME, i);
+            Page page = bufferPool.pinBlock(block, ring);
+            assertEquals(i, page.getInt(0));
+            bufferPool.unpinBlock(block);
+            if (i == 2) {
+                // Let the first window land, otherwise a fast scan can outrun every read-ahead.
+                awaitLoaded(prefetcher, 3);
+            }
+        }
+        assertTrue(prefetcher.getConsumed() > 0, "Scan should have used read-ahead blocks");
+        assertTrue(prefetcher.getWindow(FILE_NAME) <= prefetcher.getMaxWindow());
+
+        // Once the I/O threads have drained, no read-ahead pin may be left behind.
+        bufferPool.disableReadAhead();
+        assertEquals(0, bufferPool.getPinnedFrames());
+    }
+}
@@ -0,0 +1,228 @@
+package lite.sqlite.server.storage.catalog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.cli.TableDto;
+import lite.sqlite.server.queryengine.QueryEngineImpl;
+import lite.sqlite.server.statistics.ColumnStatistics;
+import lite.sqlite.server.statistics.EquiDepthHistogram;
+import lite.sqlite.server.statistics.TableStatistics;
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.index.TableIndex;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Record;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.table.Table;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("System Catalog Tests")
+public class SystemCatalogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private void insertUsers(QueryEngineImpl engine, int from, int to) {
+        StringBuilder sql = new StringBuilder("INSERT INTO users (id, name) VALUES ");
+        for (int id = from; id < to; id++) {
+            sql.append(id == from ? "" : ", ").append("(").append(id).append(", 'user ").append(id).append("')");
+        }
+        assertNull(engine.doUpdate(sql.toString()).getErrorMessage());
+    }
+
+    @Test
+    @DisplayName("Tables and indexes created before a restart are usable after it")
+    void testTablesSurviveRestart() {
+        File dbDirectory = tempDir.toFile();
+        QueryEngineImpl engine = new QueryEngineImpl(dbDirectory);
+        try {
+            assertNull(engine.doUpdate("CREATE TABLE users (id INTEGER, name VARCHAR(20))").getErrorMessage());
+            insertUsers(engine, 0, 200);
+            assertNull(engine.doCreateIndex("CREATE UNIQUE INDEX idx_users_id ON users(id)").getErrorMessage());
+            assertNull(engine.doUpdate("ANALYZE TABLE users").getErrorMessage());
+        } finally {
+            engine.close();
+        }
+
+        engine = new QueryEngineImpl(dbDirectory);
+        try {
+            assertEquals(List.of(List.of("user 150")), engine.doQuery("SELECT name FROM users WHERE id = 150").getRows());
+            TableDto plan = engine.doQuery("EXPLAIN SELECT name FROM users WHERE id = 150");
+            assertTrue(plan.getRows().stream().anyMatch(row -> row.get(0).contains("IndexScan(users.id")),
+                plan.getRows().toString());
+            assertNotNull(engine.doUpdate("CREATE TABLE users (id INTEGER)").getErrorMessage(), "Table already exists");
+            assertNotNull(engine.doUpdate("INSERT INTO users (id, name) VALUES (5, 'again')").getErrorMessage(),
+                "Unique index is enforced after the restart");
+            insertUsers(engine, 200, 210);
+            assertEquals(List.of(List.of("user 205")), engine.doQuery("SELECT name FROM users WHERE id = 205").getRows());
+            assertNotNull(engine.doQuery("SELECT id FROM missing").getErrorMessage());
+        } finally {
+            engine.close();
+        }
+
+        engine = new QueryEngineImpl(dbDirectory);
+        try {
+            assertEquals(210, engine.doQuery("SELECT id FROM users").getRows().size());
+            assertEquals(List.of(List.of("user 209")), engine.doQuery("SELECT name FROM users WHERE id = 209").getRows());
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A table file without a catalog entry is started over by CREATE TABLE")
+    void testOrphanTableFileIsReused() throws IOException {
+        File dbDirectory = tempDir.toFile();
+        QueryEngineImpl engine = new QueryEngineImpl(dbDirectory);
+        try {
+            assertNull(engine.doUpdate("CREATE TABLE users (id INTEGER, name VARCHAR(20))").getErrorMessage());
+            insertUsers(engine, 0, 500);
+        } finally {
+            engine.close();
+        }
+        // A crash before the entry reached the catalog, or a directory older than the catalog
+        Files.delete(tempDir.resolve(SystemCatalog.FILE_NAME));
+
+        engine = new QueryEngineImpl(dbDirectory);
+        try {
+            assertNotNull(engine.doQuery("SELECT id FROM users").getErrorMessage());
+            assertNull(engine.doUpdate("CREATE TABLE users (id INTEGER, name VARCHAR(20))").getErrorMessage());
+            assertEquals(List.of(), engine.doQuery("SELECT id FROM users").getRows());
+            insertUsers(engine, 1000, 1003);
+        } finally {
+            engine.close();
+        }
+
+        engine = new QueryEngineImpl(dbDirectory);
+        try {
+            assertEquals(List.of(List.of("1000"), List.of("1001"), List.of("1002")),
+                engine.doQuery("SELECT id FROM users").getRows());
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Entries spanning several pages keep schema, indexes and statistics, and rewrites reuse blocks")
+    @SuppressWarnings("unchecked")
+    void testEntryRoundTrip() throws IOException {
+        Schema schema = new Schema();
+        for (int i = 0; i < 300; i++) {
+            schema.addColumn("column_with_a_long_name_" + i, i % 2 == 0 ? DataType.INTEGER : DataType.VARCHAR, i % 2 == 0 ? 0 : 12);
+        }
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add(i * 3);
+        }
+        ColumnStatistics idStatistics = new ColumnStatistics("column_with_a_long_name_0", 0.25, 1000, 0, 2997,
+            EquiDepthHistogram.build(values, 100), 0.9);
+        ColumnStatistics nameStatistics = new ColumnStatistics("column_with_a_long_name_1", 1.0, 0, null, null,
+            EquiDepthHistogram.build(List.of(), 100), 0.0);
+
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(16, fileManager);
+        SystemCatalog catalog = new SystemCatalog(bufferPool, fileManager);
+        Table table = new Table(schema, bufferPool, "wide", fileManager);
+        fileManager.initializePhysicalTable(table);
+        Object[] row = new Object[300];
+        for (int i = 0; i < 300; i++) {
+            row[i] = i % 2 == 0 ? (Object) i : "v" + i;
+        }
+        table.insertRecord(new Record(row));
+        table.createTypedIndex("column_with_a_long_name_1", "wide", "idx_wide", false, DataType.VARCHAR);
+        for (int version = 0; version < 20; version++) {
+            table.setStatistics(new TableStatistics(1000 + version, 7,
+                Map.of(idStatistics.getColumnName(), idStatistics, nameStatistics.getColumnName(), nameStatistics)));
+            catalog.saveTable(table);
+        }
+        int blocks = fileManager.getBlockCount(SystemCatalog.FILE_NAME);
+        assertTrue(blocks < 20, "Old versions are reused, catalog has " + blocks + " blocks");
+        bufferPool.flushAll();
+        catalog.close();
+        fileManager.close();
+
+        fileManager = new BasicFileManager(tempDir.toFile());
+        bufferPool = new BufferPool(16, fileManager);
+        catalog = new SystemCatalog(bufferPool, fileManager);
+        assertNull(catalog.loadTable("missing"));
+        Table loaded = catalog.loadTable("wide");
+        assertEquals(schema.toString(), loaded.getSchema().toString());
+        assertEquals(12, loaded.getSchema().getColumn("column_with_a_long_name_1").getMaxLength());
+
+        TableIndex<?> index = loaded.findIndexForColumn("column_with_a_long_name_1");
+        assertEquals("idx_wide", index.getIndexName());
+        assertFalse(index.isUnique());
+        assertEquals(1, ((TableIndex<String>) index).searchAll("v1").size());
+
+        TableStatistics statistics = loaded.getStatistics();
+        assertEquals(1019, statistics.getRowCount());
+        assertEquals(7, statistics.getBlockCount());
+        ColumnStatistics id = statistics.getColumn(idStatistics.getColumnName());
+        assertEquals(0.25, id.getNullFraction());
+        assertEquals(1000, id.getDistinctCount());
+        assertEquals(0.9, id.getCorrelation());
+        assertEquals(0, id.getMin());
+        assertEquals(2997, id.getMax());
+        assertEquals(idStatistics.getHistogram().getBounds(), id.getHistogram().getBounds());
+        assertEquals(idStatistics.rangeSelectivity(100, true, 400, false), id.rangeSelectivity(100, true, 400, false));
+        ColumnStatistics name = statistics.getColumn(nameStatistics.getColumnName());
+        assertNull(name.getMin());
+        assertEquals(0, name.getHistogram().getBucketCount());
+        catalog.close();
+        fileManager.close();
+    }
+
+    @Test
+    @DisplayName("After an unclean shutdown indexes are rebuilt from their tables")
+    void testIndexesRebuiltAfterCrash() throws IOException {
+        File dbDirectory = tempDir.toFile();
+        Path indexFile = tempDir.resolve("users_idx_users_id.idx");
+        QueryEngineImpl engine = new QueryEngineImpl(dbDirectory);
+        try {
+            assertNull(engine.doUpdate("CREATE TABLE users (id INTEGER, name VARCHAR(20))").getErrorMessage());
+            insertUsers(engine, 0, 50);
+            assertNull(engine.doCreateIndex("CREATE INDEX idx_users_id ON users(id)").getErrorMessage());
+        } finally {
+            engine.close();
+        }
+        byte[] staleIndex = Files.readAllBytes(indexFile);
+
+        engine = new QueryEngineImpl(dbDirectory);
+        try {
+            insertUsers(engine, 50, 3000);
+            assertNull(engine.doUpdate("ANALYZE TABLE users").getErrorMessage());
+        } finally {
+            engine.close();
+        }
+
+        // A crash after the rows reached the table but before the index pages did
+        Files.write(indexFile, staleIndex);
+        try (RandomAccessFile catalogFile = new RandomAccessFile(new File(dbDirectory, SystemCatalog.FILE_NAME), "rw")) {
+            catalogFile.seek(8);
+            catalogFile.writeInt(0);
+        }
+
+        engine = new QueryEngineImpl(dbDirectory);
+        try {
+            TableDto plan = engine.doQuery("EXPLAIN SELECT name FROM users WHERE id = 2500");
+            assertTrue(plan.getRows().stream().anyMatch(row -> row.get(0).startsWith("    IndexScan(users.id")),
+                plan.getRows().toString());
+            assertEquals(List.of(List.of("user 2500")), engine.doQuery("SELECT name FROM users WHERE id = 2500").getRows());
+            assertEquals(2950, engine.doQuery("SELECT id FROM users WHERE id >= 50").getRows().size());
+        } finally {
+            engine.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package lite.sqlite.server.storage.filemanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.cli.TableDto;
+import lite.sqlite.server.queryengine.QueryEngineImpl;
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Page;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Database Header Tests")
+public class DatabaseHeaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void clearPageSize() {
+        System.clearProperty(DatabaseHeader.PAGE_SIZE_KEY);
+    }
+
+    @Test
+    @DisplayName("A new database records the configured page size and keeps it afterwards")
+    void testPageSizeIsFixedAtCreation() throws IOException {
+        File dbDirectory = tempDir.resolve("db").toFile();
+        System.setProperty(DatabaseHeader.PAGE_SIZE_KEY, "16384");
+        assertEquals(16384, DatabaseHeader.open(dbDirectory).getPageSize());
+        assertTrue(new File(dbDirectory, DatabaseHeader.FILE_NAME).exists());
+
+        System.setProperty(DatabaseHeader.PAGE_SIZE_KEY, "8192");
+        assertEquals(16384, DatabaseHeader.open(dbDirectory).getPageSize(), "Configuration only applies to new databases");
+        BasicFileManager fileManager = new BasicFileManager(dbDirectory);
+        assertEquals(16384, fileManager.getPageSize());
+        fileManager.append("sized.tbl");
+        fileManager.close();
+        assertEquals(16384L * BasicFileManager.DEFAULT_EXTENT_BLOCKS, Files.size(dbDirectory.toPath().resolve("sized.tbl")));
+    }
+
+    @Test
+    @DisplayName("Page sizes outside 4-32 KB or not a power of two are rejected")
+    void testInvalidPageSize() {
+        assertThrows(IllegalArgumentException.class, () -> DatabaseHeader.checkPageSize(2048));
+        assertThrows(IllegalArgumentException.class, () -> DatabaseHeader.checkPageSize(65536));
+        assertThrows(IllegalArgumentException.class, () -> DatabaseHeader.checkPageSize(12288));
+        System.setProperty(DatabaseHeader.PAGE_SIZE_KEY, "6000");
+        assertThrows(IllegalArgumentException.class, () -> DatabaseHeader.open(tempDir.toFile()));
+        assertFalse(new File(tempDir.toFile(), DatabaseHeader.FILE_NAME).exists());
+    }
+
+    @Test
+    @DisplayName("A directory with data files but no header keeps the default page size")
+    void testExistingDatabaseWithoutHeader() throws IOException {
+        Files.write(tempDir.resolve("old.tbl"), new byte[Page.PAGE_SIZE]);
+        System.setProperty(DatabaseHeader.PAGE_SIZE_KEY, "32768");
+        assertEquals(Page.PAGE_SIZE, DatabaseHeader.open(tempDir.toFile()).getPageSize());
+    }
+
+    @Test
+    @DisplayName("A header file with a foreign magic number is refused")
+    void testCorruptHeader() throws IOException {
+        Files.write(tempDir.resolve(DatabaseHeader.FILE_NAME), new byte[12]);
+        assertThrows(IOException.class, () -> DatabaseHeader.open(tempDir.toFile()));
+    }
+
+    @Test
+    @DisplayName("The query engine stores tables and indexes in 32 KB pages")
+    void testEngineWithLargePages() {
+        System.setProperty(DatabaseHeader.PAGE_SIZE_KEY, "32768");
+        QueryEngineImpl engine = new QueryEngineImpl(tempDir.toFile());
+        try {
+            assertNull(engine.doUpdate("CREATE TABLE notes (id INTEGER, body VARCHAR(40))").getErrorMessage());
+            for (int i = 0; i < 2000; i++) {
+                assertNull(engine.doUpdate("INSERT INTO notes (id, body) VALUES (" + i + ", 'note " + i + "')")
+                    .getErrorMessage());
+            }
+            assertNull(engine.doCreateIndex("CREATE INDEX idx_notes_id ON notes (id)").getErrorMessage());
+            TableDto result = engine.doQuery("SELECT body FROM notes WHERE id = 1234");
+            assertEquals(List.of(List.of("note 1234")), result.getRows());
+            assertEquals(1000, engine.doQuery("SELECT id FROM notes WHERE id >= 1000").getRows().size());
+        } finally {
+            engine.close();
+        }
+    }
+}
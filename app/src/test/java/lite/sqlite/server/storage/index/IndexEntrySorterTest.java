@@ -0,0 +1,70 @@
+package lite.sqlite.server.storage.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.table.RecordId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Index Entry Sorter Tests")
+public class IndexEntrySorterTest {
+
+    private static final String TABLE_FILE = "orders.tbl";
+
+    private static RecordId rid(int block, int slot) {
+        return new RecordId(new Block(TABLE_FILE, block), slot);
+    }
+
+    @Test
+    @DisplayName("Entries beyond the memory budget spill to runs and merge back in order")
+    void testExternalMerge() throws Exception {
+        List<IndexEntry<Integer>> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            expected.add(new IndexEntry<>(i % 97, rid(i, i % 5)));
+        }
+        List<IndexEntry<Integer>> shuffled = new ArrayList<>(expected);
+        Collections.shuffle(shuffled, new Random(3));
+        Collections.sort(expected);
+
+        // Roughly 100 entries per run.
+        try (IndexEntrySorter<Integer> sorter = new IndexEntrySorter<>(IndexKeyCodec.integer(), TABLE_FILE, 10_000)) {
+            for (IndexEntry<Integer> entry : shuffled) {
+                sorter.add(entry.getKey(), entry.getRecordId());
+            }
+            assertTrue(sorter.getRunCount() > 10, "Small budget should spill, runs=" + sorter.getRunCount());
+            assertEquals(5000, sorter.size());
+
+            Iterator<IndexEntry<Integer>> sorted = sorter.sortedIterator();
+            for (IndexEntry<Integer> entry : expected) {
+                assertTrue(sorted.hasNext());
+                IndexEntry<Integer> actual = sorted.next();
+                assertEquals(entry.getKey(), actual.getKey());
+                assertEquals(entry.getRecordId(), actual.getRecordId());
+            }
+            assertFalse(sorted.hasNext());
+        }
+    }
+
+    @Test
+    @DisplayName("Keys the index cannot encode are rejected when added")
+    void testRejectsLongKey() throws Exception {
+        try (IndexEntrySorter<String> sorter = new IndexEntrySorter<>(IndexKeyCodec.varchar(4), TABLE_FILE, 1 << 20)) {
+            assertThrows(IllegalArgumentException.class, () -> sorter.add("too long", rid(0, 0)));
+            sorter.add("b", rid(0, 1));
+            sorter.add("a", rid(0, 2));
+            Iterator<IndexEntry<String>> sorted = sorter.sortedIterator();
+            assertEquals("a", sorted.next().getKey());
+            assertEquals("b", sorted.next().getKey());
+            assertFalse(sorted.hasNext());
+            assertEquals(0, sorter.getRunCount());
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package lite.sqlite.server.storage.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.table.RecordId;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Paged B+ Tree Tests")
+public class PagedBplusTreeTest {
+
+    private static final String INDEX_FILE = "users_idx_id.idx";
+    private static final String TABLE_FILE = "users.tbl";
+
+    @TempDir
+    Path tempDir;
+
+    private static RecordId rid(int block, int slot) {
+        return new RecordId(new Block(TABLE_FILE, block), slot);
+    }
+
+    /**
+     * Key the range test stored for a record id: originals use slot 0, later inserts slot 1.
+     */
+    private static int keyOf(RecordId rid) {
+        int block = rid.getBlockId().getBlockNum();
+        return rid.getSlotNumber() == 0 ? block / 2 : block % 250;
+    }
+
+    @Test
+    @DisplayName("Random inserts split nodes and every key stays reachable")
+    void testInsertAndSearchWithSplits() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(16, fileManager, 1);
+        try {
+            PagedBplusTree<Integer> tree = PagedBplusTree.create(bufferPool, fileManager, INDEX_FILE, TABLE_FILE,
+                IndexKeyCodec.integer(), 4);
+            List<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                keys.add(i);
+            }
+            Collections.shuffle(keys, new Random(42));
+            for (int key : keys) {
+                tree.insert(key, rid(key / 10, key % 10));
+            }
+
+            assertEquals(2000, tree.size());
+            assertTrue(tree.height() > 3, "Small nodes should produce a deep tree, height=" + tree.height());
+            for (int key = 0; key < 2000; key++) {
+                assertEquals(rid(key / 10, key % 10), tree.search(key), "Key " + key);
+            }
+            assertNull(tree.search(-1));
+            assertNull(tree.search(2000));
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Duplicate keys spanning several leaves are all returned")
+    void testDuplicateKeys() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(16, fileManager, 1);
+        try {
+            PagedBplusTree<Integer> tree = PagedBplusTree.create(bufferPool, fileManager, INDEX_FILE, TABLE_FILE,
+                IndexKeyCodec.integer(), 4);
+            HashSet<RecordId> expected = new HashSet<>();
+            for (int i = 0; i < 300; i++) {
+                RecordId rid = rid(i, i % 7);
+                tree.insert(i % 3, rid);
+                if (i % 3 == 1) {
+                    expected.add(rid);
+                }
+            }
+            tree.insert(1, rid(1, 1));
+
+            List<RecordId> found = tree.searchAll(1);
+            assertEquals(expected.size(), found.size(), "Re-inserting an existing entry is a no-op");
+            assertEquals(expected, new HashSet<>(found));
+            assertTrue(tree.searchAll(5).isEmpty());
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A tree reopened with a fresh pool and file manager returns the same entries")
+    void testReopen() throws Exception {
+        File dir = tempDir.toFile();
+        BasicFileManager fileManager = new BasicFileManager(dir);
+        BufferPool bufferPool = new BufferPool(8, fileManager, 1);
+        PagedBplusTree<String> tree = PagedBplusTree.create(bufferPool, fileManager, INDEX_FILE, TABLE_FILE,
+            IndexKeyCodec.varchar(20), 5);
+        for (int i = 0; i < 500; i++) {
+            tree.insert("user-" + i, rid(i, 0));
+        }
+        int height = tree.height();
+        bufferPool.flushAll();
+        bufferPool.close();
+        fileManager.close();
+
+        fileManager = new BasicFileManager(dir);
+        bufferPool = new BufferPool(8, fileManager, 1);
+        try {
+            @SuppressWarnings("unchecked")
+            PagedBplusTree<String> reopened =
+                (PagedBplusTree<String>) PagedBplusTree.open(bufferPool, fileManager, INDEX_FILE, TABLE_FILE);
+            assertEquals(500, reopened.size());
+            assertEquals(height, reopened.height());
+            for (int i = 0; i < 500; i++) {
+                assertEquals(rid(i, 0), reopened.search("user-" + i));
+            }
+            assertNull(reopened.search("user-500"));
+
+            reopened.insert("user-500", rid(500, 0));
+            assertEquals(rid(500, 0), reopened.search("user-500"));
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Deletes merge and borrow until the tree collapses back to one leaf")
+    void testDeleteRebalances() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(16, fileManager, 1);
+        try {
+            PagedBplusTree<Integer> tree = PagedBplusTree.create(bufferPool, fileManager, INDEX_FILE, TABLE_FILE,
+                IndexKeyCodec.integer(), 4);
+            for (int i = 0; i < 1000; i++) {
+                tree.insert(i % 100, rid(i, 0));
+            }
+            int blocks = fileManager.getBlockCount(INDEX_FILE);
+
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                order.add(i);
+            }
+            Collections.shuffle(order, new Random(7));
+            for (int n = 0; n < 900; n++) {
+                int i = order.get(n);
+                assertTrue(tree.delete(i % 100, rid(i, 0)), "Entry " + i);
+            }
+            assertFalse(tree.delete(order.get(0) % 100, rid(order.get(0), 0)), "Entry is already gone");
+            assertEquals(100, tree.size());
+
+            HashSet<RecordId> remaining = new HashSet<>();
+            for (int n = 900; n < 1000; n++) {
+                remaining.add(rid(order.get(n), 0));
+            }
+            HashSet<RecordId> found = new HashSet<>();
+            for (int key = 0; key < 100; key++) {
+                found.addAll(tree.searchAll(key));
+            }
+            assertEquals(remaining, found);
+
+            for (int n = 900; n < 1000; n++) {
+                int i = order.get(n);
+                assertTrue(tree.delete(i % 100, rid(i, 0)));
+            }
+            assertEquals(0, tree.size());
+            assertEquals(1, tree.height(), "An empty tree is a single leaf");
+
+            for (int i = 0; i < 1000; i++) {
+                tree.insert(i % 100, rid(i, 0));
+            }
+            assertEquals(blocks, fileManager.getBlockCount(INDEX_FILE), "Freed nodes should be reused");
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Range scans walk leaves lazily and tolerate inserts between batches")
+    void testRangeScan() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(16, fileManager, 1);
+        try {
+            PagedBplusTree<Integer> tree = PagedBplusTree.create(bufferPool, fileManager, INDEX_FILE, TABLE_FILE,
+                IndexKeyCodec.integer(), 4);
+            for (int i = 0; i < 500; i++) {
+                tree.insert(i / 2, rid(i, 0));
+            }
+
+            List<Integer> inclusive = new ArrayList<>();
+            tree.rangeScan(100, true, 110, true).forEachRemaining(r -> inclusive.add(keyOf(r)));
+            assertEquals(22, inclusive.size());
+            assertEquals(100, inclusive.get(0));
+            assertEquals(110, inclusive.get(21));
+
+            List<Integer> exclusive = new ArrayList<>();
+            tree.rangeScan(100, false, 110, false).forEachRemaining(r -> exclusive.add(keyOf(r)));
+            assertEquals(18, exclusive.size());
+            assertEquals(101, exclusive.get(0));
+            assertEquals(109, exclusive.get(17));
+
+            Iterator<RecordId> unbounded = tree.rangeScan(null, true, null, true);
+            HashSet<RecordId> seen = new HashSet<>();
+            int previous = Integer.MIN_VALUE;
+            while (unbounded.hasNext()) {
+                RecordId next = unbounded.next();
+                if (seen.size() == 10) {
+                    // Splits behind and ahead of the cursor must not repeat or skip entries.
+                    for (int i = 500; i < 700; i++) {
+                        tree.insert(i % 250, rid(i, 1));
+                    }
+                }
+                assertTrue(keyOf(next) >= previous, "Keys come back in order");
+                assertTrue(seen.add(next), "Entry " + next + " returned twice");
+                previous = keyOf(next);
+            }
+            for (int i = 0; i < 500; i++) {
+                assertTrue(seen.contains(rid(i, 0)), "Entry " + i + " was skipped");
+            }
+            assertFalse(tree.rangeScan(300, true, null, true).hasNext());
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk load packs nodes at the fill factor and the tree stays updatable")
+    void testBulkLoad() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(16, fileManager, 1);
+        try {
+            PagedBplusTree<Integer> loaded = PagedBplusTree.create(bufferPool, fileManager, INDEX_FILE, TABLE_FILE,
+                IndexKeyCodec.integer(), 8);
+            List<IndexEntry<Integer>> entries = new ArrayList<>();
+            for (int i = 0; i < 3001; i++) {
+                entries.add(new IndexEntry<>(i / 3, rid(i, 0)));
+            }
+            loaded.bulkLoad(entries.iterator(), 1.0);
+            assertEquals(3001, loaded.size());
+            int packedBlocks = fileManager.getBlockCount(INDEX_FILE);
+
+            PagedBplusTree<Integer> inserted = PagedBplusTree.create(bufferPool, fileManager, "users_idx_id2.idx",
+                TABLE_FILE, IndexKeyCodec.integer(), 8);
+            for (IndexEntry<Integer> entry : entries) {
+                inserted.insert(entry.getKey(), entry.getRecordId());
+            }
+            assertTrue(packedBlocks < fileManager.getBlockCount("users_idx_id2.idx"),
+                "Packed leaves need fewer blocks than split ones");
+            assertTrue(loaded.height() <= inserted.height());
+
+            for (int key = 0; key <= 1000; key++) {
+                assertEquals(key == 1000 ? 1 : 3, loaded.searchAll(key).size(), "Key " + key);
+            }
+            List<RecordId> scanned = new ArrayList<>();
+            loaded.rangeScan(null, true, null, true).forEachRemaining(scanned::add);
+            assertEquals(entries.stream().map(IndexEntry::getRecordId).toList(), scanned);
+
+            for (int i = 0; i < 3001; i += 2) {
+                assertTrue(loaded.delete(i / 3, rid(i, 0)), "Entry " + i);
+            }
+            loaded.insert(5000, rid(5000, 0));
+            assertEquals(1500 + 1, loaded.size());
+            assertEquals(rid(5000, 0), loaded.search(5000));
+            assertEquals(List.of(rid(1, 0)), loaded.searchAll(0));
+
+            assertThrows(IllegalStateException.class, () -> loaded.bulkLoad(entries.iterator(), 1.0));
+            loaded.clear();
+            List<IndexEntry<Integer>> unsorted = List.of(new IndexEntry<>(2, rid(0, 0)), new IndexEntry<>(1, rid(1, 0)));
+            assertThrows(IllegalArgumentException.class, () -> loaded.bulkLoad(unsorted.iterator(), 0.7));
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Clear keeps the file and reuses freed nodes")
+    void testClearReusesBlocks() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(16, fileManager, 1);
+        try {
+            PagedBplusTree<Integer> tree = PagedBplusTree.create(bufferPool, fileManager, INDEX_FILE, TABLE_FILE,
+                IndexKeyCodec.integer(), 4);
+            for (int i = 0; i < 200; i++) {
+                tree.insert(i, rid(i, 0));
+            }
+            int blocks = fileManager.getBlockCount(INDEX_FILE);
+
+            tree.clear();
+            assertEquals(0, tree.size());
+            assertNull(tree.search(10));
+            for (int i = 0; i < 200; i++) {
+                tree.insert(i, rid(i, 1));
+            }
+            assertEquals(blocks, fileManager.getBlockCount(INDEX_FILE));
+            assertEquals(rid(10, 1), tree.search(10));
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("VARCHAR keys longer than the column cannot be indexed")
+    void testVarcharTooLong() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(8, fileManager, 1);
+        try {
+            PagedBplusTree<String> tree = PagedBplusTree.create(bufferPool, fileManager, INDEX_FILE, TABLE_FILE,
+                IndexKeyCodec.varchar(4));
+            assertThrows(IllegalArgumentException.class, () -> tree.insert("too long", rid(0, 0)));
+            tree.insert("ok", rid(0, 0));
+            assertEquals(rid(0, 0), tree.search("ok"));
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+}
@@ -7,10 +7,13 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -54,6 +57,98 @@ class TableIndexTest {
         assertTrue(ex.getMessage().contains("Duplicate key"), "Error should explain duplicate key");
     }
 
+    @Test
+    @DisplayName("Deleting entries rebalances the tree and keeps the rest reachable")
+    void testDeleteWithMergeAndBorrow() {
+        TableIndex<Integer> index = new TableIndex<>("idx_orders_id", "orders", "id", false, 3);
+        for (int i = 0; i < 200; i++) {
+            index.insert(i % 50, rid(i, 0));
+        }
+
+        for (int i = 0; i < 200; i += 2) {
+            assertTrue(index.delete(i % 50, rid(i, 0)), "Entry " + i + " should be deleted");
+        }
+        assertFalse(index.delete(0, rid(0, 0)), "Deleting twice should report a miss");
+
+        for (int key = 0; key < 50; key++) {
+            List<RecordId> expected = new ArrayList<>();
+            for (int i = key; i < 200; i += 50) {
+                if (i % 2 == 1) {
+                    expected.add(rid(i, 0));
+                }
+            }
+            assertEquals(new HashSet<>(expected), new HashSet<>(index.searchAll(key)), "Key " + key);
+        }
+
+        for (int i = 1; i < 200; i += 2) {
+            assertTrue(index.delete(i % 50, rid(i, 0)));
+        }
+        for (int key = 0; key < 50; key++) {
+            assertTrue(index.searchAll(key).isEmpty());
+            assertNull(index.search(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Update moves a record to its new key and keeps uniqueness")
+    void testUpdateMovesKey() {
+        TableIndex<Integer> uniqueIndex = new TableIndex<>("idx_users_id", "users", "id", true, 3);
+        for (int i = 0; i < 10; i++) {
+            uniqueIndex.insert(i, rid(i, 0));
+        }
+
+        uniqueIndex.update(3, 30, rid(3, 0));
+        assertNull(uniqueIndex.search(3));
+        assertEquals(rid(3, 0), uniqueIndex.search(30));
+
+        assertThrows(IllegalArgumentException.class, () -> uniqueIndex.update(4, 5, rid(4, 0)));
+        assertEquals(rid(4, 0), uniqueIndex.search(4), "A rejected update must leave the old key in place");
+
+        uniqueIndex.update(6, null, rid(6, 0));
+        assertNull(uniqueIndex.search(6));
+    }
+
+    @Test
+    @DisplayName("Range scan honours inclusive and exclusive bounds across leaves")
+    void testRangeScan() {
+        TableIndex<Integer> index = new TableIndex<>("idx_orders_total", "orders", "total", false, 3);
+        for (int i = 0; i < 50; i++) {
+            index.insert(i, rid(i, 0));
+            index.insert(i, rid(i, 1));
+        }
+
+        assertEquals(List.of(10, 10, 11, 11, 12, 12), keys(index.rangeScan(10, true, 12, true)));
+        assertEquals(List.of(11, 11), keys(index.rangeScan(10, false, 12, false)));
+        assertEquals(List.of(47, 47, 48, 48, 49, 49), keys(index.rangeScan(47, true, null, true)));
+        assertEquals(List.of(0, 0), keys(index.rangeScan(null, true, 1, false)));
+        assertTrue(keys(index.rangeScan(20, false, 20, true)).isEmpty());
+        assertEquals(100, keys(index.rangeScan(null, true, null, true)).size());
+    }
+
+    @Test
+    @DisplayName("Bulk loading a unique index keeps the first entry of a duplicated key")
+    void testUniqueBulkLoadSkipsDuplicates() {
+        TableIndex<Integer> uniqueIndex = new TableIndex<>("idx_users_id", "users", "id", true, 3);
+        List<IndexEntry<Integer>> entries = List.of(
+            new IndexEntry<>(1, rid(0, 0)),
+            new IndexEntry<>(2, rid(0, 1)),
+            new IndexEntry<>(2, rid(0, 2)),
+            new IndexEntry<>(3, rid(0, 3)));
+
+        uniqueIndex.bulkLoad(entries.iterator(), 0.9);
+        assertEquals(List.of(rid(0, 1)), uniqueIndex.searchAll(2));
+        assertEquals(rid(0, 0), uniqueIndex.search(1));
+        assertEquals(rid(0, 3), uniqueIndex.search(3));
+    }
+
+    private static List<Integer> keys(Iterator<RecordId> rids) {
+        List<Integer> keys = new ArrayList<>();
+        while (rids.hasNext()) {
+            keys.add(rids.next().getBlockId().getBlockNum());
+        }
+        return keys;
+    }
+
     private RecordId rid(int blockNum, int slotNum) {
         return new RecordId(new Block("test.tbl", blockNum), slotNum);
     }
@@ -186,4 +186,30 @@ public class RecordPageTest {
         boolean result = recordPage.insert(largeRecord);
         assertFalse(result, "Insert should fail due to insufficient space");
     }
+
+    @Test
+    public void testRecordView() {
+        recordPage.insert(new Object[] {1, "John", "john@example.com"});
+        recordPage.insert(new Object[] {-7, "", "béa@example.com"});
+        recordPage.delete(0);
+
+        RecordView view = new RecordView(schema);
+        assertFalse(recordPage.view(0, view), "Deleted slot has no record");
+        assertFalse(recordPage.view(2, view), "Slot out of range");
+        assertTrue(recordPage.view(1, view));
+
+        // Columns may be read in any order
+        assertEquals("béa@example.com", view.getString(2));
+        assertEquals(-7, view.getInt(0));
+        assertEquals("", view.getString(1));
+        assertArrayEquals(recordPage.getRecord(1), view.materialize(null));
+        assertArrayEquals(new Object[] {-7, null, null}, view.materialize(new int[] {0}));
+
+        assertEquals(0, Integer.signum(view.compareInt(0, -7)));
+        assertTrue(view.compareInt(0, 0) < 0);
+        assertTrue(view.compareBytes(1, "a".getBytes()) < 0, "Empty string sorts first");
+        assertTrue(view.compareBytes(2, "b".getBytes()) > 0, "Longer than a prefix");
+        assertTrue(view.compareBytes(2, "bz".getBytes()) > 0, "Non-ASCII byte sorts after ASCII");
+        assertEquals(0, view.compareBytes(2, "béa@example.com".getBytes()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package lite.sqlite.server.storage.table;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Record;
+import lite.sqlite.server.storage.record.Schema;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Free-Space Map Tests")
+public class FreeSpaceMapTest {
+
+    private static final String MAP_FILE = "orders.fsm";
+
+    @TempDir
+    Path tempDir;
+
+    private static Schema schema() {
+        Schema schema = new Schema();
+        schema.addColumn("id", DataType.INTEGER);
+        schema.addColumn("payload", DataType.VARCHAR, 100);
+        return schema;
+    }
+
+    private static Record row(int id) {
+        return new Record(new Object[] {id, "payload-" + "x".repeat(80) + id});
+    }
+
+    @Test
+    @DisplayName("Lookups return the newest block with room and survive a reopen")
+    void testFindBlockAndReopen() throws Exception {
+        File dir = tempDir.toFile();
+        BasicFileManager fileManager = new BasicFileManager(dir);
+        BufferPool bufferPool = new BufferPool(16, fileManager, 1);
+        FreeSpaceMap map = FreeSpaceMap.open(bufferPool, fileManager, MAP_FILE);
+        int blocks = Page.PAGE_SIZE * 2 + 10;
+        for (int blockNum = 0; blockNum < blocks; blockNum++) {
+            map.update(blockNum, blockNum % 100 == 7 ? 1000 : 20);
+        }
+        assertEquals(blocks, map.getTrackedBlocks());
+        assertEquals(8107, map.findBlock(500), "Newest block with 1000 free bytes");
+        assertEquals(blocks - 1, map.findBlock(16));
+        assertEquals(-1, map.findBlock(1001));
+
+        map.update(8107, 0);
+        assertEquals(8007, map.findBlock(500));
+        bufferPool.flushAll();
+        bufferPool.close();
+        fileManager.close();
+
+        fileManager = new BasicFileManager(dir);
+        bufferPool = new BufferPool(16, fileManager, 1);
+        try {
+            FreeSpaceMap reopened = FreeSpaceMap.open(bufferPool, fileManager, MAP_FILE);
+            assertEquals(blocks, reopened.getTrackedBlocks());
+            assertEquals(8007, reopened.findBlock(500));
+            assertEquals(992, reopened.getFreeSpace(7), "Rounded down to a whole category");
+
+            reopened.truncate(100);
+            assertEquals(100, reopened.getTrackedBlocks());
+            assertEquals(7, reopened.findBlock(500));
+            assertEquals(99, reopened.findBlock(16));
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Space freed by deletes is reused before the table grows")
+    void testInsertReusesFreedSpace() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(32, fileManager, 1);
+        try {
+            Table table = new Table(schema(), bufferPool, "orders", fileManager);
+            fileManager.initializePhysicalTable(table);
+            List<RecordId> inBlockThree = new ArrayList<>();
+            int id = 0;
+            while (fileManager.getBlockCount("orders.tbl") < 10) {
+                RecordId rid = table.insertRecord(row(id++));
+                if (rid.getBlockId().getBlockNum() == 3) {
+                    inBlockThree.add(rid);
+                }
+            }
+            assertFalse(inBlockThree.isEmpty());
+            assertTrue(table.getFreeSpaceMap().getFreeSpace(3) < 200, "Block 3 starts out full");
+
+            for (RecordId rid : inBlockThree) {
+                assertTrue(table.deleteRecord(rid));
+            }
+            assertTrue(table.getFreeSpaceMap().getFreeSpace(3) > Page.PAGE_SIZE / 2,
+                "Deletes report the reclaimable space");
+
+            int reused = 0;
+            int blocksBefore = fileManager.getBlockCount("orders.tbl");
+            while (fileManager.getBlockCount("orders.tbl") == blocksBefore) {
+                if (table.insertRecord(row(id++)).getBlockId().getBlockNum() == 3) {
+                    reused++;
+                }
+            }
+            assertTrue(reused >= inBlockThree.size() - 1, "Freed block should be refilled, reused=" + reused);
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk inserts fill blocks in order and leave the unused extent open")
+    void testBulkInsertExtents() throws Exception {
+        BasicFileManager fileManager = new BasicFileManager(tempDir.toFile());
+        BufferPool bufferPool = new BufferPool(32, fileManager, 1);
+        try {
+            Table table = new Table(schema(), bufferPool, "orders", fileManager);
+            fileManager.initializePhysicalTable(table);
+            List<Record> rows = new ArrayList<>();
+            for (int id = 0; id < 200; id++) {
+                rows.add(row(id));
+            }
+            assertEquals(200, table.bulkInsert(rows.iterator()));
+
+            int blocks = fileManager.getBlockCount("orders.tbl");
+            assertEquals(17, blocks, "One block plus one extent");
+            FreeSpaceMap map = table.getFreeSpaceMap();
+            assertEquals(blocks, map.getTrackedBlocks());
+            assertTrue(map.getFreeSpace(1) < 200, "Earlier blocks are packed");
+            assertTrue(map.getFreeSpace(blocks - 1) > Page.PAGE_SIZE - 100, "Unused blocks are reported empty");
+
+            int count = 0;
+            for (Record record : table) {
+                assertEquals(count++, record.getValues()[0]);
+            }
+            assertEquals(200, count);
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A missing map is rebuilt from the table pages")
+    void testRebuildMissingMap() throws Exception {
+        File dir = tempDir.toFile();
+        BasicFileManager fileManager = new BasicFileManager(dir);
+        BufferPool bufferPool = new BufferPool(16, fileManager, 1);
+        Table table = new Table(schema(), bufferPool, "orders", fileManager);
+        fileManager.initializePhysicalTable(table);
+        for (int id = 0; id < 100; id++) {
+            table.insertRecord(row(id));
+        }
+        int blocks = fileManager.getBlockCount("orders.tbl");
+        int lastFree = table.getFreeSpaceMap().getFreeSpace(blocks - 1);
+        bufferPool.flushAll();
+        bufferPool.close();
+        fileManager.close();
+        assertTrue(new File(dir, "orders.fsm").delete());
+
+        fileManager = new BasicFileManager(dir);
+        bufferPool = new BufferPool(16, fileManager, 1);
+        try {
+            Table reopened = new Table(schema(), bufferPool, "orders", fileManager);
+            FreeSpaceMap map = reopened.getFreeSpaceMap();
+            assertEquals(blocks, map.getTrackedBlocks());
+            assertEquals(lastFree, map.getFreeSpace(blocks - 1));
+
+            RecordId rid = reopened.insertRecord(row(100));
+            assertEquals(new Block("orders.tbl", blocks - 1), rid.getBlockId());
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+}
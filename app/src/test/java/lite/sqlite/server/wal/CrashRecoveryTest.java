@@ -0,0 +1,123 @@
+package lite.sqlite.server.wal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Record;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.table.Table;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kills a child JVM that commits inserts through the log while its pool never writes a
+ * page back, then checks that recovery brings back every committed row.
+ */
+@DisplayName("Crash Recovery Tests")
+public class CrashRecoveryTest {
+
+    private static final String TABLE_NAME = "crash";
+    private static final int POOL_SIZE = 256;
+    private static final int KILL_AFTER = 400;
+
+    @TempDir
+    Path tempDir;
+
+    private static Schema schema() {
+        Schema schema = new Schema();
+        schema.addColumn("id", DataType.INTEGER);
+        schema.addColumn("name", DataType.VARCHAR, 20);
+        return schema;
+    }
+
+    /**
+     * Child process: inserts rows forever, committing the log after each one and printing
+     * the id once the commit returned. Pages stay dirty in the pool until the process dies.
+     */
+    public static class ChildProcess {
+        public static void main(String[] args) throws Exception {
+            File dir = new File(args[0]);
+            BasicFileManager fileManager = new BasicFileManager(dir);
+            BufferPool bufferPool = new BufferPool(POOL_SIZE, fileManager);
+            WriteAheadLog wal = WriteAheadLog.open(dir, 0);
+            bufferPool.setWriteAheadLog(wal);
+            Table table = new Table(schema(), bufferPool, TABLE_NAME, fileManager);
+            fileManager.initializePhysicalTable(table);
+
+            for (int id = 0; ; id++) {
+                table.insertRecord(new Record(new Object[] {id, "row-" + id}));
+                wal.commit();
+                System.out.println("COMMITTED " + id);
+                System.out.flush();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Rows committed before a kill -9 are recovered from the log")
+    void testRecoverAfterKill() throws Exception {
+        File dir = tempDir.resolve("database").toFile();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+            ChildProcess.class.getName(), dir.getAbsolutePath());
+        builder.redirectErrorStream(true);
+        Process child = builder.start();
+
+        int lastCommitted = -1;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("COMMITTED ")) {
+                    lastCommitted = Integer.parseInt(line.substring("COMMITTED ".length()));
+                    if (lastCommitted >= KILL_AFTER) {
+                        break;
+                    }
+                }
+            }
+            // Killed between log appends and page write-backs: the table file holds no rows.
+            child.destroyForcibly();
+            assertTrue(child.waitFor(30, TimeUnit.SECONDS));
+        } finally {
+            child.destroyForcibly();
+        }
+        assertTrue(lastCommitted >= KILL_AFTER, "Child exited early, last commit " + lastCommitted);
+
+        BasicFileManager fileManager = new BasicFileManager(dir);
+        BufferPool bufferPool = new BufferPool(POOL_SIZE, fileManager);
+        WriteAheadLog wal = WriteAheadLog.open(dir, 0);
+        try {
+            int applied = new RecoveryManager(wal, bufferPool, fileManager).recover();
+            assertTrue(applied > lastCommitted, "Committed inserts should be redone, applied=" + applied);
+
+            Table table = new Table(schema(), bufferPool, TABLE_NAME, fileManager);
+            BitSet seen = new BitSet();
+            for (Record record : table) {
+                int id = (Integer) record.getValue(0);
+                assertFalse(seen.get(id), "Row " + id + " recovered twice");
+                assertEquals("row-" + id, record.getValue(1));
+                seen.set(id);
+            }
+            for (int id = 0; id <= lastCommitted; id++) {
+                assertTrue(seen.get(id), "Committed row " + id + " was lost");
+            }
+            assertEquals(seen.cardinality(), seen.nextClearBit(0), "Recovered rows must be a prefix of the inserts");
+        } finally {
+            wal.close();
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package lite.sqlite.server.wal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lite.sqlite.server.storage.BasicFileManager;
+import lite.sqlite.server.storage.Block;
+import lite.sqlite.server.storage.Page;
+import lite.sqlite.server.storage.buffer.BufferPool;
+import lite.sqlite.server.storage.record.DataType;
+import lite.sqlite.server.storage.record.Schema;
+import lite.sqlite.server.storage.record.SlottedRecordPage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Write-Ahead Log Tests")
+public class WriteAheadLogTest {
+
+    private static final String FILE_NAME = "wal_test.tbl";
+
+    @TempDir
+    Path tempDir;
+
+    private static Schema schema() {
+        Schema schema = new Schema();
+        schema.addColumn("id", DataType.INTEGER);
+        schema.addColumn("name", DataType.VARCHAR, 20);
+        return schema;
+    }
+
+    @Test
+    @DisplayName("Committed records survive reopen and a torn tail is dropped")
+    void testReopenAndTornTail() throws Exception {
+        File dir = tempDir.toFile();
+        Block block = new Block(FILE_NAME, 3);
+        long firstLsn;
+        long secondLsn;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, 0)) {
+            firstLsn = wal.append(LogRecord.Type.INSERT, block, 0, new byte[] {1, 2, 3});
+            secondLsn = wal.append(LogRecord.Type.DELETE, block, 0, null);
+            wal.commit();
+            assertEquals(secondLsn, wal.getFlushedLsn());
+        }
+
+        // Simulate a crash in the middle of writing the next entry.
+        try (RandomAccessFile file = new RandomAccessFile(new File(dir, WriteAheadLog.FILE_NAME), "rw")) {
+            file.seek(file.length());
+            file.write(new byte[] {0, 0, 0, 40, 1, 2});
+        }
+
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, 0)) {
+            assertEquals(secondLsn, wal.getEndLsn(), "Torn entry should be cut off");
+            List<LogRecord> records = wal.readFrom(0);
+            assertEquals(2, records.size());
+            assertEquals(firstLsn, records.get(0).getLsn());
+            assertEquals(LogRecord.Type.INSERT, records.get(0).getType());
+            assertEquals(block, records.get(0).getBlock());
+            assertArrayEquals(new byte[] {1, 2, 3}, records.get(0).getData());
+            assertEquals(LogRecord.Type.DELETE, records.get(1).getType());
+
+            assertEquals(1, wal.readFrom(firstLsn).size(), "Only records after the LSN are returned");
+        }
+    }
+
+    /**
+     * Channel over a real file whose positional writes can be made to fail after writing
+     * part of the buffer, as a full disk would.
+     */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        volatile boolean failWrites;
+
+        FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            if (failWrites) {
+                ByteBuffer half = src.duplicate();
+                half.limit(half.position() + half.remaining() / 2);
+                delegate.write(half, position);
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Records of a failed flush are written again by the next one, without a hole")
+    void testFailedFlushIsRetried() throws Exception {
+        File dir = tempDir.toFile();
+        Block block = new Block(FILE_NAME, 1);
+        Path path = new File(dir, WriteAheadLog.FILE_NAME).toPath();
+        FailingChannel channel = new FailingChannel(FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        long lastLsn;
+        try (WriteAheadLog wal = WriteAheadLog.open(path, channel, 0)) {
+            wal.append(LogRecord.Type.INSERT, block, 0, new byte[] {1});
+            wal.commit();
+
+            wal.append(LogRecord.Type.INSERT, block, 1, new byte[] {2, 2});
+            channel.failWrites = true;
+            assertThrows(IOException.class, wal::commit);
+            assertTrue(wal.getFlushedLsn() < wal.getEndLsn(), "Failed records are not durable");
+            wal.append(LogRecord.Type.INSERT, block, 2, new byte[] {3, 3, 3});
+            assertThrows(IOException.class, wal::commit);
+
+            channel.failWrites = false;
+            wal.append(LogRecord.Type.INSERT, block, 3, new byte[] {4});
+            wal.commit();
+            for (int slot = 4; slot < 8; slot++) {
+                wal.append(LogRecord.Type.INSERT, block, slot, new byte[] {(byte) (slot + 1)});
+                wal.commit();
+            }
+            lastLsn = wal.getEndLsn();
+            assertEquals(lastLsn, wal.getFlushedLsn());
+        }
+
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, 0)) {
+            assertEquals(lastLsn, wal.getEndLsn());
+            List<LogRecord> records = wal.readFrom(0);
+            assertEquals(8, records.size());
+            for (int slot = 0; slot < 8; slot++) {
+                assertEquals(slot, records.get(slot).getSlot());
+                assertEquals(slot + 1, records.get(slot).getData()[0]);
+            }
+            assertEquals(3, records.get(2).getData().length);
+        }
+    }
+
+    @Test
+    @DisplayName("A checkpoint with nothing logged after it empties the log but keeps LSNs growing")
+    void testCheckpointTruncates() throws Exception {
+        File dir = tempDir.toFile();
+        Block block = new Block(FILE_NAME, 0);
+        long lsn;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, 0)) {
+            for (int i = 0; i < 10; i++) {
+                wal.append(LogRecord.Type.INSERT, block, i, new byte[16]);
+            }
+            lsn = wal.getEndLsn();
+            wal.checkpoint(lsn);
+            assertEquals(lsn, wal.getCheckpointLsn());
+            assertTrue(wal.readFrom(lsn).isEmpty());
+        }
+        assertEquals(24, new File(dir, WriteAheadLog.FILE_NAME).length(), "Only the header should remain");
+
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, 0)) {
+            assertEquals(lsn, wal.getEndLsn());
+            long next = wal.append(LogRecord.Type.INSERT, block, 10, new byte[16]);
+            assertTrue(next > lsn, "LSNs must keep increasing across truncation");
+            wal.commit();
+            assertEquals(1, wal.readFrom(wal.getCheckpointLsn()).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Checkpoints under steady appends shrink the log and keep the records after them")
+    void testCheckpointReclaimsUnderLoad() throws Exception {
+        File dir = tempDir.toFile();
+        File logFile = new File(dir, WriteAheadLog.FILE_NAME);
+        Block block = new Block(FILE_NAME, 0);
+        List<Long> lsns = new ArrayList<>();
+        long redoLsn;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, 0)) {
+            for (int i = 0; i < 1000; i++) {
+                lsns.add(wal.append(LogRecord.Type.INSERT, block, i, new byte[64]));
+            }
+            wal.commit();
+            long fullSize = logFile.length();
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> writer = executor.submit(() -> {
+                    for (int i = 1000; i < 3000; i++) {
+                        long lsn = wal.append(LogRecord.Type.INSERT, block, i, new byte[64]);
+                        synchronized (lsns) {
+                            lsns.add(lsn);
+                        }
+                        wal.commit();
+                    }
+                    return null;
+                });
+                while (!writer.isDone()) {
+                    long lsn;
+                    synchronized (lsns) {
+                        lsn = lsns.get(lsns.size() - 10);
+                    }
+                    wal.checkpoint(lsn);
+                }
+                writer.get();
+            } finally {
+                executor.shutdownNow();
+            }
+            assertFalse(new File(dir, WriteAheadLog.FILE_NAME + ".tmp").exists());
+
+            redoLsn = lsns.get(2990);
+            wal.checkpoint(redoLsn);
+            assertTrue(logFile.length() < fullSize / 5,
+                "Log shrank from " + fullSize + " to " + logFile.length() + " bytes");
+            assertEquals(9, wal.readFrom(redoLsn).size());
+            long next = wal.append(LogRecord.Type.INSERT, block, 3000, new byte[64]);
+            wal.commit();
+            lsns.add(next);
+        }
+
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, 0)) {
+            assertEquals(redoLsn, wal.getCheckpointLsn());
+            List<LogRecord> records = wal.readFrom(wal.getCheckpointLsn());
+            assertEquals(10, records.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(lsns.get(2991 + i), records.get(i).getLsn());
+                assertEquals(2991 + i, records.get(i).getSlot());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent committers share fsyncs")
+    void testGroupCommit() throws Exception {
+        int threads = 8;
+        int commitsPerThread = 100;
+        Block block = new Block(FILE_NAME, 0);
+        try (WriteAheadLog wal = WriteAheadLog.open(tempDir.toFile(), 200)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int threadId = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < commitsPerThread; i++) {
+                        long lsn = wal.append(LogRecord.Type.INSERT, block, threadId, new byte[8]);
+                        wal.commit();
+                        assertTrue(wal.getFlushedLsn() >= lsn, "Commit returned before its record was durable");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            assertEquals(threads * commitsPerThread, wal.getCommits());
+            assertTrue(wal.getForces() < wal.getCommits(),
+                "Expected batched fsyncs, forces=" + wal.getForces() + " commits=" + wal.getCommits());
+            assertEquals(threads * commitsPerThread, wal.readFrom(0).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Writing back a page forces the log up to the page LSN first")
+    void testWalBeforeData() throws Exception {
+        File dir = tempDir.resolve("database").toFile();
+        BasicFileManager fileManager = new BasicFileManager(dir);
+        Files.createFile(dir.toPath().resolve(FILE_NAME));
+        Block block = fileManager.append(FILE_NAME);
+        BufferPool bufferPool = new BufferPool(4, fileManager, 1);
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, 0)) {
+            bufferPool.setWriteAheadLog(wal);
+            Page page = bufferPool.pinBlock(block);
+            SlottedRecordPage recordPage = new SlottedRecordPage(page, schema(), block, bufferPool);
+            assertTrue(recordPage.insert(new Object[] {1, "one"}));
+            long pageLsn = recordPage.getPageLsn();
+            bufferPool.unpinBlock(block);
+
+            assertEquals(wal.getEndLsn(), pageLsn);
+            assertTrue(wal.getFlushedLsn() < pageLsn, "Nothing should be forced before the write-back");
+            bufferPool.flushBlock(block);
+            assertTrue(wal.getFlushedLsn() >= pageLsn);
+        } finally {
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Recovery redoes logged changes that never reached the table file")
+    void testRecoveryRedo() throws Exception {
+        File dir = tempDir.resolve("database").toFile();
+        BasicFileManager fileManager = new BasicFileManager(dir);
+        Files.createFile(dir.toPath().resolve(FILE_NAME));
+        Block block = fileManager.append(FILE_NAME);
+
+        BufferPool bufferPool = new BufferPool(4, fileManager, 1);
+        WriteAheadLog wal = WriteAheadLog.open(dir, 0);
+        bufferPool.setWriteAheadLog(wal);
+        Page page = bufferPool.pinBlock(block);
+        SlottedRecordPage recordPage = new SlottedRecordPage(page, schema(), block, bufferPool);
+        for (int i = 0; i < 5; i++) {
+            recordPage.insert(new Object[] {i, "row" + i});
+        }
+        recordPage.update(1, new Object[] {1, "updated"});
+        recordPage.delete(3);
+        bufferPool.unpinBlock(block);
+        wal.commit();
+        // Crash: the dirty page is dropped without being written.
+        wal.close();
+        fileManager.close();
+
+        fileManager = new BasicFileManager(dir);
+        bufferPool = new BufferPool(4, fileManager, 1);
+        wal = WriteAheadLog.open(dir, 0);
+        try {
+            int applied = new RecoveryManager(wal, bufferPool, fileManager).recover();
+            assertEquals(7, applied);
+            assertEquals(wal.getEndLsn(), wal.getCheckpointLsn());
+
+            Page recovered = new Page();
+            fileManager.read(block, recovered);
+            SlottedRecordPage recoveredPage = new SlottedRecordPage(recovered, schema(), block, null);
+            assertEquals(5, recoveredPage.getRecordCount());
+            assertEquals("updated", recoveredPage.getRecord(1)[1]);
+            assertNull(recoveredPage.getRecord(3));
+            assertEquals(4, recoveredPage.getRecord(4)[0]);
+
+            assertEquals(0, new RecoveryManager(wal, bufferPool, fileManager).recover(),
+                "A second recovery has nothing left to replay");
+        } finally {
+            wal.close();
+            bufferPool.close();
+            fileManager.close();
+        }
+    }
+}